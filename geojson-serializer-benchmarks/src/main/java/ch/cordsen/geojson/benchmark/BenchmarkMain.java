@@ -0,0 +1,46 @@
+package ch.cordsen.geojson.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the {@link GCProfiler} enabled, reporting allocation rates and GC counts
+ * next to the scores.
+ * <p>All command line options of JMH are supported, e.g. a regular expression to select benchmarks:
+ * <pre>
+ *    java -jar geojson-serializer-benchmarks/target/benchmarks.jar FeatureBenchmark -p size=1000
+ * </pre>
+ */
+public class BenchmarkMain {
+
+   private BenchmarkMain() {
+      // static usage only
+   }
+
+   /**
+    * Runs the benchmarks.
+    *
+    * @param args the command line options of JMH
+    * @throws CommandLineOptionException for invalid options
+    * @throws RunnerException            if a benchmark fails
+    * @throws IOException                for exceptions while listing benchmarks or profilers
+    */
+   public static void main(String... args) throws CommandLineOptionException, RunnerException, IOException {
+      CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+      if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions.shouldListProfilers()) {
+         // delegate informational options to the default main
+         org.openjdk.jmh.Main.main(args);
+         return;
+      }
+      new Runner(new OptionsBuilder()
+         .parent(commandLineOptions)
+         .addProfiler(GCProfiler.class)
+         .build()).run();
+   }
+}
@@ -0,0 +1,75 @@
+package ch.cordsen.geojson.benchmark;
+
+import ch.cordsen.geojson.benchmark.model.Attractions;
+import ch.cordsen.geojson.serializer.GeoJsonOptions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a <em>FeatureCollection</em> of point or polygon features as textual JSON compared to CBOR, with
+ * full precision and with coordinates rounded to 6 decimal places.
+ * <p>The returned byte counts compare the size of the outputs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BinaryFormatBenchmark {
+
+   @Param({"1000", "100000"})
+   public int size;
+
+   @Param({"POINT", "POLYGON"})
+   public GeometryKind kind;
+
+   @Param({"JSON", "CBOR"})
+   public Format format;
+
+   private ObjectWriter writer;
+   private ObjectWriter precisionWriter;
+   private Attractions attractions;
+
+   /**
+    * The output formats.
+    */
+   public enum Format {
+
+      /**
+       * Textual JSON.
+       */
+      JSON,
+
+      /**
+       * CBOR by the {@link CBORFactory}.
+       */
+      CBOR
+   }
+
+   @Setup
+   public void setUp() {
+      writer = (format == Format.CBOR ? new ObjectMapper(new CBORFactory()) : new ObjectMapper()).writer();
+      precisionWriter = GeoJsonOptions.DEFAULT.withPrecision(6).applyTo(writer);
+      attractions = new Attractions(new SyntheticData(42).attractions(size, kind));
+   }
+
+   @Benchmark
+   public long serialize() throws IOException {
+      NullOutputStream out = new NullOutputStream();
+      writer.writeValue(out, attractions);
+      return out.getCount();
+   }
+
+   @Benchmark
+   public long serializeWithPrecision() throws IOException {
+      NullOutputStream out = new NullOutputStream();
+      precisionWriter.writeValue(out, attractions);
+      return out.getCount();
+   }
+}
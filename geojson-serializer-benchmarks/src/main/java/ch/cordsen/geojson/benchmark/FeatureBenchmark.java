@@ -0,0 +1,56 @@
+package ch.cordsen.geojson.benchmark;
+
+import ch.cordsen.geojson.benchmark.model.AttractionByField;
+import ch.cordsen.geojson.benchmark.model.AttractionByGetter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a single <em>Feature</em>, annotated on fields and on getters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureBenchmark {
+
+   @Param({"POINT", "POLYGON"})
+   public GeometryKind kind;
+
+   private ObjectWriter writer;
+   private AttractionByField attractionByField;
+   private AttractionByGetter attractionByGetter;
+
+   @Setup
+   public void setUp() {
+      SyntheticData data = new SyntheticData(42);
+      writer = new ObjectMapper().writer();
+      attractionByField = data.attractionByField(kind);
+      attractionByGetter = data.attractionByGetter(kind);
+   }
+
+   @Benchmark
+   public long serializeByField() throws IOException {
+      NullOutputStream out = new NullOutputStream();
+      writer.writeValue(out, attractionByField);
+      return out.getCount();
+   }
+
+   @Benchmark
+   public long serializeByGetter() throws IOException {
+      NullOutputStream out = new NullOutputStream();
+      writer.writeValue(out, attractionByGetter);
+      return out.getCount();
+   }
+
+   @Benchmark
+   public String serializeByFieldToString() throws IOException {
+      return writer.writeValueAsString(attractionByField);
+   }
+}
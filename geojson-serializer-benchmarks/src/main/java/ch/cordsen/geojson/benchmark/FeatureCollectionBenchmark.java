@@ -0,0 +1,64 @@
+package ch.cordsen.geojson.benchmark;
+
+import ch.cordsen.geojson.benchmark.model.Attractions;
+import ch.cordsen.geojson.serializer.GeoJsonOptions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a <em>FeatureCollection</em> of point or polygon features, sequentially, in parallel
+ * and with coordinates rounded to 6 decimal places.
+ * <p>The largest collections need a large heap, the forked JVM runs with 4 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FeatureCollectionBenchmark {
+
+   @Param({"1000", "100000", "1000000"})
+   public int size;
+
+   @Param({"POINT", "POLYGON"})
+   public GeometryKind kind;
+
+   private ObjectWriter writer;
+   private ObjectWriter parallelWriter;
+   private ObjectWriter precisionWriter;
+   private Attractions attractions;
+
+   @Setup
+   public void setUp() {
+      writer = new ObjectMapper().writer();
+      parallelWriter = GeoJsonOptions.DEFAULT.withParallel(true).applyTo(writer);
+      precisionWriter = GeoJsonOptions.DEFAULT.withPrecision(6).applyTo(writer);
+      attractions = new Attractions(new SyntheticData(42).attractions(size, kind));
+   }
+
+   @Benchmark
+   public long serialize() throws IOException {
+      NullOutputStream out = new NullOutputStream();
+      writer.writeValue(out, attractions);
+      return out.getCount();
+   }
+
+   @Benchmark
+   public long serializeParallel() throws IOException {
+      NullOutputStream out = new NullOutputStream();
+      parallelWriter.writeValue(out, attractions);
+      return out.getCount();
+   }
+
+   @Benchmark
+   public long serializeWithPrecision() throws IOException {
+      NullOutputStream out = new NullOutputStream();
+      precisionWriter.writeValue(out, attractions);
+      return out.getCount();
+   }
+}
@@ -0,0 +1,43 @@
+package ch.cordsen.geojson.benchmark;
+
+import ch.cordsen.geojson.benchmark.model.Route;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a <em>GeometryCollection</em> of points or polygons.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class GeometryCollectionBenchmark {
+
+   @Param({"1000", "100000"})
+   public int size;
+
+   @Param({"POINT", "POLYGON"})
+   public GeometryKind kind;
+
+   private ObjectWriter writer;
+   private Route route;
+
+   @Setup
+   public void setUp() {
+      writer = new ObjectMapper().writer();
+      route = new Route(new SyntheticData(42).geometries(size, kind));
+   }
+
+   @Benchmark
+   public long serialize() throws IOException {
+      NullOutputStream out = new NullOutputStream();
+      writer.writeValue(out, route);
+      return out.getCount();
+   }
+}
@@ -0,0 +1,17 @@
+package ch.cordsen.geojson.benchmark;
+
+/**
+ * The kind of geometries created by {@link SyntheticData}.
+ */
+public enum GeometryKind {
+
+   /**
+    * A point with <em>x</em> and <em>y</em>.
+    */
+   POINT,
+
+   /**
+    * A polygon with a closed exterior ring of {@link SyntheticData#POLYGON_VERTICES} vertices and no holes.
+    */
+   POLYGON
+}
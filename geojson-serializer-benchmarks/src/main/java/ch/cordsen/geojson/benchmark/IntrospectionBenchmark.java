@@ -0,0 +1,44 @@
+package ch.cordsen.geojson.benchmark;
+
+import ch.cordsen.geojson.benchmark.model.AttractionByField;
+import ch.cordsen.geojson.benchmark.model.AttractionByGetter;
+import ch.cordsen.geojson.document.Document;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.introspection.IntrospectionDocumentFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IntrospectionDocumentFactory#from(Object)} alone, without any JSON output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntrospectionBenchmark {
+
+   private IntrospectionDocumentFactory factory;
+   private AttractionByField attractionByField;
+   private AttractionByGetter attractionByGetter;
+
+   @Setup
+   public void setUp() {
+      SyntheticData data = new SyntheticData(42);
+      factory = new IntrospectionDocumentFactory();
+      attractionByField = data.attractionByField(GeometryKind.POINT);
+      attractionByGetter = data.attractionByGetter(GeometryKind.POINT);
+   }
+
+   @Benchmark
+   public Document fromByField() throws DocumentFactoryException {
+      return factory.from(attractionByField);
+   }
+
+   @Benchmark
+   public Document fromByGetter() throws DocumentFactoryException {
+      return factory.from(attractionByGetter);
+   }
+}
@@ -0,0 +1,34 @@
+package ch.cordsen.geojson.benchmark;
+
+import java.io.OutputStream;
+
+/**
+ * Discards the output and counts the bytes, so the benchmarks measure the serialization and not the sink.
+ */
+class NullOutputStream extends OutputStream {
+
+   private long count;
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void write(int b) {
+      count++;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void write(byte[] b, int off, int len) {
+      count += len;
+   }
+
+   /**
+    * Returns the number of bytes written so far.
+    *
+    * @return the number of bytes
+    */
+   long getCount() {
+      return count;
+   }
+}
@@ -0,0 +1,150 @@
+package ch.cordsen.geojson.benchmark;
+
+import ch.cordsen.geojson.benchmark.model.AttractionByField;
+import ch.cordsen.geojson.benchmark.model.AttractionByGetter;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generator of synthetic, but reproducible features and geometries for the benchmarks.
+ * <p>The same seed creates the same data. Coordinates are random WGS 84 longitudes and latitudes with full
+ * precision, names and descriptions are short strings numbered by the index of the feature.
+ */
+public class SyntheticData {
+
+   /**
+    * The number of distinct vertices of a generated polygon, the ring is closed by repeating the first one.
+    */
+   public static final int POLYGON_VERTICES = 6;
+
+   private static final double POLYGON_RADIUS = 0.001;
+
+   private final GeometryFactory geometryFactory = new GeometryFactory();
+   private final Random random;
+   private int index;
+
+   /**
+    * Constructor
+    *
+    * @param seed the seed of the random generator
+    */
+   public SyntheticData(long seed) {
+      this.random = new Random(seed);
+   }
+
+   /**
+    * Returns a list of features annotated on fields.
+    *
+    * @param size the number of features
+    * @param kind the kind of the geometries
+    * @return the features
+    */
+   public List<AttractionByField> attractions(int size, GeometryKind kind) {
+      List<AttractionByField> attractions = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+         attractions.add(attractionByField(kind));
+      }
+      return attractions;
+   }
+
+   /**
+    * Returns a feature annotated on fields.
+    *
+    * @param kind the kind of the geometry
+    * @return the feature
+    */
+   public AttractionByField attractionByField(GeometryKind kind) {
+      int number = index++;
+      return new AttractionByField(uuid(), "Attraction " + number, "Description of attraction " + number, geometry(kind));
+   }
+
+   /**
+    * Returns a feature annotated on getters.
+    *
+    * @param kind the kind of the geometry
+    * @return the feature
+    */
+   public AttractionByGetter attractionByGetter(GeometryKind kind) {
+      int number = index++;
+      return new AttractionByGetter(uuid(), "Attraction " + number, "Description of attraction " + number, geometry(kind));
+   }
+
+   /**
+    * Returns a list of geometries.
+    *
+    * @param size the number of geometries
+    * @param kind the kind of the geometries
+    * @return the geometries
+    */
+   public List<Geometry> geometries(int size, GeometryKind kind) {
+      List<Geometry> geometries = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+         geometries.add(geometry(kind));
+      }
+      return geometries;
+   }
+
+   /**
+    * Returns a geometry.
+    *
+    * @param kind the kind of the geometry
+    * @return the geometry
+    */
+   public Geometry geometry(GeometryKind kind) {
+      switch (kind) {
+         case POINT:
+            return point();
+         case POLYGON:
+            return polygon();
+         default:
+            throw new IllegalArgumentException("Unsupported GeometryKind: " + kind);
+      }
+   }
+
+   /**
+    * Returns a point at a random location.
+    *
+    * @return the point
+    */
+   public Point point() {
+      return geometryFactory.createPoint(new Coordinate(longitude(), latitude()));
+   }
+
+   /**
+    * Returns a small, convex polygon around a random location.
+    *
+    * @return the polygon
+    */
+   public Polygon polygon() {
+      double x = longitude();
+      double y = latitude();
+      Coordinate[] ring = new Coordinate[POLYGON_VERTICES + 1];
+      for (int i = 0; i < POLYGON_VERTICES; i++) {
+         double angle = 2 * Math.PI * i / POLYGON_VERTICES;
+         double radius = POLYGON_RADIUS * (0.5 + random.nextDouble());
+         ring[i] = new Coordinate(x + radius * Math.cos(angle), y + radius * Math.sin(angle));
+      }
+      ring[POLYGON_VERTICES] = new Coordinate(ring[0]);
+      return geometryFactory.createPolygon(ring);
+   }
+
+   private UUID uuid() {
+      return new UUID(random.nextLong(), random.nextLong());
+   }
+
+   private double longitude() {
+      return random.nextDouble() * 360 - 180;
+   }
+
+   private double latitude() {
+      return random.nextDouble() * 170 - 85;
+   }
+}
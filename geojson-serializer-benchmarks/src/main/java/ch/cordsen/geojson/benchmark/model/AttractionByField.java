@@ -0,0 +1,32 @@
+package ch.cordsen.geojson.benchmark.model;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.serializer.GeoJsonSerializer;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.UUID;
+
+/**
+ * <em>Feature</em> based on field annotations, like the test example of the same name.
+ */
+@GeoJson(type = GeoJsonType.FEATURE)
+@JsonSerialize(using = GeoJsonSerializer.class)
+public class AttractionByField {
+
+   @GeoJsonId private final UUID id;
+   @GeoJsonProperty private final String name;
+   @GeoJsonProperty private final String description;
+   @GeoJsonGeometry private final Geometry geometry;
+
+   public AttractionByField(UUID id, String name, String description, Geometry geometry) {
+      this.id = id;
+      this.name = name;
+      this.description = description;
+      this.geometry = geometry;
+   }
+}
@@ -0,0 +1,52 @@
+package ch.cordsen.geojson.benchmark.model;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.serializer.GeoJsonSerializer;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.UUID;
+
+/**
+ * <em>Feature</em> based on getter annotations, with the same content as {@link AttractionByField}.
+ */
+@GeoJson(type = GeoJsonType.FEATURE)
+@JsonSerialize(using = GeoJsonSerializer.class)
+public class AttractionByGetter {
+
+   private final UUID id;
+   private final String name;
+   private final String description;
+   private final Geometry geometry;
+
+   public AttractionByGetter(UUID id, String name, String description, Geometry geometry) {
+      this.id = id;
+      this.name = name;
+      this.description = description;
+      this.geometry = geometry;
+   }
+
+   @GeoJsonId
+   public UUID getId() {
+      return id;
+   }
+
+   @GeoJsonProperty
+   public String getName() {
+      return name;
+   }
+
+   @GeoJsonProperty
+   public String getDescription() {
+      return description;
+   }
+
+   @GeoJsonGeometry
+   public Geometry getGeometry() {
+      return geometry;
+   }
+}
@@ -0,0 +1,23 @@
+package ch.cordsen.geojson.benchmark.model;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.serializer.GeoJsonSerializer;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+
+/**
+ * <em>FeatureCollection</em> based on a {@link List} field.
+ */
+@GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+@JsonSerialize(using = GeoJsonSerializer.class)
+public class Attractions {
+
+   @GeoJsonFeatures private final List<AttractionByField> attractions;
+
+   public Attractions(List<AttractionByField> attractions) {
+      this.attractions = attractions;
+   }
+}
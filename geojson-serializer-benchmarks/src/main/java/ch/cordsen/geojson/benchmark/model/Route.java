@@ -0,0 +1,24 @@
+package ch.cordsen.geojson.benchmark.model;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.serializer.GeoJsonSerializer;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.List;
+
+/**
+ * <em>GeometryCollection</em> based on a {@link List} field.
+ */
+@GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+@JsonSerialize(using = GeoJsonSerializer.class)
+public class Route {
+
+   @GeoJsonGeometries private final List<Geometry> geometries;
+
+   public Route(List<Geometry> geometries) {
+      this.geometries = geometries;
+   }
+}
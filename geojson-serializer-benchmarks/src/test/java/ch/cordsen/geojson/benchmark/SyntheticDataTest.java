@@ -0,0 +1,47 @@
+package ch.cordsen.geojson.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SyntheticData}.
+ */
+class SyntheticDataTest {
+
+   @Test
+   void shouldCreateSameDataForSameSeed() {
+      assertThat(new SyntheticData(42).geometries(10, GeometryKind.POLYGON))
+         .isEqualTo(new SyntheticData(42).geometries(10, GeometryKind.POLYGON));
+   }
+
+   @Test
+   void shouldCreatePoints() {
+      List<Geometry> geometries = new SyntheticData(42).geometries(100, GeometryKind.POINT);
+      assertThat(geometries).hasSize(100).allSatisfy(geometry -> {
+         assertThat(geometry).isInstanceOf(Point.class);
+         assertThat(geometry.getCoordinate().x).isBetween(-180.0, 180.0);
+         assertThat(geometry.getCoordinate().y).isBetween(-85.0, 85.0);
+      });
+   }
+
+   @Test
+   void shouldCreateValidPolygons() {
+      List<Geometry> geometries = new SyntheticData(42).geometries(100, GeometryKind.POLYGON);
+      assertThat(geometries).hasSize(100).allSatisfy(geometry -> {
+         assertThat(geometry).isInstanceOf(Polygon.class);
+         assertThat(geometry.getNumPoints()).isEqualTo(SyntheticData.POLYGON_VERTICES + 1);
+         assertThat(geometry.isValid()).isTrue();
+      });
+   }
+
+   @Test
+   void shouldCreateFeatures() {
+      assertThat(new SyntheticData(42).attractions(5, GeometryKind.POINT)).hasSize(5).doesNotContainNull();
+   }
+}
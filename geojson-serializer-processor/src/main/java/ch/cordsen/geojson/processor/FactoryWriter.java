@@ -0,0 +1,246 @@
+package ch.cordsen.geojson.processor;
+
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.processor.GeoJsonProcessor.Plan;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Writes the Java source of a {@link ch.cordsen.geojson.document.StreamingDocumentFactory} planned by {@link GeoJsonProcessor}.
+ * <p>The generated factory reads the annotated members directly and pushes them into the sink like the
+ * {@link ch.cordsen.geojson.introspection.IntrospectionDocumentFactory}, the document is built from the sink. All types are fully qualified
+ * to avoid conflicts with the names in the package of the annotated class.
+ */
+class FactoryWriter {
+
+   private static final String STREAMING_DOCUMENT_FACTORY = "ch.cordsen.geojson.document.StreamingDocumentFactory";
+   private static final String SINK = "ch.cordsen.geojson.document.DocumentSink";
+   private static final String EXCEPTION = "ch.cordsen.geojson.document.DocumentFactoryException";
+   private static final String GEOMETRIES = "ch.cordsen.geojson.document.Geometries";
+   private static final String ELEMENTS = "ch.cordsen.geojson.document.Elements";
+
+   private final ProcessingEnvironment processingEnv;
+   private final Plan plan;
+   private final String packageName;
+   private final String simpleName;
+   private final String typeName;
+   private final StringBuilder source = new StringBuilder();
+   private int indent;
+
+   /**
+    * Constructor
+    *
+    * @param processingEnv the processing environment
+    * @param plan          the valid plan of the annotated class
+    * @param factoryName   the fully qualified name of the factory to generate
+    */
+   FactoryWriter(ProcessingEnvironment processingEnv, Plan plan, String factoryName) {
+      this.processingEnv = processingEnv;
+      this.plan = plan;
+      int lastDot = factoryName.lastIndexOf('.');
+      this.packageName = lastDot < 0 ? "" : factoryName.substring(0, lastDot);
+      this.simpleName = factoryName.substring(lastDot + 1);
+      this.typeName = processingEnv.getTypeUtils().erasure(plan.type.asType()).toString();
+   }
+
+   /**
+    * Writes the source of the factory.
+    *
+    * @param writer the writer of the source file
+    * @throws IOException if writing fails
+    */
+   void write(Writer writer) throws IOException {
+      if (!packageName.isEmpty()) {
+         line("package " + packageName + ";");
+         line("");
+      }
+      line("/**");
+      line(" * {@link " + STREAMING_DOCUMENT_FACTORY + "} for {@link " + typeName + "}.");
+      line(" * <p>Generated by {@link ch.cordsen.geojson.processor.GeoJsonProcessor}, do not edit.");
+      line(" */");
+      open("public final class " + simpleName + " implements " + STREAMING_DOCUMENT_FACTORY + " {");
+      line("");
+      line("/**");
+      line(" * Constructor for reflection.");
+      line(" */");
+      open("public " + simpleName + "() {");
+      line("// for reflection only");
+      close("}");
+      line("");
+      line("/**");
+      line(" * {@inheritDoc}");
+      line(" */");
+      line("@Override");
+      open("public ch.cordsen.geojson.document.Document from(Object object) throws " + EXCEPTION + " {");
+      line("ch.cordsen.geojson.document.DocumentBuilder builder = new ch.cordsen.geojson.document.DocumentBuilder();");
+      open("try {");
+      line("write(object, builder);");
+      close("} catch (java.io.IOException e) {");
+      indent++;
+      line("throw new " + EXCEPTION + "(\"Document creation failed: object=\" + object, e);");
+      close("}");
+      line("return builder.build();");
+      close("}");
+      line("");
+      line("/**");
+      line(" * {@inheritDoc}");
+      line(" */");
+      line("@Override");
+      open("public void write(Object object, " + SINK + " sink) throws " + EXCEPTION + ", java.io.IOException {");
+      open("if (object == null) {");
+      line("throw new " + EXCEPTION + "(\"Object is null.\");");
+      close("}");
+      open("if (!(object instanceof " + typeName + ")) {");
+      line("throw new " + EXCEPTION + "(\"Object is not of type " + typeName + ": \" + object.getClass());");
+      close("}");
+      line("final " + typeName + " source = (" + typeName + ") object;");
+      switch (plan.geoJsonType) {
+         case FEATURE:
+            writeFeature();
+            break;
+         case FEATURE_COLLECTION:
+            writeFeatureCollection();
+            break;
+         case GEOMETRY_COLLECTION:
+            writeGeometryCollection();
+            break;
+         default:
+            throw new IllegalStateException("Unsupported GeoJsonType: " + plan.geoJsonType);
+      }
+      close("}");
+      close("}");
+      writer.write(source.toString());
+   }
+
+   private void writeFeature() {
+      List<Member> propertyList = new ArrayList<>(plan.propertyMap.values());
+      List<String> propertyNames = new ArrayList<>(plan.propertyMap.keySet());
+      readValues(asList(plan.id, plan.geometry, plan.properties), propertyList);
+      line("sink.beginFeature();");
+      if (plan.id != null) {
+         line("sink.id(value0);");
+      }
+      if (plan.geometry != null) {
+         writeGeometry("value1", plan.geometry);
+      } else {
+         line("sink.geometry(null);");
+      }
+      if (plan.properties != null) {
+         line("sink.properties(value2);");
+      } else if (!propertyList.isEmpty()) {
+         line("sink.beginProperties();");
+         for (int i = 0; i < propertyList.size(); i++) {
+            line("sink.property(" + literal(propertyNames.get(i)) + ", value" + (i + 3) + ");");
+         }
+         line("sink.endProperties();");
+      } else {
+         line("sink.properties(null);");
+      }
+      line("sink.endFeature();");
+   }
+
+   private void writeFeatureCollection() {
+      List<Member> featureList = plan.featureList;
+      readValues(singletonList(plan.features), featureList);
+      line("sink.beginFeatureCollection();");
+      if (plan.features != null) {
+         line(ELEMENTS + ".forEach(sink.filterFeatures(value0), " + literal(plan.features.getDescription()) + ", sink::feature);");
+      }
+      for (int i = 0; i < featureList.size(); i++) {
+         open("if (value" + (i + 1) + " != null) {");
+         line("sink.feature(value" + (i + 1) + ");");
+         close("}");
+      }
+      line("sink.endFeatureCollection();");
+   }
+
+   private void writeGeometryCollection() {
+      List<Member> geometryList = plan.geometryList;
+      readValues(singletonList(plan.geometries), geometryList);
+      line("sink.beginGeometryCollection();");
+      if (plan.geometries != null) {
+         line(ELEMENTS + ".forEach(value0, " + literal(plan.geometries.getDescription()) + ",");
+         line("   element -> " + ELEMENTS + ".writeGeometry(element, " + literal(plan.geometries.getDescription()) + ", sink));");
+      }
+      for (int i = 0; i < geometryList.size(); i++) {
+         int index = i + 1;
+         open("if (value" + index + " != null) {");
+         writeGeometry("value" + index, geometryList.get(i));
+         close("}");
+      }
+      line("sink.endGeometryCollection();");
+   }
+
+   /**
+    * Writes the statement pushing a geometry value into the sink, pre-encoded GeoJSON as raw geometry, checked unless
+    * {@link GeoJsonGeometry#validate()} is off.
+    *
+    * @param value  the local holding the value
+    * @param member the member annotated with {@link ch.cordsen.geojson.annotation.GeoJsonGeometry}
+    */
+   private void writeGeometry(String value, Member member) {
+      GeoJsonGeometry annotation = member.getElement().getAnnotation(GeoJsonGeometry.class);
+      if (annotation != null && annotation.raw()) {
+         line(GEOMETRIES + ".writeRaw(" + value + ", " + literal(member.getDescription()) + ", " + annotation.validate() + ", sink);");
+      } else {
+         line(GEOMETRIES + ".write(" + value + ", " + literal(member.getDescription()) + ", sink);");
+      }
+   }
+
+   /**
+    * Writes the declaration of the locals <code>value0</code>, <code>value1</code> and so on, read from
+    * the optional members first and then from the list of members.
+    * <p>The values are read before anything is pushed into the sink, thus exceptions of getters are
+    * distinguishable from exceptions of the sink.
+    *
+    * @param optionalMembers the optional members, <code>null</code> if absent
+    * @param memberList      the list of members
+    */
+   private void readValues(List<Member> optionalMembers, List<Member> memberList) {
+      List<Member> members = new ArrayList<>(optionalMembers);
+      members.addAll(memberList);
+      for (int i = 0; i < members.size(); i++) {
+         line("final Object value" + i + ";");
+      }
+      open("try {");
+      for (int i = 0; i < members.size(); i++) {
+         Member member = members.get(i);
+         line("value" + i + " = " + (member == null ? "null" : member.valueExpression("source")) + ";");
+      }
+      close("} catch (Exception e) {");
+      indent++;
+      line("throw new " + EXCEPTION + "(\"Value retrieval failed: object=\" + object, e);");
+      close("}");
+   }
+
+   private String literal(String value) {
+      return processingEnv.getElementUtils().getConstantExpression(value);
+   }
+
+   private void open(String text) {
+      line(text);
+      indent++;
+   }
+
+   private void close(String text) {
+      indent--;
+      line(text);
+   }
+
+   private void line(String text) {
+      if (!text.isEmpty()) {
+         for (int i = 0; i < indent; i++) {
+            source.append("   ");
+         }
+         source.append(text);
+      }
+      source.append('\n');
+   }
+}
@@ -0,0 +1,366 @@
+package ch.cordsen.geojson.processor;
+
+import ch.cordsen.geojson.annotation.*;
+import ch.cordsen.geojson.document.GeneratedDocumentFactories;
+import ch.cordsen.geojson.introspection.IntrospectionDocumentFactory;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Annotation processor generating a {@link ch.cordsen.geojson.document.DocumentFactory} for each class
+ * annotated with {@link GeoJson}.
+ * <p>The rules {@link IntrospectionDocumentFactory} enforces at runtime, like mutually exclusive annotations or
+ * annotations present multiple times, are reported as compile errors with the same messages.
+ * <p>The members are found the same way as at runtime: declared fields and public getters ("Bean Property")
+ * including inherited ones. A factory is not generated if the class uses a custom factory, or if the class or
+ * one of its annotated members is private. Such classes are left to the {@link IntrospectionDocumentFactory}.
+ * <p>The generated factory is named according to {@link GeneratedDocumentFactories} and picked up by the
+ * {@link ch.cordsen.geojson.serializer.GeoJsonSerializer} at runtime.
+ */
+@SupportedAnnotationTypes("ch.cordsen.geojson.annotation.GeoJson")
+public class GeoJsonProcessor extends AbstractProcessor {
+
+   private static final List<Class<? extends Annotation>> annotationClasses = asList(
+      GeoJsonId.class,
+      GeoJsonVersion.class,
+      GeoJsonGeometry.class,
+      GeoJsonGeometries.class,
+      GeoJsonProperty.class,
+      GeoJsonProperties.class,
+      GeoJsonFeature.class,
+      GeoJsonFeatures.class
+   );
+
+   /**
+    * Constructor for the service loader.
+    */
+   public GeoJsonProcessor() {
+      // for the service loader only
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(GeoJson.class)) {
+         if (element.getKind() == ElementKind.CLASS || element.getKind() == ElementKind.ENUM) {
+            process((TypeElement) element);
+         }
+      }
+      // other processors may claim the annotations as well
+      return false;
+   }
+
+   private void process(TypeElement type) {
+      if (!usesDefaultFactory(type)) {
+         // a custom factory has its own rules
+         return;
+      }
+      Plan plan = new Plan(type, type.getAnnotation(GeoJson.class).type());
+      Map<String, List<Member>> index = index(type);
+      switch (plan.geoJsonType) {
+         case FEATURE:
+            planFeature(plan, index);
+            break;
+         case FEATURE_COLLECTION:
+            planFeatureCollection(plan, index);
+            break;
+         case GEOMETRY_COLLECTION:
+            planGeometryCollection(plan, index);
+            break;
+         default:
+            error(type, "Unsupported GeoJsonType: " + plan.geoJsonType);
+            return;
+      }
+      if (plan.valid) {
+         generate(plan);
+      }
+   }
+
+   private void planFeature(Plan plan, Map<String, List<Member>> index) {
+      plan.id = oneOrNull(plan, index, GeoJsonId.class);
+      // not written by the factory, but checked like at runtime
+      oneOrNull(plan, index, GeoJsonVersion.class);
+      plan.geometry = oneOrNull(plan, index, GeoJsonGeometry.class);
+
+      Member propertiesMember = oneOrNull(plan, index, GeoJsonProperties.class);
+      List<Member> propertyMembers = members(index, GeoJsonProperty.class);
+      if (propertiesMember != null && !propertyMembers.isEmpty()) {
+         String descriptions = propertiesMember.getDescription() + ", " +
+            propertyMembers.stream().map(Member::getDescription).collect(joining(", "));
+         error(plan, "Annotations @GeoJsonProperties and @GeoJsonProperty are mutually exclusive: " + descriptions);
+      }
+      plan.properties = propertiesMember;
+      for (Member member : propertyMembers) {
+         // a later member with the same name takes the place of the earlier one, as at runtime
+         plan.propertyMap.put(propertyName(member), member);
+      }
+   }
+
+   private void planFeatureCollection(Plan plan, Map<String, List<Member>> index) {
+      Member featuresMember = oneOrNull(plan, index, GeoJsonFeatures.class);
+      List<Member> featureMembers = members(index, GeoJsonFeature.class);
+      if (featuresMember != null && !featureMembers.isEmpty()) {
+         String descriptions = featuresMember.getDescription() + ", " +
+            featureMembers.stream().map(Member::getDescription).collect(joining(", "));
+         error(plan, "Annotations @GeoJsonFeatures and @GeoJsonFeature are mutually exclusive: " + descriptions);
+      }
+      plan.features = featuresMember;
+      plan.featureList.addAll(featureMembers);
+   }
+
+   private void planGeometryCollection(Plan plan, Map<String, List<Member>> index) {
+      Member geometriesMember = oneOrNull(plan, index, GeoJsonGeometries.class);
+      List<Member> geometryMembers = members(index, GeoJsonGeometry.class);
+      if (geometriesMember != null && !geometryMembers.isEmpty()) {
+         String descriptions = geometriesMember.getDescription() + ", " +
+            geometryMembers.stream().map(Member::getDescription).collect(joining(", "));
+         error(plan, "Annotations @GeoJsonGeometries and @GeoJsonGeometry are mutually exclusive: " + descriptions);
+      }
+      plan.geometries = geometriesMember;
+      plan.geometryList.addAll(geometryMembers);
+   }
+
+   private Member oneOrNull(Plan plan, Map<String, List<Member>> index, Class<? extends Annotation> annotationClass) {
+      List<Member> members = members(index, annotationClass);
+      if (members.isEmpty()) {
+         return null;
+      } else if (members.size() > 1) {
+         String descriptions = members.stream().map(Member::getDescription).collect(joining(", "));
+         error(plan, "Annotation @" + annotationClass.getSimpleName() + " is present multiple times: " + descriptions);
+         return null;
+      } else {
+         return members.get(0);
+      }
+   }
+
+   private static List<Member> members(Map<String, List<Member>> index, Class<? extends Annotation> annotationClass) {
+      return index.getOrDefault(annotationClass.getName(), Collections.emptyList());
+   }
+
+   private void generate(Plan plan) {
+      String reason = inaccessibility(plan);
+      if (reason != null) {
+         processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+            "No DocumentFactory generated, the class is introspected at runtime: " + reason, plan.type);
+         return;
+      }
+      String binaryName = processingEnv.getElementUtils().getBinaryName(plan.type).toString();
+      String factoryName = GeneratedDocumentFactories.nameOf(binaryName);
+      try {
+         JavaFileObject file = processingEnv.getFiler().createSourceFile(factoryName, plan.type);
+         try (Writer writer = file.openWriter()) {
+            new FactoryWriter(processingEnv, plan, factoryName).write(writer);
+         }
+      } catch (IOException e) {
+         error(plan, "Generation of " + factoryName + " failed: " + e);
+      }
+   }
+
+   /**
+    * Returns why the generated factory, located in the same package, cannot access the class or its members.
+    *
+    * @param plan the plan
+    * @return the reason, or <code>null</code> if everything is accessible
+    */
+   private static String inaccessibility(Plan plan) {
+      for (Element element = plan.type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+         TypeElement typeElement = (TypeElement) element;
+         if (typeElement.getModifiers().contains(Modifier.PRIVATE)
+            || typeElement.getNestingKind() == NestingKind.LOCAL
+            || typeElement.getNestingKind() == NestingKind.ANONYMOUS) {
+            return typeElement.getQualifiedName() + " is not accessible";
+         }
+      }
+      for (Member member : plan.members()) {
+         if (!member.isAccessible()) {
+            return member.getDescription() + " is private";
+         }
+      }
+      return null;
+   }
+
+   private boolean usesDefaultFactory(TypeElement type) {
+      for (AnnotationMirror mirror : processingEnv.getElementUtils().getAllAnnotationMirrors(type)) {
+         if (isAnnotation(mirror, GeoJson.class)) {
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+               : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+               if (entry.getKey().getSimpleName().contentEquals("factory")) {
+                  TypeMirror factory = (TypeMirror) entry.getValue().getValue();
+                  return processingEnv.getTypeUtils().erasure(factory).toString().equals(IntrospectionDocumentFactory.class.getName());
+               }
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Indexes the annotated members by the qualified name of their GeoJson annotations, fields first,
+    * then getters ordered by property name as the {@link java.beans.BeanInfo} does.
+    *
+    * @param type the annotated class
+    * @return the index
+    */
+   private Map<String, List<Member>> index(TypeElement type) {
+      List<Member> members = new ArrayList<>();
+      for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+         List<AnnotationMirror> annotations = geoJsonAnnotations(field);
+         if (!annotations.isEmpty()) {
+            members.add(new Member(field.getSimpleName().toString(), field, field.asType(), annotations));
+         }
+      }
+      SortedMap<String, Member> getters = new TreeMap<>();
+      for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+         List<AnnotationMirror> annotations = geoJsonAnnotations(method);
+         if (annotations.isEmpty()) {
+            continue;
+         }
+         String propertyName = propertyName(method);
+         if (propertyName == null) {
+            warning(method, "Annotated method is ignored, only public getters are supported: " + method);
+         } else {
+            getters.put(propertyName, new Member(propertyName, method, method.getReturnType(), annotations));
+         }
+      }
+      members.addAll(getters.values());
+
+      Map<String, List<Member>> index = new HashMap<>();
+      for (Member member : members) {
+         for (AnnotationMirror annotation : member.getAnnotations()) {
+            String annotationName = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+            index.computeIfAbsent(annotationName, k -> new ArrayList<>()).add(member);
+         }
+      }
+      return index;
+   }
+
+   /**
+    * Returns the property name of a getter like {@link Introspector} does.
+    *
+    * @param method the method
+    * @return the property name, or <code>null</code> if the method is not a getter
+    */
+   private static String propertyName(ExecutableElement method) {
+      Set<Modifier> modifiers = method.getModifiers();
+      if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) || !method.getParameters().isEmpty()) {
+         return null;
+      }
+      String name = method.getSimpleName().toString();
+      TypeKind returnKind = method.getReturnType().getKind();
+      if (name.startsWith("get") && name.length() > 3 && returnKind != TypeKind.VOID) {
+         return Introspector.decapitalize(name.substring(3));
+      } else if (name.startsWith("is") && name.length() > 2 && returnKind == TypeKind.BOOLEAN) {
+         return Introspector.decapitalize(name.substring(2));
+      }
+      return null;
+   }
+
+   /**
+    * Returns the key of a property, the annotation's attribute {@link GeoJsonProperty#name()} if set.
+    *
+    * @param member the member annotated with {@link GeoJsonProperty}
+    * @return the name of the property
+    */
+   private static String propertyName(Member member) {
+      GeoJsonProperty annotation = member.getElement().getAnnotation(GeoJsonProperty.class);
+      if (annotation != null && !isBlank(annotation.name())) {
+         return annotation.name();
+      }
+      return member.getName();
+   }
+
+   private static List<AnnotationMirror> geoJsonAnnotations(Element element) {
+      return element.getAnnotationMirrors().stream()
+         .filter(mirror -> annotationClasses.stream().anyMatch(annotationClass -> isAnnotation(mirror, annotationClass)))
+         .collect(toList());
+   }
+
+   private static boolean isAnnotation(AnnotationMirror mirror, Class<? extends Annotation> annotationClass) {
+      return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationClass.getName());
+   }
+
+   private void error(Plan plan, String message) {
+      plan.valid = false;
+      error(plan.type, message);
+   }
+
+   private void error(Element element, String message) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+   }
+
+   private void warning(Element element, String message) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+   }
+
+   /**
+    * Mutable state while planning the factory of a class.
+    */
+   static final class Plan {
+
+      final TypeElement type;
+      final GeoJsonType geoJsonType;
+      boolean valid = true;
+      Member id;
+      Member geometry;
+      Member properties;
+      final Map<String, Member> propertyMap = new LinkedHashMap<>();
+      Member features;
+      final List<Member> featureList = new ArrayList<>();
+      Member geometries;
+      final List<Member> geometryList = new ArrayList<>();
+
+      /**
+       * Constructor
+       */
+      Plan(TypeElement type, GeoJsonType geoJsonType) {
+         this.type = type;
+         this.geoJsonType = geoJsonType;
+      }
+
+      /**
+       * Returns all members used by the factory.
+       *
+       * @return the members
+       */
+      List<Member> members() {
+         List<Member> members = new ArrayList<>();
+         for (Member member : asList(id, geometry, properties, features, geometries)) {
+            if (member != null) {
+               members.add(member);
+            }
+         }
+         members.addAll(propertyMap.values());
+         members.addAll(featureList);
+         members.addAll(geometryList);
+         return members;
+      }
+   }
+}
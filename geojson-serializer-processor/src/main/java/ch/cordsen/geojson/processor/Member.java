@@ -0,0 +1,102 @@
+package ch.cordsen.geojson.processor;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import java.util.List;
+
+/**
+ * Represents an annotated field or getter found at compile time, the counterpart of
+ * {@link ch.cordsen.geojson.introspection.Annotated} found at runtime.
+ */
+class Member {
+
+   private final String name;
+   private final Element element;
+   private final TypeMirror type;
+   private final List<AnnotationMirror> annotations;
+
+   /**
+    * Constructor
+    */
+   Member(String name, Element element, TypeMirror type, List<AnnotationMirror> annotations) {
+      this.name = name;
+      this.element = element;
+      this.type = type;
+      this.annotations = annotations;
+   }
+
+   /**
+    * Returns the name of the field or the property name of the getter.
+    *
+    * @return the name
+    */
+   String getName() {
+      return name;
+   }
+
+   /**
+    * Returns the field or getter element, used to locate messages.
+    *
+    * @return the element
+    */
+   Element getElement() {
+      return element;
+   }
+
+   /**
+    * Returns the type of the field or the return type of the getter.
+    *
+    * @return the type
+    */
+   TypeMirror getType() {
+      return type;
+   }
+
+   /**
+    * Returns the GeoJson annotations of the member.
+    *
+    * @return the annotations
+    */
+   List<AnnotationMirror> getAnnotations() {
+      return annotations;
+   }
+
+   /**
+    * Returns a description to be identified in messages.
+    *
+    * @return a description
+    */
+   String getDescription() {
+      String owner = ((TypeElement) element.getEnclosingElement()).getQualifiedName().toString();
+      return owner + "." + element.getSimpleName() + (element.getKind() == ElementKind.METHOD ? "()" : "");
+   }
+
+   /**
+    * Returns whether the member can be accessed from a class in the same package.
+    *
+    * @return <code>true</code> if the member is not private
+    */
+   boolean isAccessible() {
+      return !element.getModifiers().contains(Modifier.PRIVATE);
+   }
+
+   /**
+    * Returns the Java expression reading the value of this member.
+    *
+    * @param source the expression of the object
+    * @return the expression
+    */
+   String valueExpression(String source) {
+      String simpleName = element.getSimpleName().toString();
+      if (element.getKind() == ElementKind.METHOD) {
+         return source + "." + simpleName + "()";
+      } else if (element.getModifiers().contains(Modifier.STATIC)) {
+         return ((TypeElement) element.getEnclosingElement()).getQualifiedName() + "." + simpleName;
+      }
+      return source + "." + simpleName;
+   }
+}
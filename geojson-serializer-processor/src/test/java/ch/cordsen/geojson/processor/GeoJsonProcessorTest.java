@@ -0,0 +1,384 @@
+package ch.cordsen.geojson.processor;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.document.Document;
+import ch.cordsen.geojson.document.DocumentFactory;
+import ch.cordsen.geojson.document.FeatureDocument;
+import ch.cordsen.geojson.document.GeneratedDocumentFactories;
+import com.bedatadriven.jackson.datatype.jts.JtsModule;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Geometry;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
+
+/**
+ * Tests for {@link GeoJsonProcessor}.
+ */
+class GeoJsonProcessorTest {
+
+   private static final String IMPORTS = "" +
+      "import ch.cordsen.geojson.annotation.*;\n" +
+      "import ch.cordsen.geojson.serializer.*;\n" +
+      "import com.fasterxml.jackson.databind.annotation.JsonSerialize;\n" +
+      "import org.locationtech.jts.geom.*;\n" +
+      "import java.util.*;\n";
+
+   @TempDir Path output;
+
+   @Test
+   void shouldGenerateFactoryForFeature() throws Exception {
+      Compilation compilation = compile("example.Attraction", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "@JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "public class Attraction {\n" +
+         "   @GeoJsonId String id = \"a1\";\n" +
+         "   @GeoJsonProperty(name = \"title\") String name = \"Name\";\n" +
+         "   @GeoJsonGeometry Point location = new GeometryFactory().createPoint(new Coordinate(23, 42));\n" +
+         "   @GeoJsonProperty public String getDescription() { return \"Lorem ipsum\"; }\n" +
+         "   @GeoJsonProperty public boolean isOpen() { return true; }\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      Class<?> annotatedClass = compilation.load("example.Attraction");
+      assertThat(GeneratedDocumentFactories.find(annotatedClass)).isNotNull()
+         .hasToString("class example.Attraction_GeoJsonDocumentFactory");
+      assertEquals("{\"type\":\"Feature\",\"id\":\"a1\"," +
+            "\"geometry\":{\"type\":\"Point\",\"coordinates\":[23.0,42.0]}," +
+            "\"properties\":{\"title\":\"Name\",\"description\":\"Lorem ipsum\",\"open\":true}}",
+         serialize(annotatedClass), true);
+   }
+
+   @Test
+   void shouldBuildDocumentWithGeneratedFactory() throws Exception {
+      Compilation compilation = compile("example.Attraction", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "public class Attraction {\n" +
+         "   @GeoJsonId String id = \"a1\";\n" +
+         "   @GeoJsonProperty String name = \"field\";\n" +
+         "   @GeoJsonProperty String description = \"Lorem ipsum\";\n" +
+         "   @GeoJsonProperty public String getName() { return \"getter\"; }\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      Class<?> annotatedClass = compilation.load("example.Attraction");
+      DocumentFactory factory = GeneratedDocumentFactories.find(annotatedClass).getDeclaredConstructor().newInstance();
+      Document document = factory.from(annotatedClass.getDeclaredConstructor().newInstance());
+      assertThat(document).isInstanceOf(FeatureDocument.class);
+      FeatureDocument feature = (FeatureDocument) document;
+      assertThat(feature.getId()).isEqualTo("a1");
+      assertThat(feature.getGeometry()).isNull();
+      @SuppressWarnings("unchecked")
+      Map<String, Object> properties = (Map<String, Object>) feature.getProperties();
+      assertThat(properties).containsExactly(
+         entry("name", "getter"),
+         entry("description", "Lorem ipsum"));
+   }
+
+   @Test
+   void shouldGenerateFactoryForNestedFeatureCollection() throws Exception {
+      Compilation compilation = compile("example.Outer", "package example;\n" + IMPORTS +
+         "public class Outer {\n" +
+         "   @GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "   @JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "   public static class Inner {\n" +
+         "      @GeoJsonId int id = 7;\n" +
+         "   }\n" +
+         "   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)\n" +
+         "   @JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "   public static class Collection {\n" +
+         "      @GeoJsonFeatures Inner[] features = { new Inner(), new Inner() };\n" +
+         "   }\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      Class<?> annotatedClass = compilation.load("example.Outer$Collection");
+      assertThat(GeneratedDocumentFactories.find(annotatedClass)).isNotNull()
+         .hasToString("class example.Outer_Collection_GeoJsonDocumentFactory");
+      assertEquals("{\"type\":\"FeatureCollection\",\"features\":[" +
+            "{\"type\":\"Feature\",\"id\":7,\"geometry\":null,\"properties\":null}," +
+            "{\"type\":\"Feature\",\"id\":7,\"geometry\":null,\"properties\":null}]}",
+         serialize(annotatedClass), true);
+   }
+
+   @Test
+   void shouldGenerateFactoryForGeometryCollection() throws Exception {
+      Compilation compilation = compile("example.Shapes", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)\n" +
+         "@JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "public class Shapes {\n" +
+         "   @GeoJsonGeometry Point first = new GeometryFactory().createPoint(new Coordinate(1, 2));\n" +
+         "   @GeoJsonGeometry Object second = null;\n" +
+         "   @GeoJsonGeometry public Geometry getThird() { return new GeometryFactory().createPoint(new Coordinate(3, 4)); }\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      Class<?> annotatedClass = compilation.load("example.Shapes");
+      assertThat(GeneratedDocumentFactories.find(annotatedClass)).isNotNull();
+      assertEquals("{\"type\":\"GeometryCollection\",\"geometries\":[" +
+            "{\"type\":\"Point\",\"coordinates\":[1.0,2.0]}," +
+            "{\"type\":\"Point\",\"coordinates\":[3.0,4.0]}]}",
+         serialize(annotatedClass), true);
+   }
+
+   @Test
+   void shouldGenerateFactoryForStreamedGeometries() throws Exception {
+      Compilation compilation = compile("example.Track", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)\n" +
+         "@JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "public class Track {\n" +
+         "   @GeoJsonGeometries public java.util.stream.Stream<Point> getPoints() {\n" +
+         "      GeometryFactory factory = new GeometryFactory();\n" +
+         "      return java.util.stream.Stream.of(factory.createPoint(new Coordinate(1, 2)), factory.createPoint(new Coordinate(3, 4)));\n" +
+         "   }\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      Class<?> annotatedClass = compilation.load("example.Track");
+      assertThat(GeneratedDocumentFactories.find(annotatedClass)).isNotNull();
+      assertEquals("{\"type\":\"GeometryCollection\",\"geometries\":[" +
+            "{\"type\":\"Point\",\"coordinates\":[1.0,2.0]}," +
+            "{\"type\":\"Point\",\"coordinates\":[3.0,4.0]}]}",
+         serialize(annotatedClass), true);
+   }
+
+   @Test
+   void shouldGenerateFactoryForWkbGeometries() throws Exception {
+      Compilation compilation = compile("example.Parcel", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "@JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "public class Parcel {\n" +
+         "   @GeoJsonId String id = \"p1\";\n" +
+         "   @GeoJsonGeometry byte[] wkb = new org.locationtech.jts.io.WKBWriter().write(\n" +
+         "      new GeometryFactory().createLineString(new Coordinate[] {new Coordinate(1, 2), new Coordinate(3, 4)}));\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      Class<?> annotatedClass = compilation.load("example.Parcel");
+      assertThat(GeneratedDocumentFactories.find(annotatedClass)).isNotNull();
+      assertEquals("{\"type\":\"Feature\",\"id\":\"p1\"," +
+            "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[1.0,2.0],[3.0,4.0]]},\"properties\":null}",
+         serialize(annotatedClass), true);
+      Document document = GeneratedDocumentFactories.find(annotatedClass).getDeclaredConstructor().newInstance()
+         .from(annotatedClass.getDeclaredConstructor().newInstance());
+      assertThat(((FeatureDocument) document).getGeometry()).hasToString("LINESTRING (1 2, 3 4)");
+   }
+
+   @Test
+   void shouldGenerateFactoryForRawGeometries() throws Exception {
+      Compilation compilation = compile("example.Route", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "@JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "public class Route {\n" +
+         "   @GeoJsonId String id = \"r1\";\n" +
+         "   @GeoJsonGeometry(raw = true) String geoJson = \"{\\\"type\\\":\\\"LineString\\\",\\\"coordinates\\\":[[1,2],[3,4]]}\";\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      Class<?> annotatedClass = compilation.load("example.Route");
+      assertThat(GeneratedDocumentFactories.find(annotatedClass)).isNotNull();
+      assertEquals("{\"type\":\"Feature\",\"id\":\"r1\"," +
+            "\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4]]},\"properties\":null}",
+         serialize(annotatedClass), true);
+      Document document = GeneratedDocumentFactories.find(annotatedClass).getDeclaredConstructor().newInstance()
+         .from(annotatedClass.getDeclaredConstructor().newInstance());
+      assertThat(((FeatureDocument) document).getGeometry()).hasToString("LINESTRING (1 2, 3 4)");
+   }
+
+   @Test
+   void shouldGenerateFactoryForUnvalidatedRawGeometries() throws Exception {
+      Compilation compilation = compile("example.Trail", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "@JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "public class Trail {\n" +
+         "   @GeoJsonGeometry(raw = true, validate = false) String geoJson = \"{\\\"type\\\":\\\"Point\\\",\\\"coordinates\\\":[1,2]\";\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      Class<?> annotatedClass = compilation.load("example.Trail");
+      assertThat(GeneratedDocumentFactories.find(annotatedClass)).isNotNull();
+      assertThat(new String(Files.readAllBytes(output.resolve("example/Trail_GeoJsonDocumentFactory.java")), UTF_8)).contains("\"example.Trail.geoJson\", false, sink);");
+      // written unchecked, thus not rejected as truncated
+      assertThat(serialize(annotatedClass)).isEqualTo("{\"type\":\"Feature\"," +
+         "\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2],\"properties\":null}");
+   }
+
+   @Test
+   void shouldReportMutuallyExclusiveAnnotations() throws IOException {
+      Compilation compilation = compile("example.Invalid", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "public class Invalid {\n" +
+         "   @GeoJsonProperties Map<String, Object> properties;\n" +
+         "   @GeoJsonProperty String name;\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).containsExactly("Annotations @GeoJsonProperties and @GeoJsonProperty are mutually exclusive: " +
+         "example.Invalid.properties, example.Invalid.name");
+      assertThat(Files.exists(output.resolve("example/Invalid_GeoJsonDocumentFactory.class"))).isFalse();
+   }
+
+   @Test
+   void shouldReportAnnotationPresentMultipleTimes() throws IOException {
+      Compilation compilation = compile("example.Invalid", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE_COLLECTION)\n" +
+         "public class Invalid {\n" +
+         "   @GeoJsonFeatures List<Object> features;\n" +
+         "   @GeoJsonFeatures public List<Object> getMore() { return null; }\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).containsExactly("Annotation @GeoJsonFeatures is present multiple times: " +
+         "example.Invalid.features, example.Invalid.getMore()");
+   }
+
+   @Test
+   void shouldReportVersionPresentMultipleTimes() throws IOException {
+      Compilation compilation = compile("example.Invalid", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "public class Invalid {\n" +
+         "   @GeoJsonId String id;\n" +
+         "   @GeoJsonVersion long version;\n" +
+         "   @GeoJsonVersion public long getRevision() { return 0; }\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).containsExactly("Annotation @GeoJsonVersion is present multiple times: " +
+         "example.Invalid.version, example.Invalid.getRevision()");
+      assertThat(Files.exists(output.resolve("example/Invalid_GeoJsonDocumentFactory.class"))).isFalse();
+   }
+
+   @Test
+   void shouldNotGenerateFactoryForPrivateMember() throws Exception {
+      Compilation compilation = compile("example.Private", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE)\n" +
+         "@JsonSerialize(using = GeoJsonSerializer.class)\n" +
+         "public class Private {\n" +
+         "   @GeoJsonId private String id = \"p1\";\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      assertThat(compilation.notes()).anyMatch(note -> note.endsWith("example.Private.id is private"));
+      Class<?> annotatedClass = compilation.load("example.Private");
+      assertThat(GeneratedDocumentFactories.find(annotatedClass)).isNull();
+      assertEquals("{\"type\":\"Feature\",\"id\":\"p1\",\"geometry\":null,\"properties\":null}", serialize(annotatedClass), true);
+   }
+
+   @Test
+   void shouldNotGenerateFactoryForCustomFactory() throws Exception {
+      Compilation compilation = compile("example.Custom", "package example;\n" + IMPORTS +
+         "@GeoJson(type = GeoJsonType.FEATURE, factory = Custom.Factory.class)\n" +
+         "public class Custom {\n" +
+         "   @GeoJsonId String id;\n" +
+         "   @GeoJsonId String otherId;\n" +
+         "   public static class Factory extends ch.cordsen.geojson.introspection.IntrospectionDocumentFactory {\n" +
+         "   }\n" +
+         "}\n");
+
+      assertThat(compilation.errors()).isEmpty();
+      assertThat(GeneratedDocumentFactories.find(compilation.load("example.Custom"))).isNull();
+   }
+
+   private static String serialize(Class<?> annotatedClass) throws Exception {
+      ObjectMapper objectMapper = new ObjectMapper();
+      objectMapper.registerModule(new JtsModule());
+      return objectMapper.writeValueAsString(annotatedClass.getDeclaredConstructor().newInstance());
+   }
+
+   private Compilation compile(String className, String source) throws IOException {
+      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+      try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+         fileManager.setLocation(StandardLocation.CLASS_PATH, classPath());
+         fileManager.setLocation(StandardLocation.CLASS_OUTPUT, singletonList(output.toFile()));
+         fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, singletonList(output.toFile()));
+         JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, null, null,
+            singletonList(new SourceFile(className, source)));
+         task.setProcessors(singletonList(new GeoJsonProcessor()));
+         task.call();
+      }
+      return new Compilation(diagnostics.getDiagnostics());
+   }
+
+   private static List<File> classPath() {
+      List<File> classPath = new ArrayList<>();
+      for (Class<?> type : asList(GeoJson.class, Geometry.class, ObjectMapper.class, JsonGenerator.class, JsonInclude.class, StringUtils.class)) {
+         try {
+            classPath.add(new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()));
+         } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+         }
+      }
+      return classPath;
+   }
+
+   /**
+    * The outcome of a compilation.
+    */
+   private class Compilation {
+
+      private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+      Compilation(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+         this.diagnostics = diagnostics;
+      }
+
+      List<String> errors() {
+         return messages(Diagnostic.Kind.ERROR);
+      }
+
+      List<String> notes() {
+         return messages(Diagnostic.Kind.NOTE);
+      }
+
+      private List<String> messages(Diagnostic.Kind kind) {
+         return diagnostics.stream()
+            .filter(diagnostic -> diagnostic.getKind() == kind)
+            .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+            .collect(toList());
+      }
+
+      Class<?> load(String binaryName) throws Exception {
+         URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader());
+         return Class.forName(binaryName, true, classLoader);
+      }
+   }
+
+   /**
+    * A source file in memory.
+    */
+   private static class SourceFile extends SimpleJavaFileObject {
+
+      private final String source;
+
+      SourceFile(String className, String source) {
+         super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+         this.source = source;
+      }
+
+      @Override public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+         return source;
+      }
+   }
+}
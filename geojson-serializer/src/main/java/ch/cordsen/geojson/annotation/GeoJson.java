@@ -66,9 +66,32 @@ public @interface GeoJson {
 
    /**
     * Return the {@link DocumentFactory} to use.
+    * <p>The factory is instantiated once and shared, please refer to {@link DocumentFactory} for the contract.
     *
     * @return the {@link DocumentFactory}, or the default if not specified
     * @see IntrospectionDocumentFactory
     */
    Class<? extends DocumentFactory> factory() default IntrospectionDocumentFactory.class;
+
+   /**
+    * Returns the number of decimal places the coordinates of the geometries are rounded to.
+    * <p>The precision of a <em>FeatureCollection</em> or <em>GeometryCollection</em> applies to its elements,
+    * unless their classes specify a precision of their own.
+    *
+    * @return the number of decimal places from 0 to 15, or -1 for the default of
+    * {@link ch.cordsen.geojson.serializer.GeoJsonOptions#getPrecision() GeoJsonOptions}
+    */
+   int precision() default -1;
+
+   /**
+    * Returns whether a <em>bbox</em> member with the extent of the coordinates is written.
+    * <p>The bbox of a <em>Feature</em> follows its geometry, the bbox of a <em>FeatureCollection</em> or
+    * <em>GeometryCollection</em> follows its elements, since it is accumulated while they are written. The features
+    * of a <em>FeatureCollection</em> with a bbox get a bbox of their own as well.
+    *
+    * @return <code>true</code> to write the bbox, <code>false</code> for the default of
+    * {@link ch.cordsen.geojson.serializer.GeoJsonOptions#isBbox() GeoJsonOptions}
+    * @see <a href="https://tools.ietf.org/html/rfc7946#section-5" target="_blank">RFC 7946 - Bounding Box</a>
+    */
+   boolean bbox() default false;
 }
@@ -14,8 +14,9 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 /**
  * Indicates the <em>Features Array</em> of the generated <em>FeatureCollection</em>.
  * <p>This annotation is complementary to a {@link GeoJson#type()} of {@link GeoJsonType#FEATURE_COLLECTION}
- * and can be present 0...1 times. The elements of the {@link java.util.Collection} or array will be
- * added to the feature array.
+ * and can be present 0...1 times. The elements of the array, {@link Iterable} (like any {@link java.util.Collection}),
+ * {@link java.util.Iterator}, {@link java.util.stream.Stream} or {@link java.util.Spliterator} will be
+ * added to the feature array. They are written one by one as they are pulled, a stream is closed afterwards.
  * <p>
  * The annotations {@link GeoJsonFeatures} and {@link GeoJsonFeature} are mutual exclusive.
  * <p>Example:
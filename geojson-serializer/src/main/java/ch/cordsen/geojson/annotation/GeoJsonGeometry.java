@@ -32,6 +32,13 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
  *    &#064;GeoJsonGeometry
  *    private Polygon area;
  * </pre>
+ * <p>Geometries encoded as <em>Well-known Binary</em> may be annotated as <code>byte[]</code> or
+ * {@link java.nio.ByteBuffer}, see {@link ch.cordsen.geojson.document.Geometries}. Geometries already encoded as
+ * GeoJSON are marked with {@link #raw()}:
+ * <pre>
+ *    &#064;GeoJsonGeometry(raw = true)
+ *    private String geoJson;
+ * </pre>
  *
  * @see GeoJson
  * @see GeoJsonType#FEATURE
@@ -44,4 +51,24 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Target({METHOD, FIELD})
 @Retention(RUNTIME)
 public @interface GeoJsonGeometry {
+
+   /**
+    * Whether the value is a <em>Geometry Object</em> already encoded as GeoJSON, like by <code>ST_AsGeoJSON</code> of
+    * PostGIS: a {@link String}, a <code>byte[]</code> of UTF-8 or a Jackson
+    * {@link com.fasterxml.jackson.databind.util.RawValue} of text. The value is written verbatim to JSON, after a
+    * cheap check of its structure unless {@link #validate()} is off. It is parsed if a tolerance, clipping or bbox is
+    * set, for binary formats and for documents.
+    *
+    * @return <code>true</code> for pre-encoded GeoJSON
+    */
+   boolean raw() default false;
+
+   /**
+    * Whether the structure of a {@link #raw()} value is checked before it is written verbatim: one object with balanced
+    * braces and brackets, which rejects truncated values. Turn it off for trusted values, like from a database, to
+    * skip the scan of the text. Values which are parsed are always validated by the parser.
+    *
+    * @return <code>false</code> to write pre-encoded GeoJSON unchecked
+    */
+   boolean validate() default true;
 }
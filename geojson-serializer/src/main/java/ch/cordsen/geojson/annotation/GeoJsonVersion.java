@@ -0,0 +1,33 @@
+package ch.cordsen.geojson.annotation;
+
+import ch.cordsen.geojson.serializer.FeatureFragmentCache;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Indicates the version of the <em>Feature</em>, which changes whenever the output of the feature changes.
+ * <p>This annotation is complementary to a {@link GeoJson#type()} of {@link GeoJsonType#FEATURE} with a
+ * {@link GeoJsonId} and can be present 0...1 times. The version is not written, together with the ID it identifies the
+ * serialized feature in a {@link FeatureFragmentCache}.
+ * <p>Field annotation example with a version counter of the persistence layer:
+ * <pre>
+ *    &#064;Version
+ *    &#064;GeoJsonVersion
+ *    private long version;
+ * </pre>
+ *
+ * @see GeoJsonId
+ * @see FeatureFragmentCache
+ */
+@Documented
+@Target({METHOD, FIELD})
+@Retention(RUNTIME)
+public @interface GeoJsonVersion {
+}
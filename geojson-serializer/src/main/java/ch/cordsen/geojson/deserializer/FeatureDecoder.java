@@ -0,0 +1,66 @@
+package ch.cordsen.geojson.deserializer;
+
+import ch.cordsen.geojson.document.FeatureDocument;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+
+/**
+ * Decodes a <em>Feature</em> from a parser of its bytes, shared by the readers of files.
+ *
+ * @param <T> the type of the decoded features
+ */
+@FunctionalInterface
+interface FeatureDecoder<T> {
+
+   /**
+    * Decodes a feature.
+    *
+    * @param p the parser of the feature, without a current token
+    * @return the feature
+    * @throws IOException for invalid features or exceptions from the parser
+    */
+   T decode(JsonParser p) throws IOException;
+
+   /**
+    * Decodes a feature of a file. The parser reads the bytes of the feature straight from the mapped file.
+    *
+    * @param file        the file
+    * @param start       the position of the feature
+    * @param length      the length of the feature
+    * @param jsonFactory the factory of the parser
+    * @return the feature
+    * @throws IOException for invalid features or exceptions from the parser
+    */
+   default T decode(MappedFile file, long start, int length, JsonFactory jsonFactory) throws IOException {
+      try (JsonParser p = jsonFactory.createParser(file.inputStream(start, length))) {
+         return decode(p);
+      }
+   }
+
+   /**
+    * Returns a decoder of {@link FeatureDocument feature documents}.
+    *
+    * @param objectMapper the mapper of the ids and properties
+    * @return the decoder
+    */
+   static FeatureDecoder<FeatureDocument> documents(ObjectMapper objectMapper) {
+      return new FeatureDocumentDecoder(objectMapper);
+   }
+
+   /**
+    * Returns a decoder of a class, usually one deserialized by the {@link GeoJsonDeserializer}.
+    *
+    * @param objectMapper the mapper
+    * @param type         the class of the features
+    * @param <T>          the type of the features
+    * @return the decoder
+    */
+   static <T> FeatureDecoder<T> of(ObjectMapper objectMapper, Class<T> type) {
+      ObjectReader reader = objectMapper.readerFor(type);
+      return reader::readValue;
+   }
+}
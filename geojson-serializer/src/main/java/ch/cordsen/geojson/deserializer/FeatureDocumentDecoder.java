@@ -0,0 +1,67 @@
+package ch.cordsen.geojson.deserializer;
+
+import ch.cordsen.geojson.document.DocumentBuilder;
+import ch.cordsen.geojson.document.FeatureDocument;
+import ch.cordsen.geojson.geometry.GeometryReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+
+/**
+ * Decodes a <em>Feature</em> into a {@link FeatureDocument}, pushing its members into a {@link DocumentBuilder}.
+ * <p>The geometry is read by the {@link GeometryReader}, the id and the properties as plain Java values,
+ * i.e. maps, lists, strings, numbers and booleans. Other members are skipped.
+ */
+final class FeatureDocumentDecoder implements FeatureDecoder<FeatureDocument> {
+
+   private final ObjectReader valueReader;
+
+   /**
+    * Constructor
+    *
+    * @param objectMapper the mapper of the ids and properties
+    */
+   FeatureDocumentDecoder(ObjectMapper objectMapper) {
+      this.valueReader = objectMapper.readerFor(Object.class);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public FeatureDocument decode(JsonParser p) throws IOException {
+      if (p.nextToken() != JsonToken.START_OBJECT) {
+         throw MismatchedInputException.from(p, FeatureDocument.class, "Feature is not an object: " + p.currentToken());
+      }
+      DocumentBuilder builder = new DocumentBuilder();
+      builder.beginFeature();
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+         String name = p.getCurrentName();
+         JsonToken token = p.nextToken();
+         switch (name) {
+            case "type":
+               if (!"Feature".equals(p.getValueAsString())) {
+                  throw MismatchedInputException.from(p, FeatureDocument.class, "Type Feature expected instead of " + p.getValueAsString() + ".");
+               }
+               break;
+            case "id":
+               builder.id(token == JsonToken.VALUE_NULL ? null : valueReader.readValue(p));
+               break;
+            case "geometry":
+               builder.geometry(GeometryReader.INSTANCE.read(p));
+               break;
+            case "properties":
+               builder.properties(token == JsonToken.VALUE_NULL ? null : valueReader.readValue(p));
+               break;
+            default:
+               p.skipChildren();
+         }
+      }
+      builder.endFeature();
+      return (FeatureDocument) builder.build();
+   }
+}
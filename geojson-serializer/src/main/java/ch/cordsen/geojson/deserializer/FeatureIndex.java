@@ -0,0 +1,150 @@
+package ch.cordsen.geojson.deserializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The byte ranges of the features of a file, held in primitive arrays of 12 bytes per feature.
+ * <p>An index is saved with the size and the modification time of its file. Loading returns
+ * <code>null</code> if the file has been changed since, so the index is rebuilt.
+ */
+final class FeatureIndex {
+
+   private static final int MAGIC = 0x47_4A_49_58;
+   private static final int VERSION = 1;
+
+   private long[] starts;
+   private int[] lengths;
+   private int size;
+
+   /**
+    * Constructor of an empty index.
+    */
+   FeatureIndex() {
+      this(new long[256], new int[256], 0);
+   }
+
+   private FeatureIndex(long[] starts, int[] lengths, int size) {
+      this.starts = starts;
+      this.lengths = lengths;
+      this.size = size;
+   }
+
+   /**
+    * Builds the index of a file.
+    *
+    * @param file        the file with a <em>FeatureCollection</em>
+    * @param jsonFactory the factory of the parser of the collection's members
+    * @return the index
+    * @throws IOException from the {@link FeatureScanner}
+    */
+   static FeatureIndex build(MappedFile file, JsonFactory jsonFactory) throws IOException {
+      FeatureIndex index = new FeatureIndex();
+      FeatureScanner.scan(file, jsonFactory, index::add);
+      return index;
+   }
+
+   /**
+    * Adds the range of the next feature.
+    *
+    * @param start the position of the first byte
+    * @param end   the position after the last byte
+    * @throws IOException if the feature is larger than 2 GB
+    */
+   void add(long start, long end) throws IOException {
+      if (end - start > Integer.MAX_VALUE) {
+         throw new IOException("Feature is too large at byte " + start + ".");
+      }
+      if (size == starts.length) {
+         starts = Arrays.copyOf(starts, size * 2);
+         lengths = Arrays.copyOf(lengths, size * 2);
+      }
+      starts[size] = start;
+      lengths[size] = (int) (end - start);
+      size++;
+   }
+
+   /**
+    * Returns the number of features.
+    *
+    * @return the number of features
+    */
+   int size() {
+      return size;
+   }
+
+   /**
+    * Returns the position of a feature.
+    *
+    * @param index the index of the feature
+    * @return the position of the first byte
+    */
+   long start(int index) {
+      return starts[index];
+   }
+
+   /**
+    * Returns the length of a feature.
+    *
+    * @param index the index of the feature
+    * @return the number of bytes
+    */
+   int length(int index) {
+      return lengths[index];
+   }
+
+   /**
+    * Saves the index.
+    *
+    * @param indexFile    the file of the index
+    * @param fileSize     the size of the indexed file
+    * @param lastModified the modification time of the indexed file in milliseconds
+    * @throws IOException if the index cannot be written
+    */
+   void save(Path indexFile, long fileSize, long lastModified) throws IOException {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 65536))) {
+         out.writeInt(MAGIC);
+         out.writeInt(VERSION);
+         out.writeLong(fileSize);
+         out.writeLong(lastModified);
+         out.writeInt(size);
+         for (int i = 0; i < size; i++) {
+            out.writeLong(starts[i]);
+            out.writeInt(lengths[i]);
+         }
+      }
+   }
+
+   /**
+    * Loads an index.
+    *
+    * @param indexFile    the file of the index
+    * @param fileSize     the current size of the indexed file
+    * @param lastModified the current modification time of the indexed file in milliseconds
+    * @return the index, or <code>null</code> if it does not exist or the indexed file has been changed
+    * @throws IOException if the index cannot be read
+    */
+   static FeatureIndex load(Path indexFile, long fileSize, long lastModified) throws IOException {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 65536))) {
+         if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != fileSize || in.readLong() != lastModified) {
+            return null;
+         }
+         int size = in.readInt();
+         long[] starts = new long[Math.max(size, 1)];
+         int[] lengths = new int[Math.max(size, 1)];
+         for (int i = 0; i < size; i++) {
+            starts[i] = in.readLong();
+            lengths[i] = in.readInt();
+         }
+         return new FeatureIndex(starts, lengths, size);
+      } catch (NoSuchFileException | EOFException e) {
+         // not yet saved or truncated
+         return null;
+      }
+   }
+}
@@ -0,0 +1,127 @@
+package ch.cordsen.geojson.deserializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Finds the byte ranges of the features of a <em>FeatureCollection</em> in a {@link MappedFile}.
+ * <p>The members of the collection up to the <em>features</em> are parsed by a {@link JsonParser}. The array of
+ * features is scanned byte by byte, only counting the nesting of objects and arrays and skipping strings with their
+ * escapes, which is several times faster than tokenizing. The features themselves are not validated, that is left to
+ * their decoding.
+ */
+final class FeatureScanner {
+
+   /**
+    * Receives the range of each feature in order.
+    */
+   @FunctionalInterface
+   interface Listener {
+
+      /**
+       * Receives a feature.
+       *
+       * @param start the position of the opening brace
+       * @param end   the position after the closing brace
+       * @throws IOException to stop the scan
+       */
+      void feature(long start, long end) throws IOException;
+   }
+
+   private FeatureScanner() {
+      // static usage only
+   }
+
+   /**
+    * Scans the features of a file.
+    *
+    * @param file        the file with a <em>FeatureCollection</em>
+    * @param jsonFactory the factory of the parser of the collection's members
+    * @param listener    the listener of the features
+    * @throws IOException if the file is not a <em>FeatureCollection</em> or it is truncated
+    */
+   static void scan(MappedFile file, JsonFactory jsonFactory, Listener listener) throws IOException {
+      long position = findFeatures(file, jsonFactory);
+      if (position >= 0) {
+         scanFeatures(file, position + 1, listener);
+      }
+   }
+
+   /**
+    * Returns the position of the array of features.
+    *
+    * @return the position of the opening bracket, or -1 for <code>null</code> or missing features
+    */
+   static long findFeatures(MappedFile file, JsonFactory jsonFactory) throws IOException {
+      try (JsonParser p = jsonFactory.createParser(file.inputStream(0, file.size()))) {
+         if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(p, "FeatureCollection is not an object: " + p.currentToken());
+         }
+         while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            if ("features".equals(name)) {
+               if (token == JsonToken.VALUE_NULL) {
+                  return -1;
+               }
+               if (token != JsonToken.START_ARRAY) {
+                  throw new JsonParseException(p, "Features are not an array: " + token);
+               }
+               return p.getTokenLocation().getByteOffset();
+            }
+            p.skipChildren();
+         }
+         return -1;
+      }
+   }
+
+   /**
+    * Scans the elements of the array of features up to its closing bracket.
+    *
+    * @param position the position after the opening bracket
+    */
+   static void scanFeatures(MappedFile file, long position, Listener listener) throws IOException {
+      int depth = 0;
+      boolean inString = false;
+      boolean escaped = false;
+      long start = -1;
+      for (int segment = file.segmentOf(position); segment < file.segmentCount(); segment++) {
+         ByteBuffer buffer = file.segment(segment);
+         long offset = file.segmentPosition(segment);
+         int limit = buffer.limit();
+         for (int i = (int) Math.max(0, position - offset); i < limit; i++) {
+            byte b = buffer.get(i);
+            if (inString) {
+               if (escaped) {
+                  escaped = false;
+               } else if (b == '\\') {
+                  escaped = true;
+               } else if (b == '"') {
+                  inString = false;
+               }
+            } else if (depth > 0) {
+               if (b == '"') {
+                  inString = true;
+               } else if (b == '{' || b == '[') {
+                  depth++;
+               } else if ((b == '}' || b == ']') && --depth == 0) {
+                  listener.feature(start, offset + i + 1);
+               }
+            } else if (b == '{') {
+               start = offset + i;
+               depth = 1;
+            } else if (b == ']') {
+               return;
+            } else if (b != ',' && b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+               throw new JsonParseException((JsonParser) null, "Feature is not an object at byte " + (offset + i) + ": " + (char) b);
+            }
+         }
+      }
+      throw new JsonParseException((JsonParser) null, "Features are not terminated at byte " + file.size() + ".");
+   }
+}
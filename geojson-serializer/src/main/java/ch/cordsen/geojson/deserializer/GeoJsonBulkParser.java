@@ -0,0 +1,253 @@
+package ch.cordsen.geojson.deserializer;
+
+import ch.cordsen.geojson.document.FeatureDocument;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Parses all features of a <em>FeatureCollection</em> file on several cores.
+ * <p>The file is mapped into memory and the calling thread scans the boundaries of the features, which only counts
+ * brackets outside of strings. The byte ranges are collected into batches, each batch is decoded by a task of the
+ * {@link #getExecutor() executor} with the same decoding as {@link GeoJsonFileReader}, into
+ * {@link FeatureDocument feature documents} or into classes deserialized by the {@link GeoJsonDeserializer}.
+ * The features are delivered in the order of the file. At most two batches per available processor are pending,
+ * thus a consumer receives the features of a large file without holding them in memory all at once.
+ * <p>A parser is immutable and thread-safe.
+ * <p>Example:
+ * <pre>
+ *    GeoJsonBulkParser parser = new GeoJsonBulkParser(objectMapper);
+ *    List&lt;Attraction&gt; attractions = parser.parse(path, Attraction.class);
+ *    parser.forEach(path, FeatureDocument.class, feature -&gt; index.add(feature));
+ * </pre>
+ */
+public final class GeoJsonBulkParser {
+
+   private static final int MAX_PENDING_BATCHES = 2 * Runtime.getRuntime().availableProcessors();
+
+   private final ObjectMapper objectMapper;
+   private final int batchSize;
+   private final Executor executor;
+
+   /**
+    * Constructor with batches of 1024 features decoded by the {@link ForkJoinPool#commonPool() common pool}.
+    *
+    * @param objectMapper the mapper decoding the features
+    */
+   public GeoJsonBulkParser(ObjectMapper objectMapper) {
+      this(objectMapper, 1024, null);
+   }
+
+   private GeoJsonBulkParser(ObjectMapper objectMapper, int batchSize, Executor executor) {
+      this.objectMapper = objectMapper;
+      this.batchSize = batchSize;
+      this.executor = executor;
+   }
+
+   /**
+    * The number of features decoded by one task.
+    *
+    * @return the number of features
+    */
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   /**
+    * Returns a parser with a batch size.
+    *
+    * @param batchSize the number of features decoded by one task
+    * @return the modified parser
+    */
+   public GeoJsonBulkParser withBatchSize(int batchSize) {
+      if (batchSize < 1) {
+         throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+      }
+      return new GeoJsonBulkParser(objectMapper, batchSize, executor);
+   }
+
+   /**
+    * The executor of the decoding tasks.
+    *
+    * @return the executor, the {@link ForkJoinPool#commonPool() common pool} by default
+    */
+   public Executor getExecutor() {
+      return executor != null ? executor : ForkJoinPool.commonPool();
+   }
+
+   /**
+    * Returns a parser with an executor.
+    *
+    * @param executor the executor of the decoding tasks, <code>null</code> for the common pool
+    * @return the modified parser
+    */
+   public GeoJsonBulkParser withExecutor(Executor executor) {
+      return new GeoJsonBulkParser(objectMapper, batchSize, executor);
+   }
+
+   /**
+    * Parses all features of a file into a list.
+    *
+    * @param file the file with a <em>FeatureCollection</em>
+    * @param type the class of the features, {@link FeatureDocument} for documents
+    * @param <T>  the type of the features
+    * @return the features in the order of the file
+    * @throws IOException if the file cannot be read or is invalid
+    */
+   public <T> List<T> parse(Path file, Class<T> type) throws IOException {
+      List<T> features = new ArrayList<>();
+      forEach(file, type, features::add);
+      return features;
+   }
+
+   /**
+    * Parses all features of a file and delivers them to a consumer. The consumer is called by the calling thread in
+    * the order of the file, while the following features are decoded.
+    *
+    * @param file     the file with a <em>FeatureCollection</em>
+    * @param type     the class of the features, {@link FeatureDocument} for documents
+    * @param consumer the consumer of the features
+    * @param <T>      the type of the features
+    * @return the number of features
+    * @throws IOException if the file cannot be read or is invalid
+    */
+   public <T> long forEach(Path file, Class<T> type, Consumer<? super T> consumer) throws IOException {
+      try (MappedFile mappedFile = MappedFile.map(file)) {
+         return new Run<>(mappedFile, decoderOf(type), consumer).execute();
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private <T> FeatureDecoder<T> decoderOf(Class<T> type) {
+      if (type == FeatureDocument.class) {
+         return (FeatureDecoder<T>) FeatureDecoder.documents(objectMapper);
+      }
+      return FeatureDecoder.of(objectMapper, type);
+   }
+
+   /**
+    * The parsing of one file.
+    */
+   private final class Run<T> {
+
+      private final MappedFile file;
+      private final FeatureDecoder<T> decoder;
+      private final Consumer<? super T> consumer;
+      private final JsonFactory jsonFactory = objectMapper.getFactory();
+      private final Executor executor = getExecutor();
+      private final Deque<CompletableFuture<List<T>>> pending = new ArrayDeque<>();
+      private Batch batch = new Batch(batchSize);
+      private long count;
+
+      Run(MappedFile file, FeatureDecoder<T> decoder, Consumer<? super T> consumer) {
+         this.file = file;
+         this.decoder = decoder;
+         this.consumer = consumer;
+      }
+
+      long execute() throws IOException {
+         try {
+            FeatureScanner.scan(file, jsonFactory, this::feature);
+            if (batch.size > 0) {
+               submit();
+            }
+            while (!pending.isEmpty()) {
+               deliver(pending.removeFirst());
+            }
+            return count;
+         } finally {
+            // after a failure, running tasks still read the mapping, which is valid until it is garbage collected
+            for (CompletableFuture<List<T>> future : pending) {
+               future.cancel(false);
+            }
+         }
+      }
+
+      private void feature(long start, long end) throws IOException {
+         if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Feature is too large at byte " + start + ".");
+         }
+         batch.add(start, (int) (end - start));
+         if (batch.size == batchSize) {
+            submit();
+            while (pending.size() > MAX_PENDING_BATCHES) {
+               deliver(pending.removeFirst());
+            }
+         }
+      }
+
+      private void submit() {
+         Batch features = batch;
+         batch = new Batch(batchSize);
+         pending.addLast(CompletableFuture.supplyAsync(() -> decode(features), executor));
+      }
+
+      private void deliver(CompletableFuture<List<T>> future) throws IOException {
+         List<T> features;
+         try {
+            features = future.join();
+         } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+               throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+               throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+               throw (Error) cause;
+            }
+            throw e;
+         }
+         for (T feature : features) {
+            consumer.accept(feature);
+         }
+         count += features.size();
+      }
+
+      /**
+       * Decodes the features of a batch. Runs in the executor.
+       */
+      private List<T> decode(Batch features) {
+         List<T> decoded = new ArrayList<>(features.size);
+         try {
+            for (int i = 0; i < features.size; i++) {
+               decoded.add(decoder.decode(file, features.starts[i], features.lengths[i], jsonFactory));
+            }
+         } catch (IOException e) {
+            throw new CompletionException(e);
+         }
+         return decoded;
+      }
+   }
+
+   /**
+    * The byte ranges of consecutive features.
+    */
+   private static final class Batch {
+
+      final long[] starts;
+      final int[] lengths;
+      int size;
+
+      Batch(int capacity) {
+         starts = new long[capacity];
+         lengths = new int[capacity];
+      }
+
+      void add(long start, int length) {
+         starts[size] = start;
+         lengths[size] = length;
+         size++;
+      }
+   }
+}
@@ -0,0 +1,367 @@
+package ch.cordsen.geojson.deserializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.geometry.GeometryReader;
+import ch.cordsen.geojson.introspection.Annotated;
+import ch.cordsen.geojson.introspection.IntrospectionPlan;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKBWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link JsonDeserializer} implementation for classes annotated by {@link GeoJson}, the counterpart of the
+ * {@link ch.cordsen.geojson.serializer.GeoJsonSerializer}.
+ * <p>The members of the <em>GeoJSON Object</em> are streamed from the {@link JsonParser} straight into the annotated
+ * fields and setters, without building a tree of the document:
+ * <ul>
+ * <li><em>Feature:</em> the <em>id</em>, the <em>geometry</em> and the <em>properties</em> are set to the members
+ * annotated with {@link ch.cordsen.geojson.annotation.GeoJsonId}, {@link ch.cordsen.geojson.annotation.GeoJsonGeometry}
+ * and {@link ch.cordsen.geojson.annotation.GeoJsonProperties}, or each property to the member annotated with
+ * {@link ch.cordsen.geojson.annotation.GeoJsonProperty} of the same name. Other properties are skipped.</li>
+ * <li><em>FeatureCollection:</em> the <em>features</em> are set to the member annotated with
+ * {@link ch.cordsen.geojson.annotation.GeoJsonFeatures}, e.g. a {@link List} of a class deserialized by this
+ * deserializer.</li>
+ * <li><em>GeometryCollection:</em> the <em>geometries</em> are set to the member annotated with
+ * {@link ch.cordsen.geojson.annotation.GeoJsonGeometries}, a {@link List} or an array of geometries.</li>
+ * </ul>
+ * <p>The geometries are read without intermediate lists of coordinates. A <em>geometry</em> member of type
+ * <code>byte[]</code> or {@link ByteBuffer} gets the geometry encoded as <em>Well-known Binary</em>, with Z if the
+ * first position has an altitude. A member marked with {@link ch.cordsen.geojson.annotation.GeoJsonGeometry#raw()}
+ * gets the GeoJSON text of the geometry, copied token by token into a {@link String}, a <code>byte[]</code> of UTF-8
+ * or a {@link RawValue}. The values of the ids and properties are read by the deserializers of their declared types.
+ * The class needs a constructor without arguments and a setter for each annotated getter.
+ * <p>Usage on the class, together with the serializer:
+ * <pre>
+ *    &#064;GeoJson(type = GeoJsonType.FEATURE)
+ *    &#064;JsonSerialize(using = GeoJsonSerializer.class)
+ *    &#064;JsonDeserialize(using = GeoJsonDeserializer.class)
+ *    public class Attraction {
+ *       ...
+ *    }
+ * </pre>
+ * <p>The members are resolved once per class and mapper, see {@link IntrospectionPlan}.
+ *
+ * @param <T> the annotated class
+ * @see GeoJson
+ * @see <a href="https://tools.ietf.org/html/rfc7946#section-3" target="_blank">RFC 7946 - GeoJSON Object</a>
+ */
+public class GeoJsonDeserializer<T> extends StdDeserializer<T> implements ContextualDeserializer {
+
+   private static final JsonFactory jsonFactory = new JsonFactory();
+
+   private final IntrospectionPlan plan;
+   private final Map<String, MemberReader> readers;
+
+   /**
+    * Constructor for {@link com.fasterxml.jackson.databind.annotation.JsonDeserialize#using()}, the class is
+    * taken from the context.
+    */
+   public GeoJsonDeserializer() {
+      this(Object.class);
+   }
+
+   /**
+    * Constructor for the registration in a {@link com.fasterxml.jackson.databind.Module}.
+    *
+    * @param clazz the annotated class
+    */
+   public GeoJsonDeserializer(Class<?> clazz) {
+      super(clazz);
+      this.plan = null;
+      this.readers = null;
+   }
+
+   private GeoJsonDeserializer(Class<?> clazz, IntrospectionPlan plan, Map<String, MemberReader> readers) {
+      super(clazz);
+      this.plan = plan;
+      this.readers = readers;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) throws JsonMappingException {
+      if (plan != null) {
+         return this;
+      }
+      JavaType type = handledType() != Object.class ? ctxt.constructType(handledType()) : ctxt.getContextualType();
+      if (type == null && property != null) {
+         type = property.getType();
+      }
+      if (type == null) {
+         return ctxt.reportBadDefinition(ctxt.constructType(Object.class), "The class to deserialize is unknown.");
+      }
+      IntrospectionPlan resolvedPlan;
+      try {
+         resolvedPlan = IntrospectionPlan.of(type.getRawClass());
+      } catch (DocumentFactoryException e) {
+         return ctxt.reportBadDefinition(type, e.getMessage());
+      }
+      Map<String, MemberReader> resolvedReaders = new HashMap<>();
+      switch (resolvedPlan.getType()) {
+         case FEATURE:
+            resolveFeature(ctxt, type, resolvedPlan, resolvedReaders);
+            break;
+         case FEATURE_COLLECTION:
+            resolveFeatureCollection(ctxt, type, resolvedPlan, resolvedReaders);
+            break;
+         case GEOMETRY_COLLECTION:
+            resolveGeometryCollection(ctxt, type, resolvedPlan, resolvedReaders);
+            break;
+         default:
+            return ctxt.reportBadDefinition(type, "Unsupported GeoJsonType: " + resolvedPlan.getType());
+      }
+      return new GeoJsonDeserializer<>(type.getRawClass(), resolvedPlan, resolvedReaders);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   @SuppressWarnings("unchecked")
+   public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      if (plan == null) {
+         return ctxt.reportBadDefinition(ctxt.constructType(handledType()), "The deserializer is not contextualized.");
+      }
+      JsonToken token = p.currentToken();
+      if (token == JsonToken.START_OBJECT) {
+         token = p.nextToken();
+      } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+         return (T) ctxt.handleUnexpectedToken(handledType(), p);
+      }
+      try {
+         Object object = plan.newInstance();
+         for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            if ("type".equals(name)) {
+               checkType(p, ctxt);
+               continue;
+            }
+            MemberReader reader = readers.get(name);
+            if (reader != null) {
+               reader.read(p, ctxt, object);
+            } else {
+               p.skipChildren();
+            }
+         }
+         return (T) object;
+      } catch (DocumentFactoryException e) {
+         throw JsonMappingException.from(p, e.getMessage(), e);
+      }
+   }
+
+   private void checkType(JsonParser p, DeserializationContext ctxt) throws IOException {
+      String type = p.getValueAsString();
+      if (!plan.getType().getName().equals(type)) {
+         ctxt.reportInputMismatch(this, "Type %s expected instead of %s.", plan.getType().getName(), type);
+      }
+   }
+
+   /* --------------------------------- */
+
+   private static void resolveFeature(DeserializationContext ctxt, JavaType type, IntrospectionPlan plan, Map<String, MemberReader> readers)
+      throws JsonMappingException {
+      Annotated id = plan.getId();
+      if (id != null) {
+         readers.put("id", valueReader(ctxt, type, id));
+      }
+      Annotated geometry = plan.getGeometry();
+      if (geometry != null) {
+         Class<?> geometryClass = ctxt.getTypeFactory().resolveMemberType(geometry.getGenericType(), type.getBindings()).getRawClass();
+         readers.put("geometry", geometryReader(ctxt, type, plan, geometry, geometryClass));
+      }
+      Annotated properties = plan.getProperties();
+      if (properties != null) {
+         // one @GeoJsonProperties
+         readers.put("properties", valueReader(ctxt, type, properties));
+      } else if (!plan.getPropertyList().isEmpty()) {
+         // one or more @GeoJsonProperty
+         Map<String, MemberReader> propertyReaders = new HashMap<>();
+         for (IntrospectionPlan.Property property : plan.getPropertyList()) {
+            propertyReaders.put(property.getName(), valueReader(ctxt, type, property.getAnnotated()));
+         }
+         readers.put("properties", (p, c, object) -> readProperties(p, c, object, propertyReaders));
+      }
+   }
+
+   private static void resolveFeatureCollection(DeserializationContext ctxt, JavaType type, IntrospectionPlan plan, Map<String, MemberReader> readers)
+      throws JsonMappingException {
+      Annotated features = plan.getFeatures();
+      if (features != null) {
+         readers.put("features", valueReader(ctxt, type, features));
+      } else if (!plan.getFeatureList().isEmpty()) {
+         readers.put("features", (p, c, object) -> {
+            throw new DocumentFactoryException("Features can only be read into a member annotated with @GeoJsonFeatures.");
+         });
+      }
+   }
+
+   private static void resolveGeometryCollection(DeserializationContext ctxt, JavaType type, IntrospectionPlan plan, Map<String, MemberReader> readers) {
+      Annotated geometries = plan.getGeometries();
+      if (geometries != null) {
+         Class<?> memberClass = ctxt.getTypeFactory().resolveMemberType(geometries.getGenericType(), type.getBindings()).getRawClass();
+         readers.put("geometries", (p, c, object) -> {
+            if (p.currentToken() == JsonToken.VALUE_NULL) {
+               geometries.setValue(object, null);
+            } else {
+               geometries.setValue(object, toMemberType(memberClass, geometries, GeometryReader.INSTANCE.readGeometries(p)));
+            }
+         });
+      } else if (!plan.getGeometryList().isEmpty()) {
+         readers.put("geometries", (p, c, object) -> {
+            throw new DocumentFactoryException("Geometries can only be read into a member annotated with @GeoJsonGeometries.");
+         });
+      }
+   }
+
+   /**
+    * Returns the reader of the geometry of a <em>Feature</em>, by the type of the member: pre-encoded GeoJSON, WKB or a
+    * {@link Geometry}.
+    */
+   private static MemberReader geometryReader(DeserializationContext ctxt, JavaType type, IntrospectionPlan plan, Annotated geometry,
+                                              Class<?> geometryClass) throws JsonMappingException {
+      if (plan.isRawGeometry(geometry)) {
+         if (geometryClass == byte[].class) {
+            return (p, c, object) -> geometry.setValue(object, p.currentToken() == JsonToken.VALUE_NULL ? null : copyUtf8(p));
+         } else if (geometryClass == RawValue.class) {
+            return (p, c, object) -> geometry.setValue(object, p.currentToken() == JsonToken.VALUE_NULL ? null : new RawValue(copy(p)));
+         } else if (geometryClass.isAssignableFrom(String.class)) {
+            return (p, c, object) -> geometry.setValue(object, p.currentToken() == JsonToken.VALUE_NULL ? null : copy(p));
+         }
+         return ctxt.reportBadDefinition(type, "Pre-encoded GeoJSON can only be read into a String, byte[] or " +
+            RawValue.class.getName() + ": " + geometry.getDescription());
+      }
+      if (geometryClass == byte[].class) {
+         return (p, c, object) -> geometry.setValue(object, toWkb(GeometryReader.INSTANCE.read(p)));
+      } else if (geometryClass == ByteBuffer.class) {
+         return (p, c, object) -> {
+            byte[] wkb = toWkb(GeometryReader.INSTANCE.read(p));
+            geometry.setValue(object, wkb != null ? ByteBuffer.wrap(wkb) : null);
+         };
+      }
+      return (p, c, object) -> geometry.setValue(object, checkGeometry(p, c, geometryClass, GeometryReader.INSTANCE.read(p)));
+   }
+
+   /**
+    * Copies the current value as JSON text.
+    */
+   private static String copy(JsonParser p) throws IOException {
+      StringWriter writer = new StringWriter(256);
+      try (JsonGenerator gen = jsonFactory.createGenerator(writer)) {
+         gen.copyCurrentStructure(p);
+      }
+      return writer.toString();
+   }
+
+   /**
+    * Copies the current value as JSON text encoded as UTF-8.
+    */
+   private static byte[] copyUtf8(JsonParser p) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+      try (JsonGenerator gen = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+         gen.copyCurrentStructure(p);
+      }
+      return out.toByteArray();
+   }
+
+   /**
+    * Encodes a geometry as WKB, with Z if its first coordinate has one.
+    */
+   private static byte[] toWkb(Geometry geometry) {
+      if (geometry == null) {
+         return null;
+      }
+      Coordinate coordinate = geometry.getCoordinate();
+      boolean hasZ = coordinate != null && !Double.isNaN(coordinate.getZ());
+      return new WKBWriter(hasZ ? 3 : 2).write(geometry);
+   }
+
+   /**
+    * Returns a reader of a value by the deserializer of the member's type.
+    */
+   private static MemberReader valueReader(DeserializationContext ctxt, JavaType type, Annotated annotated) throws JsonMappingException {
+      JavaType memberType = ctxt.getTypeFactory().resolveMemberType(annotated.getGenericType(), type.getBindings());
+      JsonDeserializer<Object> deserializer = ctxt.findContextualValueDeserializer(memberType, null);
+      return (p, c, object) -> annotated.setValue(object,
+         p.currentToken() == JsonToken.VALUE_NULL ? deserializer.getNullValue(c) : deserializer.deserialize(p, c));
+   }
+
+   private static void readProperties(JsonParser p, DeserializationContext ctxt, Object object, Map<String, MemberReader> propertyReaders)
+      throws IOException, DocumentFactoryException {
+      JsonToken token = p.currentToken();
+      if (token == JsonToken.VALUE_NULL) {
+         return;
+      }
+      if (token != JsonToken.START_OBJECT) {
+         ctxt.reportInputMismatch(Map.class, "Properties are not an object: %s", token);
+      }
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+         MemberReader reader = propertyReaders.get(p.getCurrentName());
+         p.nextToken();
+         if (reader != null) {
+            reader.read(p, ctxt, object);
+         } else {
+            p.skipChildren();
+         }
+      }
+   }
+
+   private static Geometry checkGeometry(JsonParser p, DeserializationContext ctxt, Class<?> geometryClass, Geometry geometry) throws IOException {
+      if (geometry != null && !geometryClass.isInstance(geometry)) {
+         ctxt.reportInputMismatch(geometryClass, "Geometry of type %s is not assignable to %s.", geometry.getGeometryType(), geometryClass.getName());
+      }
+      return geometry;
+   }
+
+   /**
+    * Converts the geometries to an array or returns them as list.
+    */
+   private static Object toMemberType(Class<?> memberClass, Annotated annotated, List<Geometry> geometries) throws DocumentFactoryException {
+      if (memberClass.isArray()) {
+         Object array = Array.newInstance(memberClass.getComponentType(), geometries.size());
+         for (int i = 0; i < geometries.size(); i++) {
+            Geometry geometry = geometries.get(i);
+            if (geometry != null && !memberClass.getComponentType().isInstance(geometry)) {
+               throw new DocumentFactoryException("Geometry of type " + geometry.getGeometryType() + " is not assignable to " + annotated.getDescription());
+            }
+            Array.set(array, i, geometry);
+         }
+         return array;
+      }
+      if (!memberClass.isAssignableFrom(ArrayList.class)) {
+         throw new DocumentFactoryException("Geometries can only be read into an array or a List: " + annotated.getDescription());
+      }
+      return geometries;
+   }
+
+   /**
+    * Reads the value of a member, the current token is the first one of the value.
+    */
+   @FunctionalInterface
+   private interface MemberReader {
+
+      void read(JsonParser p, DeserializationContext ctxt, Object object) throws IOException, DocumentFactoryException;
+   }
+}
@@ -0,0 +1,165 @@
+package ch.cordsen.geojson.deserializer;
+
+import ch.cordsen.geojson.document.FeatureDocument;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads single features or pages of features of a <em>FeatureCollection</em> file without parsing the whole file.
+ * <p>The file is mapped into memory, in segments for files larger than 2 GB. On opening, the byte range of each
+ * feature is collected by one scan into a compact index, which is saved next to the file as
+ * <code>&lt;file&gt;.idx</code> and reused as long as the file's size and modification time are unchanged.
+ * Afterwards {@link #get(int)} and {@link #range(int, int)} decode only the requested features, into
+ * {@link FeatureDocument feature documents} or into classes deserialized by the {@link GeoJsonDeserializer}.
+ * <p>A reader is thread-safe.
+ * <p>Example:
+ * <pre>
+ *    try (GeoJsonFileReader reader = GeoJsonFileReader.open(path, objectMapper)) {
+ *       List&lt;Attraction&gt; page = reader.range(100, 150, Attraction.class);
+ *    }
+ * </pre>
+ */
+public final class GeoJsonFileReader implements Closeable {
+
+   private final MappedFile file;
+   private final FeatureIndex index;
+   private final ObjectMapper objectMapper;
+   private final FeatureDecoder<FeatureDocument> documentDecoder;
+
+   private GeoJsonFileReader(MappedFile file, FeatureIndex index, ObjectMapper objectMapper) {
+      this.file = file;
+      this.index = index;
+      this.objectMapper = objectMapper;
+      this.documentDecoder = FeatureDecoder.documents(objectMapper);
+   }
+
+   /**
+    * Opens a file with its index at <code>&lt;file&gt;.idx</code>, the index is built and saved if necessary.
+    *
+    * @param file         the file with a <em>FeatureCollection</em>
+    * @param objectMapper the mapper decoding the features
+    * @return the reader
+    * @throws IOException if the file or the index cannot be read, or the index cannot be saved
+    */
+   public static GeoJsonFileReader open(Path file, ObjectMapper objectMapper) throws IOException {
+      return open(file, file.resolveSibling(file.getFileName() + ".idx"), objectMapper);
+   }
+
+   /**
+    * Opens a file with its index at a path, the index is built and saved if necessary.
+    *
+    * @param file         the file with a <em>FeatureCollection</em>
+    * @param indexFile    the file of the index, or <code>null</code> to build the index without saving it
+    * @param objectMapper the mapper decoding the features
+    * @return the reader
+    * @throws IOException if the file or the index cannot be read, or the index cannot be saved
+    */
+   public static GeoJsonFileReader open(Path file, @Nullable Path indexFile, ObjectMapper objectMapper) throws IOException {
+      MappedFile mappedFile = MappedFile.map(file);
+      try {
+         long lastModified = Files.getLastModifiedTime(file).toMillis();
+         FeatureIndex index = indexFile != null ? FeatureIndex.load(indexFile, mappedFile.size(), lastModified) : null;
+         if (index == null) {
+            index = FeatureIndex.build(mappedFile, objectMapper.getFactory());
+            if (indexFile != null) {
+               index.save(indexFile, mappedFile.size(), lastModified);
+            }
+         }
+         return new GeoJsonFileReader(mappedFile, index, objectMapper);
+      } catch (IOException | RuntimeException e) {
+         mappedFile.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Returns the number of features.
+    *
+    * @return the number of features
+    */
+   public int size() {
+      return index.size();
+   }
+
+   /**
+    * Decodes a feature into a document.
+    *
+    * @param index the index of the feature
+    * @return the feature
+    * @throws IOException               for invalid features
+    * @throws IndexOutOfBoundsException if the index is out of range
+    */
+   public FeatureDocument get(int index) throws IOException {
+      return range(index, index + 1, documentDecoder).get(0);
+   }
+
+   /**
+    * Decodes a feature into a class.
+    *
+    * @param index the index of the feature
+    * @param type  the class of the feature
+    * @param <T>   the type of the feature
+    * @return the feature
+    * @throws IOException               for invalid features
+    * @throws IndexOutOfBoundsException if the index is out of range
+    */
+   public <T> T get(int index, Class<T> type) throws IOException {
+      return range(index, index + 1, FeatureDecoder.of(objectMapper, type)).get(0);
+   }
+
+   /**
+    * Decodes a range of features into documents.
+    *
+    * @param from the index of the first feature, inclusive
+    * @param to   the index of the last feature, exclusive
+    * @return the features
+    * @throws IOException               for invalid features
+    * @throws IndexOutOfBoundsException if the range is out of bounds
+    */
+   public List<FeatureDocument> range(int from, int to) throws IOException {
+      return range(from, to, documentDecoder);
+   }
+
+   /**
+    * Decodes a range of features into a class.
+    *
+    * @param from the index of the first feature, inclusive
+    * @param to   the index of the last feature, exclusive
+    * @param type the class of the features
+    * @param <T>  the type of the features
+    * @return the features
+    * @throws IOException               for invalid features
+    * @throws IndexOutOfBoundsException if the range is out of bounds
+    */
+   public <T> List<T> range(int from, int to, Class<T> type) throws IOException {
+      return range(from, to, FeatureDecoder.of(objectMapper, type));
+   }
+
+   private <T> List<T> range(int from, int to, FeatureDecoder<T> decoder) throws IOException {
+      if (from < 0 || to > index.size() || from > to) {
+         throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") of " + index.size() + " features.");
+      }
+      List<T> features = new ArrayList<>(to - from);
+      for (int i = from; i < to; i++) {
+         features.add(decoder.decode(file, index.start(i), index.length(i), objectMapper.getFactory()));
+      }
+      return features;
+   }
+
+   /**
+    * Closes the file.
+    *
+    * @throws IOException from the file
+    */
+   @Override
+   public void close() throws IOException {
+      file.close();
+   }
+}
@@ -0,0 +1,181 @@
+package ch.cordsen.geojson.deserializer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file mapped read-only into memory in segments, thus files larger than 2 GB are supported.
+ * <p>Reading is thread-safe, the positions of the mapped buffers are never changed. The mapping is released
+ * by the garbage collector after {@link #close()}.
+ */
+final class MappedFile implements Closeable {
+
+   /**
+    * The size of a segment as power of two, 1 GB.
+    */
+   static final int SEGMENT_SHIFT = 30;
+
+   private final FileChannel channel;
+   private final MappedByteBuffer[] segments;
+   private final int segmentShift;
+   private final long size;
+
+   private MappedFile(FileChannel channel, MappedByteBuffer[] segments, int segmentShift, long size) {
+      this.channel = channel;
+      this.segments = segments;
+      this.segmentShift = segmentShift;
+      this.size = size;
+   }
+
+   /**
+    * Maps a file in segments of {@link #SEGMENT_SHIFT} bytes.
+    *
+    * @param file the file
+    * @return the mapped file
+    * @throws IOException if the file cannot be opened or mapped
+    */
+   static MappedFile map(Path file) throws IOException {
+      return map(file, SEGMENT_SHIFT);
+   }
+
+   /**
+    * Maps a file in segments of a size.
+    *
+    * @param file         the file
+    * @param segmentShift the size of a segment as power of two
+    * @return the mapped file
+    * @throws IOException if the file cannot be opened or mapped
+    */
+   static MappedFile map(Path file, int segmentShift) throws IOException {
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+      try {
+         long size = channel.size();
+         long segmentSize = 1L << segmentShift;
+         MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + segmentSize - 1) >>> segmentShift)];
+         for (int i = 0; i < segments.length; i++) {
+            long position = (long) i << segmentShift;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+         }
+         return new MappedFile(channel, segments, segmentShift, size);
+      } catch (IOException | RuntimeException e) {
+         channel.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Returns the size of the file.
+    *
+    * @return the number of bytes
+    */
+   long size() {
+      return size;
+   }
+
+   /**
+    * Returns the number of segments.
+    *
+    * @return the number of segments
+    */
+   int segmentCount() {
+      return segments.length;
+   }
+
+   /**
+    * Returns the position of the first byte of a segment in the file.
+    *
+    * @param segment the index of the segment
+    * @return the position
+    */
+   long segmentPosition(int segment) {
+      return (long) segment << segmentShift;
+   }
+
+   /**
+    * Returns the index of the segment containing a position.
+    *
+    * @param position the position in the file
+    * @return the index of the segment
+    */
+   int segmentOf(long position) {
+      return (int) (position >>> segmentShift);
+   }
+
+   /**
+    * Returns a segment for reading with absolute gets, its position must not be changed.
+    *
+    * @param segment the index of the segment
+    * @return the mapped buffer
+    */
+   ByteBuffer segment(int segment) {
+      return segments[segment];
+   }
+
+   /**
+    * Copies bytes of the file into an array, across segments.
+    *
+    * @param position the position of the first byte
+    * @param buffer   the array
+    * @param offset   the offset in the array
+    * @param length   the number of bytes
+    */
+   void read(long position, byte[] buffer, int offset, int length) {
+      int copied = 0;
+      while (copied < length) {
+         int segment = segmentOf(position + copied);
+         ByteBuffer view = segments[segment].duplicate();
+         view.position((int) (position + copied - segmentPosition(segment)));
+         int count = Math.min(length - copied, view.remaining());
+         view.get(buffer, offset + copied, count);
+         copied += count;
+      }
+   }
+
+   /**
+    * Returns a stream of a range of the file.
+    *
+    * @param position the position of the first byte
+    * @param length   the number of bytes
+    * @return the stream, not thread-safe
+    */
+   InputStream inputStream(long position, long length) {
+      long end = Math.min(size, position + length);
+      return new InputStream() {
+         private long next = position;
+
+         @Override public int read() {
+            if (next >= end) {
+               return -1;
+            }
+            int segment = segmentOf(next);
+            return segments[segment].get((int) (next++ - segmentPosition(segment))) & 0xFF;
+         }
+
+         @Override public int read(byte[] b, int off, int len) {
+            if (next >= end) {
+               return -1;
+            }
+            int count = (int) Math.min(len, end - next);
+            MappedFile.this.read(next, b, off, count);
+            next += count;
+            return count;
+         }
+      };
+   }
+
+   /**
+    * Closes the channel.
+    *
+    * @throws IOException from the channel
+    */
+   @Override
+   public void close() throws IOException {
+      channel.close();
+   }
+}
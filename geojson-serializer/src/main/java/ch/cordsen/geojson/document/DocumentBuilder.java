@@ -0,0 +1,198 @@
+package ch.cordsen.geojson.document;
+
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DocumentSink} that materializes the pushed members as {@link Document}.
+ * <p>The attributes pushed with {@link #property(String, Object)} are collected in a {@link Map}
+ * keeping their order. The builder is meant for one document and is not thread-safe.
+ * <p>Example:
+ * <pre>
+ *    DocumentBuilder builder = new DocumentBuilder();
+ *    streamingDocumentFactory.write(object, builder);
+ *    Document document = builder.build();
+ * </pre>
+ */
+public class DocumentBuilder implements DocumentSink {
+
+   private Document document;
+   private Object id;
+   private Geometry geometry;
+   private Object properties;
+   private Map<String, Object> propertyMap;
+   private List<Object> features;
+   private List<Geometry> geometries;
+
+   /**
+    * Constructor
+    */
+   public DocumentBuilder() {
+      // nothing pushed yet
+   }
+
+   /**
+    * Returns the document built from the pushed members.
+    *
+    * @return the document
+    * @throws IllegalStateException if no document was pushed completely
+    */
+   public Document build() {
+      if (document == null) {
+         throw new IllegalStateException("No document has been completed.");
+      }
+      return document;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginFeature() {
+      id = null;
+      geometry = null;
+      properties = null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void id(Object id) {
+      this.id = id;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void geometry(Geometry geometry) {
+      if (geometries != null) {
+         geometries.add(geometry);
+      } else {
+         this.geometry = geometry;
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void properties(Object properties) {
+      this.properties = properties;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginProperties() {
+      propertyMap = new LinkedHashMap<>();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void property(String name, Object value) {
+      if (propertyMap == null) {
+         throw new IllegalStateException("Properties have not been begun.");
+      }
+      propertyMap.put(name, value);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endProperties() {
+      properties = propertyMap;
+      propertyMap = null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endFeature() {
+      document = new BuiltFeatureDocument(id, geometry, properties);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginFeatureCollection() {
+      features = new ArrayList<>();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void feature(Object feature) {
+      if (features == null) {
+         throw new IllegalStateException("FeatureCollection has not been begun.");
+      }
+      features.add(feature);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endFeatureCollection() {
+      List<Object> collected = features;
+      features = null;
+      document = (FeatureCollectionDocument) () -> collected;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginGeometryCollection() {
+      geometries = new ArrayList<>();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endGeometryCollection() {
+      List<Geometry> collected = geometries;
+      geometries = null;
+      document = (GeometryCollectionDocument) () -> collected;
+   }
+
+   /**
+    * A materialized {@link FeatureDocument}.
+    */
+   private static final class BuiltFeatureDocument implements FeatureDocument {
+
+      private final Object id;
+      private final Geometry geometry;
+      private final Object properties;
+
+      /**
+       * Constructor
+       */
+      BuiltFeatureDocument(Object id, Geometry geometry, Object properties) {
+         this.id = id;
+         this.geometry = geometry;
+         this.properties = properties;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Object getId() {
+         return id;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Geometry getGeometry() {
+         return geometry;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Object getProperties() {
+         return properties;
+      }
+   }
+}
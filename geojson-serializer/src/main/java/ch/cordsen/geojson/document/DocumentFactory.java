@@ -8,7 +8,12 @@ import ch.cordsen.geojson.introspection.IntrospectionDocumentFactory;
  * <p>
  * The factory is interchangeable to enable mocking in tests and customizations.
  * The default implementation can replaced with annotation attribute {@link GeoJson#factory()}.
+ * <p>
+ * Implementations need a public no-argument constructor. The factory is instantiated once and the instance
+ * is shared by all serializations, thus implementations must be thread-safe. A factory that is not thread-safe
+ * has to be annotated with {@link PerThread} to get one instance per thread.
  *
+ * @see PerThread
  * @see IntrospectionDocumentFactory as default implementation
  */
 public interface DocumentFactory {
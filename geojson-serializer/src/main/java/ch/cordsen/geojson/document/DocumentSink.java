@@ -0,0 +1,228 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.geometry.GeometryReader;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Receives the members of a <em>GeoJSON document</em> from a {@link StreamingDocumentFactory}
+ * without materializing a {@link Document}.
+ * <p>A <em>Feature</em> is pushed in the order of the output:
+ * <ol>
+ * <li>{@link #beginFeature()}</li>
+ * <li>{@link #id(Object)} {0,1}</li>
+ * <li>{@link #geometry(Geometry)} <strong>or</strong> {@link #wkbGeometry(ByteBuffer)} <strong>or</strong>
+ * {@link #rawGeometry(String)} <strong>or</strong> {@link #rawGeometry(byte[])} {0,1}</li>
+ * <li>{@link #properties(Object)} {0,1} <strong>or</strong> {@link #beginProperties()}, {@link #property(String, Object)} {0,},
+ * {@link #endProperties()}</li>
+ * <li>{@link #endFeature()}</li>
+ * </ol>
+ * A missing geometry or properties object is treated as <code>null</code>.
+ * <p>A <em>FeatureCollection</em> is pushed with {@link #beginFeatureCollection()}, {@link #feature(Object)} {0,}
+ * for the elements returned by {@link #filterFeatures(Object)} and each further feature
+ * and {@link #endFeatureCollection()}, a <em>GeometryCollection</em> with {@link #beginGeometryCollection()},
+ * {@link #geometry(Geometry)}, {@link #wkbGeometry(ByteBuffer)}, {@link #rawGeometry(String)} or
+ * {@link #rawGeometry(byte[])} {0,} and
+ * {@link #endGeometryCollection()}.
+ *
+ * @see StreamingDocumentFactory
+ */
+public interface DocumentSink {
+
+   /**
+    * Begins a <em>Feature</em>.
+    *
+    * @throws IOException for exceptions from the underlying output
+    */
+   void beginFeature() throws IOException;
+
+   /**
+    * Sets the ID of the <em>Feature</em>, a <code>null</code> ID is omitted.
+    *
+    * @param id the optional ID
+    * @throws IOException for exceptions from the underlying output
+    */
+   void id(@Nullable Object id) throws IOException;
+
+   /**
+    * Sets the geometry of the <em>Feature</em>, or adds an element to the <em>GeometryCollection</em>.
+    *
+    * @param geometry the optional geometry
+    * @throws IOException for exceptions from the underlying output
+    */
+   void geometry(@Nullable Geometry geometry) throws IOException;
+
+   /**
+    * Sets the geometry of the <em>Feature</em>, or adds an element to the <em>GeometryCollection</em>, encoded as
+    * <em>Well-known Binary</em>, see {@link Geometries}.
+    * <p>A sink may write the coordinates straight from the bytes. By default, the geometry is decoded and passed to
+    * {@link #geometry(Geometry)}.
+    *
+    * @param wkb the WKB or EWKB from the position to the limit of the buffer, the buffer may be modified
+    * @throws IOException for exceptions from the underlying output, or if the bytes are not valid WKB
+    */
+   default void wkbGeometry(ByteBuffer wkb) throws IOException {
+      Geometry geometry;
+      try {
+         geometry = Geometries.fromWkb(wkb);
+      } catch (ParseException e) {
+         throw new IOException("Invalid WKB geometry: " + e.getMessage(), e);
+      }
+      geometry(geometry);
+   }
+
+   /**
+    * Sets the geometry of the <em>Feature</em>, or adds an element to the <em>GeometryCollection</em>, already encoded
+    * as GeoJSON, see {@link ch.cordsen.geojson.annotation.GeoJsonGeometry#raw()}.
+    * <p>A sink may write the text verbatim. By default, the geometry is parsed and passed to {@link #geometry(Geometry)}.
+    *
+    * @param json the <em>Geometry Object</em>, its structure may be checked by {@link Geometries}
+    * @throws IOException for exceptions from the underlying output, or if the text is not a valid geometry
+    */
+   default void rawGeometry(String json) throws IOException {
+      geometry(GeometryReader.parse(json));
+   }
+
+   /**
+    * Sets the geometry of the <em>Feature</em>, or adds an element to the <em>GeometryCollection</em>, already encoded
+    * as GeoJSON in UTF-8, see {@link ch.cordsen.geojson.annotation.GeoJsonGeometry#raw()}.
+    * <p>A sink may write the bytes verbatim. By default, the geometry is parsed and passed to {@link #geometry(Geometry)}.
+    *
+    * @param json the <em>Geometry Object</em>, its structure may be checked by {@link Geometries}, the array is not modified
+    * @throws IOException for exceptions from the underlying output, or if the bytes are not a valid geometry
+    */
+   default void rawGeometry(byte[] json) throws IOException {
+      geometry(GeometryReader.parse(json));
+   }
+
+   /**
+    * Sets the properties object of the <em>Feature</em> as one value.
+    *
+    * @param properties the optional properties
+    * @throws IOException for exceptions from the underlying output
+    */
+   void properties(@Nullable Object properties) throws IOException;
+
+   /**
+    * Begins the properties object of the <em>Feature</em> to be pushed attribute by attribute.
+    *
+    * @throws IOException for exceptions from the underlying output
+    */
+   void beginProperties() throws IOException;
+
+   /**
+    * Adds one attribute to the properties object begun with {@link #beginProperties()}.
+    *
+    * @param name  the key of the attribute
+    * @param value the optional value
+    * @throws IOException for exceptions from the underlying output
+    */
+   void property(String name, @Nullable Object value) throws IOException;
+
+   /**
+    * Ends the properties object begun with {@link #beginProperties()}.
+    *
+    * @throws IOException for exceptions from the underlying output
+    */
+   void endProperties() throws IOException;
+
+   /**
+    * Ends the <em>Feature</em>.
+    *
+    * @throws IOException for exceptions from the underlying output
+    */
+   void endFeature() throws IOException;
+
+   /**
+    * Begins a <em>FeatureCollection</em>.
+    *
+    * @throws IOException for exceptions from the underlying output
+    */
+   void beginFeatureCollection() throws IOException;
+
+   /**
+    * Adds a feature to the <em>FeatureCollection</em>.
+    *
+    * @param feature the feature, most likely an object annotated as <em>Feature</em>
+    * @throws IOException for exceptions from the underlying output
+    */
+   void feature(@Nullable Object feature) throws IOException;
+
+   /**
+    * Returns the features of the <em>FeatureCollection</em> to be pushed, called with the value annotated with
+    * {@link ch.cordsen.geojson.annotation.GeoJsonFeatures} before its elements are pushed by {@link #feature(Object)}.
+    * <p>A sink may narrow the features down, for example by querying a spatial index. By default, the value is
+    * returned as is.
+    *
+    * @param features the array, {@link Iterable}, {@link java.util.Iterator}, {@link java.util.stream.Stream} or
+    *                 {@link java.util.Spliterator} of features, see {@link Elements}
+    * @return the features to push, of one of the same types
+    */
+   default @Nullable Object filterFeatures(@Nullable Object features) {
+      return features;
+   }
+
+   /**
+    * Ends the <em>FeatureCollection</em>.
+    *
+    * @throws IOException for exceptions from the underlying output
+    */
+   void endFeatureCollection() throws IOException;
+
+   /**
+    * Begins a <em>GeometryCollection</em>.
+    *
+    * @throws IOException for exceptions from the underlying output
+    */
+   void beginGeometryCollection() throws IOException;
+
+   /**
+    * Ends the <em>GeometryCollection</em>.
+    *
+    * @throws IOException for exceptions from the underlying output
+    */
+   void endGeometryCollection() throws IOException;
+
+   /**
+    * Pushes a materialized document.
+    *
+    * @param document the document created by a {@link DocumentFactory}
+    * @throws IOException           for exceptions from the underlying output
+    * @throws IllegalStateException if the implementation of the document is not supported
+    */
+   default void document(Document document) throws IOException {
+      if (document instanceof FeatureDocument) {
+         FeatureDocument feature = (FeatureDocument) document;
+         beginFeature();
+         id(feature.getId());
+         geometry(feature.getGeometry());
+         properties(feature.getProperties());
+         endFeature();
+      } else if (document instanceof FeatureCollectionDocument) {
+         beginFeatureCollection();
+         List<Object> features = ((FeatureCollectionDocument) document).getFeatures();
+         if (features != null) {
+            for (Object feature : features) {
+               feature(feature);
+            }
+         }
+         endFeatureCollection();
+      } else if (document instanceof GeometryCollectionDocument) {
+         beginGeometryCollection();
+         List<Geometry> geometries = ((GeometryCollectionDocument) document).getGeometries();
+         if (geometries != null) {
+            for (Geometry geometry : geometries) {
+               geometry(geometry);
+            }
+         }
+         endGeometryCollection();
+      } else {
+         throw new IllegalStateException("Unsupported implementation of Document: " + (document == null ? null : document.getClass()));
+      }
+   }
+}
@@ -0,0 +1,134 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import org.locationtech.jts.geom.Geometry;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+
+/**
+ * Iterates the elements of the values annotated with {@link GeoJsonFeatures} or {@link GeoJsonGeometries}.
+ * <p>Supported are arrays, {@link Iterable Iterables} (like any {@link java.util.Collection}), {@link Iterator Iterators},
+ * {@link Stream Streams} and {@link Spliterator Spliterators}. The elements are pulled one by one and passed on
+ * without copying them, thus large results like database cursors are written without holding them in memory.
+ * A {@link Stream} is closed after its elements have been consumed.
+ */
+public final class Elements {
+
+   private Elements() {
+      // static usage only
+   }
+
+   /**
+    * Action performed for each element.
+    */
+   @FunctionalInterface
+   public interface Action {
+
+      /**
+       * Performs the action for an element.
+       *
+       * @param element the element, may be <code>null</code>
+       * @throws DocumentFactoryException for wrong types of elements and such
+       * @throws IOException              for exceptions from the sink
+       */
+      void accept(@Nullable Object element) throws DocumentFactoryException, IOException;
+   }
+
+   /**
+    * Performs an action for each element of a value.
+    *
+    * @param value       the array, {@link Iterable}, {@link Iterator}, {@link Stream} or {@link Spliterator}, <code>null</code> has no elements
+    * @param description the description of the annotated field or method for error messages
+    * @param action      the action to perform for each element
+    * @throws DocumentFactoryException if the value is not of a supported type or from the action
+    * @throws IOException              from the action
+    */
+   public static void forEach(@Nullable Object value, String description, Action action) throws DocumentFactoryException, IOException {
+      if (value == null) {
+         return;
+      }
+      if (value instanceof Object[]) {
+         for (Object element : (Object[]) value) {
+            action.accept(element);
+         }
+      } else if (value instanceof Iterable) {
+         forEach(((Iterable<?>) value).iterator(), action);
+      } else if (value instanceof Iterator) {
+         forEach((Iterator<?>) value, action);
+      } else if (value instanceof Stream) {
+         try (Stream<?> stream = (Stream<?>) value) {
+            forEach(stream.iterator(), action);
+         }
+      } else if (value instanceof Spliterator) {
+         forEach(Spliterators.iterator((Spliterator<?>) value), action);
+      } else {
+         throw new DocumentFactoryException("Value of " + description + " is not an Array, Iterable, Iterator, Stream or Spliterator.");
+      }
+   }
+
+   /**
+    * Returns the elements of a value as a list.
+    * <p>This materializes all elements and should only be used for creating a {@link Document}.
+    *
+    * @param value       the array, {@link Iterable}, {@link Iterator}, {@link Stream} or {@link Spliterator}, <code>null</code> has no elements
+    * @param description the description of the annotated field or method for error messages
+    * @return the list of elements, may be empty but never <code>null</code>
+    * @throws DocumentFactoryException if the value is not of a supported type
+    */
+   public static List<Object> toList(@Nullable Object value, String description) throws DocumentFactoryException {
+      List<Object> list = new ArrayList<>();
+      try {
+         forEach(value, description, list::add);
+      } catch (IOException e) {
+         throw new IllegalStateException("Unexpected exception from a list.", e);
+      }
+      return list;
+   }
+
+   /**
+    * Returns an element as {@link Geometry}, decoding WKB, see {@link Geometries}.
+    *
+    * @param element     the element
+    * @param description the description of the annotated field or method for error messages
+    * @return the geometry
+    * @throws DocumentFactoryException if the element is not a geometry
+    */
+   public static Geometry toGeometry(@Nullable Object element, String description) throws DocumentFactoryException {
+      checkGeometry(element, description);
+      return Geometries.toGeometry(element, description);
+   }
+
+   /**
+    * Pushes an element as geometry into a sink, WKB without decoding it, see {@link Geometries}.
+    *
+    * @param element     the element
+    * @param description the description of the annotated field or method for error messages
+    * @param sink        the sink
+    * @throws DocumentFactoryException if the element is not a geometry
+    * @throws IOException              for exceptions from the sink
+    */
+   public static void writeGeometry(@Nullable Object element, String description, DocumentSink sink) throws DocumentFactoryException, IOException {
+      checkGeometry(element, description);
+      Geometries.write(element, description, sink);
+   }
+
+   private static void checkGeometry(@Nullable Object element, String description) throws DocumentFactoryException {
+      if (!Geometries.isGeometry(element)) {
+         throw new DocumentFactoryException("Value of " + description + " contains an element not of type Geometry: " + element);
+      }
+   }
+
+   private static void forEach(Iterator<?> iterator, Action action) throws DocumentFactoryException, IOException {
+      while (iterator.hasNext()) {
+         action.accept(iterator.next());
+      }
+   }
+}
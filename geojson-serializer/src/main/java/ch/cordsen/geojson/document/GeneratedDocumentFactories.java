@@ -0,0 +1,52 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.introspection.IntrospectionDocumentFactory;
+
+/**
+ * Naming convention and lookup of {@link DocumentFactory} implementations generated at compile time.
+ * <p>The annotation processor of the module <em>geojson-serializer-processor</em> generates a factory
+ * for each class annotated with {@link GeoJson} using the default {@link IntrospectionDocumentFactory}.
+ * The generated factory is located in the package of the annotated class and named after it, e.g.
+ * <code>com.example.Attraction_GeoJsonDocumentFactory</code> for <code>com.example.Attraction</code>
+ * or <code>com.example.Outer_Inner_GeoJsonDocumentFactory</code> for a nested class.
+ */
+public final class GeneratedDocumentFactories {
+
+   /**
+    * The suffix appended to the name of the annotated class.
+    */
+   public static final String SUFFIX = "_GeoJsonDocumentFactory";
+
+   private GeneratedDocumentFactories() {
+      // static usage only
+   }
+
+   /**
+    * Returns the fully qualified name of the generated factory for an annotated class.
+    *
+    * @param binaryName the binary name of the annotated class, e.g. <code>com.example.Outer$Inner</code>
+    * @return the fully qualified name of the generated factory
+    */
+   public static String nameOf(String binaryName) {
+      int lastDot = binaryName.lastIndexOf('.');
+      String packagePrefix = binaryName.substring(0, lastDot + 1);
+      String simpleName = binaryName.substring(lastDot + 1).replace('$', '_');
+      return packagePrefix + simpleName + SUFFIX;
+   }
+
+   /**
+    * Returns the generated factory for an annotated class.
+    *
+    * @param annotatedClass the annotated class
+    * @return the class of the generated factory, or <code>null</code> if no factory was generated
+    */
+   public static Class<? extends DocumentFactory> find(Class<?> annotatedClass) {
+      try {
+         Class<?> factory = Class.forName(nameOf(annotatedClass.getName()), false, annotatedClass.getClassLoader());
+         return DocumentFactory.class.isAssignableFrom(factory) ? factory.asSubclass(DocumentFactory.class) : null;
+      } catch (ClassNotFoundException | LinkageError e) {
+         return null;
+      }
+   }
+}
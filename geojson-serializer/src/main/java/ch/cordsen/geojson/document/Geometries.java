@@ -0,0 +1,307 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.geometry.GeometryReader;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads the values annotated with {@link ch.cordsen.geojson.annotation.GeoJsonGeometry} and the elements of
+ * {@link ch.cordsen.geojson.annotation.GeoJsonGeometries}.
+ * <p>Supported are JTS {@link Geometry geometries} and geometries encoded as <em>Well-known Binary</em>, like loaded from
+ * a database: <code>byte[]</code> and {@link ByteBuffer ByteBuffers} holding WKB, ISO WKB with Z and M or the EWKB of
+ * PostGIS. The SRID of EWKB is ignored. Encoded geometries are pushed into a {@link DocumentSink} as they are, see
+ * {@link DocumentSink#wkbGeometry(ByteBuffer)}, and only decoded to a {@link Geometry} for a {@link Document}.
+ * <p>Values marked with {@link ch.cordsen.geojson.annotation.GeoJsonGeometry#raw()} are GeoJSON text, pushed as it is
+ * with {@link DocumentSink#rawGeometry(String)} or {@link DocumentSink#rawGeometry(byte[])} once its structure is
+ * checked, see {@link ch.cordsen.geojson.annotation.GeoJsonGeometry#validate()}.
+ */
+public final class Geometries {
+
+   private static final GeometryFactory geometryFactory = new GeometryFactory();
+   private static final int MAX_DEPTH = Long.SIZE;
+
+   private Geometries() {
+      // static usage only
+   }
+
+   /**
+    * Whether a value is a supported geometry.
+    *
+    * @param value the value
+    * @return <code>true</code> for a {@link Geometry}, <code>byte[]</code> or {@link ByteBuffer}
+    */
+   public static boolean isGeometry(@Nullable Object value) {
+      return value instanceof Geometry || value instanceof byte[] || value instanceof ByteBuffer;
+   }
+
+   /**
+    * Returns the geometry of a value, decoding WKB.
+    *
+    * @param value       the value, may be <code>null</code>
+    * @param description the description of the annotated field or method for error messages
+    * @return the geometry, or <code>null</code>
+    * @throws DocumentFactoryException if the value is not a supported geometry or not valid WKB
+    */
+   public static @Nullable Geometry toGeometry(@Nullable Object value, String description) throws DocumentFactoryException {
+      if (value == null || value instanceof Geometry) {
+         return (Geometry) value;
+      }
+      checkGeometry(value, description);
+      try {
+         return fromWkb(toByteBuffer(value));
+      } catch (ParseException e) {
+         throw new DocumentFactoryException("Value of " + description + " is not valid WKB: " + e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Pushes the geometry of a value into a sink, WKB without decoding it.
+    *
+    * @param value       the value, <code>null</code> is pushed as missing geometry
+    * @param description the description of the annotated field or method for error messages
+    * @param sink        the sink
+    * @throws DocumentFactoryException if the value is not a supported geometry
+    * @throws IOException              for exceptions from the sink
+    */
+   public static void write(@Nullable Object value, String description, DocumentSink sink) throws DocumentFactoryException, IOException {
+      if (value == null || value instanceof Geometry) {
+         sink.geometry((Geometry) value);
+      } else {
+         checkGeometry(value, description);
+         sink.wkbGeometry(toByteBuffer(value));
+      }
+   }
+
+   /**
+    * Returns the geometry of a pre-encoded GeoJSON value, parsing it.
+    *
+    * @param value       the value, may be <code>null</code>
+    * @param description the description of the annotated field or method for error messages
+    * @return the geometry, or <code>null</code>
+    * @throws DocumentFactoryException if the value is not of a supported type or not valid GeoJSON
+    */
+   public static @Nullable Geometry rawToGeometry(@Nullable Object value, String description) throws DocumentFactoryException {
+      if (value == null) {
+         return null;
+      }
+      Object text = toText(value, description);
+      try {
+         return text instanceof byte[] ? GeometryReader.parse((byte[]) text) : GeometryReader.parse((String) text);
+      } catch (IOException e) {
+         throw new DocumentFactoryException("Value of " + description + " is not valid GeoJSON: " + e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Pushes a pre-encoded GeoJSON value into a sink, without parsing it. A <code>byte[]</code> is pushed as it is,
+    * without decoding it to a {@link String}.
+    *
+    * @param value       the value, <code>null</code> is pushed as missing geometry
+    * @param description the description of the annotated field or method for error messages
+    * @param validate    whether the structure of the value is checked, see
+    *                    {@link ch.cordsen.geojson.annotation.GeoJsonGeometry#validate()}
+    * @param sink        the sink
+    * @throws DocumentFactoryException if the value is not of a supported type or its structure is invalid
+    * @throws IOException              for exceptions from the sink
+    */
+   public static void writeRaw(@Nullable Object value, String description, boolean validate, DocumentSink sink)
+      throws DocumentFactoryException, IOException {
+      if (value == null) {
+         sink.geometry(null);
+         return;
+      }
+      Object text = toText(value, description);
+      if (text instanceof byte[]) {
+         byte[] json = (byte[]) text;
+         if (validate) {
+            checkStructure(json, description);
+         }
+         sink.rawGeometry(json);
+      } else {
+         String json = (String) text;
+         if (validate) {
+            checkStructure(json, description);
+         }
+         sink.rawGeometry(json);
+      }
+   }
+
+   /**
+    * Decodes WKB.
+    *
+    * @param wkb the bytes from the position to the limit of the buffer, which is not modified
+    * @return the geometry
+    * @throws ParseException if the bytes are not valid WKB
+    */
+   public static Geometry fromWkb(ByteBuffer wkb) throws ParseException {
+      byte[] bytes;
+      if (wkb.hasArray() && wkb.arrayOffset() == 0 && wkb.position() == 0 && wkb.remaining() == wkb.array().length) {
+         bytes = wkb.array();
+      } else {
+         bytes = new byte[wkb.remaining()];
+         wkb.duplicate().get(bytes);
+      }
+      // the reader is not thread-safe, the factory is
+      return new WKBReader(geometryFactory).read(bytes);
+   }
+
+   private static void checkGeometry(Object value, String description) throws DocumentFactoryException {
+      if (!isGeometry(value)) {
+         throw new DocumentFactoryException("Value of " + description + " is not of expected type: " + Geometry.class.getName() +
+            ", byte[] or " + ByteBuffer.class.getName());
+      }
+   }
+
+   /**
+    * Returns the text of a pre-encoded GeoJSON value, a {@link String} or a <code>byte[]</code> of UTF-8.
+    */
+   private static Object toText(Object value, String description) throws DocumentFactoryException {
+      Object text = value instanceof RawValue ? ((RawValue) value).rawValue() : value;
+      if (text instanceof String || text instanceof byte[]) {
+         return text;
+      } else if (text instanceof SerializableString) {
+         return ((SerializableString) text).getValue();
+      }
+      throw new DocumentFactoryException("Value of " + description + " is not of expected type: " + String.class.getName() +
+         ", byte[] or " + RawValue.class.getName() + " of text");
+   }
+
+   private static void checkStructure(CharSequence json, String description) throws DocumentFactoryException {
+      String problem = checkStructure(json);
+      if (problem != null) {
+         throw new DocumentFactoryException("Value of " + description + " is not a GeoJSON object: " + problem);
+      }
+   }
+
+   private static void checkStructure(byte[] json, String description) throws DocumentFactoryException {
+      checkStructure(new Utf8Chars(json), description);
+   }
+
+   /**
+    * Checks the structure of JSON text in one pass without parsing it: one object with balanced braces and brackets,
+    * outside of strings. This catches truncated values, not invalid tokens.
+    *
+    * @param json the text, or the bytes of UTF-8 as {@link Utf8Chars}
+    * @return the problem found, or <code>null</code>
+    */
+   static @Nullable String checkStructure(CharSequence json) {
+      int length = json.length();
+      int start = 0;
+      while (start < length && isWhitespace(json.charAt(start))) {
+         start++;
+      }
+      if (start == length || json.charAt(start) != '{') {
+         return "does not start with '{'";
+      }
+      // one bit per level, set for arrays
+      long arrays = 0;
+      int depth = 0;
+      boolean inString = false;
+      for (int i = start; i < length; i++) {
+         char c = json.charAt(i);
+         if (inString) {
+            if (c == '\\') {
+               i++;
+            } else if (c == '"') {
+               inString = false;
+            }
+            continue;
+         }
+         switch (c) {
+            case '"':
+               inString = true;
+               break;
+            case '{':
+            case '[':
+               if (depth == MAX_DEPTH) {
+                  return "nested too deeply at index " + i;
+               }
+               arrays = c == '[' ? arrays | 1L << depth : arrays & ~(1L << depth);
+               depth++;
+               break;
+            case '}':
+            case ']':
+               if (depth == 0 || ((arrays & 1L << depth - 1) != 0) != (c == ']')) {
+                  return "unexpected '" + c + "' at index " + i;
+               }
+               depth--;
+               if (depth == 0) {
+                  for (int j = i + 1; j < length; j++) {
+                     if (!isWhitespace(json.charAt(j))) {
+                        return "unexpected content after the object at index " + j;
+                     }
+                  }
+                  return null;
+               }
+               break;
+            default:
+               break;
+         }
+      }
+      return "truncated after " + length + (json instanceof Utf8Chars ? " bytes" : " characters");
+   }
+
+   private static boolean isWhitespace(char c) {
+      return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+   }
+
+   private static ByteBuffer toByteBuffer(Object value) {
+      return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : ((ByteBuffer) value).duplicate();
+   }
+
+   /**
+    * The bytes of UTF-8 as characters for {@link #checkStructure(CharSequence)}, without decoding them. The
+    * structural characters are ASCII, the bytes of multi-byte sequences are all above it and never match.
+    */
+   static final class Utf8Chars implements CharSequence {
+
+      private final byte[] bytes;
+
+      /**
+       * Constructor
+       *
+       * @param bytes the text encoded as UTF-8
+       */
+      Utf8Chars(byte[] bytes) {
+         this.bytes = bytes;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public int length() {
+         return bytes.length;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public char charAt(int index) {
+         return (char) (bytes[index] & 0xff);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public CharSequence subSequence(int start, int end) {
+         return new String(bytes, start, end - start, UTF_8);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public String toString() {
+         return new String(bytes, UTF_8);
+      }
+   }
+}
@@ -0,0 +1,34 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Declares a {@link DocumentFactory} implementation as not thread-safe.
+ * <p>Factories are shared between all serializations of a class. A factory annotated with
+ * {@link PerThread} is instantiated once per thread instead.
+ * <p>Example:
+ * <pre>
+ *    &#064;PerThread
+ *    public class StatefulDocumentFactory implements DocumentFactory {
+ *
+ *       private final StringBuilder buffer = new StringBuilder();
+ *
+ *       // ...
+ *    }
+ * </pre>
+ *
+ * @see DocumentFactory
+ * @see GeoJson#factory()
+ */
+@Documented
+@Target({TYPE})
+@Retention(RUNTIME)
+public @interface PerThread {
+}
@@ -0,0 +1,27 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.introspection.IntrospectionDocumentFactory;
+
+import java.io.IOException;
+
+/**
+ * A {@link DocumentFactory} that can push the members of an annotated object directly into a {@link DocumentSink}.
+ * <p>The serializer prefers {@link #write(Object, DocumentSink)}, which writes to the output without
+ * creating a {@link Document} and its collections. {@link #from(Object)} stays available for callers
+ * needing the materialized form, for example by writing into a {@link DocumentBuilder}.
+ *
+ * @see IntrospectionDocumentFactory as default implementation
+ */
+public interface StreamingDocumentFactory extends DocumentFactory {
+
+   /**
+    * Pushes the <em>GeoJSON document</em> of an object annotated with {@link GeoJson} into a sink.
+    *
+    * @param object the object to introspect
+    * @param sink   the sink to push the members into
+    * @throws DocumentFactoryException for missing annotations, wrong types, invalid combination of annotations and such
+    * @throws IOException              for exceptions from the sink
+    */
+   void write(Object object, DocumentSink sink) throws DocumentFactoryException, IOException;
+}
@@ -0,0 +1,366 @@
+package ch.cordsen.geojson.geometry;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Reads <em>GeoJSON Geometry Objects</em> as JTS {@link Geometry geometries} from a {@link JsonParser}.
+ * <p>The positions of a line or ring are parsed into a reused buffer of doubles and copied once into a
+ * {@link CoordinateSequence} of the {@link GeometryFactory}, without intermediate lists of numbers. The nesting
+ * depth of the <em>coordinates</em> is resolved while parsing, thus the members of a geometry may be in any order.
+ * <p>Positions with an altitude are read as three-dimensional, any further elements are ignored. Members other than
+ * <em>type</em>, <em>coordinates</em> and <em>geometries</em>, like <em>bbox</em>, are skipped.
+ * <p>The readers are stateless and thread-safe. The reader is shared by the deserializers and by the serialization of
+ * pre-encoded GeoJSON which needs to be decoded, see {@link ch.cordsen.geojson.annotation.GeoJsonGeometry#raw()}.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc7946#section-3.1" target="_blank">RFC 7946 - Geometry Object</a>
+ */
+public final class GeometryReader {
+
+   /**
+    * The shared reader creating geometries with a default {@link GeometryFactory}.
+    */
+   public static final GeometryReader INSTANCE = new GeometryReader(new GeometryFactory());
+
+   private static final JsonFactory jsonFactory = new JsonFactory();
+   private static final int STRIDE = 3;
+   private static final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+
+   private final GeometryFactory factory;
+
+   /**
+    * Constructor
+    *
+    * @param factory the factory of the geometries and coordinate sequences
+    */
+   public GeometryReader(GeometryFactory factory) {
+      this.factory = factory;
+   }
+
+   /**
+    * Parses a geometry from GeoJSON text with the shared reader.
+    *
+    * @param json the <em>Geometry Object</em>
+    * @return the geometry, or <code>null</code> for a JSON <code>null</code>
+    * @throws IOException for invalid geometries or invalid JSON
+    */
+   public static @Nullable Geometry parse(String json) throws IOException {
+      try (JsonParser p = jsonFactory.createParser(json)) {
+         p.nextToken();
+         return INSTANCE.read(p);
+      }
+   }
+
+   /**
+    * Parses a geometry from GeoJSON encoded as UTF-8 with the shared reader.
+    *
+    * @param json the <em>Geometry Object</em>
+    * @return the geometry, or <code>null</code> for a JSON <code>null</code>
+    * @throws IOException for invalid geometries or invalid JSON
+    */
+   public static @Nullable Geometry parse(byte[] json) throws IOException {
+      try (JsonParser p = jsonFactory.createParser(json)) {
+         p.nextToken();
+         return INSTANCE.read(p);
+      }
+   }
+
+   /**
+    * Reads a geometry, the current token is the start of the object or <code>null</code>.
+    *
+    * @param p the parser
+    * @return the geometry, or <code>null</code> for a JSON <code>null</code>
+    * @throws IOException for invalid geometries or exceptions from the parser
+    */
+   public @Nullable Geometry read(JsonParser p) throws IOException {
+      JsonToken token = p.currentToken();
+      if (token == JsonToken.VALUE_NULL) {
+         return null;
+      }
+      if (token != JsonToken.START_OBJECT) {
+         throw MismatchedInputException.from(p, Geometry.class, "Geometry is not an object: " + token);
+      }
+      String type = null;
+      Object coordinates = null;
+      List<Geometry> geometries = null;
+      for (token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+         String name = p.getCurrentName();
+         token = p.nextToken();
+         switch (name) {
+            case "type":
+               type = p.getValueAsString();
+               break;
+            case "coordinates":
+               coordinates = token == JsonToken.VALUE_NULL ? null : readCoordinates(p);
+               break;
+            case "geometries":
+               geometries = token == JsonToken.VALUE_NULL ? null : readGeometries(p);
+               break;
+            default:
+               p.skipChildren();
+         }
+      }
+      if (type == null) {
+         throw MismatchedInputException.from(p, Geometry.class, "Geometry without type.");
+      }
+      if ("GeometryCollection".equals(type)) {
+         if (geometries == null) {
+            throw MismatchedInputException.from(p, Geometry.class, "GeometryCollection without geometries.");
+         }
+         return factory.createGeometryCollection(geometries.toArray(new Geometry[0]));
+      }
+      if (coordinates == null) {
+         throw MismatchedInputException.from(p, Geometry.class, type + " without coordinates.");
+      }
+      return create(p, type, coordinates);
+   }
+
+   /**
+    * Reads an array of geometries, the current token is the start of the array.
+    *
+    * @param p the parser
+    * @return the geometries, <code>null</code> elements included
+    * @throws IOException for invalid geometries or exceptions from the parser
+    */
+   public List<Geometry> readGeometries(JsonParser p) throws IOException {
+      if (p.currentToken() != JsonToken.START_ARRAY) {
+         throw MismatchedInputException.from(p, Geometry.class, "Geometries are not an array: " + p.currentToken());
+      }
+      List<Geometry> geometries = new ArrayList<>();
+      while (p.nextToken() != JsonToken.END_ARRAY) {
+         geometries.add(read(p));
+      }
+      return geometries;
+   }
+
+   /**
+    * Creates the geometry from the parsed coordinates: a position is a <code>double[]</code>, a list of positions
+    * a {@link CoordinateSequence}, deeper levels are lists and an empty array is an empty list.
+    */
+   private Geometry create(JsonParser p, String type, Object coordinates) throws IOException {
+      switch (type) {
+         case "Point":
+            if (coordinates instanceof double[]) {
+               return factory.createPoint(sequence((double[]) coordinates, 1, dimension((double[]) coordinates)));
+            }
+            return isEmpty(coordinates) ? factory.createPoint() : invalid(p, type);
+         case "LineString":
+            if (coordinates instanceof CoordinateSequence) {
+               return factory.createLineString((CoordinateSequence) coordinates);
+            }
+            return isEmpty(coordinates) ? factory.createLineString() : invalid(p, type);
+         case "MultiPoint":
+            if (coordinates instanceof CoordinateSequence) {
+               return factory.createMultiPoint((CoordinateSequence) coordinates);
+            }
+            return isEmpty(coordinates) ? factory.createMultiPoint() : invalid(p, type);
+         case "Polygon":
+            return isEmpty(coordinates) ? factory.createPolygon() : polygon(p, type, coordinates);
+         case "MultiLineString":
+            List<CoordinateSequence> lines = sequences(p, type, coordinates);
+            LineString[] lineStrings = new LineString[lines.size()];
+            for (int i = 0; i < lineStrings.length; i++) {
+               lineStrings[i] = factory.createLineString(lines.get(i));
+            }
+            return factory.createMultiLineString(lineStrings);
+         case "MultiPolygon":
+            List<?> elements = list(p, type, coordinates);
+            Polygon[] polygons = new Polygon[elements.size()];
+            for (int i = 0; i < polygons.length; i++) {
+               polygons[i] = polygon(p, type, elements.get(i));
+            }
+            return factory.createMultiPolygon(polygons);
+         default:
+            throw MismatchedInputException.from(p, Geometry.class, "Unsupported type of geometry: " + type);
+      }
+   }
+
+   private Polygon polygon(JsonParser p, String type, Object coordinates) throws IOException {
+      List<CoordinateSequence> rings = sequences(p, type, coordinates);
+      if (rings.isEmpty()) {
+         return factory.createPolygon();
+      }
+      LinearRing[] holes = new LinearRing[rings.size() - 1];
+      for (int i = 0; i < holes.length; i++) {
+         holes[i] = linearRing(p, rings.get(i + 1));
+      }
+      return factory.createPolygon(linearRing(p, rings.get(0)), holes);
+   }
+
+   private LinearRing linearRing(JsonParser p, CoordinateSequence sequence) throws IOException {
+      try {
+         return factory.createLinearRing(sequence);
+      } catch (IllegalArgumentException e) {
+         // not closed or too few positions
+         throw MismatchedInputException.from(p, Geometry.class, "Invalid linear ring: " + e.getMessage());
+      }
+   }
+
+   private List<CoordinateSequence> sequences(JsonParser p, String type, Object coordinates) throws IOException {
+      List<?> elements = list(p, type, coordinates);
+      List<CoordinateSequence> sequences = new ArrayList<>(elements.size());
+      for (Object element : elements) {
+         if (element instanceof CoordinateSequence) {
+            sequences.add((CoordinateSequence) element);
+         } else if (isEmpty(element)) {
+            sequences.add(sequence(null, 0, 2));
+         } else {
+            invalid(p, type);
+         }
+      }
+      return sequences;
+   }
+
+   private List<?> list(JsonParser p, String type, Object coordinates) throws IOException {
+      if (!(coordinates instanceof List)) {
+         invalid(p, type);
+      }
+      return (List<?>) coordinates;
+   }
+
+   private static boolean isEmpty(Object coordinates) {
+      return coordinates instanceof List && ((List<?>) coordinates).isEmpty();
+   }
+
+   private static <T> T invalid(JsonParser p, String type) throws IOException {
+      throw MismatchedInputException.from(p, Geometry.class, "Invalid coordinates of " + type + ".");
+   }
+
+   /**
+    * Reads the coordinates of any depth, the current token is the start of an array.
+    */
+   private Object readCoordinates(JsonParser p) throws IOException {
+      if (p.currentToken() != JsonToken.START_ARRAY) {
+         throw MismatchedInputException.from(p, Geometry.class, "Coordinates are not an array: " + p.currentToken());
+      }
+      return readArray(p, p.nextToken());
+   }
+
+   /**
+    * Reads the rest of an array, the token is its first element which has been consumed already.
+    */
+   private Object readArray(JsonParser p, JsonToken token) throws IOException {
+      if (token == JsonToken.END_ARRAY) {
+         return emptyList();
+      }
+      if (token.isNumeric()) {
+         double[] position = new double[STRIDE];
+         readPosition(p, position, 0);
+         return position;
+      }
+      if (token != JsonToken.START_ARRAY) {
+         throw MismatchedInputException.from(p, Geometry.class, "Invalid element of coordinates: " + token);
+      }
+      JsonToken first = p.nextToken();
+      if (first.isNumeric()) {
+         // an array of positions
+         return readPositions(p);
+      }
+      List<Object> elements = new ArrayList<>();
+      elements.add(readArray(p, first));
+      while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+         if (token != JsonToken.START_ARRAY) {
+            throw MismatchedInputException.from(p, Geometry.class, "Invalid element of coordinates: " + token);
+         }
+         elements.add(readArray(p, p.nextToken()));
+      }
+      return elements;
+   }
+
+   /**
+    * Reads positions into the buffer, the current token is the first number of the first position.
+    */
+   private CoordinateSequence readPositions(JsonParser p) throws IOException {
+      Buffer buffer = buffers.get();
+      double[] values = buffer.ensureCapacity(STRIDE);
+      int dimension = readPosition(p, values, 0);
+      int count = 1;
+      JsonToken token;
+      while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+         if (token != JsonToken.START_ARRAY || !p.nextToken().isNumeric()) {
+            throw MismatchedInputException.from(p, Geometry.class, "Invalid position: " + p.currentToken());
+         }
+         values = buffer.ensureCapacity((count + 1) * STRIDE);
+         dimension = Math.max(dimension, readPosition(p, values, count * STRIDE));
+         count++;
+      }
+      return sequence(values, count, dimension);
+   }
+
+   /**
+    * Reads a position, the current token is its first number. The end of the position is consumed.
+    *
+    * @return the number of ordinates, 2 or 3
+    */
+   private static int readPosition(JsonParser p, double[] values, int offset) throws IOException {
+      values[offset] = p.getDoubleValue();
+      values[offset + 2] = Double.NaN;
+      int count = 1;
+      JsonToken token;
+      while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+         if (!token.isNumeric()) {
+            throw MismatchedInputException.from(p, Geometry.class, "Invalid ordinate: " + token);
+         }
+         if (count < STRIDE) {
+            values[offset + count] = p.getDoubleValue();
+         }
+         count++;
+      }
+      if (count < 2) {
+         throw MismatchedInputException.from(p, Geometry.class, "Position with less than two ordinates.");
+      }
+      return Math.min(count, STRIDE);
+   }
+
+   private static int dimension(double[] position) {
+      return Double.isNaN(position[2]) ? 2 : 3;
+   }
+
+   /**
+    * Copies positions with a stride of three into a new sequence of the factory.
+    */
+   private CoordinateSequence sequence(double[] values, int count, int dimension) {
+      CoordinateSequenceFactory sequenceFactory = factory.getCoordinateSequenceFactory();
+      if (sequenceFactory instanceof PackedCoordinateSequenceFactory) {
+         double[] packed = new double[count * dimension];
+         for (int i = 0; i < count; i++) {
+            System.arraycopy(values, i * STRIDE, packed, i * dimension, dimension);
+         }
+         return ((PackedCoordinateSequenceFactory) sequenceFactory).create(packed, dimension);
+      }
+      CoordinateSequence sequence = sequenceFactory.create(count, dimension);
+      for (int i = 0; i < count; i++) {
+         for (int j = 0; j < dimension; j++) {
+            sequence.setOrdinate(i, j, values[i * STRIDE + j]);
+         }
+      }
+      return sequence;
+   }
+
+   /**
+    * Growing buffer of ordinates, one per thread.
+    */
+   private static final class Buffer {
+
+      private double[] values = new double[64 * STRIDE];
+
+      double[] ensureCapacity(int capacity) {
+         if (values.length < capacity) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+         }
+         return values;
+      }
+   }
+}
@@ -0,0 +1,19 @@
+package ch.cordsen.geojson.introspection;
+
+/**
+ * Reads the value of an annotated field or getter.
+ *
+ * @see Accessors
+ */
+@FunctionalInterface
+interface Accessor {
+
+   /**
+    * Returns the value of the member.
+    *
+    * @param object the object of which the value should be returned
+    * @return the value, may be <code>null</code>
+    * @throws Exception on any error
+    */
+   Object get(Object object) throws Exception;
+}
@@ -0,0 +1,235 @@
+package ch.cordsen.geojson.introspection;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.Callable;
+
+/**
+ * Creates {@link Accessor accessors} for fields and getters, {@link Mutator mutators} for fields and setters
+ * and instantiators for classes.
+ * <p>Accessors are created once when a class is planned, the strategies in order of preference are:
+ * <ol>
+ * <li>getters of public classes visible to this library are bound to a generated {@link Accessor}
+ * implementation by the {@link LambdaMetafactory}, which is a direct call the JIT can inline</li>
+ * <li>other fields and getters are bound to a {@link MethodHandle}</li>
+ * <li>members which cannot be accessed that way fall back to plain reflection</li>
+ * </ol>
+ * <p>Mutators and instantiators are bound to a {@link MethodHandle} or fall back to plain reflection.
+ */
+final class Accessors {
+
+   private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+   private static final MethodType accessorType = MethodType.methodType(Object.class, Object.class);
+   private static final MethodType mutatorType = MethodType.methodType(void.class, Object.class, Object.class);
+   private static final MethodType instantiatorType = MethodType.methodType(Object.class);
+
+   private Accessors() {
+      // static usage only
+   }
+
+   /**
+    * Returns an accessor reading the field.
+    *
+    * @param field the field
+    * @return the accessor
+    */
+   static Accessor of(Field field) {
+      try {
+         field.setAccessible(true);
+         MethodHandle handle = lookup.unreflectGetter(field);
+         if (Modifier.isStatic(field.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+         }
+         return new MethodHandleAccessor(handle.asType(accessorType));
+      } catch (RuntimeException | IllegalAccessException e) {
+         // e.g. fields of modules not opened to this library
+         return object -> FieldUtils.readField(field, object, true);
+      }
+   }
+
+   /**
+    * Returns an accessor invoking the method without arguments.
+    *
+    * @param method the method
+    * @return the accessor
+    */
+   static Accessor of(Method method) {
+      if (isBindable(method)) {
+         try {
+            MethodHandle handle = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+               MethodType.methodType(Accessor.class), accessorType, handle, handle.type().wrap());
+            return (Accessor) site.getTarget().invoke();
+         } catch (Throwable e) {
+            // continue with a method handle
+         }
+      }
+      try {
+         method.setAccessible(true);
+         MethodHandle handle = lookup.unreflect(method);
+         if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+         }
+         return new MethodHandleAccessor(handle.asType(accessorType));
+      } catch (RuntimeException | IllegalAccessException e) {
+         return object -> method.invoke(object);
+      }
+   }
+
+   /**
+    * Returns a mutator writing the field.
+    *
+    * @param field the field
+    * @return the mutator
+    */
+   static Mutator mutatorOf(Field field) {
+      try {
+         field.setAccessible(true);
+         MethodHandle handle = lookup.unreflectSetter(field);
+         if (Modifier.isStatic(field.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+         }
+         return new MethodHandleMutator(handle.asType(mutatorType));
+      } catch (RuntimeException | IllegalAccessException e) {
+         // e.g. final fields or fields of modules not opened to this library
+         return (object, value) -> FieldUtils.writeField(field, object, value, true);
+      }
+   }
+
+   /**
+    * Returns a mutator invoking the method with the value as only argument.
+    *
+    * @param method the method
+    * @return the mutator
+    */
+   static Mutator mutatorOf(Method method) {
+      try {
+         method.setAccessible(true);
+         MethodHandle handle = lookup.unreflect(method);
+         if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+         }
+         return new MethodHandleMutator(handle.asType(mutatorType));
+      } catch (RuntimeException | IllegalAccessException e) {
+         return (object, value) -> method.invoke(object, value);
+      }
+   }
+
+   /**
+    * Returns an instantiator invoking the constructor without arguments of a class.
+    *
+    * @param clazz the class
+    * @return the instantiator, or <code>null</code> if the class has no such constructor
+    */
+   static Callable<Object> instantiatorOf(Class<?> clazz) {
+      Constructor<?> constructor;
+      try {
+         constructor = clazz.getDeclaredConstructor();
+      } catch (NoSuchMethodException | SecurityException e) {
+         return null;
+      }
+      try {
+         constructor.setAccessible(true);
+         MethodHandle handle = lookup.unreflectConstructor(constructor).asType(instantiatorType);
+         return () -> invoke(handle);
+      } catch (RuntimeException | IllegalAccessException e) {
+         return constructor::newInstance;
+      }
+   }
+
+   private static Object invoke(MethodHandle instantiator) throws Exception {
+      try {
+         return instantiator.invokeExact();
+      } catch (Exception | Error e) {
+         throw e;
+      } catch (Throwable t) {
+         throw new UndeclaredThrowableException(t);
+      }
+   }
+
+   /**
+    * Returns whether the method can be bound by the {@link LambdaMetafactory}. The generated class is
+    * defined in this library, thus the method needs to be public and its class visible from here.
+    *
+    * @param method the method
+    * @return <code>true</code> if the method can be bound
+    */
+   private static boolean isBindable(Method method) {
+      Class<?> declaringClass = method.getDeclaringClass();
+      if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+         || !Modifier.isPublic(declaringClass.getModifiers()) || method.getParameterCount() != 0) {
+         return false;
+      }
+      try {
+         return Class.forName(declaringClass.getName(), false, Accessors.class.getClassLoader()) == declaringClass;
+      } catch (ClassNotFoundException | LinkageError e) {
+         return false;
+      }
+   }
+
+   /**
+    * Accessor invoking a {@link MethodHandle} of type <code>(Object)Object</code>.
+    */
+   private static final class MethodHandleAccessor implements Accessor {
+
+      private final MethodHandle handle;
+
+      /**
+       * Constructor
+       */
+      MethodHandleAccessor(MethodHandle handle) {
+         this.handle = handle;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Object get(Object object) throws Exception {
+         try {
+            return handle.invokeExact(object);
+         } catch (Exception | Error e) {
+            throw e;
+         } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+         }
+      }
+   }
+
+   /**
+    * Mutator invoking a {@link MethodHandle} of type <code>(Object,Object)void</code>.
+    */
+   private static final class MethodHandleMutator implements Mutator {
+
+      private final MethodHandle handle;
+
+      /**
+       * Constructor
+       */
+      MethodHandleMutator(MethodHandle handle) {
+         this.handle = handle;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void set(Object object, Object value) throws Exception {
+         try {
+            handle.invokeExact(object, value);
+         } catch (Exception | Error e) {
+            throw e;
+         } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+         }
+      }
+   }
+}
@@ -3,6 +3,7 @@ package ch.cordsen.geojson.introspection;
 import ch.cordsen.geojson.document.DocumentFactoryException;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
 import java.util.List;
 
 /**
@@ -42,4 +43,27 @@ public interface Annotated {
     * @throws DocumentFactoryException on any error
     */
    <T> T getValue(Object object, Class<T> expectedClass) throws DocumentFactoryException;
+
+   /**
+    * Returns the type of the field or the return type of the getter, including type arguments.
+    *
+    * @return the generic type
+    */
+   Type getGenericType();
+
+   /**
+    * Returns whether the value can be set, i.e. the member is a field or a getter with a setter.
+    *
+    * @return <code>true</code> if {@link #setValue(Object, Object)} is supported
+    */
+   boolean isWritable();
+
+   /**
+    * Sets the value of the annotated member.
+    *
+    * @param object the object of which the value should be set
+    * @param value  the value, may be <code>null</code>
+    * @throws DocumentFactoryException if the member is not writable, on any other error
+    */
+   void setValue(Object object, Object value) throws DocumentFactoryException;
 }
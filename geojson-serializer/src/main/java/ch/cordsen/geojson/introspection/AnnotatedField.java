@@ -1,10 +1,10 @@
 package ch.cordsen.geojson.introspection;
 
 import ch.cordsen.geojson.document.DocumentFactoryException;
-import org.apache.commons.lang3.reflect.FieldUtils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.lang.reflect.Type;
 import java.util.List;
 
 /**
@@ -15,6 +15,8 @@ public class AnnotatedField implements Annotated {
    private final String name;
    private final Field field;
    private final List<Annotation> annotations;
+   private final Accessor accessor;
+   private final Mutator mutator;
 
    /**
     * Constructor
@@ -23,6 +25,8 @@ public class AnnotatedField implements Annotated {
       this.name = name;
       this.field = field;
       this.annotations = annotations;
+      this.accessor = Accessors.of(field);
+      this.mutator = Accessors.mutatorOf(field);
    }
 
    /**
@@ -52,7 +56,7 @@ public class AnnotatedField implements Annotated {
    @Override public <T> T getValue(Object object, Class<T> expectedClass) throws DocumentFactoryException {
       Object value;
       try {
-         value = FieldUtils.readField(field, object, true);
+         value = accessor.get(object);
       } catch (Exception e) {
          throw new DocumentFactoryException("Value from Field failed: object=" + object + ", field=" + field, e);
       }
@@ -61,4 +65,29 @@ public class AnnotatedField implements Annotated {
       }
       return expectedClass.cast(value);
    }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Type getGenericType() {
+      return field.getGenericType();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean isWritable() {
+      return true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void setValue(Object object, Object value) throws DocumentFactoryException {
+      try {
+         mutator.set(object, value);
+      } catch (Exception e) {
+         throw new DocumentFactoryException("Value to Field failed: object=" + object + ", field=" + field, e);
+      }
+   }
 }
@@ -4,24 +4,39 @@ import ch.cordsen.geojson.document.DocumentFactoryException;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.List;
 
 /**
  * Describes a {@link Method method} by name, type and annotations.
+ * <p>The annotated method is the getter of a bean property, the value is set by its setter if present.
  */
 public class AnnotatedMethod implements Annotated {
 
    private final String name;
    private final Method method;
    private final List<Annotation> annotations;
+   private final Accessor accessor;
+   private final Method writeMethod;
+   private final Mutator mutator;
 
    /**
-    * Constructor
+    * Constructor for a read-only property.
     */
    AnnotatedMethod(String name, Method method, List<Annotation> annotations) {
+      this(name, method, null, annotations);
+   }
+
+   /**
+    * Constructor
+    */
+   AnnotatedMethod(String name, Method method, Method writeMethod, List<Annotation> annotations) {
       this.name = name;
       this.method = method;
       this.annotations = annotations;
+      this.accessor = Accessors.of(method);
+      this.writeMethod = writeMethod;
+      this.mutator = writeMethod != null ? Accessors.mutatorOf(writeMethod) : null;
    }
 
    /**
@@ -52,7 +67,7 @@ public class AnnotatedMethod implements Annotated {
    @Override public <T> T getValue(Object object, Class<T> expectedClass) throws DocumentFactoryException {
       Object value;
       try {
-         value = method.invoke(object);
+         value = accessor.get(object);
       } catch (Exception e) {
          throw new DocumentFactoryException("Value from Method failed: object=" + object + ", method=" + method, e);
       }
@@ -61,4 +76,32 @@ public class AnnotatedMethod implements Annotated {
       }
       return expectedClass.cast(value);
    }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Type getGenericType() {
+      return method.getGenericReturnType();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean isWritable() {
+      return mutator != null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void setValue(Object object, Object value) throws DocumentFactoryException {
+      if (mutator == null) {
+         throw new DocumentFactoryException("Method has no setter: " + method);
+      }
+      try {
+         mutator.set(object, value);
+      } catch (Exception e) {
+         throw new DocumentFactoryException("Value to Method failed: object=" + object + ", method=" + writeMethod, e);
+      }
+   }
 }
@@ -0,0 +1,299 @@
+package ch.cordsen.geojson.introspection;
+
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.document.*;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.MetricsRecorder;
+import org.locationtech.jts.geom.Geometry;
+
+import java.io.IOException;
+import java.util.*;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Default implementation of a {@link DocumentFactory} that introspects the
+ * object's class for annotations and retrieves the values of the annotated
+ * fields and methods.
+ * <p>The introspection is done once per class, see {@link IntrospectionPlan}.
+ * The factory is stateless and thus thread-safe.
+ * <p>Streaming with {@link #write(Object, DocumentSink)} pushes the values without creating
+ * a document, a properties map or copies of collections. The features and geometries are pulled
+ * one by one from arrays, iterables, iterators, streams and spliterators, see {@link Elements}. Geometries encoded as
+ * WKB or as raw GeoJSON are pushed without decoding them, see {@link Geometries}.
+ * <p>The creation of documents is timed by the installed {@link MetricsRecorder}, see {@link GeoJsonMetrics}.
+ */
+public class IntrospectionDocumentFactory implements StreamingDocumentFactory {
+
+   /**
+    * Constructor for reflection.
+    */
+   public IntrospectionDocumentFactory() {
+      // for reflection only
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Document from(Object object) throws DocumentFactoryException {
+      if (object == null) {
+         throw new DocumentFactoryException("Object is null.");
+      }
+      MetricsRecorder recorder = GeoJsonMetrics.recorder();
+      if (!recorder.isEnabled()) {
+         return documentFrom(object);
+      }
+      long start = System.nanoTime();
+      Document document = documentFrom(object);
+      recorder.documentCreated(object.getClass(), System.nanoTime() - start);
+      return document;
+   }
+
+   private Document documentFrom(Object object) throws DocumentFactoryException {
+      IntrospectionPlan plan = IntrospectionPlan.of(object.getClass());
+      switch (plan.getType()) {
+         case FEATURE:
+            return featureFrom(object, plan);
+         case FEATURE_COLLECTION:
+            return featureCollectionFrom(object, plan);
+         case GEOMETRY_COLLECTION:
+            return geometryCollectionFrom(object, plan);
+         default:
+            throw new DocumentFactoryException("Unsupported GeoJsonType: " + plan.getType());
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void write(Object object, DocumentSink sink) throws DocumentFactoryException, IOException {
+      if (object == null) {
+         throw new DocumentFactoryException("Object is null.");
+      }
+      IntrospectionPlan plan = IntrospectionPlan.of(object.getClass());
+      switch (plan.getType()) {
+         case FEATURE:
+            writeFeature(object, plan, sink);
+            break;
+         case FEATURE_COLLECTION:
+            writeFeatureCollection(object, plan, sink);
+            break;
+         case GEOMETRY_COLLECTION:
+            writeGeometryCollection(object, plan, sink);
+            break;
+         default:
+            throw new DocumentFactoryException("Unsupported GeoJsonType: " + plan.getType());
+      }
+   }
+
+   private void writeFeature(Object object, IntrospectionPlan plan, DocumentSink sink) throws DocumentFactoryException, IOException {
+      sink.beginFeature();
+      Annotated idAnnotated = plan.getId();
+      if (idAnnotated != null) {
+         sink.id(idAnnotated.getValue(object, Object.class));
+      }
+      Annotated geometryAnnotated = plan.getGeometry();
+      if (geometryAnnotated != null) {
+         writeGeometry(geometryAnnotated.getValue(object, Object.class), geometryAnnotated, plan, sink);
+      } else {
+         sink.geometry(null);
+      }
+
+      Annotated propertiesAnnotated = plan.getProperties();
+      if (propertiesAnnotated != null) {
+         // one @GeoJsonProperties
+         sink.properties(propertiesAnnotated.getValue(object, Object.class));
+      } else if (!plan.getPropertyList().isEmpty()) {
+         // one or more @GeoJsonProperty
+         sink.beginProperties();
+         for (IntrospectionPlan.Property property : plan.getPropertyList()) {
+            sink.property(property.getName(), property.getAnnotated().getValue(object, Object.class));
+         }
+         sink.endProperties();
+      } else {
+         sink.properties(null);
+      }
+      sink.endFeature();
+   }
+
+   private void writeFeatureCollection(Object object, IntrospectionPlan plan, DocumentSink sink) throws DocumentFactoryException, IOException {
+      sink.beginFeatureCollection();
+      Annotated featuresAnnotated = plan.getFeatures();
+      if (featuresAnnotated != null) {
+         // one @GeoJsonFeatures
+         Elements.forEach(sink.filterFeatures(featuresAnnotated.getValue(object, Object.class)), featuresAnnotated.getDescription(),
+            sink::feature);
+      } else {
+         // zero or more @GeoJsonFeature
+         for (Annotated annotated : plan.getFeatureList()) {
+            Object feature = annotated.getValue(object, Object.class);
+            if (feature != null) {
+               sink.feature(feature);
+            }
+         }
+      }
+      sink.endFeatureCollection();
+   }
+
+   private void writeGeometryCollection(Object object, IntrospectionPlan plan, DocumentSink sink) throws DocumentFactoryException, IOException {
+      sink.beginGeometryCollection();
+      Annotated geometriesAnnotated = plan.getGeometries();
+      if (geometriesAnnotated != null) {
+         // one @GeoJsonGeometries
+         String description = geometriesAnnotated.getDescription();
+         Elements.forEach(geometriesAnnotated.getValue(object, Object.class), description,
+            element -> Elements.writeGeometry(element, description, sink));
+      } else {
+         // zero or more @GeoJsonGeometry
+         for (Annotated annotated : plan.getGeometryList()) {
+            Object geometry = annotated.getValue(object, Object.class);
+            if (geometry != null) {
+               writeGeometry(geometry, annotated, plan, sink);
+            }
+         }
+      }
+      sink.endGeometryCollection();
+   }
+
+   /**
+    * Returns a feature document representation of the object.
+    *
+    * @param object the object
+    * @param plan   the plan of the object's class
+    * @return the feature document
+    * @throws DocumentFactoryException on any error
+    */
+   private FeatureDocument featureFrom(Object object, IntrospectionPlan plan) throws DocumentFactoryException {
+      Object id = null;
+      Geometry geometry = null;
+      Object properties = null;
+
+      Annotated idAnnotated = plan.getId();
+      if (idAnnotated != null) {
+         id = idAnnotated.getValue(object, Object.class);
+      }
+
+      Annotated geometryAnnotated = plan.getGeometry();
+      if (geometryAnnotated != null) {
+         geometry = toGeometry(geometryAnnotated.getValue(object, Object.class), geometryAnnotated, plan);
+      }
+
+      Annotated propertiesAnnotated = plan.getProperties();
+      if (propertiesAnnotated != null) {
+         // one @GeoJsonProperties
+         properties = propertiesAnnotated.getValue(object, Object.class);
+      } else if (!plan.getPropertyList().isEmpty()) {
+         // one or more @GeoJsonProperty
+         properties = toProperties(object, plan.getPropertyList());
+      }
+      return new IntrospectionFeatureDocument(id, geometry, properties);
+   }
+
+   /**
+    * Returns the values of all annotated field or methods as a {@link Map}.
+    * The key of the map is the name of the field or method as default. When the annotation's attribute
+    * {@link GeoJsonProperty#name()} is set, this name will be used as key.
+    *
+    * @param object     the object to retrieve the values from
+    * @param properties the fields or methods with their names
+    * @return the map of properties, may be empty but never <code>null</code>
+    * @throws DocumentFactoryException on any error
+    */
+   private Map<String, Object> toProperties(Object object, List<IntrospectionPlan.Property> properties) throws DocumentFactoryException {
+      Map<String, Object> map = new HashMap<>(properties.size());
+      for (IntrospectionPlan.Property property : properties) {
+         Object value = property.getAnnotated().getValue(object, Object.class);
+         map.put(property.getName(), value);
+      }
+      return map;
+   }
+
+   /**
+    * Returns a feature collection document representation of the object.
+    *
+    * @param object the object
+    * @param plan   the plan of the object's class
+    * @return the feature collection document
+    * @throws DocumentFactoryException on any error
+    */
+   private FeatureCollectionDocument featureCollectionFrom(Object object, IntrospectionPlan plan) throws DocumentFactoryException {
+      Annotated featuresAnnotated = plan.getFeatures();
+      if (featuresAnnotated != null) {
+         // one @GeoJsonFeatures
+         return new IntrospectionFeatureCollectionDocument(toFeatures(object, featuresAnnotated));
+      } else if (!plan.getFeatureList().isEmpty()) {
+         // one or more @GeoJsonFeature
+         return new IntrospectionFeatureCollectionDocument(toFeatures(object, plan.getFeatureList()));
+      }
+      return new IntrospectionFeatureCollectionDocument(emptyList());
+   }
+
+   private List<Object> toFeatures(Object object, Annotated annotated) throws DocumentFactoryException {
+      return Elements.toList(annotated.getValue(object, Object.class), annotated.getDescription());
+   }
+
+   private List<Object> toFeatures(Object object, List<Annotated> annotateds) throws DocumentFactoryException {
+      List<Object> features = new ArrayList<>();
+      for (Annotated annotated : annotateds) {
+         Object feature = annotated.getValue(object, Object.class);
+         if (feature != null) {
+            features.add(feature);
+         }
+      }
+      return features;
+   }
+
+   /**
+    * Returns a geometry collection document representation of the object.
+    *
+    * @param object the object
+    * @param plan   the plan of the object's class
+    * @return the geometry collection document
+    * @throws DocumentFactoryException on any error
+    */
+   private GeometryCollectionDocument geometryCollectionFrom(Object object, IntrospectionPlan plan) throws DocumentFactoryException {
+      Annotated geometriesAnnotated = plan.getGeometries();
+      if (geometriesAnnotated != null) {
+         // one @GeoJsonGeometries
+         return new IntrospectionGeometryCollectionDocument(toGeometries(object, geometriesAnnotated));
+      } else if (!plan.getGeometryList().isEmpty()) {
+         // one or more @GeoJsonGeometry
+         return new IntrospectionGeometryCollectionDocument(toGeometries(object, plan.getGeometryList(), plan));
+      }
+      return new IntrospectionGeometryCollectionDocument(emptyList());
+   }
+
+   private List<Geometry> toGeometries(Object object, Annotated annotated) throws DocumentFactoryException {
+      List<Geometry> geometries = new ArrayList<>();
+      for (Object element : Elements.toList(annotated.getValue(object, Object.class), annotated.getDescription())) {
+         geometries.add(Elements.toGeometry(element, annotated.getDescription()));
+      }
+      return geometries;
+   }
+
+   private List<Geometry> toGeometries(Object object, List<Annotated> annotateds, IntrospectionPlan plan) throws DocumentFactoryException {
+      List<Geometry> geometries = new ArrayList<>();
+      for (Annotated annotated : annotateds) {
+         Geometry geometry = toGeometry(annotated.getValue(object, Object.class), annotated, plan);
+         if (geometry != null) {
+            geometries.add(geometry);
+         }
+      }
+      return geometries;
+   }
+
+   private void writeGeometry(Object value, Annotated annotated, IntrospectionPlan plan, DocumentSink sink) throws DocumentFactoryException, IOException {
+      if (plan.isRawGeometry(annotated)) {
+         Geometries.writeRaw(value, annotated.getDescription(), plan.isValidatedGeometry(annotated), sink);
+      } else {
+         Geometries.write(value, annotated.getDescription(), sink);
+      }
+   }
+
+   private Geometry toGeometry(Object value, Annotated annotated, IntrospectionPlan plan) throws DocumentFactoryException {
+      return plan.isRawGeometry(annotated) ? Geometries.rawToGeometry(value, annotated.getDescription())
+         : Geometries.toGeometry(value, annotated.getDescription());
+   }
+}
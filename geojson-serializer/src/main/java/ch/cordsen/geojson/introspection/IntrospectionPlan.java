@@ -0,0 +1,513 @@
+package ch.cordsen.geojson.introspection;
+
+import ch.cordsen.geojson.annotation.*;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.MetricsRecorder;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+
+import javax.annotation.Nullable;
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static java.util.Arrays.stream;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Optional.empty;
+import static java.util.stream.Collectors.joining;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * The serialization plan of a class annotated with {@link GeoJson}.
+ * <p>A plan holds the resolved fields and getters, the final property names and the result of the
+ * validation of the annotation layout. For deserialization, it also holds the setters and the constructor.
+ * It is built once per class and is immutable, thus it can be shared between threads.
+ * <p>Plans are attached to their {@link Class} with a {@link ClassValue}. They are released together
+ * with the class, so no class loader is retained after a redeployment.
+ */
+public final class IntrospectionPlan {
+
+   /**
+    * All annotations to search for on fields and methods (bean properties).
+    */
+   private static final Collection<Class<?>> annotationClasses = asList(
+      GeoJsonId.class, GeoJsonVersion.class,
+      GeoJsonGeometry.class, GeoJsonGeometries.class,
+      GeoJsonProperty.class, GeoJsonProperties.class,
+      GeoJsonFeature.class, GeoJsonFeatures.class);
+
+   private static final ClassValue<IntrospectionPlan> plans = new ClassValue<IntrospectionPlan>() {
+      @Override protected IntrospectionPlan computeValue(Class<?> type) {
+         MetricsRecorder recorder = GeoJsonMetrics.recorder();
+         if (!recorder.isEnabled()) {
+            return build(type);
+         }
+         long start = System.nanoTime();
+         IntrospectionPlan plan = build(type);
+         recorder.planCacheMiss(type, System.nanoTime() - start);
+         built.get()[0] = true;
+         return plan;
+      }
+   };
+
+   /**
+    * Whether the plan was built by the current lookup, for the metrics. {@link ClassValue#computeValue(Class)} runs on
+    * the looking up thread.
+    */
+   private static final ThreadLocal<boolean[]> built = ThreadLocal.withInitial(() -> new boolean[1]);
+
+   private final Class<?> clazz;
+   private final GeoJsonType type;
+   private final DocumentFactoryException failure;
+   private final Callable<Object> instantiator;
+
+   private final Annotated id;
+   private final Annotated version;
+   private final Annotated geometry;
+   private final Annotated properties;
+   private final List<Property> propertyList;
+
+   private final Annotated features;
+   private final List<Annotated> featureList;
+
+   private final Annotated geometries;
+   private final List<Annotated> geometryList;
+   private final Set<Annotated> rawGeometries;
+   private final Set<Annotated> unvalidatedGeometries;
+
+   private IntrospectionPlan(Builder builder) {
+      this.clazz = builder.clazz;
+      this.type = builder.type;
+      this.failure = builder.failure;
+      this.instantiator = builder.instantiator;
+      this.id = builder.id;
+      this.version = builder.version;
+      this.geometry = builder.geometry;
+      this.properties = builder.properties;
+      this.propertyList = unmodifiableList(builder.propertyList);
+      this.features = builder.features;
+      this.featureList = unmodifiableList(builder.featureList);
+      this.geometries = builder.geometries;
+      this.geometryList = unmodifiableList(builder.geometryList);
+      this.rawGeometries = builder.rawGeometries;
+      this.unvalidatedGeometries = builder.unvalidatedGeometries;
+   }
+
+   /**
+    * Returns the plan of a class, building it on first use.
+    *
+    * @param clazz the class annotated with {@link GeoJson}
+    * @return the plan, never <code>null</code>
+    * @throws DocumentFactoryException for missing annotations, invalid combination of annotations and such
+    */
+   public static IntrospectionPlan of(Class<?> clazz) throws DocumentFactoryException {
+      MetricsRecorder recorder = GeoJsonMetrics.recorder();
+      IntrospectionPlan plan = recorder.isEnabled() ? lookUp(clazz, recorder) : plans.get(clazz);
+      if (plan.failure != null) {
+         // a new exception per call, the cached one carries the stack trace of the first call
+         throw new DocumentFactoryException(plan.failure.getMessage(), plan.failure.getCause());
+      }
+      return plan;
+   }
+
+   private static IntrospectionPlan lookUp(Class<?> clazz, MetricsRecorder recorder) {
+      boolean[] builtByLookup = built.get();
+      builtByLookup[0] = false;
+      IntrospectionPlan plan = plans.get(clazz);
+      if (!builtByLookup[0]) {
+         recorder.planCacheHit(clazz);
+      }
+      return plan;
+   }
+
+   /**
+    * Returns the {@link GeoJsonType} of the class.
+    *
+    * @return the type
+    */
+   public GeoJsonType getType() {
+      return type;
+   }
+
+   /**
+    * Creates an instance of the class by its constructor without arguments, which may be private.
+    *
+    * @return the new instance
+    * @throws DocumentFactoryException if the class has no such constructor or the constructor failed
+    */
+   public Object newInstance() throws DocumentFactoryException {
+      if (instantiator == null) {
+         throw new DocumentFactoryException("Constructor without arguments is not present: " + clazz.getName());
+      }
+      try {
+         return instantiator.call();
+      } catch (Exception e) {
+         throw new DocumentFactoryException("Instantiation failed: " + clazz.getName(), e);
+      }
+   }
+
+   /**
+    * Returns the member annotated with {@link GeoJsonId}.
+    *
+    * @return the member, or <code>null</code> if not present
+    */
+   public @Nullable Annotated getId() {
+      return id;
+   }
+
+   /**
+    * Returns the member annotated with {@link GeoJsonVersion}.
+    *
+    * @return the member, or <code>null</code> if not present
+    */
+   public @Nullable Annotated getVersion() {
+      return version;
+   }
+
+   /**
+    * Returns the member annotated with {@link GeoJsonGeometry} of a <em>Feature</em>.
+    *
+    * @return the member, or <code>null</code> if not present
+    */
+   public @Nullable Annotated getGeometry() {
+      return geometry;
+   }
+
+   /**
+    * Returns the member annotated with {@link GeoJsonProperties}.
+    *
+    * @return the member, or <code>null</code> if not present
+    */
+   public @Nullable Annotated getProperties() {
+      return properties;
+   }
+
+   /**
+    * Returns the members annotated with {@link GeoJsonProperty} in declaration order, fields first.
+    * <p>The names are unique: a later member with the name of an earlier one takes its place.
+    *
+    * @return the properties, may be empty but never <code>null</code>
+    */
+   public List<Property> getPropertyList() {
+      return propertyList;
+   }
+
+   /**
+    * Returns the member annotated with {@link GeoJsonFeatures}.
+    *
+    * @return the member, or <code>null</code> if not present
+    */
+   public @Nullable Annotated getFeatures() {
+      return features;
+   }
+
+   /**
+    * Returns the members annotated with {@link GeoJsonFeature}.
+    *
+    * @return the members, may be empty but never <code>null</code>
+    */
+   public List<Annotated> getFeatureList() {
+      return featureList;
+   }
+
+   /**
+    * Returns the member annotated with {@link GeoJsonGeometries}.
+    *
+    * @return the member, or <code>null</code> if not present
+    */
+   public @Nullable Annotated getGeometries() {
+      return geometries;
+   }
+
+   /**
+    * Returns the members annotated with {@link GeoJsonGeometry} of a <em>GeometryCollection</em>.
+    *
+    * @return the members, may be empty but never <code>null</code>
+    */
+   public List<Annotated> getGeometryList() {
+      return geometryList;
+   }
+
+   /**
+    * Whether a member annotated with {@link GeoJsonGeometry} holds pre-encoded GeoJSON, see {@link GeoJsonGeometry#raw()}.
+    *
+    * @param annotated the member from {@link #getGeometry()} or {@link #getGeometryList()}
+    * @return <code>true</code> for pre-encoded GeoJSON
+    */
+   public boolean isRawGeometry(Annotated annotated) {
+      return rawGeometries.contains(annotated);
+   }
+
+   /**
+    * Whether the structure of a pre-encoded GeoJSON member is checked before it is written, see
+    * {@link GeoJsonGeometry#validate()}.
+    *
+    * @param annotated the member from {@link #getGeometry()} or {@link #getGeometryList()}
+    * @return <code>false</code> if the member is written unchecked
+    */
+   public boolean isValidatedGeometry(Annotated annotated) {
+      return !unvalidatedGeometries.contains(annotated);
+   }
+
+   /* --------------------------------- */
+
+   private static IntrospectionPlan build(Class<?> clazz) {
+      Builder builder = new Builder();
+      builder.clazz = clazz;
+      try {
+         GeoJson geoJsonAnnotation = clazz.getAnnotation(GeoJson.class);
+         if (geoJsonAnnotation == null) {
+            throw new DocumentFactoryException("Annotation @GeoJson is not present.");
+         }
+         builder.type = geoJsonAnnotation.type();
+         builder.instantiator = Accessors.instantiatorOf(clazz);
+         ListMultimap<Class<? extends Annotation>, Annotated> index = index(clazz);
+         switch (builder.type) {
+            case FEATURE:
+               planFeature(builder, index);
+               break;
+            case FEATURE_COLLECTION:
+               planFeatureCollection(builder, index);
+               break;
+            case GEOMETRY_COLLECTION:
+               planGeometryCollection(builder, index);
+               break;
+            default:
+               throw new DocumentFactoryException("Unsupported GeoJsonType: " + builder.type);
+         }
+      } catch (DocumentFactoryException e) {
+         builder.failure = e;
+      }
+      return new IntrospectionPlan(builder);
+   }
+
+   private static void planFeature(Builder builder, ListMultimap<Class<? extends Annotation>, Annotated> index) throws DocumentFactoryException {
+      builder.id = oneOrNull(index, GeoJsonId.class);
+      builder.version = oneOrNull(index, GeoJsonVersion.class);
+      builder.geometry = oneOrNull(index, GeoJsonGeometry.class);
+      if (builder.geometry != null) {
+         addIfRaw(builder, builder.geometry);
+      }
+
+      Annotated propertiesAnnotated = oneOrNull(index, GeoJsonProperties.class);
+      List<Annotated> propertyAnnotated = index.get(GeoJsonProperty.class);
+      if (propertiesAnnotated != null && !propertyAnnotated.isEmpty()) {
+         // both, @GeoJsonProperties and @GeoJsonProperty are present
+         String descriptions = propertiesAnnotated.getDescription() + ", " +
+            propertyAnnotated.stream().map(Annotated::getDescription).collect(joining(", "));
+         throw new DocumentFactoryException("Annotations @GeoJsonProperties and @GeoJsonProperty are mutually exclusive: " + descriptions);
+      }
+      builder.properties = propertiesAnnotated;
+      Map<String, Property> propertiesByName = new LinkedHashMap<>();
+      for (Annotated annotated : propertyAnnotated) {
+         String name = propertyName(annotated);
+         propertiesByName.put(name, new Property(name, annotated));
+      }
+      builder.propertyList.addAll(propertiesByName.values());
+   }
+
+   private static void planFeatureCollection(Builder builder, ListMultimap<Class<? extends Annotation>, Annotated> index) throws DocumentFactoryException {
+      Annotated featuresAnnotated = oneOrNull(index, GeoJsonFeatures.class);
+      List<Annotated> featureAnnotated = index.get(GeoJsonFeature.class);
+      if (featuresAnnotated != null && !featureAnnotated.isEmpty()) {
+         // both, @GeoJsonFeatures and @GeoJsonFeature are present
+         String descriptions = featuresAnnotated.getDescription() + ", " +
+            featureAnnotated.stream().map(Annotated::getDescription).collect(joining(", "));
+         throw new DocumentFactoryException("Annotations @GeoJsonFeatures and @GeoJsonFeature are mutually exclusive: " + descriptions);
+      }
+      builder.features = featuresAnnotated;
+      builder.featureList.addAll(featureAnnotated);
+   }
+
+   private static void planGeometryCollection(Builder builder, ListMultimap<Class<? extends Annotation>, Annotated> index) throws DocumentFactoryException {
+      Annotated geometriesAnnotated = oneOrNull(index, GeoJsonGeometries.class);
+      List<Annotated> geometryAnnotated = index.get(GeoJsonGeometry.class);
+      if (geometriesAnnotated != null && !geometryAnnotated.isEmpty()) {
+         // both, @GeoJsonGeometries and @GeoJsonGeometry are present
+         String descriptions = geometriesAnnotated.getDescription() + ", " +
+            geometryAnnotated.stream().map(Annotated::getDescription).collect(joining(", "));
+         throw new DocumentFactoryException("Annotations @GeoJsonGeometries and @GeoJsonGeometry are mutually exclusive: " + descriptions);
+      }
+      builder.geometries = geometriesAnnotated;
+      builder.geometryList.addAll(geometryAnnotated);
+      for (Annotated annotated : geometryAnnotated) {
+         addIfRaw(builder, annotated);
+      }
+   }
+
+   private static void addIfRaw(Builder builder, Annotated annotated) {
+      GeoJsonGeometry annotation = findAnnotation(annotated, GeoJsonGeometry.class);
+      if (annotation != null && annotation.raw()) {
+         builder.rawGeometries.add(annotated);
+         if (!annotation.validate()) {
+            builder.unvalidatedGeometries.add(annotated);
+         }
+      }
+   }
+
+   /**
+    * Returns the key of a property. This is the name of the field or method as default. When the annotation's
+    * attribute {@link GeoJsonProperty#name()} is set, this name will be used.
+    *
+    * @param annotated the field or method
+    * @return the name of the property
+    */
+   private static String propertyName(Annotated annotated) {
+      GeoJsonProperty annotation = findAnnotation(annotated, GeoJsonProperty.class);
+      if (annotation != null && !isBlank(annotation.name())) {
+         return annotation.name();
+      }
+      return annotated.getName();
+   }
+
+   /**
+    * Returns the first occurrence of an annotation of a certain type from the annotated.
+    *
+    * @param annotated      the annotated field or method
+    * @param annotationType the annotation type
+    * @return the annotation, or <code>null</code> if not found
+    */
+   private static <T extends Annotation> T findAnnotation(Annotated annotated, Class<T> annotationType) {
+      Annotation annotation = annotated.getAnnotations().stream()
+         .filter(a -> a.annotationType().equals(annotationType))
+         .findFirst().orElse(null);
+      return annotationType.cast(annotation);
+   }
+
+   private static Annotated oneOrNull(ListMultimap<Class<? extends Annotation>, Annotated> index, Class<? extends Annotation> annotationClass) throws DocumentFactoryException {
+      List<Annotated> annotated = index.get(annotationClass);
+      if (annotated.isEmpty()) {
+         return null;
+      } else if (annotated.size() > 1) {
+         String descriptions = annotated.stream().map(Annotated::getDescription).collect(joining(", "));
+         throw new DocumentFactoryException("Annotation @" + annotationClass.getSimpleName() + " is present multiple times: " + descriptions);
+      } else {
+         return annotated.get(0);
+      }
+   }
+
+   private static ListMultimap<Class<? extends Annotation>, Annotated> index(Class<?> clazz) throws DocumentFactoryException {
+      ListMultimap<Class<? extends Annotation>, Annotated> index = MultimapBuilder.hashKeys().arrayListValues().build();
+      annotatedFrom(clazz)
+         .forEach(annotated -> annotated.getAnnotations()
+            .forEach(t -> index.put(t.annotationType(), annotated)));
+      return index;
+   }
+
+   private static List<Annotated> annotatedFrom(Class<?> clazz) throws DocumentFactoryException {
+      List<Annotated> annotated = new ArrayList<>();
+      for (Field field : clazz.getDeclaredFields()) {
+         from(field).ifPresent(annotated::add);
+      }
+      BeanInfo beanInfo = getBeanInfo(clazz);
+      for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+         from(pd).ifPresent(annotated::add);
+      }
+      return annotated;
+   }
+
+   private static BeanInfo getBeanInfo(Class<?> clazz) throws DocumentFactoryException {
+      try {
+         return Introspector.getBeanInfo(clazz);
+      } catch (IntrospectionException e) {
+         throw new DocumentFactoryException("BeanInfo retrieval failed.", e);
+      }
+   }
+
+   private static Optional<AnnotatedField> from(Field field) {
+      if (field != null) {
+         List<Annotation> annotations = filter(field.getDeclaredAnnotations(), annotationClasses);
+         if (!annotations.isEmpty()) {
+            return Optional.of(new AnnotatedField(field.getName(), field, annotations));
+         }
+      }
+      return empty();
+   }
+
+   private static Optional<AnnotatedMethod> from(PropertyDescriptor propertyDescriptor) {
+      if (propertyDescriptor != null && propertyDescriptor.getReadMethod() != null) {
+         List<Annotation> annotations = filter(propertyDescriptor.getReadMethod().getAnnotations(), annotationClasses);
+         if (!annotations.isEmpty()) {
+            return Optional.of(new AnnotatedMethod(
+               propertyDescriptor.getName(),
+               propertyDescriptor.getReadMethod(),
+               propertyDescriptor.getWriteMethod(),
+               annotations
+            ));
+         }
+      }
+      return empty();
+   }
+
+   private static List<Annotation> filter(Annotation[] annotations, Collection<Class<?>> permittedTypes) {
+      return unmodifiableList(stream(annotations)
+         .filter(a -> permittedTypes.contains(a.annotationType()))
+         .collect(Collectors.toList()));
+   }
+
+   /**
+    * A member annotated with {@link GeoJsonProperty} together with its resolved name.
+    */
+   public static final class Property {
+
+      private final String name;
+      private final Annotated annotated;
+
+      /**
+       * Constructor
+       */
+      Property(String name, Annotated annotated) {
+         this.name = name;
+         this.annotated = annotated;
+      }
+
+      /**
+       * Returns the key of the property in the <em>Properties Object</em>.
+       *
+       * @return the name
+       */
+      public String getName() {
+         return name;
+      }
+
+      /**
+       * Returns the annotated field or method.
+       *
+       * @return the annotated
+       */
+      public Annotated getAnnotated() {
+         return annotated;
+      }
+   }
+
+   /**
+    * Mutable state while building a plan.
+    */
+   private static final class Builder {
+
+      private Class<?> clazz;
+      private GeoJsonType type;
+      private DocumentFactoryException failure;
+      private Callable<Object> instantiator;
+      private Annotated id;
+      private Annotated version;
+      private Annotated geometry;
+      private Annotated properties;
+      private final List<Property> propertyList = new ArrayList<>();
+      private Annotated features;
+      private final List<Annotated> featureList = new ArrayList<>();
+      private Annotated geometries;
+      private final List<Annotated> geometryList = new ArrayList<>();
+      private final Set<Annotated> rawGeometries = new HashSet<>();
+      private final Set<Annotated> unvalidatedGeometries = new HashSet<>();
+   }
+}
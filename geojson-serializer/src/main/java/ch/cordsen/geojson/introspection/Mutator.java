@@ -0,0 +1,19 @@
+package ch.cordsen.geojson.introspection;
+
+/**
+ * Writes the value of an annotated field or setter.
+ *
+ * @see Accessors
+ */
+@FunctionalInterface
+interface Mutator {
+
+   /**
+    * Sets the value of the member.
+    *
+    * @param object the object of which the value should be set
+    * @param value  the value, may be <code>null</code>
+    * @throws Exception on any error
+    */
+   void set(Object object, Object value) throws Exception;
+}
@@ -0,0 +1,40 @@
+package ch.cordsen.geojson.metrics;
+
+/**
+ * Holds the {@link MetricsRecorder} of the library.
+ * <p>The metrics are disabled by default. With the {@link MetricsRecorder#NOOP} recorder, the callers read one volatile
+ * field and skip all measurements.
+ * <p>Example:
+ * <pre>
+ *    InMemoryMetricsRecorder metrics = new InMemoryMetricsRecorder();
+ *    GeoJsonMetrics.setRecorder(metrics);
+ *    // ...
+ *    metrics.snapshot().forEach((type, classMetrics) -&gt; ...);
+ * </pre>
+ */
+public final class GeoJsonMetrics {
+
+   private static volatile MetricsRecorder recorder = MetricsRecorder.NOOP;
+
+   private GeoJsonMetrics() {
+      // static usage only
+   }
+
+   /**
+    * Returns the installed recorder.
+    *
+    * @return the recorder, {@link MetricsRecorder#NOOP} if disabled
+    */
+   public static MetricsRecorder recorder() {
+      return recorder;
+   }
+
+   /**
+    * Installs a recorder for all serializations.
+    *
+    * @param recorder the recorder, <code>null</code> to disable the metrics
+    */
+   public static void setRecorder(MetricsRecorder recorder) {
+      GeoJsonMetrics.recorder = recorder != null ? recorder : MetricsRecorder.NOOP;
+   }
+}
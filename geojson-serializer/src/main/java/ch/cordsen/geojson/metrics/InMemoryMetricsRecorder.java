@@ -0,0 +1,307 @@
+package ch.cordsen.geojson.metrics;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsRecorder} accumulating the metrics in memory, to be scraped by {@link #snapshot()}.
+ * <p>The counters are {@link LongAdder LongAdders} per annotated class, thus concurrent serializations do not contend.
+ * The counters are cumulative, a scraper computes the rates from the differences of two snapshots.
+ * <p>The classes are referenced until {@link #reset()}, which matters for redeployments in a shared class loader only.
+ */
+public final class InMemoryMetricsRecorder implements MetricsRecorder {
+
+   private final ConcurrentHashMap<Class<?>, Counters> countersByClass = new ConcurrentHashMap<>();
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void planCacheHit(Class<?> type) {
+      countersOf(type).planCacheHits.increment();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void planCacheMiss(Class<?> type, long buildNanos) {
+      countersOf(type).planBuilds.record(buildNanos);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void documentCreated(Class<?> type, long nanos) {
+      countersOf(type).documents.record(nanos);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void written(Class<?> type, long features, long geometries, long coordinates, long nanos) {
+      Counters counters = countersOf(type);
+      counters.features.add(features);
+      counters.geometries.add(geometries);
+      counters.coordinates.add(coordinates);
+      counters.writes.record(nanos);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void bytesWritten(Class<?> type, long bytes) {
+      countersOf(type).bytes.add(bytes);
+   }
+
+   /**
+    * Returns the current metrics.
+    *
+    * @return the metrics by annotated class, ordered by class name
+    */
+   public Map<Class<?>, ClassMetrics> snapshot() {
+      Map<Class<?>, ClassMetrics> snapshot = new LinkedHashMap<>();
+      countersByClass.entrySet().stream()
+         .sorted(Comparator.comparing(entry -> entry.getKey().getName()))
+         .forEach(entry -> snapshot.put(entry.getKey(), entry.getValue().snapshot()));
+      return Collections.unmodifiableMap(snapshot);
+   }
+
+   /**
+    * Returns the current metrics of a class.
+    *
+    * @param type the annotated class
+    * @return the metrics, all zero if nothing was recorded
+    */
+   public ClassMetrics snapshot(Class<?> type) {
+      Counters counters = countersByClass.get(type);
+      return (counters != null ? counters : new Counters()).snapshot();
+   }
+
+   /**
+    * Discards all metrics.
+    */
+   public void reset() {
+      countersByClass.clear();
+   }
+
+   private Counters countersOf(Class<?> type) {
+      Counters counters = countersByClass.get(type);
+      return counters != null ? counters : countersByClass.computeIfAbsent(type, t -> new Counters());
+   }
+
+   /**
+    * The metrics of one annotated class at the time of the snapshot.
+    */
+   public static final class ClassMetrics {
+
+      private final long features;
+      private final long geometries;
+      private final long coordinates;
+      private final long bytes;
+      private final long planCacheHits;
+      private final Timing planBuilds;
+      private final Timing documents;
+      private final Timing writes;
+
+      private ClassMetrics(Counters counters) {
+         this.features = counters.features.sum();
+         this.geometries = counters.geometries.sum();
+         this.coordinates = counters.coordinates.sum();
+         this.bytes = counters.bytes.sum();
+         this.planCacheHits = counters.planCacheHits.sum();
+         this.planBuilds = counters.planBuilds.snapshot();
+         this.documents = counters.documents.snapshot();
+         this.writes = counters.writes.snapshot();
+      }
+
+      /**
+       * The number of features written.
+       *
+       * @return the count
+       */
+      public long getFeatures() {
+         return features;
+      }
+
+      /**
+       * The number of geometries written.
+       *
+       * @return the count
+       */
+      public long getGeometries() {
+         return geometries;
+      }
+
+      /**
+       * The number of coordinates written.
+       *
+       * @return the count
+       */
+      public long getCoordinates() {
+         return coordinates;
+      }
+
+      /**
+       * The number of bytes written by writers owning the output.
+       *
+       * @return the count
+       */
+      public long getBytes() {
+         return bytes;
+      }
+
+      /**
+       * The number of lookups of the cached introspection plan.
+       *
+       * @return the count
+       */
+      public long getPlanCacheHits() {
+         return planCacheHits;
+      }
+
+      /**
+       * The number of lookups building the introspection plan.
+       *
+       * @return the count
+       */
+      public long getPlanCacheMisses() {
+         return planBuilds.getCount();
+      }
+
+      /**
+       * The times to build the introspection plan.
+       *
+       * @return the timing
+       */
+      public Timing getPlanBuilds() {
+         return planBuilds;
+      }
+
+      /**
+       * The times to create documents.
+       *
+       * @return the timing
+       */
+      public Timing getDocuments() {
+         return documents;
+      }
+
+      /**
+       * The times to write objects.
+       *
+       * @return the timing
+       */
+      public Timing getWrites() {
+         return writes;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public String toString() {
+         return "ClassMetrics{features=" + features + ", geometries=" + geometries + ", coordinates=" + coordinates +
+            ", bytes=" + bytes + ", planCacheHits=" + planCacheHits + ", planBuilds=" + planBuilds +
+            ", documents=" + documents + ", writes=" + writes + "}";
+      }
+   }
+
+   /**
+    * The number, total and maximum of measured times at the time of the snapshot.
+    */
+   public static final class Timing {
+
+      private final long count;
+      private final long totalNanos;
+      private final long maxNanos;
+
+      private Timing(long count, long totalNanos, long maxNanos) {
+         this.count = count;
+         this.totalNanos = totalNanos;
+         this.maxNanos = maxNanos;
+      }
+
+      /**
+       * The number of measurements.
+       *
+       * @return the count
+       */
+      public long getCount() {
+         return count;
+      }
+
+      /**
+       * The sum of the measured times.
+       *
+       * @param unit the unit of the result
+       * @return the total time
+       */
+      public long getTotal(TimeUnit unit) {
+         return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+      }
+
+      /**
+       * The longest measured time.
+       *
+       * @param unit the unit of the result
+       * @return the maximum, 0 without measurements
+       */
+      public long getMax(TimeUnit unit) {
+         return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+      }
+
+      /**
+       * The average measured time.
+       *
+       * @param unit the unit of the result
+       * @return the mean, 0 without measurements
+       */
+      public double getMean(TimeUnit unit) {
+         return count > 0 ? (double) totalNanos / count / TimeUnit.NANOSECONDS.convert(1, unit) : 0;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public String toString() {
+         return "Timing{count=" + count + ", totalNanos=" + totalNanos + ", maxNanos=" + maxNanos + "}";
+      }
+   }
+
+   private static final class Counters {
+
+      private final LongAdder features = new LongAdder();
+      private final LongAdder geometries = new LongAdder();
+      private final LongAdder coordinates = new LongAdder();
+      private final LongAdder bytes = new LongAdder();
+      private final LongAdder planCacheHits = new LongAdder();
+      private final Timer planBuilds = new Timer();
+      private final Timer documents = new Timer();
+      private final Timer writes = new Timer();
+
+      ClassMetrics snapshot() {
+         return new ClassMetrics(this);
+      }
+   }
+
+   private static final class Timer {
+
+      private final LongAdder count = new LongAdder();
+      private final LongAdder totalNanos = new LongAdder();
+      private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+      void record(long nanos) {
+         count.increment();
+         totalNanos.add(nanos);
+         maxNanos.accumulate(nanos);
+      }
+
+      Timing snapshot() {
+         return new Timing(count.sum(), totalNanos.sum(), maxNanos.get());
+      }
+   }
+}
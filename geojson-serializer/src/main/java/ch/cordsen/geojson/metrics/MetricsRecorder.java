@@ -0,0 +1,89 @@
+package ch.cordsen.geojson.metrics;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+
+/**
+ * Receives the metrics of the serialization, per class annotated with {@link GeoJson}.
+ * <p>A recorder is installed by {@link GeoJsonMetrics#setRecorder(MetricsRecorder)} and called by the
+ * <code>GeoJsonSerializer</code>, the <code>IntrospectionDocumentFactory</code> and the writers of the library.
+ * Every method has an empty default implementation, so an implementation overrides the metrics of interest only.
+ * <p>The methods are called concurrently and on the serializing threads, an implementation must be thread-safe and
+ * should not block. The times are measured by {@link System#nanoTime()}.
+ *
+ * @see InMemoryMetricsRecorder
+ */
+public interface MetricsRecorder {
+
+   /**
+    * The recorder of disabled metrics, nothing is measured.
+    */
+   MetricsRecorder NOOP = new MetricsRecorder() {
+      @Override public boolean isEnabled() {
+         return false;
+      }
+   };
+
+   /**
+    * Whether the metrics are measured at all. Without metrics, the callers skip the measurements.
+    *
+    * @return <code>true</code> by default, <code>false</code> for {@link #NOOP}
+    */
+   default boolean isEnabled() {
+      return true;
+   }
+
+   /**
+    * Records the lookup of a cached introspection plan.
+    *
+    * @param type the annotated class
+    */
+   default void planCacheHit(Class<?> type) {
+      // not recorded
+   }
+
+   /**
+    * Records the lookup of an introspection plan built on first use.
+    *
+    * @param type       the annotated class
+    * @param buildNanos the time to build the plan
+    */
+   default void planCacheMiss(Class<?> type, long buildNanos) {
+      // not recorded
+   }
+
+   /**
+    * Records the creation of a document by a document factory.
+    *
+    * @param type  the annotated class
+    * @param nanos the time to create the document
+    */
+   default void documentCreated(Class<?> type, long nanos) {
+      // not recorded
+   }
+
+   /**
+    * Records the serialization of an object. The time of a <em>FeatureCollection</em> includes its features, which are
+    * recorded for their own classes as well.
+    *
+    * @param type        the annotated class
+    * @param features    the number of features, 1 for a <em>Feature</em>, the number of features of a <em>FeatureCollection</em>
+    * @param geometries  the number of geometries, not <code>null</code>, of a <em>Feature</em> or a <em>GeometryCollection</em>
+    * @param coordinates the number of coordinates of the geometries
+    * @param nanos       the time to write the object
+    */
+   default void written(Class<?> type, long features, long geometries, long coordinates, long nanos) {
+      // not recorded
+   }
+
+   /**
+    * Records the size of the output of an object, reported by writers owning the output like the
+    * <code>GeoJsonSeqWriter</code> and the <code>MvtEncoder</code>. The size of an object serialized by an
+    * <code>ObjectMapper</code> is not known to the serializer.
+    *
+    * @param type  the annotated class
+    * @param bytes the number of bytes
+    */
+   default void bytesWritten(Class<?> type, long bytes) {
+      // not recorded
+   }
+}
@@ -0,0 +1,121 @@
+package ch.cordsen.geojson.serializer;
+
+/**
+ * The extent of the coordinates written so far, accumulated for the <em>bbox</em> member.
+ * <p>The <em>z</em> range is tracked for coordinates with a <em>z</em> ordinate only. A bounds is not thread-safe,
+ * the bounds of parallel chunks are accumulated separately and merged by {@link #expand(Bounds)}.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc7946#section-5" target="_blank">RFC 7946 - Bounding Box</a>
+ */
+final class Bounds {
+
+   private double minX;
+   private double minY;
+   private double minZ;
+   private double maxX;
+   private double maxY;
+   private double maxZ;
+
+   /**
+    * Constructor of empty bounds.
+    */
+   Bounds() {
+      reset();
+   }
+
+   /**
+    * Empties the bounds.
+    */
+   void reset() {
+      minX = Double.POSITIVE_INFINITY;
+      minY = Double.POSITIVE_INFINITY;
+      minZ = Double.POSITIVE_INFINITY;
+      maxX = Double.NEGATIVE_INFINITY;
+      maxY = Double.NEGATIVE_INFINITY;
+      maxZ = Double.NEGATIVE_INFINITY;
+   }
+
+   /**
+    * Whether no coordinate was added.
+    *
+    * @return <code>true</code> if empty
+    */
+   boolean isEmpty() {
+      return minX > maxX;
+   }
+
+   /**
+    * Whether a coordinate with a <em>z</em> ordinate was added.
+    *
+    * @return <code>true</code> for three dimensions
+    */
+   boolean hasZ() {
+      return minZ <= maxZ;
+   }
+
+   /**
+    * Adds a coordinate.
+    *
+    * @param x the x ordinate
+    * @param y the y ordinate
+    * @param z the z ordinate, or {@link Double#NaN}
+    */
+   void expand(double x, double y, double z) {
+      if (x < minX) {
+         minX = x;
+      }
+      if (x > maxX) {
+         maxX = x;
+      }
+      if (y < minY) {
+         minY = y;
+      }
+      if (y > maxY) {
+         maxY = y;
+      }
+      if (z < minZ) {
+         minZ = z;
+      }
+      if (z > maxZ) {
+         maxZ = z;
+      }
+   }
+
+   /**
+    * Adds other bounds.
+    *
+    * @param other the bounds to add
+    */
+   void expand(Bounds other) {
+      minX = Math.min(minX, other.minX);
+      minY = Math.min(minY, other.minY);
+      minZ = Math.min(minZ, other.minZ);
+      maxX = Math.max(maxX, other.maxX);
+      maxY = Math.max(maxY, other.maxY);
+      maxZ = Math.max(maxZ, other.maxZ);
+   }
+
+   double getMinX() {
+      return minX;
+   }
+
+   double getMinY() {
+      return minY;
+   }
+
+   double getMinZ() {
+      return minZ;
+   }
+
+   double getMaxX() {
+      return maxX;
+   }
+
+   double getMaxY() {
+      return maxY;
+   }
+
+   double getMaxZ() {
+      return maxZ;
+   }
+}
@@ -0,0 +1,190 @@
+package ch.cordsen.geojson.serializer;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Lineal;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.Puntal;
+import org.locationtech.jts.geom.TopologyException;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Clipping of the geometries to a bounding box, see {@link GeoJsonOptions#withClipping(Clipping)}.
+ * <p>The geometries are intersected with the box, expanded by a {@link #getBuffer() buffer} so the edges of adjacent
+ * boxes like map tiles do not show. Geometries within the box are written as they are, geometries outside of it are
+ * dropped, both detected by their envelopes. Only the parts of the original dimension are kept, a polygon touching the
+ * box does not turn into a line. With a {@link GeoJsonOptions#getTolerance() tolerance}, the simplified geometry is
+ * clipped, the simplification does not depend on the box.
+ * <p>Features of <em>FeatureCollections</em> with a geometry outside of the box are not written at all. The clipping is
+ * immutable and thread-safe.
+ */
+public final class Clipping {
+
+   private final Envelope envelope;
+   private final double buffer;
+   private final Envelope clipEnvelope;
+   private final Geometry clipBox;
+
+   private Clipping(Envelope envelope, double buffer) {
+      this.envelope = envelope;
+      this.buffer = buffer;
+      this.clipEnvelope = new Envelope(envelope);
+      this.clipEnvelope.expandBy(buffer);
+      this.clipBox = new GeometryFactory().toGeometry(clipEnvelope);
+   }
+
+   /**
+    * Returns a clipping to a bounding box without buffer.
+    *
+    * @param envelope the bounding box, like the one of a request
+    * @return the clipping
+    */
+   public static Clipping to(Envelope envelope) {
+      return new Clipping(new Envelope(Objects.requireNonNull(envelope, "envelope")), 0);
+   }
+
+   /**
+    * Returns the bounding box, a copy.
+    *
+    * @return the bounding box without buffer
+    */
+   public Envelope getEnvelope() {
+      return new Envelope(envelope);
+   }
+
+   /**
+    * The distance by which the bounding box is expanded on each side.
+    *
+    * @return the buffer in units of the coordinates, 0 by default
+    */
+   public double getBuffer() {
+      return buffer;
+   }
+
+   /**
+    * Returns a clipping to the same bounding box with a buffer.
+    *
+    * @param buffer the buffer in units of the coordinates
+    * @return the modified clipping
+    * @throws IllegalArgumentException if the buffer is negative or not finite
+    */
+   public Clipping withBuffer(double buffer) {
+      if (!(buffer >= 0) || Double.isInfinite(buffer)) {
+         throw new IllegalArgumentException("Buffer must be zero or positive: " + buffer);
+      }
+      return new Clipping(envelope, buffer);
+   }
+
+   /**
+    * Returns the bounding box expanded by the buffer, a copy.
+    *
+    * @return the envelope the geometries are clipped to
+    */
+   Envelope getClipEnvelope() {
+      return new Envelope(clipEnvelope);
+   }
+
+   /**
+    * Whether a geometry has a part within the buffered box.
+    *
+    * @param geometry the geometry of a feature, not <code>null</code>
+    * @return <code>false</code> if nothing would remain of the geometry
+    */
+   boolean intersects(Geometry geometry) {
+      Envelope geometryEnvelope = geometry.getEnvelopeInternal();
+      if (geometry.isEmpty() || !clipEnvelope.intersects(geometryEnvelope)) {
+         return false;
+      }
+      return clipEnvelope.contains(geometryEnvelope) || clipBox.intersects(geometry);
+   }
+
+   /**
+    * Clips a geometry to the buffered box.
+    *
+    * @param geometry the geometry, not <code>null</code>
+    * @return the geometry itself if within the box, the parts of its dimension within the box, or <code>null</code> if
+    * nothing remains
+    */
+   @Nullable Geometry clip(Geometry geometry) {
+      Envelope geometryEnvelope = geometry.getEnvelopeInternal();
+      if (geometry.isEmpty() || !clipEnvelope.intersects(geometryEnvelope)) {
+         return null;
+      } else if (clipEnvelope.contains(geometryEnvelope)) {
+         return geometry;
+      }
+      List<Geometry> parts = new ArrayList<>();
+      if (isHomogeneous(geometry)) {
+         addParts(intersection(geometry), geometry.getDimension(), parts);
+      } else {
+         // the elements of a heterogeneous collection keep their own dimensions
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry clipped = clip(geometry.getGeometryN(i));
+            if (clipped != null) {
+               parts.add(clipped);
+            }
+         }
+         return parts.isEmpty() ? null : geometry.getFactory().createGeometryCollection(parts.toArray(new Geometry[0]));
+      }
+      return parts.isEmpty() ? null : geometry.getFactory().buildGeometry(parts);
+   }
+
+   private Geometry intersection(Geometry geometry) {
+      try {
+         return geometry.intersection(clipBox);
+      } catch (TopologyException e) {
+         if (!(geometry instanceof Polygonal)) {
+            throw e;
+         }
+         // an invalid polygon is repaired first
+         return geometry.buffer(0).intersection(clipBox);
+      }
+   }
+
+   private static void addParts(Geometry geometry, int dimension, List<Geometry> parts) {
+      if (geometry instanceof GeometryCollection) {
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            addParts(geometry.getGeometryN(i), dimension, parts);
+         }
+      } else if (geometry.getDimension() == dimension && !geometry.isEmpty()) {
+         parts.add(geometry);
+      }
+   }
+
+   private static boolean isHomogeneous(Geometry geometry) {
+      return geometry instanceof Puntal || geometry instanceof Lineal || geometry instanceof Polygonal;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean equals(Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (!(o instanceof Clipping)) {
+         return false;
+      }
+      Clipping other = (Clipping) o;
+      return buffer == other.buffer && envelope.equals(other.envelope);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int hashCode() {
+      return Objects.hash(envelope, buffer);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public String toString() {
+      return "Clipping[envelope=" + envelope + ", buffer=" + buffer + "]";
+   }
+}
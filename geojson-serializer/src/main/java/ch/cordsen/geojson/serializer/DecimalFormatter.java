@@ -0,0 +1,115 @@
+package ch.cordsen.geojson.serializer;
+
+/**
+ * Formats doubles rounded to a fixed number of decimal places into a char array.
+ * <p>The value is scaled to a <code>long</code>, rounded half away from zero, and its digits are written
+ * without allocations. Trailing zeros of the fraction are omitted, but at least one decimal place is written
+ * like {@link Double#toString(double)} does, e.g. <code>2.0</code> or <code>-0.5</code>.
+ * Values too large to be scaled exactly are not supported, see {@link #canFormat(double, int)}.
+ */
+final class DecimalFormatter {
+
+   /**
+    * The maximum number of chars written by {@link #format(double, int, char[])}.
+    */
+   static final int MAX_LENGTH = 40;
+
+   private static final long[] POWERS_OF_TEN = new long[GeoJsonOptions.MAX_PRECISION + 1];
+
+   /**
+    * The largest scaled value represented exactly by a double, 2<sup>53</sup>.
+    */
+   private static final double MAX_SCALED = 9007199254740992d;
+
+   static {
+      long power = 1;
+      for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+         POWERS_OF_TEN[i] = power;
+         power *= 10;
+      }
+   }
+
+   private DecimalFormatter() {
+      // static usage only
+   }
+
+   /**
+    * Whether a value can be formatted with a precision.
+    *
+    * @param value     the value
+    * @param precision the number of decimal places
+    * @return <code>true</code> for finite values which can be scaled exactly
+    */
+   static boolean canFormat(double value, int precision) {
+      return Math.abs(value) * POWERS_OF_TEN[precision] < MAX_SCALED;
+   }
+
+   /**
+    * Rounds a value to a precision.
+    *
+    * @param value     the value
+    * @param precision the number of decimal places
+    * @return the rounded value
+    */
+   static double round(double value, int precision) {
+      if (!canFormat(value, precision)) {
+         return value;
+      }
+      double power = POWERS_OF_TEN[precision];
+      return Math.copySign(Math.floor(Math.abs(value) * power + 0.5) / power, value);
+   }
+
+   /**
+    * Formats a value rounded to a precision.
+    *
+    * @param value     the value, see {@link #canFormat(double, int)}
+    * @param precision the number of decimal places
+    * @param buffer    the buffer of at least {@link #MAX_LENGTH} chars
+    * @return the number of chars written
+    */
+   static int format(double value, int precision, char[] buffer) {
+      long power = POWERS_OF_TEN[precision];
+      long unscaled = (long) Math.floor(Math.abs(value) * power + 0.5);
+      int length = 0;
+      if (unscaled != 0 && value < 0) {
+         buffer[length++] = '-';
+      }
+      length = writeDigits(unscaled / power, buffer, length);
+      buffer[length++] = '.';
+      long fraction = unscaled % power;
+      if (fraction == 0) {
+         buffer[length++] = '0';
+         return length;
+      }
+      int digits = precision;
+      while (fraction % 10 == 0) {
+         fraction /= 10;
+         digits--;
+      }
+      // the fraction has leading zeros up to the number of significant digits
+      int end = length + digits;
+      for (int i = end - 1; i >= length; i--) {
+         buffer[i] = (char) ('0' + fraction % 10);
+         fraction /= 10;
+      }
+      return end;
+   }
+
+   private static int writeDigits(long value, char[] buffer, int offset) {
+      int end = offset + digitCount(value);
+      for (int i = end - 1; i >= offset; i--) {
+         buffer[i] = (char) ('0' + value % 10);
+         value /= 10;
+      }
+      return end;
+   }
+
+   private static int digitCount(long value) {
+      int count = 1;
+      while (value >= 10) {
+         value /= 10;
+         count++;
+      }
+      return count;
+   }
+}
@@ -0,0 +1,137 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.document.Document;
+import ch.cordsen.geojson.document.DocumentFactory;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.document.DocumentSink;
+import ch.cordsen.geojson.document.GeneratedDocumentFactories;
+import ch.cordsen.geojson.document.PerThread;
+import ch.cordsen.geojson.document.StreamingDocumentFactory;
+import ch.cordsen.geojson.introspection.IntrospectionDocumentFactory;
+
+import java.io.IOException;
+
+/**
+ * Resolves the {@link DocumentFactory} of classes annotated with {@link GeoJson}.
+ * <p>A factory is instantiated once per factory class and shared by all annotated classes using it,
+ * factories annotated with {@link PerThread} are instantiated once per thread. The resolution is cached
+ * per annotated class.
+ * <p>Instead of the default {@link IntrospectionDocumentFactory}, a factory generated at compile time
+ * is used if present, see {@link GeneratedDocumentFactories}.
+ */
+final class DocumentFactories {
+
+   private static final ClassValue<DocumentFactory> byFactoryClass = new ClassValue<DocumentFactory>() {
+      @Override protected DocumentFactory computeValue(Class<?> type) {
+         Class<? extends DocumentFactory> factory = type.asSubclass(DocumentFactory.class);
+         if (factory.isAnnotationPresent(PerThread.class)) {
+            return new PerThreadDocumentFactory(factory);
+         }
+         return newInstance(factory);
+      }
+   };
+
+   private static final ClassValue<DocumentFactory> byAnnotatedClass = new ClassValue<DocumentFactory>() {
+      @Override protected DocumentFactory computeValue(Class<?> type) {
+         GeoJson geoJsonAnnotation = type.getAnnotation(GeoJson.class);
+         if (geoJsonAnnotation == null) {
+            throw new IllegalArgumentException("Annotation @GeoJson is not present.");
+         }
+         Class<? extends DocumentFactory> factory = geoJsonAnnotation.factory();
+         if (factory == IntrospectionDocumentFactory.class) {
+            Class<? extends DocumentFactory> generated = GeneratedDocumentFactories.find(type);
+            if (generated != null) {
+               factory = generated;
+            }
+         }
+         return byFactoryClass.get(factory);
+      }
+   };
+
+   private DocumentFactories() {
+      // static usage only
+   }
+
+   /**
+    * Returns the document factory for a class annotated with {@link GeoJson}.
+    *
+    * @param annotatedClass the annotated class
+    * @return the factory, never <code>null</code>
+    * @throws IllegalArgumentException if the annotation {@link GeoJson} is not present
+    * @throws IllegalStateException    if the factory cannot be instantiated
+    */
+   static DocumentFactory of(Class<?> annotatedClass) {
+      return byAnnotatedClass.get(annotatedClass);
+   }
+
+   /**
+    * Pushes an object annotated with {@link GeoJson}, or a {@link Document}, into a sink.
+    *
+    * @param object the object
+    * @param sink   the sink
+    * @throws DocumentFactoryException from the factory
+    * @throws IOException              for exceptions from the sink
+    * @throws IllegalArgumentException if the annotation {@link GeoJson} is not present
+    */
+   static void write(Object object, DocumentSink sink) throws DocumentFactoryException, IOException {
+      if (object instanceof Document) {
+         sink.document((Document) object);
+         return;
+      }
+      DocumentFactory documentFactory = of(object.getClass());
+      if (documentFactory instanceof StreamingDocumentFactory) {
+         ((StreamingDocumentFactory) documentFactory).write(object, sink);
+      } else {
+         sink.document(documentFactory.from(object));
+      }
+   }
+
+   private static DocumentFactory newInstance(Class<? extends DocumentFactory> factory) {
+      try {
+         return factory.getDeclaredConstructor().newInstance();
+      } catch (Exception e) {
+         throw new IllegalStateException("Factory instantiation failed for " + factory, e);
+      }
+   }
+
+   /**
+    * Delegates to one instance of a factory per thread.
+    * <p>Streaming is forwarded to the instance if supported, otherwise its document is pushed into the sink.
+    */
+   private static final class PerThreadDocumentFactory implements StreamingDocumentFactory {
+
+      private final ThreadLocal<DocumentFactory> factories;
+
+      /**
+       * Constructor
+       *
+       * @param factory the factory class annotated with {@link PerThread}
+       */
+      PerThreadDocumentFactory(Class<? extends DocumentFactory> factory) {
+         // the first instance fails early if the factory cannot be instantiated at all
+         DocumentFactory first = newInstance(factory);
+         this.factories = ThreadLocal.withInitial(() -> newInstance(factory));
+         this.factories.set(first);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Document from(Object object) throws DocumentFactoryException {
+         return factories.get().from(object);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void write(Object object, DocumentSink sink) throws DocumentFactoryException, IOException {
+         DocumentFactory factory = factories.get();
+         if (factory instanceof StreamingDocumentFactory) {
+            ((StreamingDocumentFactory) factory).write(object, sink);
+         } else {
+            sink.document(factory.from(object));
+         }
+      }
+   }
+}
@@ -0,0 +1,348 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonVersion;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.introspection.Annotated;
+import ch.cordsen.geojson.introspection.IntrospectionPlan;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of serialized features, see {@link GeoJsonOptions#withFragmentCache(FeatureFragmentCache)}.
+ * <p>A feature is serialized once into a fragment, which is spliced into the output as raw value by following
+ * serializations. The fragment is cached per class and key of the feature and per options affecting the output, such
+ * as the precision, the bbox and the simplification. By default, the key is the value of the {@link GeoJsonId} together
+ * with the value of the {@link GeoJsonVersion} of the feature, a custom key function may be set instead. Features
+ * without a key are serialized as usual.
+ * <p>The size of the cache is limited by the total number of characters of the fragments, the least recently used
+ * fragments are evicted first. The {@link #getHitCount() hits}, {@link #getMissCount() misses} and
+ * {@link #getEvictionCount() evictions} are counted to size the cache.
+ * <p>Fragments are spliced into textual JSON without pretty printer only, other output is written as usual.
+ * <p>The IDs and properties are rendered by the {@link SerializerProvider}, thus the fragments also depend on the
+ * configuration of the mapper. The active view and the {@link com.fasterxml.jackson.databind.SerializationFeature
+ * serialization features} are part of the key, other configuration like the date format, the naming strategy, mix-ins
+ * or custom serializers is not. A cache therefore belongs to one mapper configuration: writers derived from the same
+ * mapper with different options may share it, differently configured mappers must not.
+ * <p>The cache is thread-safe.
+ */
+public final class FeatureFragmentCache {
+
+   /**
+    * The ID and version members of feature classes, an empty array for classes without either of them.
+    */
+   private static final ClassValue<Annotated[]> versionedIds = new ClassValue<Annotated[]>() {
+      @Override protected Annotated[] computeValue(Class<?> type) {
+         try {
+            IntrospectionPlan plan = IntrospectionPlan.of(type);
+            if (plan.getId() != null && plan.getVersion() != null) {
+               return new Annotated[]{plan.getId(), plan.getVersion()};
+            }
+         } catch (DocumentFactoryException e) {
+            // not an introspectable class, thus no key
+         }
+         return new Annotated[0];
+      }
+   };
+
+   private static final ClassValue<Boolean> featureByClass = new ClassValue<Boolean>() {
+      @Override protected Boolean computeValue(Class<?> type) {
+         GeoJson geoJsonAnnotation = type.getAnnotation(GeoJson.class);
+         return geoJsonAnnotation != null && geoJsonAnnotation.type() == GeoJsonType.FEATURE;
+      }
+   };
+
+   private final long maximumWeight;
+   private final Function<Object, ?> keyFunction;
+   private final Map<Key, Fragment> fragments = new LinkedHashMap<>(16, 0.75f, true);
+   private long weight;
+   private final LongAdder hitCount = new LongAdder();
+   private final LongAdder missCount = new LongAdder();
+   private final LongAdder evictionCount = new LongAdder();
+
+   /**
+    * Constructor of a cache keyed by {@link GeoJsonId} and {@link GeoJsonVersion}.
+    *
+    * @param maximumWeight the maximum number of characters of all fragments
+    * @throws IllegalArgumentException if the maximum weight is less than 1
+    */
+   public FeatureFragmentCache(long maximumWeight) {
+      this(maximumWeight, FeatureFragmentCache::versionedIdOf);
+   }
+
+   /**
+    * Constructor of a cache with a key function.
+    * <p>The key has to change whenever the output of the feature changes, like the ID together with a version or
+    * modification time. It has to implement {@link Object#equals(Object)} and {@link Object#hashCode()}.
+    *
+    * @param maximumWeight the maximum number of characters of all fragments
+    * @param keyFunction   the function returning the key of a feature, or <code>null</code> to serialize it as usual
+    * @throws IllegalArgumentException if the maximum weight is less than 1
+    */
+   public FeatureFragmentCache(long maximumWeight, Function<Object, ?> keyFunction) {
+      if (maximumWeight < 1) {
+         throw new IllegalArgumentException("Maximum weight must be positive: " + maximumWeight);
+      }
+      this.maximumWeight = maximumWeight;
+      this.keyFunction = Objects.requireNonNull(keyFunction, "keyFunction");
+   }
+
+   /**
+    * The maximum number of characters of all fragments.
+    *
+    * @return the maximum weight
+    */
+   public long getMaximumWeight() {
+      return maximumWeight;
+   }
+
+   /**
+    * The number of characters of all cached fragments.
+    *
+    * @return the weight
+    */
+   public synchronized long getWeight() {
+      return weight;
+   }
+
+   /**
+    * The number of cached fragments.
+    *
+    * @return the size
+    */
+   public synchronized int size() {
+      return fragments.size();
+   }
+
+   /**
+    * The number of features spliced from the cache.
+    *
+    * @return the hits
+    */
+   public long getHitCount() {
+      return hitCount.sum();
+   }
+
+   /**
+    * The number of features with a key serialized since they were not cached.
+    *
+    * @return the misses
+    */
+   public long getMissCount() {
+      return missCount.sum();
+   }
+
+   /**
+    * The number of fragments evicted to stay within the maximum weight.
+    *
+    * @return the evictions
+    */
+   public long getEvictionCount() {
+      return evictionCount.sum();
+   }
+
+   /**
+    * Removes all fragments, the statistics are kept.
+    */
+   public synchronized void clear() {
+      fragments.clear();
+      weight = 0;
+   }
+
+   @Override public String toString() {
+      return "FeatureFragmentCache[size=" + size() + ", weight=" + getWeight() + "/" + maximumWeight + ", hits=" + getHitCount() +
+         ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+   }
+
+   /**
+    * Returns the key of the fragment of an object written to a generator.
+    *
+    * @param object    the object to serialize
+    * @param gen       the generator
+    * @param provider  the provider of the serialization
+    * @param options   the options of the serialization
+    * @param precision the precision of the object
+    * @param bbox      whether the bbox of the object is written
+    * @return the key, or <code>null</code> to serialize the object as usual
+    */
+   @Nullable Object keyOf(Object object, JsonGenerator gen, SerializerProvider provider, GeoJsonOptions options, int precision,
+                          boolean bbox) {
+      if (!(gen instanceof JsonGeneratorImpl) || gen.getPrettyPrinter() != null || gen.getCodec() == null
+         || !featureByClass.get(object.getClass())) {
+         return null;
+      }
+      Object key = keyFunction.apply(object);
+      if (key == null) {
+         return null;
+      }
+      return new Key(object.getClass(), key, gen.getFeatureMask(), provider.getConfig().getSerializationFeatures(),
+         provider.getActiveView(), precision, bbox, options.getTolerance(), options.getSimplification(), options.getClipping());
+   }
+
+   /**
+    * Returns a cached fragment, counting the hit or miss.
+    *
+    * @param key the key from {@link #keyOf(Object, JsonGenerator, SerializerProvider, GeoJsonOptions, int, boolean)}
+    * @return the fragment, or <code>null</code> if not cached
+    */
+   @Nullable Fragment get(Object key) {
+      Fragment fragment;
+      synchronized (this) {
+         fragment = fragments.get(key);
+      }
+      (fragment != null ? hitCount : missCount).increment();
+      return fragment;
+   }
+
+   /**
+    * Caches a fragment, evicting the least recently used fragments beyond the maximum weight.
+    *
+    * @param key      the key from {@link #keyOf(Object, JsonGenerator, SerializerProvider, GeoJsonOptions, int, boolean)}
+    * @param fragment the serialized feature
+    */
+   void put(Object key, Fragment fragment) {
+      if (fragment.chars.length > maximumWeight) {
+         return;
+      }
+      synchronized (this) {
+         Fragment previous = fragments.put((Key) key, fragment);
+         weight += fragment.chars.length - (previous != null ? previous.chars.length : 0);
+         Iterator<Fragment> eldest = fragments.values().iterator();
+         while (weight > maximumWeight) {
+            weight -= eldest.next().chars.length;
+            eldest.remove();
+            evictionCount.increment();
+         }
+      }
+   }
+
+   /**
+    * Creates a generator writing a fragment, configured like the generator of the serialization.
+    *
+    * @param gen    the generator of the serialization
+    * @param writer the buffer of the fragment
+    * @return the generator
+    * @throws IOException for exceptions from the factory
+    */
+   static JsonGenerator createGenerator(JsonGenerator gen, Writer writer) throws IOException {
+      JsonGenerator fragmentGen = gen.getCodec().getFactory().createGenerator(writer);
+      fragmentGen.setCodec(gen.getCodec());
+      ParallelFeatureWriter.configure(gen, fragmentGen);
+      return fragmentGen;
+   }
+
+   /**
+    * The default key function, the ID and version of a feature.
+    */
+   private static Object versionedIdOf(Object feature) {
+      Annotated[] members = versionedIds.get(feature.getClass());
+      if (members.length == 0) {
+         return null;
+      }
+      try {
+         Object id = members[0].getValue(feature, Object.class);
+         Object version = members[1].getValue(feature, Object.class);
+         return id != null && version != null ? Arrays.asList(id, version) : null;
+      } catch (DocumentFactoryException e) {
+         // serialized as usual, which reports the failure
+         return null;
+      }
+   }
+
+   /**
+    * A serialized feature with its bounds.
+    */
+   static final class Fragment {
+
+      private final char[] chars;
+      private final Bounds bounds;
+
+      /**
+       * Constructor
+       *
+       * @param chars  the serialized feature
+       * @param bounds the bounds of the feature with a bbox, or <code>null</code>
+       */
+      Fragment(char[] chars, @Nullable Bounds bounds) {
+         this.chars = chars;
+         this.bounds = bounds;
+      }
+
+      /**
+       * Writes the fragment as raw value and adds its bounds to the bounds of the enclosing collection.
+       *
+       * @param gen              the generator
+       * @param collectionBounds the bounds of the enclosing collection, or <code>null</code>
+       * @throws IOException for exceptions from the generator
+       */
+      void writeTo(JsonGenerator gen, @Nullable Bounds collectionBounds) throws IOException {
+         gen.writeRawValue(chars, 0, chars.length);
+         if (collectionBounds != null && bounds != null && !bounds.isEmpty()) {
+            collectionBounds.expand(bounds);
+         }
+      }
+   }
+
+   /**
+    * The identity of a fragment: the feature and the options and configuration affecting its output.
+    */
+   private static final class Key {
+
+      private final Class<?> type;
+      private final Object key;
+      private final int featureMask;
+      private final int serializationFeatures;
+      private final Class<?> activeView;
+      private final int precision;
+      private final boolean bbox;
+      private final double tolerance;
+      private final Simplification simplification;
+      private final Clipping clipping;
+
+      Key(Class<?> type, Object key, int featureMask, int serializationFeatures, @Nullable Class<?> activeView, int precision,
+          boolean bbox, double tolerance, Simplification simplification, Clipping clipping) {
+         this.type = type;
+         this.key = key;
+         this.featureMask = featureMask;
+         this.serializationFeatures = serializationFeatures;
+         this.activeView = activeView;
+         this.precision = precision;
+         this.bbox = bbox;
+         this.tolerance = tolerance > 0 ? tolerance : 0;
+         this.simplification = tolerance > 0 ? simplification : null;
+         this.clipping = clipping;
+      }
+
+      @Override public boolean equals(Object o) {
+         if (this == o) {
+            return true;
+         }
+         if (!(o instanceof Key)) {
+            return false;
+         }
+         Key other = (Key) o;
+         return type == other.type && featureMask == other.featureMask && serializationFeatures == other.serializationFeatures
+            && activeView == other.activeView && precision == other.precision && bbox == other.bbox
+            && tolerance == other.tolerance && simplification == other.simplification && key.equals(other.key)
+            && Objects.equals(clipping, other.clipping);
+      }
+
+      @Override public int hashCode() {
+         return Objects.hash(type, key, featureMask, serializationFeatures, activeView, precision, bbox, tolerance, simplification,
+            clipping);
+      }
+   }
+}
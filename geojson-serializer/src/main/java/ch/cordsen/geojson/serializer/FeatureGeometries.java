@@ -0,0 +1,87 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.document.Document;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.document.FeatureDocument;
+import ch.cordsen.geojson.document.Geometries;
+import ch.cordsen.geojson.introspection.Annotated;
+import ch.cordsen.geojson.introspection.IntrospectionDocumentFactory;
+import ch.cordsen.geojson.introspection.IntrospectionPlan;
+import org.locationtech.jts.geom.Geometry;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads the geometry of a feature for the {@link SpatialFilter}, without writing the feature.
+ * <p>The geometry of a class introspected by default is read from its member annotated with
+ * {@link ch.cordsen.geojson.annotation.GeoJsonGeometry}, the one of a class with a custom factory from its document.
+ */
+final class FeatureGeometries {
+
+   private static final Reader NOT_A_FEATURE = feature -> null;
+
+   /**
+    * How to read the geometry per class, {@link #NOT_A_FEATURE} for objects which are not features.
+    */
+   private static final ClassValue<Reader> readers = new ClassValue<Reader>() {
+      @Override protected Reader computeValue(Class<?> type) {
+         GeoJson geoJsonAnnotation = type.getAnnotation(GeoJson.class);
+         if (geoJsonAnnotation == null || geoJsonAnnotation.type() != GeoJsonType.FEATURE) {
+            return NOT_A_FEATURE;
+         }
+         if (geoJsonAnnotation.factory() == IntrospectionDocumentFactory.class) {
+            try {
+               IntrospectionPlan plan = IntrospectionPlan.of(type);
+               Annotated geometry = plan.getGeometry();
+               if (geometry == null) {
+                  return feature -> null;
+               } else if (plan.isRawGeometry(geometry)) {
+                  return feature -> Geometries.rawToGeometry(geometry.getValue(feature, Object.class), geometry.getDescription());
+               }
+               return feature -> Geometries.toGeometry(geometry.getValue(feature, Object.class), geometry.getDescription());
+            } catch (DocumentFactoryException e) {
+               // reported by the document factory below
+            }
+         }
+         return feature -> {
+            Document document = DocumentFactories.of(type).from(feature);
+            return document instanceof FeatureDocument ? ((FeatureDocument) document).getGeometry() : null;
+         };
+      }
+   };
+
+   private FeatureGeometries() {
+      // static usage only
+   }
+
+   /**
+    * Whether the object is a feature with a readable geometry.
+    *
+    * @param type the class of the object
+    * @return <code>true</code> for classes annotated as <em>Feature</em>
+    */
+   static boolean isFeature(Class<?> type) {
+      return readers.get(type) != NOT_A_FEATURE;
+   }
+
+   /**
+    * Returns the geometry of a feature.
+    *
+    * @param feature the feature, see {@link #isFeature(Class)}
+    * @return the geometry, or <code>null</code> if not present
+    * @throws DocumentFactoryException from the member or the document factory
+    */
+   static @Nullable Geometry of(Object feature) throws DocumentFactoryException {
+      return readers.get(feature.getClass()).read(feature);
+   }
+
+   /**
+    * Reads the geometry of a feature.
+    */
+   @FunctionalInterface
+   private interface Reader {
+
+      Geometry read(Object feature) throws DocumentFactoryException;
+   }
+}
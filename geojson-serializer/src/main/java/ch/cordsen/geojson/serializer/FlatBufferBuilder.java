@@ -0,0 +1,304 @@
+package ch.cordsen.geojson.serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A minimal builder of size-prefixed <em>FlatBuffers</em>, as needed by the {@link FlatGeobufWriter}.
+ * <p>Like the reference implementation, the buffer is filled from the end, so children are created before the tables
+ * referencing them, and every scalar is aligned to its size. Offsets returned by the builder are counted from the end
+ * of the buffer. Vtables are not deduplicated.
+ * <p>A builder is reused by {@link #clear()} and is not thread-safe.
+ *
+ * @see <a href="https://google.github.io/flatbuffers/flatbuffers_internals.html" target="_blank">FlatBuffers internals</a>
+ */
+final class FlatBufferBuilder {
+
+   private byte[] buf;
+   private int space;
+   private int minAlign = 1;
+   private int[] vtable = new int[16];
+   private int vtableSize;
+   private int objectStart;
+
+   /**
+    * Constructor
+    *
+    * @param capacity the initial capacity, grown as needed
+    */
+   FlatBufferBuilder(int capacity) {
+      this.buf = new byte[Math.max(capacity, 16)];
+      this.space = buf.length;
+   }
+
+   /**
+    * Discards the content for building the next buffer.
+    */
+   void clear() {
+      space = buf.length;
+      minAlign = 1;
+   }
+
+   /**
+    * Returns the number of bytes written.
+    *
+    * @return the offset of the last written byte from the end
+    */
+   int offset() {
+      return buf.length - space;
+   }
+
+   /**
+    * Creates a string.
+    *
+    * @param value the string
+    * @return the offset of the string
+    */
+   int createString(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      addByte((byte) 0);
+      startVector(1, bytes.length, 1);
+      space -= bytes.length;
+      System.arraycopy(bytes, 0, buf, space, bytes.length);
+      return endVector(bytes.length);
+   }
+
+   /**
+    * Creates a vector of bytes.
+    *
+    * @param values the array of bytes
+    * @param length the number of bytes
+    * @return the offset of the vector
+    */
+   int createByteVector(byte[] values, int length) {
+      startVector(1, length, 1);
+      space -= length;
+      System.arraycopy(values, 0, buf, space, length);
+      return endVector(length);
+   }
+
+   /**
+    * Creates a vector of unsigned integers.
+    *
+    * @param values the array of integers
+    * @param length the number of integers
+    * @return the offset of the vector
+    */
+   int createIntVector(int[] values, int length) {
+      startVector(4, length, 4);
+      for (int i = length - 1; i >= 0; i--) {
+         putInt(values[i]);
+      }
+      return endVector(length);
+   }
+
+   /**
+    * Creates a vector of doubles.
+    *
+    * @param values the array of doubles
+    * @param length the number of doubles
+    * @return the offset of the vector
+    */
+   int createDoubleVector(double[] values, int length) {
+      startVector(8, length, 8);
+      for (int i = length - 1; i >= 0; i--) {
+         putLong(Double.doubleToRawLongBits(values[i]));
+      }
+      return endVector(length);
+   }
+
+   /**
+    * Creates a vector of tables.
+    *
+    * @param offsets the offsets of the tables
+    * @param length  the number of tables
+    * @return the offset of the vector
+    */
+   int createOffsetVector(int[] offsets, int length) {
+      startVector(4, length, 4);
+      for (int i = length - 1; i >= 0; i--) {
+         addOffset(offsets[i]);
+      }
+      return endVector(length);
+   }
+
+   /**
+    * Starts a table, its fields are added until {@link #endTable()}.
+    *
+    * @param fieldCount the number of fields declared by the schema
+    */
+   void startTable(int fieldCount) {
+      if (vtable.length < fieldCount) {
+         vtable = new int[fieldCount];
+      }
+      Arrays.fill(vtable, 0, fieldCount, 0);
+      vtableSize = fieldCount;
+      objectStart = offset();
+   }
+
+   /**
+    * Adds a field of a byte, boolean or enum.
+    */
+   void addByte(int field, byte value) {
+      addByte(value);
+      vtable[field] = offset();
+   }
+
+   /**
+    * Adds a field of a short.
+    */
+   void addShort(int field, short value) {
+      addShort(value);
+      vtable[field] = offset();
+   }
+
+   /**
+    * Adds a field of an integer.
+    */
+   void addInt(int field, int value) {
+      addInt(value);
+      vtable[field] = offset();
+   }
+
+   /**
+    * Adds a field of a long.
+    */
+   void addLong(int field, long value) {
+      prep(8, 0);
+      putLong(value);
+      vtable[field] = offset();
+   }
+
+   /**
+    * Adds a field referencing a string, vector or table.
+    */
+   void addOffset(int field, int offset) {
+      addOffset(offset);
+      vtable[field] = offset();
+   }
+
+   /**
+    * Ends a table, writing its vtable.
+    *
+    * @return the offset of the table
+    */
+   int endTable() {
+      addInt(0);
+      int tableOffset = offset();
+      int size = vtableSize;
+      while (size > 0 && vtable[size - 1] == 0) {
+         size--;
+      }
+      for (int i = size - 1; i >= 0; i--) {
+         addShort((short) (vtable[i] != 0 ? tableOffset - vtable[i] : 0));
+      }
+      addShort((short) (tableOffset - objectStart));
+      addShort((short) ((size + 2) * 2));
+      // the signed offset from the table back to its vtable
+      int tablePosition = buf.length - tableOffset;
+      int vtableDistance = offset() - tableOffset;
+      buf[tablePosition] = (byte) vtableDistance;
+      buf[tablePosition + 1] = (byte) (vtableDistance >>> 8);
+      buf[tablePosition + 2] = (byte) (vtableDistance >>> 16);
+      buf[tablePosition + 3] = (byte) (vtableDistance >>> 24);
+      return tableOffset;
+   }
+
+   /**
+    * Finishes the buffer with its root table, prefixed by its size.
+    *
+    * @param root the offset of the root table
+    */
+   void finishSizePrefixed(int root) {
+      prep(minAlign, 8);
+      addOffset(root);
+      addInt(offset());
+   }
+
+   /**
+    * Writes the finished buffer.
+    *
+    * @param out the output
+    * @throws IOException from the output
+    */
+   void writeTo(OutputStream out) throws IOException {
+      out.write(buf, space, offset());
+   }
+
+   /**
+    * Writes the finished buffer.
+    *
+    * @param buffer the buffer with enough remaining space
+    */
+   void writeTo(ByteBuffer buffer) {
+      buffer.put(buf, space, offset());
+   }
+
+   private void startVector(int elementSize, int length, int alignment) {
+      prep(4, elementSize * length);
+      prep(alignment, elementSize * length);
+   }
+
+   private int endVector(int length) {
+      addInt(length);
+      return offset();
+   }
+
+   private void addByte(byte value) {
+      prep(1, 0);
+      buf[--space] = value;
+   }
+
+   private void addShort(short value) {
+      prep(2, 0);
+      space -= 2;
+      buf[space] = (byte) value;
+      buf[space + 1] = (byte) (value >>> 8);
+   }
+
+   private void addInt(int value) {
+      prep(4, 0);
+      putInt(value);
+   }
+
+   private void addOffset(int offset) {
+      prep(4, 0);
+      putInt(offset() - offset + 4);
+   }
+
+   private void putInt(int value) {
+      space -= 4;
+      buf[space] = (byte) value;
+      buf[space + 1] = (byte) (value >>> 8);
+      buf[space + 2] = (byte) (value >>> 16);
+      buf[space + 3] = (byte) (value >>> 24);
+   }
+
+   private void putLong(long value) {
+      putInt((int) (value >>> 32));
+      putInt((int) value);
+   }
+
+   /**
+    * Pads the buffer, so a scalar of a size is aligned after writing a number of further bytes, and grows the buffer.
+    */
+   private void prep(int size, int additionalBytes) {
+      if (size > minAlign) {
+         minAlign = size;
+      }
+      int padding = -(offset() + additionalBytes) & (size - 1);
+      while (space < padding + size + additionalBytes) {
+         int used = offset();
+         byte[] grown = new byte[Math.max(buf.length * 2, buf.length + padding + size + additionalBytes)];
+         System.arraycopy(buf, space, grown, grown.length - used, used);
+         space = grown.length - used;
+         buf = grown;
+      }
+      for (int i = 0; i < padding; i++) {
+         buf[--space] = 0;
+      }
+   }
+}
@@ -0,0 +1,632 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.document.Document;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.document.DocumentSink;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.locationtech.jts.geom.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+
+/**
+ * A {@link DocumentSink} encoding <em>Features</em> as <em>FlatGeobuf</em> features into a temporary file.
+ * <p>The columns are collected while encoding: the ID becomes the column <code>id</code>, each property a column typed
+ * by its first non-<code>null</code> value. Later values must fit the type of their column. The first geometry decides
+ * whether z coordinates are written. After all features are encoded, {@link #finish(OutputStream)} writes the header,
+ * the optional spatial index and the features sorted along the Hilbert curve.
+ * <p>A sink is used for one file and is not thread-safe.
+ */
+final class FlatGeobufDocumentSink implements DocumentSink, Closeable {
+
+   private static final byte[] MAGIC = {0x66, 0x67, 0x62, 0x03, 0x66, 0x67, 0x62, 0x00};
+   private static final String ID_COLUMN = "id";
+
+   /**
+    * The types of columns, in the order of their codes.
+    */
+   enum ColumnType {
+      BYTE, UBYTE, BOOL, SHORT, USHORT, INT, UINT, LONG, ULONG, FLOAT, DOUBLE, STRING, JSON, DATETIME, BINARY;
+
+      boolean isIntegral() {
+         return this == BYTE || this == SHORT || this == INT || this == LONG;
+      }
+
+      boolean isNumeric() {
+         return isIntegral() || this == FLOAT || this == DOUBLE;
+      }
+   }
+
+   /**
+    * A column of the header.
+    */
+   static final class Column {
+
+      final String name;
+      final ColumnType type;
+      final int index;
+
+      Column(String name, ColumnType type, int index) {
+         this.name = name;
+         this.type = type;
+         this.index = index;
+      }
+   }
+
+   private final ObjectMapper objectMapper;
+   private final FlatGeobufWriter settings;
+   private final FileChannel features;
+   private final ByteBuffer staging = ByteBuffer.allocate(64 * 1024);
+   private final FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+   private final List<Column> columns = new ArrayList<>();
+   private final Map<String, Column> columnsByName = new HashMap<>();
+
+   private ByteBuffer propertyBuffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+   private Geometry geometry;
+   private boolean inFeatureCollection;
+   private Boolean hasZ;
+   private int geometryType = -1;
+   private boolean bounded = true;
+   private final double[] extent = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+   private int count;
+   private long size;
+   private int[] lengths = new int[256];
+   private double[] bounds = new double[256 * 4];
+
+   private double[] xy = new double[256];
+   private double[] z = new double[128];
+   private int coordinateCount;
+   private int[] ends = new int[16];
+   private int endCount;
+
+   /**
+    * Constructor
+    *
+    * @param objectMapper the mapper of properties encoded as JSON
+    * @param settings     the writer with the settings of the header
+    * @param temporary    the temporary file of the encoded features, deleted on {@link #close()}
+    * @throws IOException if the temporary file cannot be opened
+    */
+   FlatGeobufDocumentSink(ObjectMapper objectMapper, FlatGeobufWriter settings, Path temporary) throws IOException {
+      this.objectMapper = objectMapper;
+      this.settings = settings;
+      this.features = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+   }
+
+   /**
+    * Pushes an object annotated as <em>Feature</em> or <em>FeatureCollection</em>, or a {@link Document}.
+    *
+    * @param object the object
+    * @throws IOException              for exceptions from the factory or the temporary file
+    * @throws IllegalArgumentException if the object is not annotated, or it is a <em>GeometryCollection</em>
+    */
+   void write(Object object) throws IOException {
+      try {
+         DocumentFactories.write(object, this);
+      } catch (DocumentFactoryException e) {
+         throw new JsonMappingException(null, e.getMessage(), e);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginFeature() {
+      geometry = null;
+      propertyBuffer.clear();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void id(Object id) throws IOException {
+      property(ID_COLUMN, id);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void geometry(Geometry geometry) {
+      this.geometry = geometry;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void properties(Object properties) throws IOException {
+      if (properties == null) {
+         return;
+      }
+      Map<?, ?> map = properties instanceof Map ? (Map<?, ?>) properties : objectMapper.convertValue(properties, Map.class);
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+         property(String.valueOf(entry.getKey()), entry.getValue());
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginProperties() {
+      // the properties are encoded one by one
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void property(String name, Object value) throws IOException {
+      if (value == null) {
+         // a missing property is null
+         return;
+      }
+      ColumnType valueType = columnTypeOf(value);
+      Column column = columnsByName.get(name);
+      if (column == null) {
+         if (columns.size() > 0xFFFF) {
+            throw new IOException("Too many columns for FlatGeobuf: " + name);
+         }
+         column = new Column(name, valueType, columns.size());
+         columns.add(column);
+         columnsByName.put(name, column);
+      }
+      ensureProperties(2);
+      propertyBuffer.putShort((short) column.index);
+      encode(column, valueType, value);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endProperties() {
+      // the properties are encoded one by one
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endFeature() throws IOException {
+      builder.clear();
+      int geometryOffset = 0;
+      if (geometry != null && !geometry.isEmpty()) {
+         if (hasZ == null) {
+            hasZ = !Double.isNaN(geometry.getCoordinate().getZ());
+         }
+         geometryOffset = writeGeometry(geometry);
+         int type = geometryTypeOf(geometry);
+         geometryType = geometryType == -1 || geometryType == type ? type : 0;
+      }
+      int propertiesOffset = propertyBuffer.position() > 0 ? builder.createByteVector(propertyBuffer.array(), propertyBuffer.position()) : 0;
+      builder.startTable(3);
+      if (propertiesOffset != 0) {
+         builder.addOffset(1, propertiesOffset);
+      }
+      if (geometryOffset != 0) {
+         builder.addOffset(0, geometryOffset);
+      }
+      builder.finishSizePrefixed(builder.endTable());
+      addFeature(builder.offset());
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginFeatureCollection() {
+      if (inFeatureCollection) {
+         throw new IllegalArgumentException("FlatGeobuf does not support nested FeatureCollections.");
+      }
+      inFeatureCollection = true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void feature(Object feature) throws IOException {
+      // FlatGeobuf has no null features
+      if (feature != null) {
+         write(feature);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endFeatureCollection() {
+      inFeatureCollection = false;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginGeometryCollection() {
+      throw new IllegalArgumentException("FlatGeobuf supports Features and FeatureCollections only, not GeometryCollections.");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endGeometryCollection() {
+      throw new IllegalStateException("GeometryCollection not begun.");
+   }
+
+   /**
+    * Writes the file: the header, the spatial index if enabled and the encoded features.
+    * <p>The index is omitted if a feature has no geometry, as it cannot be located.
+    *
+    * @param out the output
+    * @throws IOException for exceptions from the output or the temporary file
+    */
+   void finish(OutputStream out) throws IOException {
+      flushStaging();
+      boolean indexed = settings.getIndexNodeSize() > 0 && count > 0 && bounded;
+      out.write(MAGIC);
+      writeHeader(indexed ? settings.getIndexNodeSize() : 0).writeTo(out);
+      if (!indexed) {
+         copyFeatures(out);
+         return;
+      }
+      int[] order = PackedRTree.hilbertSort(bounds, count, extent);
+      long[] positions = new long[count];
+      for (int i = 1; i < count; i++) {
+         positions[i] = positions[i - 1] + lengths[i - 1];
+      }
+      double[] leafBounds = new double[count * 4];
+      long[] leafOffsets = new long[count];
+      long offset = 0;
+      for (int i = 0; i < count; i++) {
+         System.arraycopy(bounds, order[i] * 4, leafBounds, i * 4, 4);
+         leafOffsets[i] = offset;
+         offset += lengths[order[i]];
+      }
+      new PackedRTree(leafBounds, leafOffsets, count, settings.getIndexNodeSize()).writeTo(out);
+      for (int feature : order) {
+         copy(positions[feature], lengths[feature], out);
+      }
+   }
+
+   /**
+    * Deletes the temporary file.
+    *
+    * @throws IOException from the temporary file
+    */
+   @Override
+   public void close() throws IOException {
+      features.close();
+   }
+
+   private FlatBufferBuilder writeHeader(int indexNodeSize) {
+      builder.clear();
+      int[] columnOffsets = new int[columns.size()];
+      for (Column column : columns) {
+         int name = builder.createString(column.name);
+         builder.startTable(11);
+         builder.addOffset(0, name);
+         builder.addByte(1, (byte) column.type.ordinal());
+         columnOffsets[column.index] = builder.endTable();
+      }
+      int columnsOffset = columns.isEmpty() ? 0 : builder.createOffsetVector(columnOffsets, columnOffsets.length);
+      int envelopeOffset = count > 0 && extent[0] <= extent[2] ? builder.createDoubleVector(extent, 4) : 0;
+      int nameOffset = settings.getName() != null ? builder.createString(settings.getName()) : 0;
+      int crsOffset = 0;
+      if (settings.getCrs() != 0) {
+         int org = builder.createString("EPSG");
+         builder.startTable(6);
+         builder.addInt(1, settings.getCrs());
+         builder.addOffset(0, org);
+         crsOffset = builder.endTable();
+      }
+      builder.startTable(14);
+      builder.addLong(8, count);
+      if (nameOffset != 0) {
+         builder.addOffset(0, nameOffset);
+      }
+      if (envelopeOffset != 0) {
+         builder.addOffset(1, envelopeOffset);
+      }
+      if (columnsOffset != 0) {
+         builder.addOffset(7, columnsOffset);
+      }
+      if (crsOffset != 0) {
+         builder.addOffset(10, crsOffset);
+      }
+      builder.addShort(9, (short) indexNodeSize);
+      builder.addByte(2, (byte) Math.max(geometryType, 0));
+      if (Boolean.TRUE.equals(hasZ)) {
+         builder.addByte(3, (byte) 1);
+      }
+      builder.finishSizePrefixed(builder.endTable());
+      return builder;
+   }
+
+   /**
+    * Writes a geometry table, the parts of collections and multi polygons first.
+    *
+    * @return the offset of the table
+    */
+   private int writeGeometry(Geometry geometry) {
+      int type = geometryTypeOf(geometry);
+      if (geometry instanceof MultiPolygon || type == 7) {
+         int[] parts = new int[geometry.getNumGeometries()];
+         for (int i = 0; i < parts.length; i++) {
+            parts[i] = writeGeometry(geometry.getGeometryN(i));
+         }
+         int partsOffset = builder.createOffsetVector(parts, parts.length);
+         builder.startTable(8);
+         builder.addOffset(7, partsOffset);
+         builder.addByte(6, (byte) type);
+         return builder.endTable();
+      }
+      coordinateCount = 0;
+      endCount = 0;
+      if (geometry instanceof Polygon) {
+         Polygon polygon = (Polygon) geometry;
+         addPart(polygon.getExteriorRing().getCoordinateSequence());
+         for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+            addPart(polygon.getInteriorRingN(i).getCoordinateSequence());
+         }
+      } else if (geometry instanceof LineString) {
+         addPart(((LineString) geometry).getCoordinateSequence());
+      } else if (geometry instanceof Point) {
+         addPart(((Point) geometry).getCoordinateSequence());
+      } else {
+         // multi points and multi line strings
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry part = geometry.getGeometryN(i);
+            addPart(part instanceof Point ? ((Point) part).getCoordinateSequence() : ((LineString) part).getCoordinateSequence());
+         }
+         if (geometry instanceof MultiPoint) {
+            endCount = 0;
+         }
+      }
+      int endsOffset = endCount > 1 ? builder.createIntVector(ends, endCount) : 0;
+      int xyOffset = coordinateCount > 0 ? builder.createDoubleVector(xy, coordinateCount * 2) : 0;
+      int zOffset = coordinateCount > 0 && hasZ ? builder.createDoubleVector(z, coordinateCount) : 0;
+      builder.startTable(8);
+      if (endsOffset != 0) {
+         builder.addOffset(0, endsOffset);
+      }
+      if (xyOffset != 0) {
+         builder.addOffset(1, xyOffset);
+      }
+      if (zOffset != 0) {
+         builder.addOffset(2, zOffset);
+      }
+      builder.addByte(6, (byte) type);
+      return builder.endTable();
+   }
+
+   /**
+    * Adds the coordinates of a part and its end.
+    */
+   private void addPart(CoordinateSequence sequence) {
+      int size = sequence.size();
+      if (xy.length < (coordinateCount + size) * 2) {
+         xy = Arrays.copyOf(xy, Math.max(xy.length * 2, (coordinateCount + size) * 2));
+         z = Arrays.copyOf(z, xy.length / 2);
+      }
+      boolean sequenceHasZ = sequence.hasZ();
+      for (int i = 0; i < size; i++) {
+         xy[(coordinateCount + i) * 2] = sequence.getX(i);
+         xy[(coordinateCount + i) * 2 + 1] = sequence.getY(i);
+         z[coordinateCount + i] = sequenceHasZ ? sequence.getZ(i) : Double.NaN;
+      }
+      coordinateCount += size;
+      if (endCount == ends.length) {
+         ends = Arrays.copyOf(ends, endCount * 2);
+      }
+      ends[endCount++] = coordinateCount;
+   }
+
+   /**
+    * Returns the code of the type of a geometry.
+    */
+   private static int geometryTypeOf(Geometry geometry) {
+      if (geometry instanceof Point) {
+         return 1;
+      } else if (geometry instanceof LineString) {
+         return 2;
+      } else if (geometry instanceof Polygon) {
+         return 3;
+      } else if (geometry instanceof MultiPoint) {
+         return 4;
+      } else if (geometry instanceof MultiLineString) {
+         return 5;
+      } else if (geometry instanceof MultiPolygon) {
+         return 6;
+      }
+      return 7;
+   }
+
+   /**
+    * Returns the type of the column of a value.
+    */
+   static ColumnType columnTypeOf(Object value) {
+      if (value instanceof Boolean) {
+         return ColumnType.BOOL;
+      } else if (value instanceof Integer) {
+         return ColumnType.INT;
+      } else if (value instanceof Long) {
+         return ColumnType.LONG;
+      } else if (value instanceof Double || value instanceof BigDecimal || value instanceof BigInteger) {
+         return ColumnType.DOUBLE;
+      } else if (value instanceof Float) {
+         return ColumnType.FLOAT;
+      } else if (value instanceof Short) {
+         return ColumnType.SHORT;
+      } else if (value instanceof Byte) {
+         return ColumnType.BYTE;
+      } else if (value instanceof Number) {
+         return ColumnType.DOUBLE;
+      } else if (value instanceof CharSequence || value instanceof Character || value instanceof Enum || value instanceof UUID) {
+         return ColumnType.STRING;
+      } else if (value instanceof TemporalAccessor || value instanceof Date || value instanceof Calendar) {
+         return ColumnType.DATETIME;
+      } else if (value instanceof byte[]) {
+         return ColumnType.BINARY;
+      }
+      return ColumnType.JSON;
+   }
+
+   private void encode(Column column, ColumnType valueType, Object value) throws IOException {
+      ColumnType type = column.type;
+      if (type != valueType && !(type.isNumeric() && valueType.isNumeric()) && type != ColumnType.JSON) {
+         throw new IOException("Property " + column.name + " of " + value.getClass().getName() + " does not match the column type " + type + ".");
+      }
+      switch (type) {
+         case BOOL:
+            ensureProperties(1);
+            propertyBuffer.put((byte) ((Boolean) value ? 1 : 0));
+            break;
+         case BYTE:
+            ensureProperties(1);
+            propertyBuffer.put((byte) integral(column, valueType, value, Byte.MIN_VALUE, Byte.MAX_VALUE));
+            break;
+         case SHORT:
+            ensureProperties(2);
+            propertyBuffer.putShort((short) integral(column, valueType, value, Short.MIN_VALUE, Short.MAX_VALUE));
+            break;
+         case INT:
+            ensureProperties(4);
+            propertyBuffer.putInt((int) integral(column, valueType, value, Integer.MIN_VALUE, Integer.MAX_VALUE));
+            break;
+         case LONG:
+            ensureProperties(8);
+            propertyBuffer.putLong(integral(column, valueType, value, Long.MIN_VALUE, Long.MAX_VALUE));
+            break;
+         case FLOAT:
+            ensureProperties(4);
+            propertyBuffer.putFloat(((Number) value).floatValue());
+            break;
+         case DOUBLE:
+            ensureProperties(8);
+            propertyBuffer.putDouble(((Number) value).doubleValue());
+            break;
+         case DATETIME:
+            encode(dateTimeOf(value).getBytes(StandardCharsets.UTF_8));
+            break;
+         case BINARY:
+            encode((byte[]) value);
+            break;
+         case JSON:
+            encode(objectMapper.writeValueAsBytes(value));
+            break;
+         default:
+            encode((value instanceof Enum ? ((Enum<?>) value).name() : value.toString()).getBytes(StandardCharsets.UTF_8));
+      }
+   }
+
+   private void encode(byte[] bytes) {
+      ensureProperties(4 + bytes.length);
+      propertyBuffer.putInt(bytes.length);
+      propertyBuffer.put(bytes);
+   }
+
+   private static long integral(Column column, ColumnType valueType, Object value, long min, long max) throws IOException {
+      long integral = ((Number) value).longValue();
+      if (!valueType.isIntegral() || integral < min || integral > max) {
+         throw new IOException("Property " + column.name + " is out of range of the column type " + column.type + ": " + value);
+      }
+      return integral;
+   }
+
+   private static String dateTimeOf(Object value) {
+      if (value instanceof Date) {
+         return ((Date) value).toInstant().toString();
+      } else if (value instanceof Calendar) {
+         return ((Calendar) value).toInstant().toString();
+      }
+      return value.toString();
+   }
+
+   private void ensureProperties(int bytes) {
+      if (propertyBuffer.remaining() < bytes) {
+         ByteBuffer grown = ByteBuffer.allocate(Math.max(propertyBuffer.capacity() * 2, propertyBuffer.position() + bytes))
+            .order(ByteOrder.LITTLE_ENDIAN);
+         propertyBuffer.flip();
+         grown.put(propertyBuffer);
+         propertyBuffer = grown;
+      }
+   }
+
+   /**
+    * Appends the finished feature to the temporary file and records its length and bounds.
+    */
+   private void addFeature(int length) throws IOException {
+      if (count == lengths.length) {
+         lengths = Arrays.copyOf(lengths, count * 2);
+         bounds = Arrays.copyOf(bounds, count * 8);
+      }
+      lengths[count] = length;
+      Envelope envelope = geometry != null ? geometry.getEnvelopeInternal() : null;
+      if (envelope != null && !envelope.isNull()) {
+         bounds[count * 4] = envelope.getMinX();
+         bounds[count * 4 + 1] = envelope.getMinY();
+         bounds[count * 4 + 2] = envelope.getMaxX();
+         bounds[count * 4 + 3] = envelope.getMaxY();
+         extent[0] = Math.min(extent[0], envelope.getMinX());
+         extent[1] = Math.min(extent[1], envelope.getMinY());
+         extent[2] = Math.max(extent[2], envelope.getMaxX());
+         extent[3] = Math.max(extent[3], envelope.getMaxY());
+      } else {
+         bounded = false;
+      }
+      count++;
+      size += length;
+      if (staging.remaining() < length) {
+         flushStaging();
+      }
+      if (staging.remaining() < length) {
+         ByteBuffer buffer = ByteBuffer.allocate(length);
+         builder.writeTo(buffer);
+         buffer.flip();
+         writeFully(buffer);
+      } else {
+         builder.writeTo(staging);
+      }
+   }
+
+   private void flushStaging() throws IOException {
+      staging.flip();
+      writeFully(staging);
+      staging.clear();
+   }
+
+   private void writeFully(ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+         features.write(buffer);
+      }
+   }
+
+   private void copyFeatures(OutputStream out) throws IOException {
+      byte[] buffer = new byte[64 * 1024];
+      for (long position = 0; position < size; position += buffer.length) {
+         int length = (int) Math.min(buffer.length, size - position);
+         copy(position, length, out, buffer);
+      }
+   }
+
+   private void copy(long position, int length, OutputStream out) throws IOException {
+      copy(position, length, out, length <= staging.capacity() ? staging.array() : new byte[length]);
+   }
+
+   private void copy(long position, int length, OutputStream out, byte[] buffer) throws IOException {
+      ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+      while (target.hasRemaining()) {
+         if (features.read(target, position + target.position()) < 0) {
+            throw new IOException("Temporary file of features is truncated.");
+         }
+      }
+      out.write(buffer, 0, length);
+   }
+}
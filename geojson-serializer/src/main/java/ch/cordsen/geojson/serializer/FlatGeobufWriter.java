@@ -0,0 +1,150 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes classes annotated with {@link GeoJson} as <em>FlatGeobuf</em> file, a binary format readable by GDAL and
+ * map clients with spatial filtering and HTTP range requests.
+ * <p>A <em>FeatureCollection</em> or a single <em>Feature</em> is introspected by the same per-class factories as by
+ * the {@link GeoJsonSerializer}. The {@link GeoJsonId ID} and the {@link GeoJsonProperty properties} become the columns
+ * of the header, typed by their values: booleans, integral and floating point numbers, strings, date-times,
+ * <code>byte[]</code> and any other value as JSON serialized by the {@link ObjectMapper}. The geometries are written
+ * without rounding.
+ * <p>The features are encoded into a temporary file first, then the header, the packed Hilbert R-tree and the features
+ * in the order of the tree are written. The index is omitted if its node size is 0 or a feature has no geometry.
+ * <p>A writer is immutable and thread-safe.
+ * <p>Example:
+ * <pre>
+ *    new FlatGeobufWriter(objectMapper).withCrs(4326).write(attractions, Paths.get("attractions.fgb"));
+ * </pre>
+ *
+ * @see <a href="https://flatgeobuf.org/" target="_blank">FlatGeobuf</a>
+ */
+public final class FlatGeobufWriter {
+
+   /**
+    * The default number of children of a node of the index.
+    */
+   public static final int DEFAULT_INDEX_NODE_SIZE = 16;
+
+   private final ObjectMapper objectMapper;
+   private final int indexNodeSize;
+   private final int crs;
+   private final String name;
+
+   /**
+    * Constructor with the {@link #DEFAULT_INDEX_NODE_SIZE default index node size} and without CRS.
+    *
+    * @param objectMapper the mapper of properties encoded as JSON
+    */
+   public FlatGeobufWriter(ObjectMapper objectMapper) {
+      this(objectMapper, DEFAULT_INDEX_NODE_SIZE, 0, null);
+   }
+
+   private FlatGeobufWriter(ObjectMapper objectMapper, int indexNodeSize, int crs, String name) {
+      this.objectMapper = objectMapper;
+      this.indexNodeSize = indexNodeSize;
+      this.crs = crs;
+      this.name = name;
+   }
+
+   /**
+    * The number of children of a node of the spatial index.
+    *
+    * @return the node size, 0 without index
+    */
+   public int getIndexNodeSize() {
+      return indexNodeSize;
+   }
+
+   /**
+    * Returns a writer with a node size of the spatial index.
+    *
+    * @param indexNodeSize the number of children of a node from 2 to 65535, 0 to write no index
+    * @return the modified writer
+    */
+   public FlatGeobufWriter withIndexNodeSize(int indexNodeSize) {
+      if (indexNodeSize != 0 && (indexNodeSize < 2 || indexNodeSize > 0xFFFF)) {
+         throw new IllegalArgumentException("Index node size must be 0 or from 2 to 65535: " + indexNodeSize);
+      }
+      return new FlatGeobufWriter(objectMapper, indexNodeSize, crs, name);
+   }
+
+   /**
+    * The EPSG code of the coordinate reference system.
+    *
+    * @return the code, 0 if unknown
+    */
+   public int getCrs() {
+      return crs;
+   }
+
+   /**
+    * Returns a writer with a coordinate reference system.
+    *
+    * @param epsgCode the EPSG code, 0 if unknown
+    * @return the modified writer
+    */
+   public FlatGeobufWriter withCrs(int epsgCode) {
+      return new FlatGeobufWriter(objectMapper, indexNodeSize, epsgCode, name);
+   }
+
+   /**
+    * The name of the dataset.
+    *
+    * @return the name, or <code>null</code>
+    */
+   @Nullable
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * Returns a writer with a name of the dataset.
+    *
+    * @param name the name, or <code>null</code>
+    * @return the modified writer
+    */
+   public FlatGeobufWriter withName(@Nullable String name) {
+      return new FlatGeobufWriter(objectMapper, indexNodeSize, crs, name);
+   }
+
+   /**
+    * Writes an object to a file.
+    *
+    * @param object an object of a class annotated with {@link GeoJson} of type <em>FeatureCollection</em> or <em>Feature</em>
+    * @param file   the file, created or replaced
+    * @throws IOException              for exceptions from the factory, the temporary file or the output
+    * @throws IllegalArgumentException if the object is not annotated, or it is a <em>GeometryCollection</em>
+    */
+   public void write(Object object, Path file) throws IOException {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+         write(object, out);
+      }
+   }
+
+   /**
+    * Writes an object to a stream.
+    *
+    * @param object an object of a class annotated with {@link GeoJson} of type <em>FeatureCollection</em> or <em>Feature</em>
+    * @param out    the output, not closed
+    * @throws IOException              for exceptions from the factory, the temporary file or the output
+    * @throws IllegalArgumentException if the object is not annotated, or it is a <em>GeometryCollection</em>
+    */
+   public void write(Object object, OutputStream out) throws IOException {
+      try (FlatGeobufDocumentSink sink = new FlatGeobufDocumentSink(objectMapper, this, Files.createTempFile("geojson-", ".fgb"))) {
+         sink.write(object);
+         sink.finish(out);
+      }
+   }
+}
@@ -0,0 +1,166 @@
+package ch.cordsen.geojson.serializer;
+
+import org.locationtech.jts.geom.Geometry;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of simplified geometries, see {@link GeoJsonOptions#withGeneralizationCache(GeneralizationCache)}.
+ * <p>A simplified geometry is cached per feature identity, the class and ID of the feature, and per tolerance bucket.
+ * The tolerance is rounded down to a power of two and the cached geometries are simplified with this bucket tolerance,
+ * thus the zoom levels of tiles or viewports map to one bucket each and repeated requests do not simplify again.
+ * Features without an ID and the elements of a <em>GeometryCollection</em> are simplified with the exact tolerance,
+ * without caching.
+ * <p>A cached geometry is used if the geometry of the feature is the same instance as its source or exactly equal to
+ * it, otherwise it is simplified again. The least recently used geometry is evicted if the cache is full.
+ * <p>The cache is thread-safe. It holds the classes, IDs and geometries of the features strongly, thus it belongs to
+ * the application and should not outlive its class loader.
+ */
+public final class GeneralizationCache {
+
+   /**
+    * The default maximum number of cached geometries.
+    */
+   public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+   private final int maximumSize;
+   private final Map<Key, Simplified> entries;
+
+   /**
+    * Constructor
+    *
+    * @param maximumSize the maximum number of cached geometries
+    * @throws IllegalArgumentException if the maximum size is less than 1
+    */
+   public GeneralizationCache(int maximumSize) {
+      if (maximumSize < 1) {
+         throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+      }
+      this.maximumSize = maximumSize;
+      this.entries = new LinkedHashMap<Key, Simplified>(16, 0.75f, true) {
+         @Override protected boolean removeEldestEntry(Map.Entry<Key, Simplified> eldest) {
+            return size() > GeneralizationCache.this.maximumSize;
+         }
+      };
+   }
+
+   /**
+    * The maximum number of cached geometries.
+    *
+    * @return the maximum size
+    */
+   public int getMaximumSize() {
+      return maximumSize;
+   }
+
+   /**
+    * The number of cached geometries.
+    *
+    * @return the size
+    */
+   public synchronized int size() {
+      return entries.size();
+   }
+
+   /**
+    * Removes all cached geometries.
+    */
+   public synchronized void clear() {
+      entries.clear();
+   }
+
+   /**
+    * Returns the simplified geometry of a feature, simplifying it on a miss.
+    * <p>The geometry is simplified outside of the lock, concurrent misses of the same key may simplify twice.
+    *
+    * @param type           the class of the feature
+    * @param id             the ID of the feature, or <code>null</code> to simplify without caching
+    * @param geometry       the geometry of the feature
+    * @param simplification the algorithm
+    * @param tolerance      the tolerance, rounded down to its bucket if cached
+    * @return the simplified geometry
+    */
+   Geometry simplify(Class<?> type, @Nullable Object id, Geometry geometry, Simplification simplification, double tolerance) {
+      if (id == null) {
+         return simplification.simplify(geometry, tolerance);
+      }
+      Key key = new Key(type, id, simplification, Math.getExponent(tolerance));
+      Simplified entry;
+      synchronized (this) {
+         entry = entries.get(key);
+      }
+      if (entry != null && entry.isSimplificationOf(geometry)) {
+         return entry.simplified;
+      }
+      entry = new Simplified(geometry, simplification.simplify(geometry, bucket(tolerance)));
+      synchronized (this) {
+         entries.put(key, entry);
+      }
+      return entry.simplified;
+   }
+
+   /**
+    * Rounds a tolerance down to its bucket.
+    *
+    * @param tolerance the positive tolerance
+    * @return the greatest power of two not greater than the tolerance
+    */
+   static double bucket(double tolerance) {
+      return Math.scalb(1.0, Math.getExponent(tolerance));
+   }
+
+   /**
+    * Identity of a feature and tolerance bucket.
+    */
+   private static final class Key {
+
+      private final Class<?> type;
+      private final Object id;
+      private final Simplification simplification;
+      private final int bucket;
+
+      Key(Class<?> type, Object id, Simplification simplification, int bucket) {
+         this.type = type;
+         this.id = id;
+         this.simplification = simplification;
+         this.bucket = bucket;
+      }
+
+      @Override public boolean equals(Object o) {
+         if (this == o) {
+            return true;
+         }
+         if (!(o instanceof Key)) {
+            return false;
+         }
+         Key other = (Key) o;
+         return bucket == other.bucket && type == other.type && simplification == other.simplification && id.equals(other.id);
+      }
+
+      @Override public int hashCode() {
+         return Objects.hash(type, id, simplification, bucket);
+      }
+   }
+
+   /**
+    * A simplified geometry with its source.
+    */
+   private static final class Simplified {
+
+      private final Geometry source;
+      private final Geometry simplified;
+
+      Simplified(Geometry source, Geometry simplified) {
+         this.source = source;
+         this.simplified = simplified;
+      }
+
+      boolean isSimplificationOf(Geometry geometry) {
+         // exact equality compares the type, the structure and every coordinate, still cheaper than a simplification
+         return geometry == source || geometry.equalsExact(source);
+      }
+   }
+}
@@ -0,0 +1,470 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.document.DocumentSink;
+import ch.cordsen.geojson.document.Geometries;
+import ch.cordsen.geojson.geometry.GeometryReader;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DocumentSink} writing the <em>GeoJSON Object</em> straight to a {@link JsonGenerator}.
+ * <p>Values like the ID, properties and features are serialized by the {@link SerializerProvider}
+ * of the current serialization, geometries by the shared {@link GeometryWriter} of the precision, WKB without decoding
+ * it. Pre-encoded GeoJSON geometries are written as raw values. One sink is used for one object.
+ * <p>In parallel mode, the features are written by a {@link ParallelFeatureWriter}.
+ * <p>With a bbox, the bounds are accumulated while the coordinates are written. The bbox of a <em>Feature</em> follows
+ * its geometry, the one of a collection follows its elements. The features of a <em>FeatureCollection</em> find its
+ * bounds as attribute {@link #COLLECTION_BOUNDS} of the provider and expand them.
+ * <p>With a {@link GeoJsonOptions#getTolerance() tolerance}, the geometries are simplified before they are written,
+ * see {@link GeneralizationCache}.
+ * <p>With a {@link GeoJsonOptions#getFilter() filter}, the features of a <em>FeatureCollection</em> are tested before they
+ * are written, {@link IndexedFeatures} are queried by the envelope of the filter first.
+ * <p>With a {@link GeoJsonOptions#getClipping() clipping}, the simplified geometries are clipped. Features of a
+ * <em>FeatureCollection</em> outside of the box are skipped like by a filter, a single feature gets a null geometry.
+ * <p>With enabled metrics, the written features, geometries and coordinates are counted by {@link WriteMetrics}.
+ */
+class GeneratorDocumentSink implements DocumentSink {
+
+   /**
+    * Key of the per-call attribute with the {@link Bounds} of the enclosing collection writing a bbox.
+    */
+   static final Object COLLECTION_BOUNDS = new Object();
+
+   private static final SerializableString TYPE = new SerializedString("type");
+   private static final SerializableString ID = new SerializedString("id");
+   private static final SerializableString GEOMETRY = new SerializedString("geometry");
+   private static final SerializableString PROPERTIES = new SerializedString("properties");
+   private static final SerializableString BBOX = new SerializedString("bbox");
+   private static final SerializableString FEATURES = new SerializedString("features");
+   private static final SerializableString GEOMETRIES = new SerializedString("geometries");
+   private static final SerializableString FEATURE = new SerializedString(GeoJsonType.FEATURE.getName());
+   private static final SerializableString FEATURE_COLLECTION = new SerializedString(GeoJsonType.FEATURE_COLLECTION.getName());
+   private static final SerializableString GEOMETRY_COLLECTION = new SerializedString(GeoJsonType.GEOMETRY_COLLECTION.getName());
+
+   private final JsonGenerator gen;
+   private final SerializerProvider provider;
+   private final GeoJsonOptions options;
+   private final Class<?> type;
+   private final GeometryWriter geometryWriter;
+   private final Bounds bounds;
+   private final Bounds collectionBounds;
+   private ParallelFeatureWriter parallelFeatureWriter;
+   private WriteMetrics metrics;
+   private boolean inGeometryCollection;
+   private boolean geometryWritten;
+   private boolean propertiesWritten;
+   private Object id;
+
+   /**
+    * Constructor
+    *
+    * @param gen              the generator from {@link com.fasterxml.jackson.databind.JsonSerializer}
+    * @param provider         the provider from {@link com.fasterxml.jackson.databind.JsonSerializer}
+    * @param options          the options of the serialization
+    * @param type             the class of the object, the identity of its simplified geometry with its ID
+    * @param geometryWriter   the writer of the geometries with the precision of the object
+    * @param bbox             whether the bbox of the object is written
+    * @param collectionBounds the bounds of the enclosing collection to expand, or <code>null</code>
+    */
+   GeneratorDocumentSink(JsonGenerator gen, SerializerProvider provider, GeoJsonOptions options, Class<?> type,
+                         GeometryWriter geometryWriter, boolean bbox, Bounds collectionBounds) {
+      this.gen = gen;
+      this.provider = provider;
+      this.options = options;
+      this.type = type;
+      this.geometryWriter = geometryWriter;
+      this.bounds = bbox ? new Bounds() : null;
+      this.collectionBounds = collectionBounds;
+   }
+
+   /**
+    * Counts the written features, geometries and coordinates from now on.
+    *
+    * @param metrics the counts of the written object
+    */
+   void setMetrics(WriteMetrics metrics) {
+      this.metrics = metrics;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginFeature() throws IOException {
+      gen.writeStartObject();
+      gen.writeFieldName(TYPE);
+      gen.writeString(FEATURE);
+      geometryWritten = false;
+      propertiesWritten = false;
+      id = null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void id(Object id) throws IOException {
+      this.id = id;
+      if (id != null) {
+         gen.writeFieldName(ID);
+         provider.defaultSerializeValue(id, gen);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void geometry(Geometry geometry) throws IOException {
+      if (geometry != null && options.getTolerance() > 0) {
+         geometry = simplify(geometry);
+      }
+      if (geometry != null && options.getClipping() != null) {
+         geometry = options.getClipping().clip(geometry);
+         if (geometry == null && inGeometryCollection) {
+            // nothing remains of the element
+            return;
+         }
+      }
+      if (!inGeometryCollection) {
+         gen.writeFieldName(GEOMETRY);
+         geometryWritten = true;
+      }
+      if (geometry == null) {
+         gen.writeNull();
+      } else if (bounds == null) {
+         geometryWriter.write(geometry, gen);
+      } else {
+         geometryWriter.write(geometry, gen, bounds);
+         if (!inGeometryCollection) {
+            writeBbox();
+         }
+      }
+      if (geometry != null && metrics != null) {
+         metrics.geometry(geometry.getNumPoints());
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p>The coordinates are written straight from the bytes, unless the geometry is simplified or clipped.
+    */
+   @Override public void wkbGeometry(ByteBuffer wkb) throws IOException {
+      if (options.getTolerance() > 0 || options.getClipping() != null) {
+         Geometry geometry;
+         try {
+            geometry = Geometries.fromWkb(wkb);
+         } catch (ParseException e) {
+            throw new JsonMappingException(gen, "Invalid WKB geometry: " + e.getMessage(), e);
+         }
+         geometry(geometry);
+         return;
+      }
+      if (!inGeometryCollection) {
+         gen.writeFieldName(GEOMETRY);
+         geometryWritten = true;
+      }
+      geometryWriter.writeWkb(wkb, gen, bounds);
+      if (bounds != null && !inGeometryCollection) {
+         writeBbox();
+      }
+      if (metrics != null) {
+         // the buffer is not modified by the writer
+         metrics.geometry(Wkb.numPoints(wkb));
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p>The text is written verbatim to JSON. It is parsed if the geometry is simplified or clipped, if a bbox is
+    * written or for binary formats.
+    */
+   @Override public void rawGeometry(String json) throws IOException {
+      if (isParsingRawGeometry()) {
+         Geometry geometry;
+         try {
+            geometry = GeometryReader.parse(json);
+         } catch (JsonProcessingException e) {
+            throw invalidRawGeometry(e);
+         }
+         geometry(geometry);
+         return;
+      }
+      beginRawGeometry();
+      gen.writeRawValue(json);
+      endRawGeometry();
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p>The bytes are written verbatim to JSON, copied straight into the output buffer of a UTF-8 generator, see
+    * {@link RawUtf8}. They are parsed if the geometry is simplified or clipped, if a bbox is written or for binary
+    * formats.
+    */
+   @Override public void rawGeometry(byte[] json) throws IOException {
+      if (isParsingRawGeometry()) {
+         Geometry geometry;
+         try {
+            geometry = GeometryReader.parse(json);
+         } catch (JsonProcessingException e) {
+            throw invalidRawGeometry(e);
+         }
+         geometry(geometry);
+         return;
+      }
+      beginRawGeometry();
+      gen.writeRawValue(new RawUtf8(json));
+      endRawGeometry();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void properties(Object properties) throws IOException {
+      writePropertiesName();
+      provider.defaultSerializeValue(properties, gen);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginProperties() throws IOException {
+      writePropertiesName();
+      gen.writeStartObject();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void property(String name, Object value) throws IOException {
+      gen.writeFieldName(name);
+      provider.defaultSerializeValue(value, gen);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endProperties() throws IOException {
+      gen.writeEndObject();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endFeature() throws IOException {
+      if (!propertiesWritten) {
+         writePropertiesName();
+         gen.writeNull();
+      }
+      gen.writeEndObject();
+      if (metrics != null) {
+         metrics.feature();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginFeatureCollection() throws IOException {
+      gen.writeStartObject();
+      gen.writeFieldName(TYPE);
+      gen.writeString(FEATURE_COLLECTION);
+      gen.writeFieldName(FEATURES);
+      gen.writeStartArray();
+      if (bounds != null) {
+         // the features expand the bounds and write a bbox of their own
+         provider.setAttribute(COLLECTION_BOUNDS, bounds);
+      }
+      // the features of the chunks inherit the precision by the options
+      parallelFeatureWriter = ParallelFeatureWriter.create(gen, provider, options.withPrecision(geometryWriter.getPrecision()), bounds);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Object filterFeatures(Object features) {
+      SpatialFilter filter = options.getFilter();
+      Clipping clipping = options.getClipping();
+      if ((filter != null || clipping != null) && features instanceof IndexedFeatures) {
+         // the candidates of the index are tested like any other feature
+         Envelope envelope = filter != null ? filter.getEnvelope() : clipping.getClipEnvelope();
+         if (filter != null && clipping != null) {
+            envelope = envelope.intersection(clipping.getClipEnvelope());
+         }
+         return ((IndexedFeatures<?>) features).query(envelope);
+      }
+      return features;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void feature(Object feature) throws IOException {
+      if ((options.getFilter() != null || options.getClipping() != null) && !accepts(feature)) {
+         return;
+      }
+      if (parallelFeatureWriter != null) {
+         parallelFeatureWriter.feature(feature);
+      } else {
+         provider.defaultSerializeValue(feature, gen);
+      }
+      if (metrics != null) {
+         metrics.feature();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endFeatureCollection() throws IOException {
+      if (parallelFeatureWriter != null) {
+         parallelFeatureWriter.finish();
+         parallelFeatureWriter = null;
+      }
+      gen.writeEndArray();
+      if (bounds != null) {
+         provider.setAttribute(COLLECTION_BOUNDS, null);
+         writeBbox();
+      }
+      gen.writeEndObject();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginGeometryCollection() throws IOException {
+      gen.writeStartObject();
+      gen.writeFieldName(TYPE);
+      gen.writeString(GEOMETRY_COLLECTION);
+      gen.writeFieldName(GEOMETRIES);
+      gen.writeStartArray();
+      inGeometryCollection = true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endGeometryCollection() throws IOException {
+      inGeometryCollection = false;
+      gen.writeEndArray();
+      if (bounds != null) {
+         writeBbox();
+      }
+      gen.writeEndObject();
+   }
+
+   /**
+    * Simplifies a geometry with the tolerance of the options, cached per feature if the cache of the options is set.
+    *
+    * @param geometry the geometry of the feature or element of the <em>GeometryCollection</em>
+    * @return the simplified geometry
+    */
+   private Geometry simplify(Geometry geometry) {
+      GeneralizationCache cache = options.getGeneralizationCache();
+      if (cache == null) {
+         return options.getSimplification().simplify(geometry, options.getTolerance());
+      }
+      return cache.simplify(type, inGeometryCollection ? null : id, geometry, options.getSimplification(), options.getTolerance());
+   }
+
+   /**
+    * Whether a feature passes the filter and has a geometry intersecting the clipping, if any. Objects which are not
+    * annotated as <em>Feature</em> are not filtered, features without a geometry are not clipped.
+    *
+    * @throws IOException if the geometry cannot be read
+    */
+   private boolean accepts(Object feature) throws IOException {
+      SpatialFilter filter = options.getFilter();
+      Clipping clipping = options.getClipping();
+      if (feature == null) {
+         return filter == null;
+      }
+      if (!FeatureGeometries.isFeature(feature.getClass())) {
+         return true;
+      }
+      Geometry geometry;
+      try {
+         geometry = FeatureGeometries.of(feature);
+      } catch (DocumentFactoryException e) {
+         throw new JsonMappingException(gen, e.getMessage(), e);
+      }
+      if (filter != null && !filter.test(geometry)) {
+         return false;
+      }
+      return clipping == null || geometry == null || clipping.intersects(geometry);
+   }
+
+   /**
+    * Writes the bbox member of non-empty bounds and adds them to the bounds of the enclosing collection.
+    *
+    * @throws IOException for exceptions from the generator
+    */
+   private void writeBbox() throws IOException {
+      if (!bounds.isEmpty()) {
+         gen.writeFieldName(BBOX);
+         geometryWriter.writeBbox(bounds, gen);
+         if (collectionBounds != null) {
+            collectionBounds.expand(bounds);
+         }
+      }
+   }
+
+   /**
+    * Whether pre-encoded GeoJSON has to be parsed, since the geometry is simplified or clipped, a bbox is written or the
+    * output is not textual JSON.
+    */
+   private boolean isParsingRawGeometry() {
+      return options.getTolerance() > 0 || options.getClipping() != null || bounds != null || !(gen instanceof JsonGeneratorImpl);
+   }
+
+   /**
+    * Returns the exception for pre-encoded GeoJSON which could not be parsed.
+    */
+   private JsonMappingException invalidRawGeometry(JsonProcessingException e) {
+      return new JsonMappingException(gen, "Invalid GeoJSON geometry: " + e.getOriginalMessage(), e);
+   }
+
+   /**
+    * Writes the field name of a pre-encoded GeoJSON geometry, none for an element of a <em>GeometryCollection</em>.
+    *
+    * @throws IOException for exceptions from the generator
+    */
+   private void beginRawGeometry() throws IOException {
+      if (!inGeometryCollection) {
+         gen.writeFieldName(GEOMETRY);
+         geometryWritten = true;
+      }
+   }
+
+   /**
+    * Counts a pre-encoded GeoJSON geometry written verbatim.
+    */
+   private void endRawGeometry() {
+      if (metrics != null) {
+         // the text is not parsed to count its coordinates
+         metrics.geometry(0);
+      }
+   }
+
+   /**
+    * Writes the field name of the properties, preceded by a missing geometry.
+    *
+    * @throws IOException for exceptions from the generator
+    */
+   private void writePropertiesName() throws IOException {
+      if (!geometryWritten) {
+         geometry(null);
+      }
+      gen.writeFieldName(PROPERTIES);
+      propertiesWritten = true;
+   }
+}
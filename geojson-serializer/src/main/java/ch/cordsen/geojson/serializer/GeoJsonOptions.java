@@ -0,0 +1,385 @@
+package ch.cordsen.geojson.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Options of the {@link GeoJsonSerializer}, passed as attribute of the serialization.
+ * <p>The options are immutable, every <code>with</code> method returns a modified copy. They are applied per
+ * {@link ObjectWriter} or as default of an {@link ObjectMapper}:
+ * <pre>
+ *    ObjectWriter writer = GeoJsonOptions.DEFAULT.withParallel(true).applyTo(objectMapper.writer());
+ * </pre>
+ * <p><b>Parallel mode:</b> the features of a <em>FeatureCollection</em> are split into chunks of {@link #getChunkSize()}
+ * features. Each chunk is encoded by the {@link #getExecutor() executor} into its own buffer, the buffers are written to
+ * the output in order. The output is the same as in sequential mode. Parallel mode falls back to sequential for
+ * pretty printing and output formats other than textual JSON.
+ * <p><b>Precision:</b> the coordinates are rounded to {@link #getPrecision()} decimal places, unless the class annotated
+ * with {@link ch.cordsen.geojson.annotation.GeoJson} specifies a precision of its own.
+ * <p><b>Bbox:</b> a <em>bbox</em> member is written for all objects if {@link #isBbox()} is set, otherwise for classes
+ * annotated with a bbox only. It is accumulated while the coordinates are written, without a second pass.
+ * <p><b>Generalization:</b> with a {@link #getTolerance() tolerance}, for example derived {@link #withZoom(int) from a
+ * zoom level}, the geometries are simplified before they are written. With a {@link #getGeneralizationCache()
+ * generalization cache}, the simplified geometries of features with an ID are cached.
+ * <p><b>Fragments:</b> with a {@link #getFragmentCache() fragment cache}, unchanged features are serialized once and
+ * spliced into the output of following serializations.
+ * <p><b>Filter:</b> with a {@link #getFilter() filter}, only the features of <em>FeatureCollections</em> intersecting
+ * its envelope or geometry are written, see {@link SpatialFilter} and {@link IndexedFeatures}.
+ * <p><b>Clipping:</b> with a {@link #getClipping() clipping}, the geometries are cut at a bounding box, see {@link Clipping}.
+ */
+public final class GeoJsonOptions {
+
+   /**
+    * The precision of coordinates written as is, without rounding.
+    */
+   public static final int FULL_PRECISION = -1;
+
+   /**
+    * The maximum number of decimal places.
+    */
+   public static final int MAX_PRECISION = 15;
+
+   /**
+    * The maximum zoom level of {@link #withZoom(int)}.
+    */
+   public static final int MAX_ZOOM = 30;
+
+   /**
+    * The default options: sequential serialization, full precision, no bbox, no simplification, no generalization cache,
+    * no fragment cache, no filter, no clipping.
+    */
+   public static final GeoJsonOptions DEFAULT = new GeoJsonOptions(false, 1024, null, FULL_PRECISION, false,
+      0, Simplification.TOPOLOGY_PRESERVING, null, null, null, null);
+
+   private final boolean parallel;
+   private final int chunkSize;
+   private final Executor executor;
+   private final int precision;
+   private final boolean bbox;
+   private final double tolerance;
+   private final Simplification simplification;
+   private final GeneralizationCache generalizationCache;
+   private final FeatureFragmentCache fragmentCache;
+   private final SpatialFilter filter;
+   private final Clipping clipping;
+
+   private GeoJsonOptions(boolean parallel, int chunkSize, Executor executor, int precision, boolean bbox,
+                          double tolerance, Simplification simplification, GeneralizationCache generalizationCache,
+                          FeatureFragmentCache fragmentCache, SpatialFilter filter, Clipping clipping) {
+      this.parallel = parallel;
+      this.chunkSize = chunkSize;
+      this.executor = executor;
+      this.precision = precision;
+      this.bbox = bbox;
+      this.tolerance = tolerance;
+      this.simplification = simplification;
+      this.generalizationCache = generalizationCache;
+      this.fragmentCache = fragmentCache;
+      this.filter = filter;
+      this.clipping = clipping;
+   }
+
+   /**
+    * Returns the options of the current serialization.
+    *
+    * @param provider the provider from {@link com.fasterxml.jackson.databind.JsonSerializer}
+    * @return the options set as attribute, or {@link #DEFAULT}
+    */
+   public static GeoJsonOptions of(SerializerProvider provider) {
+      Object options = provider.getAttribute(GeoJsonOptions.class);
+      return options instanceof GeoJsonOptions ? (GeoJsonOptions) options : DEFAULT;
+   }
+
+   /**
+    * Returns a writer using these options.
+    *
+    * @param writer the writer
+    * @return the writer with these options as attribute
+    */
+   public ObjectWriter applyTo(ObjectWriter writer) {
+      return writer.withAttribute(GeoJsonOptions.class, this);
+   }
+
+   /**
+    * Sets these options as default of all serializations of a mapper.
+    *
+    * @param objectMapper the mapper to modify
+    * @return the mapper
+    */
+   public ObjectMapper applyTo(ObjectMapper objectMapper) {
+      objectMapper.setConfig(objectMapper.getSerializationConfig().withAttribute(GeoJsonOptions.class, this));
+      return objectMapper;
+   }
+
+   /**
+    * Whether the features of a <em>FeatureCollection</em> are serialized in parallel.
+    *
+    * @return <code>true</code> for parallel mode
+    */
+   public boolean isParallel() {
+      return parallel;
+   }
+
+   /**
+    * Returns options with parallel mode enabled or disabled.
+    *
+    * @param parallel <code>true</code> for parallel mode
+    * @return the modified options
+    */
+   public GeoJsonOptions withParallel(boolean parallel) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification,
+         generalizationCache, fragmentCache, filter, clipping);
+   }
+
+   /**
+    * The number of features encoded by one task in parallel mode.
+    *
+    * @return the chunk size, 1024 by default
+    */
+   public int getChunkSize() {
+      return chunkSize;
+   }
+
+   /**
+    * Returns options with a chunk size.
+    *
+    * @param chunkSize the number of features encoded by one task in parallel mode
+    * @return the modified options
+    * @throws IllegalArgumentException if the chunk size is less than 1
+    */
+   public GeoJsonOptions withChunkSize(int chunkSize) {
+      if (chunkSize < 1) {
+         throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+      }
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification,
+         generalizationCache, fragmentCache, filter, clipping);
+   }
+
+   /**
+    * The executor of the tasks in parallel mode.
+    *
+    * @return the executor, the {@link ForkJoinPool#commonPool() common pool} by default
+    */
+   public Executor getExecutor() {
+      return executor != null ? executor : ForkJoinPool.commonPool();
+   }
+
+   /**
+    * Returns options with an executor.
+    *
+    * @param executor the executor of the tasks in parallel mode, <code>null</code> for the common pool
+    * @return the modified options
+    */
+   public GeoJsonOptions withExecutor(Executor executor) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification,
+         generalizationCache, fragmentCache, filter, clipping);
+   }
+
+   /**
+    * The number of decimal places the coordinates are rounded to.
+    *
+    * @return the number of decimal places, or {@link #FULL_PRECISION} by default
+    */
+   public int getPrecision() {
+      return precision;
+   }
+
+   /**
+    * Returns options with a precision.
+    *
+    * @param precision the number of decimal places from 0 to {@link #MAX_PRECISION}, or {@link #FULL_PRECISION}
+    * @return the modified options
+    * @throws IllegalArgumentException if the precision is out of range
+    */
+   public GeoJsonOptions withPrecision(int precision) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, checkPrecision(precision), bbox, tolerance, simplification,
+         generalizationCache, fragmentCache, filter, clipping);
+   }
+
+   /**
+    * Whether a <em>bbox</em> member is written for every <em>GeoJSON Object</em>, see {@link ch.cordsen.geojson.annotation.GeoJson#bbox()}.
+    *
+    * @return <code>true</code> to write the bbox, <code>false</code> by default
+    */
+   public boolean isBbox() {
+      return bbox;
+   }
+
+   /**
+    * Returns options with the bbox enabled or disabled.
+    *
+    * @param bbox <code>true</code> to write the bbox of all objects, <code>false</code> to write it for classes annotated
+    *             with a bbox only
+    * @return the modified options
+    */
+   public GeoJsonOptions withBbox(boolean bbox) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification,
+         generalizationCache, fragmentCache, filter, clipping);
+   }
+
+   /**
+    * The tolerance of the simplification of the geometries at write time, in units of the coordinates.
+    *
+    * @return the tolerance, or 0 by default to write the geometries as they are
+    */
+   public double getTolerance() {
+      return tolerance;
+   }
+
+   /**
+    * Returns options simplifying the geometries with a tolerance.
+    * <p>Without a {@link #getGeneralizationCache() generalization cache}, the geometries are simplified with exactly this
+    * tolerance. With a cache, the tolerance is rounded down to a power of two, the bucket of the cache, and the cached
+    * geometries are simplified with the bucket tolerance: a tolerance of 3 simplifies with 2.
+    *
+    * @param tolerance the tolerance in units of the coordinates, or 0 to write the geometries as they are
+    * @return the modified options
+    * @throws IllegalArgumentException if the tolerance is negative or not finite
+    */
+   public GeoJsonOptions withTolerance(double tolerance) {
+      if (!(tolerance >= 0) || Double.isInfinite(tolerance)) {
+         throw new IllegalArgumentException("Tolerance must be zero or positive: " + tolerance);
+      }
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification,
+         generalizationCache, fragmentCache, filter, clipping);
+   }
+
+   /**
+    * Returns options simplifying the geometries for a zoom level of web map tiles.
+    * <p>The tolerance is the size of one pixel of a tile with 256 pixels at the equator, in degrees, thus it applies to
+    * coordinates in WGS 84.
+    *
+    * @param zoom the zoom level from 0 to {@link #MAX_ZOOM}
+    * @return the modified options
+    * @throws IllegalArgumentException if the zoom level is out of range
+    */
+   public GeoJsonOptions withZoom(int zoom) {
+      if (zoom < 0 || zoom > MAX_ZOOM) {
+         throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_ZOOM + ": " + zoom);
+      }
+      return withTolerance(360.0 / (256L << zoom));
+   }
+
+   /**
+    * The algorithm of the simplification.
+    *
+    * @return the simplification, {@link Simplification#TOPOLOGY_PRESERVING} by default
+    */
+   public Simplification getSimplification() {
+      return simplification;
+   }
+
+   /**
+    * Returns options with an algorithm of the simplification.
+    *
+    * @param simplification the simplification
+    * @return the modified options
+    */
+   public GeoJsonOptions withSimplification(Simplification simplification) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance,
+         Objects.requireNonNull(simplification, "simplification"), generalizationCache, fragmentCache, filter, clipping);
+   }
+
+   /**
+    * The cache of the simplified geometries.
+    *
+    * @return the cache, or <code>null</code> by default to simplify every time
+    */
+   public GeneralizationCache getGeneralizationCache() {
+      return generalizationCache;
+   }
+
+   /**
+    * Returns options with a cache of the simplified geometries.
+    * <p>The cache holds the classes and geometries of the features, thus it should be owned by the application, like a
+    * field of a service, rather than by a static shared across deployments.
+    *
+    * @param generalizationCache the cache, or <code>null</code> to simplify every time
+    * @return the modified options
+    */
+   public GeoJsonOptions withGeneralizationCache(GeneralizationCache generalizationCache) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification,
+         generalizationCache, fragmentCache, filter, clipping);
+   }
+
+   /**
+    * The cache of serialized features.
+    *
+    * @return the cache, or <code>null</code> by default to serialize every feature
+    */
+   public FeatureFragmentCache getFragmentCache() {
+      return fragmentCache;
+   }
+
+   /**
+    * Returns options with a cache of serialized features.
+    *
+    * @param fragmentCache the cache, or <code>null</code> to serialize every feature
+    * @return the modified options
+    */
+   public GeoJsonOptions withFragmentCache(FeatureFragmentCache fragmentCache) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification, generalizationCache,
+         fragmentCache, filter, clipping);
+   }
+
+   /**
+    * The filter of the features of <em>FeatureCollections</em>.
+    *
+    * @return the filter, or <code>null</code> by default to write all features
+    */
+   public SpatialFilter getFilter() {
+      return filter;
+   }
+
+   /**
+    * Returns options writing the features of <em>FeatureCollections</em> passing a filter only.
+    *
+    * @param filter the filter, like {@link SpatialFilter#intersecting(org.locationtech.jts.geom.Envelope)} of a viewport,
+    *               or <code>null</code> to write all features
+    * @return the modified options
+    */
+   public GeoJsonOptions withFilter(SpatialFilter filter) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification, generalizationCache,
+         fragmentCache, filter, clipping);
+   }
+
+   /**
+    * The clipping of the geometries.
+    *
+    * @return the clipping, or <code>null</code> by default to write the geometries in full
+    */
+   public Clipping getClipping() {
+      return clipping;
+   }
+
+   /**
+    * Returns options clipping the geometries to a bounding box.
+    *
+    * @param clipping the clipping, like {@link Clipping#to(org.locationtech.jts.geom.Envelope)} the bbox of a request,
+    *                 or <code>null</code> to write the geometries in full
+    * @return the modified options
+    */
+   public GeoJsonOptions withClipping(Clipping clipping) {
+      return new GeoJsonOptions(parallel, chunkSize, executor, precision, bbox, tolerance, simplification, generalizationCache,
+         fragmentCache, filter, clipping);
+   }
+
+   /**
+    * Checks the range of a precision.
+    *
+    * @param precision the number of decimal places
+    * @return the precision
+    * @throws IllegalArgumentException if the precision is out of range
+    */
+   static int checkPrecision(int precision) {
+      if (precision < FULL_PRECISION || precision > MAX_PRECISION) {
+         throw new IllegalArgumentException("Precision must be between " + FULL_PRECISION + " and " + MAX_PRECISION + ": " + precision);
+      }
+      return precision;
+   }
+}
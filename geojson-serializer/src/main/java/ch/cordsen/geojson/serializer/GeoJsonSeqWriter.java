@@ -0,0 +1,231 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.MetricsRecorder;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes <em>Features</em> as <em>GeoJSON Text Sequence</em> to an {@link OutputStream}.
+ * <p>Each feature is written as a JSON text of its own, thus clients can parse and render the features as they arrive,
+ * and the sequence can be ended at any feature. The features are serialized by the {@link ObjectWriter}, with the same
+ * {@link GeoJsonOptions} and per-class factories as by the {@link GeoJsonSerializer}.
+ * <p>The output is flushed whenever the bytes written since the last flush reach the flush threshold. A threshold
+ * of 0 flushes after every feature.
+ * <p>A writer is not thread-safe.
+ * <p>Example:
+ * <pre>
+ *    try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(objectMapper.writer(), outputStream)) {
+ *       seqWriter.writeAll(repository.streamAll());
+ *    }
+ * </pre>
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc8142" target="_blank">RFC 8142 - GeoJSON Text Sequences</a>
+ */
+public final class GeoJsonSeqWriter implements Closeable, Flushable {
+
+   /**
+    * The default flush threshold of 64 KiB.
+    */
+   public static final int DEFAULT_FLUSH_THRESHOLD = 64 * 1024;
+
+   /**
+    * The delimiter of the JSON texts.
+    */
+   public enum Delimiter {
+
+      /**
+       * Each text is preceded by a record separator (<code>U+001E</code>) and followed by a line feed, as specified by RFC 8142.
+       */
+      RECORD_SEPARATOR,
+
+      /**
+       * Each text is followed by a line feed, also known as <em>newline-delimited JSON</em>.
+       */
+      NEWLINE
+   }
+
+   private static final char RS = '\u001E';
+   private static final char LF = '\n';
+
+   private static final ClassValue<Boolean> isFeature = new ClassValue<Boolean>() {
+      @Override protected Boolean computeValue(Class<?> type) {
+         GeoJson geoJsonAnnotation = type.getAnnotation(GeoJson.class);
+         return geoJsonAnnotation != null && geoJsonAnnotation.type() == GeoJsonType.FEATURE;
+      }
+   };
+
+   private final ObjectWriter writer;
+   private final CountingOutputStream out;
+   private final JsonGenerator gen;
+   private final Delimiter delimiter;
+   private final int flushThreshold;
+   private long flushed;
+
+   /**
+    * Constructor for RFC 8142 sequences and the {@link #DEFAULT_FLUSH_THRESHOLD default flush threshold}.
+    *
+    * @param writer the writer of the features
+    * @param out    the output, closed by {@link #close()}
+    * @throws IOException if the generator cannot be created
+    */
+   public GeoJsonSeqWriter(ObjectWriter writer, OutputStream out) throws IOException {
+      this(writer, out, Delimiter.RECORD_SEPARATOR, DEFAULT_FLUSH_THRESHOLD);
+   }
+
+   /**
+    * Constructor
+    *
+    * @param writer         the writer of the features
+    * @param out            the output, closed by {@link #close()}
+    * @param delimiter      the delimiter of the features
+    * @param flushThreshold the number of bytes after which the output is flushed, 0 to flush after every feature
+    * @throws IOException              if the generator cannot be created
+    * @throws IllegalArgumentException if the flush threshold is negative
+    */
+   public GeoJsonSeqWriter(ObjectWriter writer, OutputStream out, Delimiter delimiter, int flushThreshold) throws IOException {
+      if (flushThreshold < 0) {
+         throw new IllegalArgumentException("Flush threshold must not be negative: " + flushThreshold);
+      }
+      // one line per feature, flushed by threshold only
+      this.writer = writer
+         .without(SerializationFeature.INDENT_OUTPUT)
+         .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+         .with((PrettyPrinter) null);
+      this.out = new CountingOutputStream(out);
+      this.gen = this.writer.createGenerator(this.out, JsonEncoding.UTF8);
+      this.gen.setRootValueSeparator(null);
+      this.gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      this.delimiter = delimiter;
+      this.flushThreshold = flushThreshold;
+   }
+
+   /**
+    * Writes a feature.
+    *
+    * @param feature an object of a class annotated with {@link GeoJson} of type {@link GeoJsonType#FEATURE}
+    * @throws IOException              for exceptions from the serialization or the output
+    * @throws IllegalArgumentException if the object is not a feature
+    */
+   public void write(Object feature) throws IOException {
+      if (feature == null || !isFeature.get(feature.getClass())) {
+         throw new IllegalArgumentException("Object is not annotated with @GeoJson(type = FEATURE): " +
+            (feature != null ? feature.getClass() : null));
+      }
+      MetricsRecorder recorder = GeoJsonMetrics.recorder();
+      long position = recorder.isEnabled() ? out.count + gen.getOutputBuffered() : 0;
+      if (delimiter == Delimiter.RECORD_SEPARATOR) {
+         gen.writeRaw(RS);
+      }
+      writer.writeValue(gen, feature);
+      gen.writeRaw(LF);
+      if (recorder.isEnabled()) {
+         recorder.bytesWritten(feature.getClass(), out.count + gen.getOutputBuffered() - position);
+      }
+      if (out.count + gen.getOutputBuffered() - flushed >= flushThreshold) {
+         flush();
+      }
+   }
+
+   /**
+    * Writes all features of an iterator.
+    *
+    * @param features the features
+    * @return the number of features written
+    * @throws IOException              for exceptions from the serialization or the output
+    * @throws IllegalArgumentException if an object is not a feature
+    */
+   public long writeAll(Iterator<?> features) throws IOException {
+      long count = 0;
+      while (features.hasNext()) {
+         write(features.next());
+         count++;
+      }
+      return count;
+   }
+
+   /**
+    * Writes all features of an iterable.
+    *
+    * @param features the features
+    * @return the number of features written
+    * @throws IOException              for exceptions from the serialization or the output
+    * @throws IllegalArgumentException if an object is not a feature
+    */
+   public long writeAll(Iterable<?> features) throws IOException {
+      return writeAll(features.iterator());
+   }
+
+   /**
+    * Writes all features of a stream and closes it.
+    *
+    * @param features the features
+    * @return the number of features written
+    * @throws IOException              for exceptions from the serialization or the output
+    * @throws IllegalArgumentException if an object is not a feature
+    */
+   public long writeAll(Stream<?> features) throws IOException {
+      try (Stream<?> stream = features) {
+         return writeAll(stream.iterator());
+      }
+   }
+
+   /**
+    * Flushes the features written so far to the output.
+    *
+    * @throws IOException for exceptions from the output
+    */
+   @Override
+   public void flush() throws IOException {
+      gen.flush();
+      flushed = out.count;
+   }
+
+   /**
+    * Flushes and closes the output.
+    *
+    * @throws IOException for exceptions from the output
+    */
+   @Override
+   public void close() throws IOException {
+      try {
+         gen.close();
+      } finally {
+         out.close();
+      }
+   }
+
+   /**
+    * Counts the bytes passed to the output.
+    */
+   private static final class CountingOutputStream extends FilterOutputStream {
+
+      private long count;
+
+      CountingOutputStream(OutputStream out) {
+         super(out);
+      }
+
+      @Override public void write(int b) throws IOException {
+         out.write(b);
+         count++;
+      }
+
+      @Override public void write(byte[] b, int off, int len) throws IOException {
+         out.write(b, off, len);
+         count += len;
+      }
+   }
+}
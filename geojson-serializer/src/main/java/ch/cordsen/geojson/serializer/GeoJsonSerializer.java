@@ -0,0 +1,158 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.document.*;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.MetricsRecorder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+
+/**
+ * A {@link JsonSerializer} implementation for classes annotated by {@link GeoJson}.
+ * <p>The {@link GeoJson#type() type attribute} of the annotation defines the
+ * output type of the <em>GeoJSON Object</em>.
+ * <p>Please refer to {@link GeoJson} for a list of additional annotations per type.
+ * <p>A {@link StreamingDocumentFactory} writes the members directly to the generator, the {@link Document}
+ * of any other {@link DocumentFactory} is written after its creation.
+ * <p>The serialization is configured by {@link GeoJsonOptions}. The coordinates are rounded to the
+ * {@link GeoJson#precision() precision} of the class, of an enclosing collection or of the options.
+ * <p>A <em>bbox</em> is written if the {@link GeoJson#bbox() class}, the {@link GeoJsonOptions#isBbox() options} or an
+ * enclosing collection asks for it.
+ * <p>Features cached by the {@link GeoJsonOptions#getFragmentCache() fragment cache} are spliced into the output.
+ * <p>The written features, geometries and coordinates and the time per object are reported to the installed
+ * {@link MetricsRecorder}, see {@link GeoJsonMetrics}.
+ *
+ * @see GeoJson
+ * @see GeoJsonType
+ * @see <a href="https://tools.ietf.org/html/rfc7946#section-3" target="_blank">RFC 7946 - GeoJSON Object</a>
+ */
+public class GeoJsonSerializer extends StdSerializer<Object> {
+
+   /**
+    * Key of the per-call attribute with the precision of the enclosing collection.
+    */
+   private static final Object INHERITED_PRECISION = new Object();
+
+   private static final ClassValue<Integer> precisionByClass = new ClassValue<Integer>() {
+      @Override protected Integer computeValue(Class<?> type) {
+         GeoJson geoJsonAnnotation = type.getAnnotation(GeoJson.class);
+         return geoJsonAnnotation != null ? GeoJsonOptions.checkPrecision(geoJsonAnnotation.precision()) : GeoJsonOptions.FULL_PRECISION;
+      }
+   };
+
+   private static final ClassValue<Boolean> bboxByClass = new ClassValue<Boolean>() {
+      @Override protected Boolean computeValue(Class<?> type) {
+         GeoJson geoJsonAnnotation = type.getAnnotation(GeoJson.class);
+         return geoJsonAnnotation != null && geoJsonAnnotation.bbox();
+      }
+   };
+
+   /**
+    * {@inheritDoc}
+    */
+   public GeoJsonSerializer() {
+      super(Object.class);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void serialize(Object object, JsonGenerator gen, SerializerProvider provider) throws IOException {
+
+      // get the shared document factory of the object's class
+      DocumentFactory documentFactory = DocumentFactories.of(object.getClass());
+
+      // the precision of the class, inherited from an enclosing collection or of the options
+      GeoJsonOptions options = GeoJsonOptions.of(provider);
+      int precision = precisionByClass.get(object.getClass());
+      Object inheritedPrecision = provider.getAttribute(INHERITED_PRECISION);
+      boolean ownPrecision = precision != GeoJsonOptions.FULL_PRECISION;
+      if (!ownPrecision) {
+         precision = inheritedPrecision instanceof Integer ? (Integer) inheritedPrecision : options.getPrecision();
+      }
+
+      // the bbox of the class, of the options or of an enclosing collection accumulating the bounds of its features
+      Object collectionBounds = provider.getAttribute(GeneratorDocumentSink.COLLECTION_BOUNDS);
+      boolean bbox = collectionBounds != null || options.isBbox() || bboxByClass.get(object.getClass());
+      if (!ownPrecision && collectionBounds == null) {
+         write(object, documentFactory, gen, provider, options, precision, bbox, null);
+         return;
+      }
+      if (ownPrecision) {
+         provider.setAttribute(INHERITED_PRECISION, precision);
+      }
+      // the bounds are not passed on to objects nested in the properties
+      provider.setAttribute(GeneratorDocumentSink.COLLECTION_BOUNDS, null);
+      try {
+         write(object, documentFactory, gen, provider, options, precision, bbox, (Bounds) collectionBounds);
+      } finally {
+         provider.setAttribute(INHERITED_PRECISION, inheritedPrecision);
+         provider.setAttribute(GeneratorDocumentSink.COLLECTION_BOUNDS, collectionBounds);
+      }
+   }
+
+   /**
+    * Writes the object, or splices its fragment if the object is a feature cached by the {@link FeatureFragmentCache}.
+    */
+   private void write(Object object, DocumentFactory documentFactory, JsonGenerator gen, SerializerProvider provider,
+                      GeoJsonOptions options, int precision, boolean bbox, Bounds collectionBounds) throws IOException {
+      FeatureFragmentCache fragmentCache = options.getFragmentCache();
+      Object fragmentKey = fragmentCache != null ? fragmentCache.keyOf(object, gen, provider, options, precision, bbox) : null;
+      if (fragmentKey == null) {
+         write(object, documentFactory, new GeneratorDocumentSink(gen, provider, options, object.getClass(), GeometryWriter.of(precision),
+            bbox, collectionBounds), gen);
+         return;
+      }
+      FeatureFragmentCache.Fragment fragment = fragmentCache.get(fragmentKey);
+      if (fragment == null) {
+         // the feature is written into a fragment of its own, which keeps the bounds for the enclosing collection
+         CharArrayWriter buffer = new CharArrayWriter(512);
+         Bounds bounds = bbox ? new Bounds() : null;
+         try (JsonGenerator fragmentGen = FeatureFragmentCache.createGenerator(gen, buffer)) {
+            write(object, documentFactory, new GeneratorDocumentSink(fragmentGen, provider, options, object.getClass(),
+               GeometryWriter.of(precision), bbox, bounds), fragmentGen);
+         }
+         fragment = new FeatureFragmentCache.Fragment(buffer.toCharArray(), bounds);
+         fragmentCache.put(fragmentKey, fragment);
+      }
+      fragment.writeTo(gen, collectionBounds);
+   }
+
+   /**
+    * Writes the object, measured if the metrics are enabled.
+    */
+   private void write(Object object, DocumentFactory documentFactory, GeneratorDocumentSink sink, JsonGenerator gen) throws IOException {
+      MetricsRecorder recorder = GeoJsonMetrics.recorder();
+      if (!recorder.isEnabled()) {
+         writeDocument(object, documentFactory, sink, gen);
+         return;
+      }
+      WriteMetrics metrics = new WriteMetrics();
+      sink.setMetrics(metrics);
+      long start = System.nanoTime();
+      writeDocument(object, documentFactory, sink, gen);
+      metrics.record(object.getClass(), recorder, System.nanoTime() - start);
+   }
+
+   /**
+    * Writes the document straight to the generator, or a document representation of the annotations.
+    */
+   private void writeDocument(Object object, DocumentFactory documentFactory, DocumentSink sink, JsonGenerator gen) throws IOException {
+      try {
+         if (documentFactory instanceof StreamingDocumentFactory) {
+            ((StreamingDocumentFactory) documentFactory).write(object, sink);
+         } else {
+            sink.document(documentFactory.from(object));
+         }
+      } catch (DocumentFactoryException e) {
+         throw new JsonMappingException(gen, e.getMessage(), e);
+      }
+   }
+}
@@ -0,0 +1,418 @@
+package ch.cordsen.geojson.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import org.locationtech.jts.geom.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Writes JTS {@link Geometry geometries} as <em>GeoJSON Geometry Objects</em>.
+ * <p>The coordinates are read from the {@link CoordinateSequence} of each component in place, without
+ * copying them to {@link Coordinate} objects. The output is the same as the one of the
+ * <code>GeometrySerializer</code> from <em>jackson-datatype-jts</em>: the <em>z</em> ordinate
+ * is written if it is not {@link Double#NaN}, a {@link LinearRing} is written as <em>LineString</em>.
+ * Empty points are written with empty coordinates.
+ * <p>With a precision, the ordinates are rounded to a number of decimal places and written to textual JSON by the
+ * {@link DecimalFormatter} as raw values. Other output formats get the rounded doubles.
+ * <p>For binary formats like CBOR and Smile, detected by {@link JsonGenerator#canWriteBinaryNatively()}, the arrays
+ * are started with their size and each position is written as packed array of doubles by
+ * {@link JsonGenerator#writeArray(double[], int, int)}, so a format can write definite-length arrays without
+ * end markers.
+ * <p>For the <em>bbox</em> member, the coordinates are added to {@link Bounds} while they are written.
+ * <p>Geometries encoded as WKB are written straight from their bytes, see {@link Wkb}.
+ * <p>The writers are stateless and shared, one per precision.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc7946#section-3.1" target="_blank">RFC 7946 - Geometry Object</a>
+ */
+final class GeometryWriter {
+
+   /**
+    * The shared instance writing the coordinates with full precision.
+    */
+   static final GeometryWriter INSTANCE = new GeometryWriter(GeoJsonOptions.FULL_PRECISION);
+
+   private static final GeometryWriter[] byPrecision = new GeometryWriter[GeoJsonOptions.MAX_PRECISION + 1];
+   private static final ThreadLocal<char[]> buffers = ThreadLocal.withInitial(() -> new char[DecimalFormatter.MAX_LENGTH]);
+   private static final ThreadLocal<double[]> positions = ThreadLocal.withInitial(() -> new double[3]);
+
+   private static final SerializableString TYPE = new SerializedString("type");
+   private static final SerializableString COORDINATES = new SerializedString("coordinates");
+   private static final SerializableString GEOMETRIES = new SerializedString("geometries");
+   private static final SerializableString POINT = new SerializedString("Point");
+   private static final SerializableString LINE_STRING = new SerializedString("LineString");
+   private static final SerializableString POLYGON = new SerializedString("Polygon");
+   private static final SerializableString MULTI_POINT = new SerializedString("MultiPoint");
+   private static final SerializableString MULTI_LINE_STRING = new SerializedString("MultiLineString");
+   private static final SerializableString MULTI_POLYGON = new SerializedString("MultiPolygon");
+   private static final SerializableString GEOMETRY_COLLECTION = new SerializedString("GeometryCollection");
+
+   static {
+      for (int i = 0; i < byPrecision.length; i++) {
+         byPrecision[i] = new GeometryWriter(i);
+      }
+   }
+
+   private final int precision;
+
+   private GeometryWriter(int precision) {
+      this.precision = precision;
+   }
+
+   /**
+    * Returns the shared writer for a precision.
+    *
+    * @param precision the number of decimal places, or {@link GeoJsonOptions#FULL_PRECISION}
+    * @return the writer
+    * @throws IllegalArgumentException if the precision is out of range
+    */
+   static GeometryWriter of(int precision) {
+      GeoJsonOptions.checkPrecision(precision);
+      return precision == GeoJsonOptions.FULL_PRECISION ? INSTANCE : byPrecision[precision];
+   }
+
+   /**
+    * The number of decimal places the coordinates are rounded to.
+    *
+    * @return the precision, or {@link GeoJsonOptions#FULL_PRECISION}
+    */
+   int getPrecision() {
+      return precision;
+   }
+
+   /**
+    * Writes a geometry object.
+    *
+    * @param geometry the geometry, not <code>null</code>
+    * @param gen      the generator
+    * @throws IOException for exceptions from the generator, or unsupported types of geometries
+    */
+   void write(Geometry geometry, JsonGenerator gen) throws IOException {
+      write(geometry, gen, null);
+   }
+
+   /**
+    * Writes a geometry object and adds its coordinates to bounds.
+    *
+    * @param geometry the geometry, not <code>null</code>
+    * @param gen      the generator
+    * @param bounds   the bounds to expand, or <code>null</code>
+    * @throws IOException for exceptions from the generator, or unsupported types of geometries
+    */
+   void write(Geometry geometry, JsonGenerator gen, Bounds bounds) throws IOException {
+      char[] buffer = precision != GeoJsonOptions.FULL_PRECISION && gen instanceof JsonGeneratorImpl ? buffers.get() : null;
+      double[] position = gen.canWriteBinaryNatively() ? positions.get() : null;
+      write(geometry, gen, buffer, position, bounds);
+   }
+
+   /**
+    * Writes a geometry object encoded as WKB, straight from the bytes, and adds its coordinates to bounds.
+    * <p>The output is the same as the one of the decoded geometry, see {@link Wkb}.
+    *
+    * @param wkb    the WKB or EWKB from the position to the limit of the buffer, which is not modified
+    * @param gen    the generator
+    * @param bounds the bounds to expand, or <code>null</code>
+    * @throws IOException for exceptions from the generator, or invalid WKB
+    */
+   void writeWkb(ByteBuffer wkb, JsonGenerator gen, Bounds bounds) throws IOException {
+      char[] buffer = precision != GeoJsonOptions.FULL_PRECISION && gen instanceof JsonGeneratorImpl ? buffers.get() : null;
+      double[] position = gen.canWriteBinaryNatively() ? positions.get() : null;
+      try {
+         writeWkb(wkb.duplicate(), gen, buffer, position, bounds);
+      } catch (BufferUnderflowException | IllegalArgumentException e) {
+         throw new JsonMappingException(gen, "Invalid WKB geometry: " + (e.getMessage() != null ? e.getMessage() : "too short"), e);
+      }
+   }
+
+   /**
+    * Writes the array of a <em>bbox</em> member, rounded like the coordinates.
+    *
+    * @param bounds the bounds, not empty
+    * @param gen    the generator
+    * @throws IOException for exceptions from the generator
+    */
+   void writeBbox(Bounds bounds, JsonGenerator gen) throws IOException {
+      char[] buffer = precision != GeoJsonOptions.FULL_PRECISION && gen instanceof JsonGeneratorImpl ? buffers.get() : null;
+      boolean hasZ = bounds.hasZ();
+      gen.writeStartArray(bounds, hasZ ? 6 : 4);
+      writeOrdinate(bounds.getMinX(), gen, buffer);
+      writeOrdinate(bounds.getMinY(), gen, buffer);
+      if (hasZ) {
+         writeOrdinate(bounds.getMinZ(), gen, buffer);
+      }
+      writeOrdinate(bounds.getMaxX(), gen, buffer);
+      writeOrdinate(bounds.getMaxY(), gen, buffer);
+      if (hasZ) {
+         writeOrdinate(bounds.getMaxZ(), gen, buffer);
+      }
+      gen.writeEndArray();
+   }
+
+   /**
+    * Writes a geometry object.
+    *
+    * @param buffer   the buffer of the {@link DecimalFormatter}, <code>null</code> to write doubles
+    * @param position the buffer of a packed position, <code>null</code> to write the ordinates one by one
+    * @param bounds   the bounds to expand, or <code>null</code>
+    */
+   private void write(Geometry geometry, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      if (geometry instanceof Polygon) {
+         writeHeader(POLYGON, gen);
+         writePolygonCoordinates((Polygon) geometry, gen, buffer, position, bounds);
+         gen.writeEndObject();
+      } else if (geometry instanceof Point) {
+         writeHeader(POINT, gen);
+         writePointCoordinates((Point) geometry, gen, buffer, position, bounds);
+         gen.writeEndObject();
+      } else if (geometry instanceof MultiPoint) {
+         writeHeader(MULTI_POINT, gen);
+         startArray(geometry, geometry.getNumGeometries(), gen, position);
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            writePointCoordinates((Point) geometry.getGeometryN(i), gen, buffer, position, bounds);
+         }
+         gen.writeEndArray();
+         gen.writeEndObject();
+      } else if (geometry instanceof MultiPolygon) {
+         writeHeader(MULTI_POLYGON, gen);
+         startArray(geometry, geometry.getNumGeometries(), gen, position);
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            writePolygonCoordinates((Polygon) geometry.getGeometryN(i), gen, buffer, position, bounds);
+         }
+         gen.writeEndArray();
+         gen.writeEndObject();
+      } else if (geometry instanceof LineString) {
+         writeHeader(LINE_STRING, gen);
+         writeCoordinates(((LineString) geometry).getCoordinateSequence(), gen, buffer, position, bounds);
+         gen.writeEndObject();
+      } else if (geometry instanceof MultiLineString) {
+         writeHeader(MULTI_LINE_STRING, gen);
+         startArray(geometry, geometry.getNumGeometries(), gen, position);
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            writeCoordinates(((LineString) geometry.getGeometryN(i)).getCoordinateSequence(), gen, buffer, position, bounds);
+         }
+         gen.writeEndArray();
+         gen.writeEndObject();
+      } else if (geometry instanceof GeometryCollection) {
+         gen.writeStartObject();
+         gen.writeFieldName(TYPE);
+         gen.writeString(GEOMETRY_COLLECTION);
+         gen.writeFieldName(GEOMETRIES);
+         startArray(geometry, geometry.getNumGeometries(), gen, position);
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            write(geometry.getGeometryN(i), gen, buffer, position, bounds);
+         }
+         gen.writeEndArray();
+         gen.writeEndObject();
+      } else {
+         throw new JsonMappingException(gen, "Geometry type " + geometry.getClass().getName() + " cannot be serialized as GeoJSON." +
+            "Supported types are: " + asList(
+            Point.class.getName(),
+            LineString.class.getName(),
+            Polygon.class.getName(),
+            MultiPoint.class.getName(),
+            MultiLineString.class.getName(),
+            MultiPolygon.class.getName(),
+            GeometryCollection.class.getName()));
+      }
+   }
+
+   /**
+    * Writes a geometry object from the WKB at the position of the buffer, like {@link #write(Geometry, JsonGenerator, char[], double[], Bounds)}.
+    */
+   private void writeWkb(ByteBuffer wkb, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      int header = Wkb.readHeader(wkb);
+      int type = Wkb.type(header);
+      if (type == Wkb.GEOMETRY_COLLECTION) {
+         gen.writeStartObject();
+         gen.writeFieldName(TYPE);
+         gen.writeString(GEOMETRY_COLLECTION);
+         gen.writeFieldName(GEOMETRIES);
+         int count = wkb.getInt();
+         startArray(wkb, count, gen, position);
+         for (int i = 0; i < count; i++) {
+            writeWkb(wkb, gen, buffer, position, bounds);
+         }
+         gen.writeEndArray();
+         gen.writeEndObject();
+         return;
+      }
+      switch (type) {
+         case Wkb.POINT:
+            writeHeader(POINT, gen);
+            writeWkbPoint(wkb, header, gen, buffer, position, bounds);
+            break;
+         case Wkb.LINE_STRING:
+            writeHeader(LINE_STRING, gen);
+            writeWkbCoordinates(wkb, header, gen, buffer, position, bounds);
+            break;
+         case Wkb.POLYGON:
+            writeHeader(POLYGON, gen);
+            writeWkbPolygon(wkb, header, gen, buffer, position, bounds);
+            break;
+         default:
+            // the multi geometries, of elements with headers of their own
+            writeHeader(type == Wkb.MULTI_POINT ? MULTI_POINT : type == Wkb.MULTI_LINE_STRING ? MULTI_LINE_STRING : MULTI_POLYGON, gen);
+            int count = wkb.getInt();
+            startArray(wkb, count, gen, position);
+            for (int i = 0; i < count; i++) {
+               // the type of the elements, like POINT of MULTI_POINT
+               int elementHeader = Wkb.readElementHeader(wkb, type - 3);
+               if (type == Wkb.MULTI_POINT) {
+                  writeWkbPoint(wkb, elementHeader, gen, buffer, position, bounds);
+               } else if (type == Wkb.MULTI_LINE_STRING) {
+                  writeWkbCoordinates(wkb, elementHeader, gen, buffer, position, bounds);
+               } else {
+                  writeWkbPolygon(wkb, elementHeader, gen, buffer, position, bounds);
+               }
+            }
+            gen.writeEndArray();
+      }
+      gen.writeEndObject();
+   }
+
+   private void writeWkbPolygon(ByteBuffer wkb, int header, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      int count = wkb.getInt();
+      if (count == 0) {
+         // an empty polygon has an empty exterior ring, like the decoded one
+         startArray(wkb, 1, gen, position);
+         startArray(wkb, 0, gen, position);
+         gen.writeEndArray();
+      } else {
+         startArray(wkb, count, gen, position);
+         for (int i = 0; i < count; i++) {
+            writeWkbCoordinates(wkb, header, gen, buffer, position, bounds);
+         }
+      }
+      gen.writeEndArray();
+   }
+
+   private void writeWkbPoint(ByteBuffer wkb, int header, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      double x = wkb.getDouble();
+      double y = wkb.getDouble();
+      double z = Wkb.hasZ(header) ? wkb.getDouble() : Double.NaN;
+      skipM(wkb, header);
+      if (Double.isNaN(x) && Double.isNaN(y)) {
+         // an empty point
+         startArray(wkb, 0, gen, position);
+         gen.writeEndArray();
+      } else {
+         writeCoordinate(x, y, z, gen, buffer, position, bounds);
+      }
+   }
+
+   private void writeWkbCoordinates(ByteBuffer wkb, int header, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      int count = wkb.getInt();
+      if (count < 0 || (long) count * Wkb.dimension(header) * Double.BYTES > wkb.remaining()) {
+         throw new IllegalArgumentException("Invalid number of positions: " + count);
+      }
+      boolean hasZ = Wkb.hasZ(header);
+      startArray(wkb, count, gen, position);
+      for (int i = 0; i < count; i++) {
+         double x = wkb.getDouble();
+         double y = wkb.getDouble();
+         double z = hasZ ? wkb.getDouble() : Double.NaN;
+         skipM(wkb, header);
+         writeCoordinate(x, y, z, gen, buffer, position, bounds);
+      }
+      gen.writeEndArray();
+   }
+
+   private static void skipM(ByteBuffer wkb, int header) {
+      if (Wkb.dimension(header) > (Wkb.hasZ(header) ? 3 : 2)) {
+         wkb.getDouble();
+      }
+   }
+
+   /**
+    * Writes the start of the object, the type and the field name of the coordinates.
+    */
+   private static void writeHeader(SerializableString type, JsonGenerator gen) throws IOException {
+      gen.writeStartObject();
+      gen.writeFieldName(TYPE);
+      gen.writeString(type);
+      gen.writeFieldName(COORDINATES);
+   }
+
+   private void writePolygonCoordinates(Polygon polygon, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      startArray(polygon, polygon.getNumInteriorRing() + 1, gen, position);
+      writeCoordinates(polygon.getExteriorRing().getCoordinateSequence(), gen, buffer, position, bounds);
+      for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+         writeCoordinates(polygon.getInteriorRingN(i).getCoordinateSequence(), gen, buffer, position, bounds);
+      }
+      gen.writeEndArray();
+   }
+
+   private void writePointCoordinates(Point point, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      CoordinateSequence sequence = point.getCoordinateSequence();
+      if (sequence.size() == 0) {
+         startArray(sequence, 0, gen, position);
+         gen.writeEndArray();
+      } else {
+         writeCoordinate(sequence, 0, gen, buffer, position, bounds);
+      }
+   }
+
+   private void writeCoordinates(CoordinateSequence sequence, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      startArray(sequence, sequence.size(), gen, position);
+      for (int i = 0, size = sequence.size(); i < size; i++) {
+         writeCoordinate(sequence, i, gen, buffer, position, bounds);
+      }
+      gen.writeEndArray();
+   }
+
+   private void writeCoordinate(CoordinateSequence sequence, int index, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      writeCoordinate(sequence.getX(index), sequence.getY(index), sequence.getZ(index), gen, buffer, position, bounds);
+   }
+
+   private void writeCoordinate(double x, double y, double z, JsonGenerator gen, char[] buffer, double[] position, Bounds bounds) throws IOException {
+      if (bounds != null) {
+         bounds.expand(x, y, z);
+      }
+      if (position != null) {
+         position[0] = round(x);
+         position[1] = round(y);
+         position[2] = round(z);
+         gen.writeArray(position, 0, Double.isNaN(z) ? 2 : 3);
+         return;
+      }
+      gen.writeStartArray();
+      writeOrdinate(x, gen, buffer);
+      writeOrdinate(y, gen, buffer);
+      if (!Double.isNaN(z)) {
+         writeOrdinate(z, gen, buffer);
+      }
+      gen.writeEndArray();
+   }
+
+   private void writeOrdinate(double value, JsonGenerator gen, char[] buffer) throws IOException {
+      if (precision == GeoJsonOptions.FULL_PRECISION) {
+         gen.writeNumber(value);
+      } else if (buffer != null && DecimalFormatter.canFormat(value, precision)) {
+         gen.writeRawValue(buffer, 0, DecimalFormatter.format(value, precision, buffer));
+      } else {
+         gen.writeNumber(DecimalFormatter.round(value, precision));
+      }
+   }
+
+   private double round(double value) {
+      return precision == GeoJsonOptions.FULL_PRECISION ? value : DecimalFormatter.round(value, precision);
+   }
+
+   /**
+    * Starts an array, with its size for binary formats.
+    */
+   private static void startArray(Object value, int size, JsonGenerator gen, double[] position) throws IOException {
+      if (position != null) {
+         gen.writeStartArray(value, size);
+      } else {
+         gen.writeStartArray();
+      }
+   }
+}
@@ -0,0 +1,122 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Features with a spatial index, to be reused as value of {@link ch.cordsen.geojson.annotation.GeoJsonFeatures} by
+ * repeated serializations with a {@link SpatialFilter}.
+ * <p>The envelopes of the geometries are indexed once by an {@link STRtree}. With a filter, only the features of
+ * intersecting envelopes are pulled from the index, in their original order, thus a viewport of a large collection is
+ * written in sub-linear time. Without a filter, all features are written like from any other {@link Iterable}.
+ * <p>The features are copied into an unmodifiable list, the index is built eagerly. Instances are immutable and
+ * thread-safe.
+ *
+ * @param <T> the type of the features
+ */
+public final class IndexedFeatures<T> implements Iterable<T> {
+
+   private final List<T> features;
+   private final STRtree index;
+
+   private IndexedFeatures(List<T> features, STRtree index) {
+      this.features = features;
+      this.index = index;
+   }
+
+   /**
+    * Indexes features by the geometries of their annotated members.
+    *
+    * @param features the features, classes annotated as <em>Feature</em>
+    * @param <T>      the type of the features
+    * @return the indexed features
+    * @throws DocumentFactoryException if the geometry of a feature cannot be read
+    * @throws IllegalArgumentException if an element is not a <em>Feature</em>
+    */
+   public static <T> IndexedFeatures<T> of(Collection<? extends T> features) throws DocumentFactoryException {
+      List<T> list = new ArrayList<>(features);
+      STRtree index = new STRtree();
+      for (int i = 0; i < list.size(); i++) {
+         T feature = list.get(i);
+         if (feature == null || !FeatureGeometries.isFeature(feature.getClass())) {
+            throw new IllegalArgumentException("Element " + i + " is not a Feature: " + feature);
+         }
+         insert(index, FeatureGeometries.of(feature), i);
+      }
+      return build(list, index);
+   }
+
+   /**
+    * Indexes features by the geometries of a function.
+    *
+    * @param features         the features
+    * @param geometryFunction the function returning the geometry of a feature, or <code>null</code>
+    * @param <T>              the type of the features
+    * @return the indexed features
+    */
+   public static <T> IndexedFeatures<T> of(Collection<? extends T> features, Function<? super T, ? extends Geometry> geometryFunction) {
+      List<T> list = new ArrayList<>(features);
+      STRtree index = new STRtree();
+      for (int i = 0; i < list.size(); i++) {
+         insert(index, geometryFunction.apply(list.get(i)), i);
+      }
+      return build(list, index);
+   }
+
+   /**
+    * Features without a geometry are not indexed, they never match a filter.
+    */
+   private static void insert(STRtree index, Geometry geometry, int position) {
+      if (geometry != null && !geometry.isEmpty()) {
+         index.insert(geometry.getEnvelopeInternal(), position);
+      }
+   }
+
+   private static <T> IndexedFeatures<T> build(List<T> features, STRtree index) {
+      index.build();
+      return new IndexedFeatures<>(Collections.unmodifiableList(features), index);
+   }
+
+   /**
+    * Returns the number of features.
+    *
+    * @return the size
+    */
+   public int size() {
+      return features.size();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Iterator<T> iterator() {
+      return features.iterator();
+   }
+
+   /**
+    * Returns the features whose envelopes intersect an envelope, in their original order.
+    *
+    * @param envelope the envelope
+    * @return the candidates, may be empty but never <code>null</code>
+    */
+   @SuppressWarnings("unchecked")
+   public List<T> query(Envelope envelope) {
+      List<Integer> positions = index.query(envelope);
+      Collections.sort(positions);
+      List<T> candidates = new ArrayList<>(positions.size());
+      for (int position : positions) {
+         candidates.add(features.get(position));
+      }
+      return candidates;
+   }
+}
@@ -0,0 +1,525 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.document.DocumentSink;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.locationtech.jts.geom.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * A {@link DocumentSink} encoding <em>Features</em> into one layer of a <em>Mapbox Vector Tile</em>.
+ * <p>The geometries, in longitude and latitude, are projected to Web Mercator tile coordinates, features outside the
+ * tile and its buffer are skipped, others are clipped to the buffer and quantized to the extent. Lines and rings
+ * collapsing to less than two or three points are dropped, rings are wound as required by the specification.
+ * <em>GeometryCollections</em> become one feature per dimension.
+ * <p>A non-negative integral ID becomes the ID of the feature, any other ID the property <code>id</code>. The keys and
+ * values of the properties are deduplicated into the tables of the layer, only for features in the tile. Values other
+ * than strings, numbers and booleans are encoded as JSON strings by the {@link ObjectMapper}.
+ * <p>A sink is used for one tile and is not thread-safe.
+ *
+ * @see <a href="https://github.com/mapbox/vector-tile-spec/tree/master/2.1" target="_blank">Vector Tile Specification 2.1</a>
+ */
+final class MvtDocumentSink implements DocumentSink {
+
+   private static final int MOVE_TO = 1;
+   private static final int LINE_TO = 2;
+   private static final int CLOSE_PATH = 7;
+   private static final double MAX_LATITUDE = 85.0511287798066;
+   private static final String ID_PROPERTY = "id";
+
+   private final ObjectMapper objectMapper;
+   private final int extent;
+   private final double tiles;
+   private final int tileX;
+   private final int tileY;
+   private final Envelope bounds;
+   private final Envelope clipEnvelope;
+   private final Geometry clipBox;
+
+   private final ProtobufOutput features = new ProtobufOutput();
+   private final ProtobufOutput feature = new ProtobufOutput();
+   private final Map<String, Integer> keys = new LinkedHashMap<>();
+   private final Map<Object, Integer> values = new LinkedHashMap<>();
+
+   private final List<String> propertyNames = new ArrayList<>();
+   private final List<Object> propertyValues = new ArrayList<>();
+   private Object id;
+   private Geometry geometry;
+   private boolean inFeatureCollection;
+
+   private int[] tags = new int[32];
+   private int tagCount;
+   private int[] commands = new int[256];
+   private int commandCount;
+   private int cursorX;
+   private int cursorY;
+   private int[] xs = new int[128];
+   private int[] ys = new int[128];
+
+   /**
+    * Constructor
+    *
+    * @param objectMapper the mapper of values encoded as JSON
+    * @param extent       the extent of the tile
+    * @param buffer       the buffer around the tile in units of the extent
+    * @param z            the zoom level
+    * @param x            the column of the tile
+    * @param y            the row of the tile
+    */
+   MvtDocumentSink(ObjectMapper objectMapper, int extent, int buffer, int z, int x, int y) {
+      this.objectMapper = objectMapper;
+      this.extent = extent;
+      this.tiles = 1L << z;
+      this.tileX = x;
+      this.tileY = y;
+      double margin = (double) buffer / extent;
+      this.bounds = new Envelope(longitudeOf(x - margin), longitudeOf(x + 1 + margin), latitudeOf(y + 1 + margin), latitudeOf(y - margin));
+      this.clipEnvelope = new Envelope(-buffer, extent + buffer, -buffer, extent + buffer);
+      this.clipBox = new GeometryFactory().toGeometry(clipEnvelope);
+   }
+
+   /**
+    * Pushes an object annotated as <em>Feature</em> or <em>FeatureCollection</em>, or a document.
+    *
+    * @param object the object
+    * @throws IOException              for exceptions from the factory
+    * @throws IllegalArgumentException if the object is not annotated, or it is a <em>GeometryCollection</em>
+    */
+   void write(Object object) throws IOException {
+      try {
+         DocumentFactories.write(object, this);
+      } catch (DocumentFactoryException e) {
+         throw new JsonMappingException(null, e.getMessage(), e);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginFeature() {
+      id = null;
+      geometry = null;
+      propertyNames.clear();
+      propertyValues.clear();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void id(Object id) {
+      this.id = id;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void geometry(Geometry geometry) {
+      this.geometry = geometry;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void properties(Object properties) {
+      if (properties == null) {
+         return;
+      }
+      Map<?, ?> map = properties instanceof Map ? (Map<?, ?>) properties : objectMapper.convertValue(properties, Map.class);
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+         property(String.valueOf(entry.getKey()), entry.getValue());
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginProperties() {
+      // the properties are collected one by one
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void property(String name, Object value) {
+      // vector tiles have no null values
+      if (value != null) {
+         propertyNames.add(name);
+         propertyValues.add(value);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endProperties() {
+      // the properties are collected one by one
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endFeature() throws IOException {
+      if (geometry == null || geometry.isEmpty() || !bounds.intersects(geometry.getEnvelopeInternal())) {
+         return;
+      }
+      int dimensions = dimensionsOf(geometry, 0);
+      Geometry projected = project(geometry);
+      tagCount = -1;
+      for (int dimension = 0; dimension <= 2; dimension++) {
+         if ((dimensions & 1 << dimension) != 0) {
+            commandCount = 0;
+            cursorX = 0;
+            cursorY = 0;
+            encodeGeometry(projected, dimension);
+            if (commandCount > 0) {
+               writeFeature(dimension + 1);
+            }
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginFeatureCollection() {
+      if (inFeatureCollection) {
+         throw new IllegalArgumentException("Vector tiles do not support nested FeatureCollections.");
+      }
+      inFeatureCollection = true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void feature(Object feature) throws IOException {
+      if (feature != null) {
+         write(feature);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endFeatureCollection() {
+      inFeatureCollection = false;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void beginGeometryCollection() {
+      throw new IllegalArgumentException("Vector tiles support Features and FeatureCollections only, not GeometryCollections.");
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void endGeometryCollection() {
+      throw new IllegalStateException("GeometryCollection not begun.");
+   }
+
+   /**
+    * Returns the tile with the layer of the encoded features.
+    *
+    * @param layerName the name of the layer
+    * @return the bytes of the tile
+    */
+   byte[] finish(String layerName) {
+      ProtobufOutput layer = new ProtobufOutput();
+      layer.writeUInt32(15, 2);
+      layer.writeString(1, layerName);
+      layer.append(features);
+      for (String key : keys.keySet()) {
+         layer.writeString(3, key);
+      }
+      ProtobufOutput value = new ProtobufOutput();
+      for (Object tableValue : values.keySet()) {
+         value.reset();
+         if (tableValue instanceof String) {
+            value.writeString(1, (String) tableValue);
+         } else if (tableValue instanceof Float) {
+            value.writeFloat(2, (Float) tableValue);
+         } else if (tableValue instanceof Double) {
+            value.writeDouble(3, (Double) tableValue);
+         } else if (tableValue instanceof Long) {
+            long integral = (Long) tableValue;
+            if (integral >= 0) {
+               value.writeUInt64(5, integral);
+            } else {
+               value.writeSInt64(6, integral);
+            }
+         } else {
+            value.writeBool(7, (Boolean) tableValue);
+         }
+         layer.writeMessage(4, value);
+      }
+      layer.writeUInt32(5, extent);
+      ProtobufOutput tile = new ProtobufOutput();
+      tile.writeMessage(3, layer);
+      return tile.toByteArray();
+   }
+
+   private void writeFeature(int type) throws IOException {
+      if (tagCount < 0) {
+         tagCount = 0;
+         if (id != null && unsignedIdOf(id) < 0) {
+            addTag(ID_PROPERTY, id);
+         }
+         for (int i = 0; i < propertyNames.size(); i++) {
+            addTag(propertyNames.get(i), propertyValues.get(i));
+         }
+      }
+      feature.reset();
+      if (id != null && unsignedIdOf(id) >= 0) {
+         feature.writeUInt64(1, unsignedIdOf(id));
+      }
+      if (tagCount > 0) {
+         feature.writePackedUInt32(2, tags, tagCount);
+      }
+      feature.writeUInt32(3, type);
+      feature.writePackedUInt32(4, commands, commandCount);
+      features.writeMessage(2, feature);
+   }
+
+   private void addTag(String name, Object value) throws IOException {
+      if (tagCount + 2 > tags.length) {
+         tags = Arrays.copyOf(tags, tags.length * 2);
+      }
+      Integer key = keys.computeIfAbsent(name, k -> keys.size());
+      Integer valueIndex = values.computeIfAbsent(tableValueOf(value), k -> values.size());
+      tags[tagCount++] = key;
+      tags[tagCount++] = valueIndex;
+   }
+
+   /**
+    * Returns the value normalized for deduplication: a string, float, double, long or boolean.
+    */
+   private Object tableValueOf(Object value) throws IOException {
+      if (value instanceof String || value instanceof Boolean || value instanceof Float || value instanceof Double) {
+         return value;
+      } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+         return ((Number) value).longValue();
+      } else if (value instanceof Number) {
+         return ((Number) value).doubleValue();
+      } else if (value instanceof CharSequence || value instanceof Character || value instanceof UUID) {
+         return value.toString();
+      } else if (value instanceof Enum) {
+         return ((Enum<?>) value).name();
+      }
+      return objectMapper.writeValueAsString(value);
+   }
+
+   /**
+    * Returns an ID as unsigned long, or -1 if it is not a non-negative integral number.
+    */
+   private static long unsignedIdOf(Object id) {
+      if (id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte) {
+         return Math.max(((Number) id).longValue(), -1);
+      } else if (id instanceof BigInteger && ((BigInteger) id).signum() >= 0 && ((BigInteger) id).bitLength() < 64) {
+         return ((BigInteger) id).longValue();
+      }
+      return -1;
+   }
+
+   /**
+    * Encodes the parts of a dimension, clipped to the buffer.
+    */
+   private void encodeGeometry(Geometry geometry, int dimension) {
+      if (geometry instanceof GeometryCollection) {
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            encodeGeometry(geometry.getGeometryN(i), dimension);
+         }
+      } else if (geometry.getDimension() != dimension || geometry.isEmpty()) {
+         return;
+      } else if (geometry instanceof Point) {
+         encodePoint((Point) geometry);
+      } else if (clipEnvelope.contains(geometry.getEnvelopeInternal())) {
+         encodeClipped(geometry);
+      } else if (clipEnvelope.intersects(geometry.getEnvelopeInternal())) {
+         Geometry clipped;
+         try {
+            clipped = geometry.intersection(clipBox);
+         } catch (TopologyException e) {
+            // an invalid polygon is repaired first
+            clipped = geometry.buffer(0).intersection(clipBox);
+         }
+         encodeClippedParts(clipped, dimension);
+      }
+   }
+
+   private void encodeClippedParts(Geometry geometry, int dimension) {
+      if (geometry instanceof GeometryCollection) {
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            encodeClippedParts(geometry.getGeometryN(i), dimension);
+         }
+      } else if (geometry.getDimension() == dimension && !geometry.isEmpty()) {
+         encodeClipped(geometry);
+      }
+   }
+
+   private void encodeClipped(Geometry geometry) {
+      if (geometry instanceof LineString) {
+         int count = quantize(((LineString) geometry).getCoordinateSequence());
+         if (count >= 2) {
+            command(MOVE_TO, 1);
+            position(xs[0], ys[0]);
+            command(LINE_TO, count - 1);
+            for (int i = 1; i < count; i++) {
+               position(xs[i], ys[i]);
+            }
+         }
+      } else if (geometry instanceof Polygon) {
+         Polygon polygon = (Polygon) geometry;
+         if (encodeRing(polygon.getExteriorRing(), true)) {
+            for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+               encodeRing(polygon.getInteriorRingN(i), false);
+            }
+         }
+      }
+   }
+
+   private void encodePoint(Point point) {
+      int x = (int) Math.round(point.getX());
+      int y = (int) Math.round(point.getY());
+      if (!clipEnvelope.contains(x, y)) {
+         return;
+      }
+      // the points of a feature share one command, counted up per point
+      if (commandCount == 0) {
+         command(MOVE_TO, 0);
+      }
+      commands[0] += 1 << 3;
+      position(x, y);
+   }
+
+   /**
+    * Encodes a ring without its closing point, wound clockwise for exteriors and counter-clockwise for holes
+    * on the screen, which is a positive respectively negative area in tile coordinates.
+    *
+    * @return <code>false</code> if the ring collapsed
+    */
+   private boolean encodeRing(LineString ring, boolean exterior) {
+      int count = quantize(ring.getCoordinateSequence());
+      if (count > 1 && xs[0] == xs[count - 1] && ys[0] == ys[count - 1]) {
+         count--;
+      }
+      if (count < 3) {
+         return false;
+      }
+      long area = 0;
+      for (int i = 0; i < count; i++) {
+         int next = (i + 1) % count;
+         area += (long) xs[i] * ys[next] - (long) xs[next] * ys[i];
+      }
+      if (area == 0) {
+         return false;
+      }
+      boolean reverse = exterior == area < 0;
+      command(MOVE_TO, 1);
+      position(xs[reverse ? count - 1 : 0], ys[reverse ? count - 1 : 0]);
+      command(LINE_TO, count - 1);
+      for (int i = 1; i < count; i++) {
+         int index = reverse ? count - 1 - i : i;
+         position(xs[index], ys[index]);
+      }
+      command(CLOSE_PATH, 1);
+      return true;
+   }
+
+   /**
+    * Rounds the coordinates of a sequence into {@link #xs} and {@link #ys}, without consecutive duplicates.
+    *
+    * @return the number of points
+    */
+   private int quantize(CoordinateSequence sequence) {
+      int size = sequence.size();
+      if (xs.length < size) {
+         xs = new int[Math.max(size, xs.length * 2)];
+         ys = new int[xs.length];
+      }
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+         int x = (int) Math.round(sequence.getX(i));
+         int y = (int) Math.round(sequence.getY(i));
+         if (count == 0 || x != xs[count - 1] || y != ys[count - 1]) {
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+         }
+      }
+      return count;
+   }
+
+   private void command(int command, int count) {
+      ensureCommands(1);
+      commands[commandCount++] = command & 0x7 | count << 3;
+   }
+
+   private void position(int x, int y) {
+      ensureCommands(2);
+      commands[commandCount++] = zigzag(x - cursorX);
+      commands[commandCount++] = zigzag(y - cursorY);
+      cursorX = x;
+      cursorY = y;
+   }
+
+   private void ensureCommands(int count) {
+      if (commandCount + count > commands.length) {
+         commands = Arrays.copyOf(commands, commands.length * 2);
+      }
+   }
+
+   private static int zigzag(int value) {
+      return value << 1 ^ value >> 31;
+   }
+
+   /**
+    * Returns the dimensions of the parts of a geometry as bits.
+    */
+   private static int dimensionsOf(Geometry geometry, int dimensions) {
+      if (geometry instanceof GeometryCollection) {
+         for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            dimensions = dimensionsOf(geometry.getGeometryN(i), dimensions);
+         }
+         return dimensions;
+      }
+      return geometry.isEmpty() ? dimensions : dimensions | 1 << geometry.getDimension();
+   }
+
+   /**
+    * Projects a copy of a geometry from longitude and latitude to the coordinates of the tile.
+    */
+   private Geometry project(Geometry geometry) {
+      Geometry projected = geometry.copy();
+      projected.apply(new CoordinateSequenceFilter() {
+         @Override public void filter(CoordinateSequence sequence, int i) {
+            sequence.setOrdinate(i, CoordinateSequence.X, ((sequence.getX(i) + 180) / 360 * tiles - tileX) * extent);
+            double latitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, sequence.getY(i)));
+            double sin = Math.sin(Math.toRadians(latitude));
+            double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+            sequence.setOrdinate(i, CoordinateSequence.Y, (y * tiles - tileY) * extent);
+         }
+
+         @Override public boolean isDone() {
+            return false;
+         }
+
+         @Override public boolean isGeometryChanged() {
+            return true;
+         }
+      });
+      return projected;
+   }
+
+   private double longitudeOf(double column) {
+      return column / tiles * 360 - 180;
+   }
+
+   private double latitudeOf(double row) {
+      return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * row / tiles))));
+   }
+}
@@ -0,0 +1,200 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.MetricsRecorder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Encodes classes annotated with {@link GeoJson} as <em>Mapbox Vector Tiles</em>, the protobuf format of tiled vector
+ * maps.
+ * <p>A <em>FeatureCollection</em>, a single <em>Feature</em> or the features of an iterator are introspected by the same
+ * per-class factories as by the {@link GeoJsonSerializer} and encoded into one layer of a tile. The geometries are
+ * expected in longitude and latitude (WGS 84) and are projected to Web Mercator, clipped to the tile and a buffer
+ * around it, and quantized to the extent. Features outside the tile are skipped. The {@link GeoJsonId ID} becomes the
+ * ID of the feature if it is a non-negative integer, the property <code>id</code> otherwise. The keys and values of the
+ * {@link GeoJsonProperty properties} are deduplicated into the tables of the layer.
+ * <p>A tile has one layer, tiles of several layers are encoded separately and concatenated.
+ * <p>An encoder is immutable and thread-safe.
+ * <p>Example:
+ * <pre>
+ *    byte[] tile = new MvtEncoder(objectMapper).encode(attractions, "attractions", z, x, y);
+ * </pre>
+ *
+ * @see <a href="https://github.com/mapbox/vector-tile-spec/tree/master/2.1" target="_blank">Vector Tile Specification 2.1</a>
+ */
+public final class MvtEncoder {
+
+   /**
+    * The default extent of a tile.
+    */
+   public static final int DEFAULT_EXTENT = 4096;
+
+   /**
+    * The default buffer around a tile in units of the extent.
+    */
+   public static final int DEFAULT_BUFFER = 64;
+
+   private final ObjectMapper objectMapper;
+   private final int extent;
+   private final int buffer;
+
+   /**
+    * Constructor with the {@link #DEFAULT_EXTENT default extent} and {@link #DEFAULT_BUFFER buffer}.
+    *
+    * @param objectMapper the mapper of property values encoded as JSON
+    */
+   public MvtEncoder(ObjectMapper objectMapper) {
+      this(objectMapper, DEFAULT_EXTENT, DEFAULT_BUFFER);
+   }
+
+   private MvtEncoder(ObjectMapper objectMapper, int extent, int buffer) {
+      this.objectMapper = objectMapper;
+      this.extent = extent;
+      this.buffer = buffer;
+   }
+
+   /**
+    * The number of units across a tile.
+    *
+    * @return the extent
+    */
+   public int getExtent() {
+      return extent;
+   }
+
+   /**
+    * Returns an encoder with an extent.
+    *
+    * @param extent the number of units across a tile
+    * @return the modified encoder
+    */
+   public MvtEncoder withExtent(int extent) {
+      if (extent <= 0) {
+         throw new IllegalArgumentException("Extent must be positive: " + extent);
+      }
+      return new MvtEncoder(objectMapper, extent, buffer);
+   }
+
+   /**
+    * The buffer around a tile to which geometries are clipped.
+    *
+    * @return the buffer in units of the extent
+    */
+   public int getBuffer() {
+      return buffer;
+   }
+
+   /**
+    * Returns an encoder with a buffer around a tile.
+    *
+    * @param buffer the buffer in units of the extent
+    * @return the modified encoder
+    */
+   public MvtEncoder withBuffer(int buffer) {
+      if (buffer < 0) {
+         throw new IllegalArgumentException("Buffer must not be negative: " + buffer);
+      }
+      return new MvtEncoder(objectMapper, extent, buffer);
+   }
+
+   /**
+    * Encodes an object as tile.
+    *
+    * @param object    an object of a class annotated with {@link GeoJson} of type <em>FeatureCollection</em> or <em>Feature</em>
+    * @param layerName the name of the layer
+    * @param z         the zoom level from 0 to 30
+    * @param x         the column of the tile
+    * @param y         the row of the tile
+    * @return the tile
+    * @throws IOException              for exceptions from the factory or the serialization of property values
+    * @throws IllegalArgumentException if the object is not annotated, it is a <em>GeometryCollection</em>, or the tile
+    *                                  coordinates are invalid
+    */
+   public byte[] encode(Object object, String layerName, int z, int x, int y) throws IOException {
+      MvtDocumentSink sink = newSink(z, x, y);
+      sink.write(object);
+      byte[] tile = sink.finish(layerName);
+      MetricsRecorder recorder = GeoJsonMetrics.recorder();
+      if (recorder.isEnabled()) {
+         recorder.bytesWritten(object.getClass(), tile.length);
+      }
+      return tile;
+   }
+
+   /**
+    * Encodes all features of an iterator as tile.
+    *
+    * @param features  the features
+    * @param layerName the name of the layer
+    * @param z         the zoom level from 0 to 30
+    * @param x         the column of the tile
+    * @param y         the row of the tile
+    * @return the tile
+    * @throws IOException              for exceptions from the factory or the serialization of property values
+    * @throws IllegalArgumentException if an object is not annotated, it is a <em>GeometryCollection</em>, or the tile
+    *                                  coordinates are invalid
+    */
+   public byte[] encodeAll(Iterator<?> features, String layerName, int z, int x, int y) throws IOException {
+      MvtDocumentSink sink = newSink(z, x, y);
+      while (features.hasNext()) {
+         Object feature = features.next();
+         if (feature != null) {
+            sink.write(feature);
+         }
+      }
+      return sink.finish(layerName);
+   }
+
+   /**
+    * Encodes all features of an iterable as tile.
+    *
+    * @param features  the features
+    * @param layerName the name of the layer
+    * @param z         the zoom level from 0 to 30
+    * @param x         the column of the tile
+    * @param y         the row of the tile
+    * @return the tile
+    * @throws IOException              for exceptions from the factory or the serialization of property values
+    * @throws IllegalArgumentException if an object is not annotated, it is a <em>GeometryCollection</em>, or the tile
+    *                                  coordinates are invalid
+    */
+   public byte[] encodeAll(Iterable<?> features, String layerName, int z, int x, int y) throws IOException {
+      return encodeAll(features.iterator(), layerName, z, x, y);
+   }
+
+   /**
+    * Encodes all features of a stream as tile and closes the stream.
+    *
+    * @param features  the features
+    * @param layerName the name of the layer
+    * @param z         the zoom level from 0 to 30
+    * @param x         the column of the tile
+    * @param y         the row of the tile
+    * @return the tile
+    * @throws IOException              for exceptions from the factory or the serialization of property values
+    * @throws IllegalArgumentException if an object is not annotated, it is a <em>GeometryCollection</em>, or the tile
+    *                                  coordinates are invalid
+    */
+   public byte[] encodeAll(Stream<?> features, String layerName, int z, int x, int y) throws IOException {
+      try (Stream<?> stream = features) {
+         return encodeAll(stream.iterator(), layerName, z, x, y);
+      }
+   }
+
+   private MvtDocumentSink newSink(int z, int x, int y) {
+      if (z < 0 || z > 30) {
+         throw new IllegalArgumentException("Zoom level must be from 0 to 30: " + z);
+      }
+      if (x < 0 || x >= 1 << z || y < 0 || y >= 1 << z) {
+         throw new IllegalArgumentException("Tile " + x + "/" + y + " is not within zoom level " + z + ".");
+      }
+      return new MvtDocumentSink(objectMapper, extent, buffer, z, x, y);
+   }
+}
@@ -0,0 +1,213 @@
+package ch.cordsen.geojson.serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The static, packed Hilbert R-tree of a <em>FlatGeobuf</em> file.
+ * <p>The items are sorted by the Hilbert value of the center of their bounds. The nodes are stored level by level,
+ * the root first and the leaves last. A leaf holds the bounds of a feature and its byte offset in the features section,
+ * an inner node the union of the bounds of its children and the index of its first child.
+ *
+ * @see <a href="https://github.com/flatgeobuf/flatgeobuf/blob/master/src/cpp/packedrtree.cpp" target="_blank">Reference implementation</a>
+ */
+final class PackedRTree {
+
+   /**
+    * The size of a node: four doubles and an unsigned long.
+    */
+   static final int NODE_SIZE = 40;
+
+   private static final int HILBERT_MAX = (1 << 16) - 1;
+
+   private final double[] bounds;
+   private final long[] offsets;
+
+   /**
+    * Constructor of a tree with its leaves in order.
+    *
+    * @param leafBounds  the bounds of the items as minX, minY, maxX, maxY, sorted by {@link #hilbertSort}
+    * @param leafOffsets the offsets of the items
+    * @param count       the number of items
+    * @param nodeSize    the number of children of a node
+    */
+   PackedRTree(double[] leafBounds, long[] leafOffsets, int count, int nodeSize) {
+      int[][] levels = levelBounds(count, nodeSize);
+      int nodeCount = levels[0][1];
+      this.bounds = new double[nodeCount * 4];
+      this.offsets = new long[nodeCount];
+      int leafStart = levels[0][0];
+      System.arraycopy(leafBounds, 0, bounds, leafStart * 4, count * 4);
+      System.arraycopy(leafOffsets, 0, offsets, leafStart, count);
+      for (int level = 0; level < levels.length - 1; level++) {
+         int position = levels[level][0];
+         int end = levels[level][1];
+         int parent = levels[level + 1][0];
+         while (position < end) {
+            offsets[parent] = position;
+            bounds[parent * 4] = Double.POSITIVE_INFINITY;
+            bounds[parent * 4 + 1] = Double.POSITIVE_INFINITY;
+            bounds[parent * 4 + 2] = Double.NEGATIVE_INFINITY;
+            bounds[parent * 4 + 3] = Double.NEGATIVE_INFINITY;
+            for (int child = 0; child < nodeSize && position < end; child++, position++) {
+               bounds[parent * 4] = Math.min(bounds[parent * 4], bounds[position * 4]);
+               bounds[parent * 4 + 1] = Math.min(bounds[parent * 4 + 1], bounds[position * 4 + 1]);
+               bounds[parent * 4 + 2] = Math.max(bounds[parent * 4 + 2], bounds[position * 4 + 2]);
+               bounds[parent * 4 + 3] = Math.max(bounds[parent * 4 + 3], bounds[position * 4 + 3]);
+            }
+            parent++;
+         }
+      }
+   }
+
+   /**
+    * Returns the number of nodes.
+    *
+    * @return the number of nodes
+    */
+   int nodeCount() {
+      return offsets.length;
+   }
+
+   /**
+    * Writes the nodes in little-endian order.
+    *
+    * @param out the output
+    * @throws IOException from the output
+    */
+   void writeTo(OutputStream out) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(NODE_SIZE * 1024).order(ByteOrder.LITTLE_ENDIAN);
+      for (int node = 0; node < offsets.length; node++) {
+         if (!buffer.hasRemaining()) {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+         }
+         buffer.putDouble(bounds[node * 4]);
+         buffer.putDouble(bounds[node * 4 + 1]);
+         buffer.putDouble(bounds[node * 4 + 2]);
+         buffer.putDouble(bounds[node * 4 + 3]);
+         buffer.putLong(offsets[node]);
+      }
+      out.write(buffer.array(), 0, buffer.position());
+   }
+
+   /**
+    * Returns the ranges of the nodes of each level, the leaves first.
+    *
+    * @param count    the number of items, at least one
+    * @param nodeSize the number of children of a node
+    * @return the start and end of the nodes per level
+    */
+   static int[][] levelBounds(int count, int nodeSize) {
+      List<Integer> levelCounts = new ArrayList<>();
+      int n = count;
+      int nodeCount = n;
+      levelCounts.add(n);
+      do {
+         n = (n + nodeSize - 1) / nodeSize;
+         nodeCount += n;
+         levelCounts.add(n);
+      } while (n != 1);
+      int[][] levels = new int[levelCounts.size()][];
+      n = nodeCount;
+      for (int i = 0; i < levels.length; i++) {
+         levels[i] = new int[]{n - levelCounts.get(i), n};
+         n -= levelCounts.get(i);
+      }
+      return levels;
+   }
+
+   /**
+    * Returns the order of items by the Hilbert value of their centers.
+    *
+    * @param bounds the bounds of the items as minX, minY, maxX, maxY
+    * @param count  the number of items
+    * @param extent the bounds of all items
+    * @return the indices of the items in order
+    */
+   static int[] hilbertSort(double[] bounds, int count, double[] extent) {
+      double width = extent[2] - extent[0];
+      double height = extent[3] - extent[1];
+      long[] keys = new long[count];
+      for (int i = 0; i < count; i++) {
+         int x = width != 0 ? (int) Math.floor(HILBERT_MAX * ((bounds[i * 4] + bounds[i * 4 + 2]) / 2 - extent[0]) / width) : 0;
+         int y = height != 0 ? (int) Math.floor(HILBERT_MAX * ((bounds[i * 4 + 1] + bounds[i * 4 + 3]) / 2 - extent[1]) / height) : 0;
+         // the unsigned Hilbert value in the upper bits, the index in the lower 31 bits as tie breaker
+         keys[i] = (hilbert(x, y) & 0xFFFF_FFFFL) << 31 | i;
+      }
+      Arrays.sort(keys);
+      int[] order = new int[count];
+      for (int i = 0; i < count; i++) {
+         order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+      }
+      return order;
+   }
+
+   /**
+    * Returns the position of a cell on the Hilbert curve of order 16.
+    *
+    * @param x the column of the cell, 0 to 65535
+    * @param y the row of the cell, 0 to 65535
+    * @return the unsigned position
+    * @see <a href="https://github.com/rawrunprotected/hilbert_curves" target="_blank">Hilbert curves</a>
+    */
+   static int hilbert(int x, int y) {
+      int a = x ^ y;
+      int b = 0xFFFF ^ a;
+      int c = 0xFFFF ^ (x | y);
+      int d = x & (y ^ 0xFFFF);
+
+      int aa = a | (b >>> 1);
+      int bb = (a >>> 1) ^ a;
+      int cc = ((c >>> 1) ^ (b & (d >>> 1))) ^ c;
+      int dd = ((a & (c >>> 1)) ^ (d >>> 1)) ^ d;
+
+      a = aa;
+      b = bb;
+      c = cc;
+      d = dd;
+      aa = (a & (a >>> 2)) ^ (b & (b >>> 2));
+      bb = (a & (b >>> 2)) ^ (b & ((a ^ b) >>> 2));
+      cc ^= (a & (c >>> 2)) ^ (b & (d >>> 2));
+      dd ^= (b & (c >>> 2)) ^ ((a ^ b) & (d >>> 2));
+
+      a = aa;
+      b = bb;
+      c = cc;
+      d = dd;
+      aa = (a & (a >>> 4)) ^ (b & (b >>> 4));
+      bb = (a & (b >>> 4)) ^ (b & ((a ^ b) >>> 4));
+      cc ^= (a & (c >>> 4)) ^ (b & (d >>> 4));
+      dd ^= (b & (c >>> 4)) ^ ((a ^ b) & (d >>> 4));
+
+      a = aa;
+      b = bb;
+      c = cc;
+      d = dd;
+      cc ^= (a & (c >>> 8)) ^ (b & (d >>> 8));
+      dd ^= (b & (c >>> 8)) ^ ((a ^ b) & (d >>> 8));
+
+      a = cc ^ (cc >>> 1);
+      b = dd ^ (dd >>> 1);
+
+      int i0 = x ^ y;
+      int i1 = b | (0xFFFF ^ (i0 | a));
+
+      i0 = (i0 | (i0 << 8)) & 0x00FF00FF;
+      i0 = (i0 | (i0 << 4)) & 0x0F0F0F0F;
+      i0 = (i0 | (i0 << 2)) & 0x33333333;
+      i0 = (i0 | (i0 << 1)) & 0x55555555;
+
+      i1 = (i1 | (i1 << 8)) & 0x00FF00FF;
+      i1 = (i1 | (i1 << 4)) & 0x0F0F0F0F;
+      i1 = (i1 | (i1 << 2)) & 0x33333333;
+      i1 = (i1 | (i1 << 1)) & 0x55555555;
+
+      return (i1 << 1) | i0;
+   }
+}
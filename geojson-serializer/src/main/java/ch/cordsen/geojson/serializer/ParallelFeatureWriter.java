@@ -0,0 +1,222 @@
+package ch.cordsen.geojson.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes the features of a <em>FeatureCollection</em> in parallel, see {@link GeoJsonOptions#isParallel()}.
+ * <p>The features are collected into chunks. Each chunk is encoded by a task of the executor with its own
+ * generator and {@link SerializerProvider}, configured like the ones of the current serialization, into a buffer.
+ * The buffers are written to the generator in the order of the chunks and reused. At most two chunks per
+ * available processor are pending, thus streamed features are not held in memory all at once.
+ * <p>A collection smaller than one chunk is written sequentially without any overhead.
+ * <p>With a bbox, each chunk accumulates the bounds of its features, which are added to the bounds of the collection
+ * when the chunk is written.
+ */
+final class ParallelFeatureWriter {
+
+   private static final int MAX_PENDING_CHUNKS = 2 * Runtime.getRuntime().availableProcessors();
+
+   private final JsonGenerator gen;
+   private final SerializerProvider provider;
+   private final ObjectMapper objectMapper;
+   private final SerializationConfig chunkConfig;
+   private final Executor executor;
+   private final int chunkSize;
+   private final Bounds bounds;
+   private final Deque<CompletableFuture<ChunkBuffer>> pending = new ArrayDeque<>();
+   private final Queue<ChunkBuffer> buffers = new ConcurrentLinkedQueue<>();
+   private List<Object> chunk;
+   private boolean chunkWritten;
+
+   private ParallelFeatureWriter(JsonGenerator gen, SerializerProvider provider, ObjectMapper objectMapper, GeoJsonOptions options,
+                                 Bounds bounds) {
+      this.gen = gen;
+      this.provider = provider;
+      this.objectMapper = objectMapper;
+      // nested collections are written sequentially by the tasks
+      this.chunkConfig = provider.getConfig().withAttribute(GeoJsonOptions.class, options.withParallel(false));
+      this.executor = options.getExecutor();
+      this.chunkSize = options.getChunkSize();
+      this.chunk = new ArrayList<>(chunkSize);
+      this.bounds = bounds;
+   }
+
+   /**
+    * Returns a parallel writer if the options and the generator allow it.
+    *
+    * @param gen      the generator from {@link com.fasterxml.jackson.databind.JsonSerializer}
+    * @param provider the provider from {@link com.fasterxml.jackson.databind.JsonSerializer}
+    * @param options  the options of the serialization
+    * @param bounds   the bounds of the collection with a bbox, or <code>null</code>
+    * @return the writer, or <code>null</code> to write the features sequentially
+    */
+   static ParallelFeatureWriter create(JsonGenerator gen, SerializerProvider provider, GeoJsonOptions options, Bounds bounds) {
+      if (!options.isParallel() || !(gen instanceof JsonGeneratorImpl) || gen.getPrettyPrinter() != null) {
+         return null;
+      }
+      ObjectCodec codec = gen.getCodec();
+      if (!(codec instanceof ObjectMapper) || !(((ObjectMapper) codec).getSerializerProvider() instanceof DefaultSerializerProvider)) {
+         return null;
+      }
+      return new ParallelFeatureWriter(gen, provider, (ObjectMapper) codec, options, bounds);
+   }
+
+   /**
+    * Adds a feature, a complete chunk is submitted for encoding.
+    *
+    * @param feature the feature
+    * @throws IOException for exceptions from the generator or the encoding of previous chunks
+    */
+   void feature(Object feature) throws IOException {
+      chunk.add(feature);
+      if (chunk.size() == chunkSize) {
+         submit();
+         while (pending.size() > MAX_PENDING_CHUNKS) {
+            write(pending.removeFirst());
+         }
+      }
+   }
+
+   /**
+    * Writes all remaining features, waiting for the pending chunks.
+    *
+    * @throws IOException for exceptions from the generator or the encoding of the chunks
+    */
+   void finish() throws IOException {
+      if (pending.isEmpty() && !chunkWritten) {
+         for (Object feature : chunk) {
+            provider.defaultSerializeValue(feature, gen);
+         }
+         chunk.clear();
+         return;
+      }
+      if (!chunk.isEmpty()) {
+         submit();
+      }
+      while (!pending.isEmpty()) {
+         write(pending.removeFirst());
+      }
+   }
+
+   private void submit() {
+      List<Object> features = chunk;
+      chunk = new ArrayList<>(chunkSize);
+      pending.addLast(CompletableFuture.supplyAsync(() -> encode(features), executor));
+   }
+
+   private void write(CompletableFuture<ChunkBuffer> future) throws IOException {
+      ChunkBuffer buffer;
+      try {
+         buffer = future.join();
+      } catch (CompletionException e) {
+         for (CompletableFuture<ChunkBuffer> other : pending) {
+            other.cancel(false);
+         }
+         pending.clear();
+         Throwable cause = e.getCause();
+         if (cause instanceof IOException) {
+            throw (IOException) cause;
+         } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         } else if (cause instanceof Error) {
+            throw (Error) cause;
+         }
+         throw e;
+      }
+      if (chunkWritten) {
+         gen.writeRaw(',');
+      }
+      buffer.writeTo(gen);
+      if (bounds != null) {
+         bounds.expand(buffer.bounds);
+      }
+      chunkWritten = true;
+      buffers.add(buffer);
+   }
+
+   /**
+    * Encodes the features of a chunk as elements of an array. Runs in the executor.
+    */
+   private ChunkBuffer encode(List<Object> features) {
+      ChunkBuffer buffer = buffers.poll();
+      if (buffer == null) {
+         buffer = new ChunkBuffer();
+      } else {
+         buffer.reset();
+         buffer.bounds.reset();
+      }
+      DefaultSerializerProvider chunkProvider = ((DefaultSerializerProvider) objectMapper.getSerializerProvider())
+         .createInstance(chunkConfig, objectMapper.getSerializerFactory());
+      if (bounds != null) {
+         chunkProvider.setAttribute(GeneratorDocumentSink.COLLECTION_BOUNDS, buffer.bounds);
+      }
+      try (JsonGenerator chunkGen = objectMapper.getFactory().createGenerator(buffer)) {
+         configure(gen, chunkGen);
+         chunkGen.writeStartArray();
+         for (Object feature : features) {
+            chunkProvider.defaultSerializeValue(feature, chunkGen);
+         }
+         chunkGen.writeEndArray();
+      } catch (IOException e) {
+         throw new CompletionException(e);
+      }
+      return buffer;
+   }
+
+   /**
+    * Applies the settings of the generator, which may be modified by an {@link com.fasterxml.jackson.databind.ObjectWriter},
+    * to the generator of a chunk or of a {@link FeatureFragmentCache fragment}.
+    *
+    * @param gen      the generator of the serialization
+    * @param chunkGen the generator writing into a buffer
+    */
+   static void configure(JsonGenerator gen, JsonGenerator chunkGen) {
+      chunkGen.overrideStdFeatures(gen.getFeatureMask(), ~0);
+      chunkGen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      CharacterEscapes characterEscapes = gen.getCharacterEscapes();
+      if (characterEscapes != null) {
+         chunkGen.setCharacterEscapes(characterEscapes);
+      }
+      if (gen.getHighestEscapedChar() > 0) {
+         chunkGen.setHighestNonEscapedChar(gen.getHighestEscapedChar());
+      }
+   }
+
+   /**
+    * Reusable buffer of an encoded chunk, an array of features, and of the bounds of its features.
+    */
+   private static final class ChunkBuffer extends CharArrayWriter {
+
+      private final Bounds bounds = new Bounds();
+
+      ChunkBuffer() {
+         super(8192);
+      }
+
+      /**
+       * Writes the elements of the encoded array, without the brackets, as raw content.
+       */
+      void writeTo(JsonGenerator gen) throws IOException {
+         gen.writeRaw(buf, 1, count - 2);
+      }
+   }
+}
@@ -0,0 +1,180 @@
+package ch.cordsen.geojson.serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A minimal encoder of <em>Protocol Buffers</em> messages, as needed by the {@link MvtEncoder}.
+ * <p>Nested messages are encoded into an output of their own and written by {@link #writeMessage(int, ProtobufOutput)},
+ * an output is reused by {@link #reset()}. An output is not thread-safe.
+ *
+ * @see <a href="https://developers.google.com/protocol-buffers/docs/encoding" target="_blank">Protocol Buffers encoding</a>
+ */
+final class ProtobufOutput {
+
+   private static final int VARINT = 0;
+   private static final int FIXED64 = 1;
+   private static final int LENGTH_DELIMITED = 2;
+   private static final int FIXED32 = 5;
+
+   private byte[] buf = new byte[256];
+   private int size;
+
+   /**
+    * Discards the content.
+    */
+   void reset() {
+      size = 0;
+   }
+
+   /**
+    * Returns the number of bytes written.
+    *
+    * @return the size of the message
+    */
+   int size() {
+      return size;
+   }
+
+   /**
+    * Returns a copy of the content.
+    *
+    * @return the message
+    */
+   byte[] toByteArray() {
+      return Arrays.copyOf(buf, size);
+   }
+
+   /**
+    * Writes an unsigned 32 bit integer field.
+    */
+   void writeUInt32(int field, int value) {
+      writeTag(field, VARINT);
+      writeVarint(value & 0xFFFF_FFFFL);
+   }
+
+   /**
+    * Writes an unsigned 64 bit integer field.
+    */
+   void writeUInt64(int field, long value) {
+      writeTag(field, VARINT);
+      writeVarint(value);
+   }
+
+   /**
+    * Writes a signed 64 bit integer field with zigzag encoding.
+    */
+   void writeSInt64(int field, long value) {
+      writeTag(field, VARINT);
+      writeVarint((value << 1) ^ (value >> 63));
+   }
+
+   /**
+    * Writes a boolean field.
+    */
+   void writeBool(int field, boolean value) {
+      writeTag(field, VARINT);
+      writeVarint(value ? 1 : 0);
+   }
+
+   /**
+    * Writes a double field.
+    */
+   void writeDouble(int field, double value) {
+      writeTag(field, FIXED64);
+      long bits = Double.doubleToRawLongBits(value);
+      writeFixed32((int) bits);
+      writeFixed32((int) (bits >>> 32));
+   }
+
+   /**
+    * Writes a float field.
+    */
+   void writeFloat(int field, float value) {
+      writeTag(field, FIXED32);
+      writeFixed32(Float.floatToRawIntBits(value));
+   }
+
+   /**
+    * Writes a string field.
+    */
+   void writeString(int field, String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeTag(field, LENGTH_DELIMITED);
+      writeVarint(bytes.length);
+      write(bytes, 0, bytes.length);
+   }
+
+   /**
+    * Writes an embedded message field.
+    */
+   void writeMessage(int field, ProtobufOutput message) {
+      writeTag(field, LENGTH_DELIMITED);
+      writeVarint(message.size);
+      write(message.buf, 0, message.size);
+   }
+
+   /**
+    * Appends the fields of another output.
+    */
+   void append(ProtobufOutput fields) {
+      write(fields.buf, 0, fields.size);
+   }
+
+   /**
+    * Writes a packed repeated field of unsigned 32 bit integers.
+    */
+   void writePackedUInt32(int field, int[] values, int count) {
+      int length = 0;
+      for (int i = 0; i < count; i++) {
+         length += varintSize(values[i] & 0xFFFF_FFFFL);
+      }
+      writeTag(field, LENGTH_DELIMITED);
+      writeVarint(length);
+      for (int i = 0; i < count; i++) {
+         writeVarint(values[i] & 0xFFFF_FFFFL);
+      }
+   }
+
+   private void writeTag(int field, int wireType) {
+      writeVarint(field << 3 | wireType);
+   }
+
+   private void writeVarint(long value) {
+      ensure(10);
+      while ((value & ~0x7FL) != 0) {
+         buf[size++] = (byte) (value & 0x7F | 0x80);
+         value >>>= 7;
+      }
+      buf[size++] = (byte) value;
+   }
+
+   private void writeFixed32(int value) {
+      ensure(4);
+      buf[size++] = (byte) value;
+      buf[size++] = (byte) (value >>> 8);
+      buf[size++] = (byte) (value >>> 16);
+      buf[size++] = (byte) (value >>> 24);
+   }
+
+   private void write(byte[] bytes, int offset, int length) {
+      ensure(length);
+      System.arraycopy(bytes, offset, buf, size, length);
+      size += length;
+   }
+
+   private static int varintSize(long value) {
+      int bytes = 1;
+      while ((value & ~0x7FL) != 0) {
+         value >>>= 7;
+         bytes++;
+      }
+      return bytes;
+   }
+
+   private void ensure(int bytes) {
+      if (size + bytes > buf.length) {
+         buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + bytes));
+      }
+   }
+}
@@ -0,0 +1,140 @@
+package ch.cordsen.geojson.serializer;
+
+import com.fasterxml.jackson.core.SerializableString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * JSON text encoded as UTF-8, written verbatim with {@link com.fasterxml.jackson.core.JsonGenerator#writeRawValue(SerializableString)}.
+ * <p>A generator writing bytes copies the array into its output buffer, or writes it as it is if it does not fit. Only a
+ * generator writing characters decodes the bytes, once. The text is never quoted, the quoting methods are unsupported.
+ */
+final class RawUtf8 implements SerializableString {
+
+   private final byte[] bytes;
+
+   /**
+    * Constructor
+    *
+    * @param bytes the text, the array is not copied and must not be modified
+    */
+   RawUtf8(byte[] bytes) {
+      this.bytes = bytes;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public String getValue() {
+      return new String(bytes, UTF_8);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int charLength() {
+      return getValue().length();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public char[] asQuotedChars() {
+      throw unquoted();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public byte[] asUnquotedUTF8() {
+      return bytes;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public byte[] asQuotedUTF8() {
+      throw unquoted();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int appendQuotedUTF8(byte[] buffer, int offset) {
+      throw unquoted();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int appendQuoted(char[] buffer, int offset) {
+      throw unquoted();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int appendUnquotedUTF8(byte[] buffer, int offset) {
+      if (offset + bytes.length > buffer.length) {
+         return -1;
+      }
+      System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+      return bytes.length;
+   }
+
+   /**
+    * {@inheritDoc}
+    * <p>Returns -1, the generator decodes the {@link #getValue() value}.
+    */
+   @Override public int appendUnquoted(char[] buffer, int offset) {
+      return -1;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int writeQuotedUTF8(OutputStream out) {
+      throw unquoted();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int writeUnquotedUTF8(OutputStream out) throws IOException {
+      out.write(bytes);
+      return bytes.length;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int putQuotedUTF8(ByteBuffer buffer) {
+      throw unquoted();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int putUnquotedUTF8(ByteBuffer buffer) {
+      if (bytes.length > buffer.remaining()) {
+         return -1;
+      }
+      buffer.put(bytes);
+      return bytes.length;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public String toString() {
+      return getValue();
+   }
+
+   private static UnsupportedOperationException unquoted() {
+      return new UnsupportedOperationException("Raw JSON is never quoted");
+   }
+}
@@ -0,0 +1,41 @@
+package ch.cordsen.geojson.serializer;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.locationtech.jts.simplify.VWSimplifier;
+
+/**
+ * The constants of this enumerated type are used to specify the algorithm generalizing the geometries at write time,
+ * see {@link GeoJsonOptions#getTolerance()}.
+ */
+public enum Simplification {
+
+   /**
+    * Douglas-Peucker simplification preserving the topology: polygons stay valid and rings do not cross,
+    * see {@link TopologyPreservingSimplifier}.
+    */
+   TOPOLOGY_PRESERVING {
+      @Override Geometry simplify(Geometry geometry, double tolerance) {
+         return TopologyPreservingSimplifier.simplify(geometry, tolerance);
+      }
+   },
+
+   /**
+    * Visvalingam-Whyatt simplification removing the vertices of the smallest effective area, which keeps the shape
+    * smoother but does not preserve the topology, see {@link VWSimplifier}.
+    */
+   VISVALINGAM_WHYATT {
+      @Override Geometry simplify(Geometry geometry, double tolerance) {
+         return VWSimplifier.simplify(geometry, tolerance);
+      }
+   };
+
+   /**
+    * Simplifies a geometry.
+    *
+    * @param geometry  the geometry
+    * @param tolerance the distance tolerance in units of the coordinates
+    * @return the simplified geometry
+    */
+   abstract Geometry simplify(Geometry geometry, double tolerance);
+}
@@ -0,0 +1,72 @@
+package ch.cordsen.geojson.serializer;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * Filter of the features of a <em>FeatureCollection</em> by their geometry, see {@link GeoJsonOptions#withFilter(SpatialFilter)}.
+ * <p>A feature is written if its geometry intersects the envelope or geometry of the filter, like a viewport. The
+ * envelopes are compared first, a geometry of the filter is {@link PreparedGeometry prepared} once for the exact test
+ * of the remaining features. Features without a geometry or with an empty geometry are never written.
+ * <p>The filter is immutable and thread-safe.
+ *
+ * @see IndexedFeatures
+ */
+public final class SpatialFilter {
+
+   private final Envelope envelope;
+   private final PreparedGeometry geometry;
+
+   private SpatialFilter(Envelope envelope, PreparedGeometry geometry) {
+      this.envelope = envelope;
+      this.geometry = geometry;
+   }
+
+   /**
+    * Returns a filter of the features whose envelope intersects an envelope.
+    *
+    * @param envelope the envelope, like the bbox of a viewport
+    * @return the filter
+    */
+   public static SpatialFilter intersecting(Envelope envelope) {
+      return new SpatialFilter(new Envelope(Objects.requireNonNull(envelope, "envelope")), null);
+   }
+
+   /**
+    * Returns a filter of the features whose geometry intersects a geometry.
+    *
+    * @param geometry the geometry, like the polygon of a region
+    * @return the filter
+    */
+   public static SpatialFilter intersecting(Geometry geometry) {
+      Objects.requireNonNull(geometry, "geometry");
+      return new SpatialFilter(new Envelope(geometry.getEnvelopeInternal()), PreparedGeometryFactory.prepare(geometry));
+   }
+
+   /**
+    * Returns the envelope of the filter, a copy.
+    *
+    * @return the envelope, or the envelope of the geometry
+    */
+   public Envelope getEnvelope() {
+      return new Envelope(envelope);
+   }
+
+   /**
+    * Tests the geometry of a feature.
+    *
+    * @param featureGeometry the geometry of the feature
+    * @return <code>true</code> if the feature is written
+    */
+   boolean test(@Nullable Geometry featureGeometry) {
+      if (featureGeometry == null || featureGeometry.isEmpty() || !envelope.intersects(featureGeometry.getEnvelopeInternal())) {
+         return false;
+      }
+      return geometry == null || geometry.intersects(featureGeometry);
+   }
+}
@@ -0,0 +1,158 @@
+package ch.cordsen.geojson.serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the structure of geometries encoded as <em>Well-known Binary</em> in place, for {@link GeometryWriter} to
+ * write their coordinates without decoding them to JTS geometries.
+ * <p>Each geometry starts with a header of the byte order and the type. The type is read like by the JTS
+ * <code>WKBReader</code>: the codes of OGC WKB, the Z, M and ZM codes of ISO WKB (1001, 2001, 3001 and so on) and the
+ * flags of the EWKB of PostGIS. The SRID of EWKB is skipped, so are M ordinates.
+ */
+final class Wkb {
+
+   static final int POINT = 1;
+   static final int LINE_STRING = 2;
+   static final int POLYGON = 3;
+   static final int MULTI_POINT = 4;
+   static final int MULTI_LINE_STRING = 5;
+   static final int MULTI_POLYGON = 6;
+   static final int GEOMETRY_COLLECTION = 7;
+
+   private static final int EWKB_Z = 0x80000000;
+   private static final int EWKB_M = 0x40000000;
+   private static final int EWKB_SRID = 0x20000000;
+
+   private static final int TYPE_MASK = 0xff;
+   private static final int HAS_Z = 0x100;
+   private static final int HAS_M = 0x200;
+
+   private Wkb() {
+      // static usage only
+   }
+
+   /**
+    * Reads the header of the geometry at the position of the buffer, and sets the byte order of the buffer.
+    *
+    * @param wkb the buffer
+    * @return the header, see {@link #type(int)}, {@link #hasZ(int)} and {@link #dimension(int)}
+    * @throws IllegalArgumentException for an unknown byte order or type
+    * @throws java.nio.BufferUnderflowException if the bytes end
+    */
+   static int readHeader(ByteBuffer wkb) {
+      byte byteOrder = wkb.get();
+      if (byteOrder == 0) {
+         wkb.order(ByteOrder.BIG_ENDIAN);
+      } else if (byteOrder == 1) {
+         wkb.order(ByteOrder.LITTLE_ENDIAN);
+      } else {
+         throw new IllegalArgumentException("Unknown byte order: " + byteOrder);
+      }
+      int typeInt = wkb.getInt();
+      int isoType = typeInt & 0xffff;
+      int type = isoType % 1000;
+      if (type < POINT || type > GEOMETRY_COLLECTION) {
+         throw new IllegalArgumentException("Unknown geometry type: " + typeInt);
+      }
+      boolean hasZ = (typeInt & EWKB_Z) != 0 || isoType / 1000 == 1 || isoType / 1000 == 3;
+      boolean hasM = (typeInt & EWKB_M) != 0 || isoType / 1000 == 2 || isoType / 1000 == 3;
+      if ((typeInt & EWKB_SRID) != 0) {
+         wkb.getInt();
+      }
+      return type | (hasZ ? HAS_Z : 0) | (hasM ? HAS_M : 0);
+   }
+
+   /**
+    * Returns the type of a header.
+    *
+    * @param header the header from {@link #readHeader(ByteBuffer)}
+    * @return the type, like {@link #POINT}
+    */
+   static int type(int header) {
+      return header & TYPE_MASK;
+   }
+
+   /**
+    * Whether the positions of a header have a z ordinate.
+    *
+    * @param header the header from {@link #readHeader(ByteBuffer)}
+    * @return <code>true</code> if the third ordinate is z
+    */
+   static boolean hasZ(int header) {
+      return (header & HAS_Z) != 0;
+   }
+
+   /**
+    * Returns the number of ordinates of the positions of a header.
+    *
+    * @param header the header from {@link #readHeader(ByteBuffer)}
+    * @return 2 to 4
+    */
+   static int dimension(int header) {
+      return 2 + (hasZ(header) ? 1 : 0) + ((header & HAS_M) != 0 ? 1 : 0);
+   }
+
+   /**
+    * Reads the header of an element of a multi geometry.
+    *
+    * @param wkb  the buffer
+    * @param type the expected type of the element
+    * @return the header
+    * @throws IllegalArgumentException if the element is of another type
+    */
+   static int readElementHeader(ByteBuffer wkb, int type) {
+      int header = readHeader(wkb);
+      if (type(header) != type) {
+         throw new IllegalArgumentException("Unexpected geometry type of element: " + type(header) + ", expected: " + type);
+      }
+      return header;
+   }
+
+   /**
+    * Counts the positions of a geometry, like {@link org.locationtech.jts.geom.Geometry#getNumPoints()}.
+    *
+    * @param wkb the WKB from the position to the limit of the buffer, which is not modified
+    * @return the number of positions
+    * @throws IllegalArgumentException for an unknown byte order or type
+    * @throws java.nio.BufferUnderflowException if the bytes end
+    */
+   static long numPoints(ByteBuffer wkb) {
+      return countPoints(wkb.duplicate());
+   }
+
+   private static long countPoints(ByteBuffer wkb) {
+      int header = readHeader(wkb);
+      int positionSize = dimension(header) * Double.BYTES;
+      switch (type(header)) {
+         case POINT:
+            double x = wkb.getDouble();
+            double y = wkb.getDouble();
+            wkb.position(wkb.position() + positionSize - 2 * Double.BYTES);
+            // an empty point is encoded with NaN ordinates
+            return Double.isNaN(x) && Double.isNaN(y) ? 0 : 1;
+         case LINE_STRING:
+            return skipPositions(wkb, positionSize);
+         case POLYGON: {
+            long count = 0;
+            for (int i = 0, rings = wkb.getInt(); i < rings; i++) {
+               count += skipPositions(wkb, positionSize);
+            }
+            return count;
+         }
+         default: {
+            long count = 0;
+            for (int i = 0, elements = wkb.getInt(); i < elements; i++) {
+               count += countPoints(wkb);
+            }
+            return count;
+         }
+      }
+   }
+
+   private static int skipPositions(ByteBuffer wkb, int positionSize) {
+      int count = wkb.getInt();
+      wkb.position(wkb.position() + count * positionSize);
+      return count;
+   }
+}
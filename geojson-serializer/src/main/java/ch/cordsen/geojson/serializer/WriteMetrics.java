@@ -0,0 +1,45 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.metrics.MetricsRecorder;
+
+/**
+ * Counts the features, geometries and coordinates written by a {@link GeneratorDocumentSink}.
+ * <p>The sink counts what it actually writes: features of a <em>FeatureCollection</em> rejected by the filter or the
+ * clipping are not counted, the coordinates of simplified and clipped geometries are counted after the simplification
+ * and the clipping. The counts are reported to a {@link MetricsRecorder} for the class of the written object. The
+ * counts are only used with enabled metrics, one for one object.
+ */
+final class WriteMetrics {
+
+   private long features;
+   private long geometries;
+   private long coordinates;
+
+   /**
+    * Counts a written feature.
+    */
+   void feature() {
+      features++;
+   }
+
+   /**
+    * Counts a written geometry.
+    *
+    * @param numPoints the number of coordinates written
+    */
+   void geometry(long numPoints) {
+      geometries++;
+      coordinates += numPoints;
+   }
+
+   /**
+    * Reports the counts.
+    *
+    * @param type     the class of the written object
+    * @param recorder the recorder
+    * @param nanos    the time to write the object
+    */
+   void record(Class<?> type, MetricsRecorder recorder, long nanos) {
+      recorder.written(type, features, geometries, coordinates, nanos);
+   }
+}
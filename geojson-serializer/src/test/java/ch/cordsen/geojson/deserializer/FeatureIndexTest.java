@@ -0,0 +1,62 @@
+package ch.cordsen.geojson.deserializer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link FeatureIndex}.
+ */
+class FeatureIndexTest {
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void shouldGrow() throws IOException {
+      FeatureIndex index = new FeatureIndex();
+      for (int i = 0; i < 1000; i++) {
+         index.add(i * 10L, i * 10L + 7);
+      }
+      assertThat(index.size()).isEqualTo(1000);
+      assertThat(index.start(999)).isEqualTo(9990);
+      assertThat(index.length(999)).isEqualTo(7);
+   }
+
+   @Test
+   void shouldSaveAndLoad() throws IOException {
+      FeatureIndex index = new FeatureIndex();
+      index.add(3_000_000_000L, 3_000_000_100L);
+      index.add(3_000_000_101L, 3_000_000_200L);
+      Path indexFile = directory.resolve("file.json.idx");
+      index.save(indexFile, 4_000_000_000L, 1234);
+
+      FeatureIndex loaded = FeatureIndex.load(indexFile, 4_000_000_000L, 1234);
+      assertThat(loaded.size()).isEqualTo(2);
+      assertThat(loaded.start(1)).isEqualTo(3_000_000_101L);
+      assertThat(loaded.length(1)).isEqualTo(99);
+   }
+
+   @Test
+   void shouldNotLoadStaleOrMissingIndex() throws IOException {
+      Path indexFile = directory.resolve("file.json.idx");
+      assertThat(FeatureIndex.load(indexFile, 100, 1234)).isNull();
+      new FeatureIndex().save(indexFile, 100, 1234);
+      assertThat(FeatureIndex.load(indexFile, 100, 1234)).isNotNull();
+      assertThat(FeatureIndex.load(indexFile, 101, 1234)).isNull();
+      assertThat(FeatureIndex.load(indexFile, 100, 1235)).isNull();
+      Files.write(indexFile, new byte[]{1, 2});
+      assertThat(FeatureIndex.load(indexFile, 100, 1234)).isNull();
+   }
+
+   @Test
+   void shouldRejectTooLargeFeature() {
+      assertThrows(IOException.class, () -> new FeatureIndex().add(0, 1L << 32));
+   }
+}
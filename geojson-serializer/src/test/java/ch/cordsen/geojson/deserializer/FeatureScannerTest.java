@@ -0,0 +1,65 @@
+package ch.cordsen.geojson.deserializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link FeatureScanner}.
+ */
+class FeatureScannerTest {
+
+   private static final JsonFactory jsonFactory = new JsonFactory();
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void shouldScanFeaturesWithStringsAndEscapes() throws IOException {
+      String feature1 = "{\"type\":\"Feature\",\"properties\":{\"name\":\"}]{[\\\"\\\\\",\"list\":[{},[]]},\"geometry\":null}";
+      String feature2 = "{\"type\":\"Feature\",\"id\":\"\\u00e9\\\\\"}";
+      String json = "{\"type\":\"FeatureCollection\",\"bbox\":[1,2,3,4],\"features\" : [ " + feature1 + " ,\n\t" + feature2 + "],\"name\":\"x\"}";
+      for (int shift = 2; shift < 8; shift++) {
+         assertThat(scan(json, shift)).as("shift %d", shift).containsExactly(feature1, feature2);
+      }
+   }
+
+   @Test
+   void shouldScanEmptyAndMissingFeatures() throws IOException {
+      assertThat(scan("{\"type\":\"FeatureCollection\",\"features\":[]}", 30)).isEmpty();
+      assertThat(scan("{\"type\":\"FeatureCollection\",\"features\":null}", 30)).isEmpty();
+      assertThat(scan("{\"type\":\"FeatureCollection\"}", 30)).isEmpty();
+   }
+
+   @Test
+   void shouldRejectInvalidFeatures() {
+      JsonParseException exception = assertThrows(JsonParseException.class, () -> scan("{\"features\":[{},null]}", 30));
+      assertThat(exception.getOriginalMessage()).isEqualTo("Feature is not an object at byte 16: n");
+      exception = assertThrows(JsonParseException.class, () -> scan("{\"features\":[{\"a\":\"]}", 30));
+      assertThat(exception.getOriginalMessage()).isEqualTo("Features are not terminated at byte 21.");
+      exception = assertThrows(JsonParseException.class, () -> scan("{\"features\":{}}", 30));
+      assertThat(exception.getOriginalMessage()).startsWith("Features are not an array");
+      exception = assertThrows(JsonParseException.class, () -> scan("[]", 30));
+      assertThat(exception.getOriginalMessage()).startsWith("FeatureCollection is not an object");
+   }
+
+   private List<String> scan(String json, int segmentShift) throws IOException {
+      byte[] bytes = json.getBytes(UTF_8);
+      List<String> features = new ArrayList<>();
+      try (MappedFile file = MappedFile.map(Files.write(directory.resolve("file.json"), bytes), segmentShift)) {
+         FeatureScanner.scan(file, jsonFactory, (start, end) -> features.add(new String(bytes, (int) start, (int) (end - start), UTF_8)));
+      }
+      return features;
+   }
+}
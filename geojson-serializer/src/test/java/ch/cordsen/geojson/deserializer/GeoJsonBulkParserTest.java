@@ -0,0 +1,129 @@
+package ch.cordsen.geojson.deserializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.document.FeatureDocument;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Point;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link GeoJsonBulkParser}.
+ */
+class GeoJsonBulkParserTest {
+
+   private static ObjectMapper objectMapper;
+   private static ExecutorService executor;
+
+   @TempDir
+   Path directory;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+      executor = Executors.newFixedThreadPool(4);
+   }
+
+   @AfterAll
+   public static void tearDown() {
+      executor.shutdown();
+   }
+
+   @Test
+   void shouldParseInOrder() throws IOException {
+      GeoJsonBulkParser parser = new GeoJsonBulkParser(objectMapper).withBatchSize(7).withExecutor(executor);
+      List<Attraction> attractions = parser.parse(write(1000, -1), Attraction.class);
+      assertThat(attractions).hasSize(1000);
+      for (int i = 0; i < attractions.size(); i++) {
+         assertThat(attractions.get(i).id).isEqualTo(new UUID(0, i));
+         assertThat(attractions.get(i).name).isEqualTo("Name \"" + i + "\" [}");
+         assertThat(attractions.get(i).location.getX()).isEqualTo(i + 0.25);
+      }
+   }
+
+   @Test
+   void shouldDeliverDocumentsToConsumer() throws IOException {
+      AtomicInteger tasks = new AtomicInteger();
+      GeoJsonBulkParser parser = new GeoJsonBulkParser(objectMapper).withBatchSize(10)
+         .withExecutor(command -> {
+            tasks.incrementAndGet();
+            executor.execute(command);
+         });
+      List<FeatureDocument> features = new ArrayList<>();
+      long count = parser.forEach(write(95, -1), FeatureDocument.class, features::add);
+      assertThat(count).isEqualTo(95);
+      assertThat(tasks).hasValue(10);
+      assertThat(features).extracting(FeatureDocument::getId).startsWith(new UUID(0, 0).toString(), new UUID(0, 1).toString());
+      assertThat(features.get(94).getProperties()).isEqualTo(Collections.singletonMap("name", "Name \"94\" [}"));
+      assertThat(features.get(94).getGeometry().getCoordinate().getY()).isEqualTo(94.5);
+   }
+
+   @Test
+   void shouldParseEmptyCollections() throws IOException {
+      GeoJsonBulkParser parser = new GeoJsonBulkParser(objectMapper);
+      assertThat(parser.parse(write(0, -1), FeatureDocument.class)).isEmpty();
+      Path file = Files.write(directory.resolve("null.json"), "{\"type\":\"FeatureCollection\",\"features\":null}".getBytes(UTF_8));
+      assertThat(parser.parse(file, FeatureDocument.class)).isEmpty();
+   }
+
+   @Test
+   void shouldReportInvalidFeature() throws IOException {
+      GeoJsonBulkParser parser = new GeoJsonBulkParser(objectMapper).withBatchSize(3).withExecutor(executor);
+      Path file = write(50, 31);
+      assertThrows(JsonProcessingException.class, () -> parser.parse(file, Attraction.class));
+      assertThrows(JsonProcessingException.class, () -> parser.parse(file, FeatureDocument.class));
+   }
+
+   @Test
+   void shouldRejectInvalidBatchSize() {
+      GeoJsonBulkParser parser = new GeoJsonBulkParser(objectMapper);
+      assertThrows(IllegalArgumentException.class, () -> parser.withBatchSize(0));
+   }
+
+   /**
+    * Writes a collection with escaped quotes and brackets in the names, a feature may have an invalid geometry.
+    */
+   private Path write(int count, int invalid) throws IOException {
+      StringBuilder json = new StringBuilder("{\"type\":\"FeatureCollection\",\"features\":[");
+      for (int i = 0; i < count; i++) {
+         json.append(i > 0 ? ",\n" : "\n").append("{\"type\":\"Feature\",\"id\":\"").append(new UUID(0, i))
+            .append("\",\"geometry\":{\"type\":\"").append(i == invalid ? "Circle" : "Point").append("\",\"coordinates\":[")
+            .append(i).append(".25,").append(i).append(".5]}")
+            .append(",\"properties\":{\"name\":\"Name \\\"").append(i).append("\\\" [}\"}}");
+      }
+      json.append("]}");
+      return Files.write(directory.resolve("attractions.json"), json.toString().getBytes(UTF_8));
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class Attraction {
+
+      @GeoJsonId private UUID id;
+      @GeoJsonProperty private String name;
+      @GeoJsonGeometry private Point location;
+   }
+}
@@ -0,0 +1,318 @@
+package ch.cordsen.geojson.deserializer;
+
+import ch.cordsen.geojson.annotation.*;
+import ch.cordsen.geojson.serializer.GeoJsonSerializer;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import ch.cordsen.geojson.testsupport.examples.feature.AttractionByField;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link GeoJsonDeserializer}.
+ */
+class GeoJsonDeserializerTest {
+
+   private static final UUID uuid = UUID.fromString("f551106e-3180-4aaa-957c-3f8457d3f942");
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldDeserializeFeature() throws IOException {
+      Attraction attraction = objectMapper.readValue(getClass().getResource("/examples/feature/AttractionByField.json"), Attraction.class);
+      assertThat(attraction.id).isEqualTo(uuid);
+      assertThat(attraction.name).isEqualTo("Name");
+      assertThat(attraction.description).isEqualTo("Lorem ipsum");
+      assertThat(attraction.location.equalsExact(TestUtils.point(23, 42))).isTrue();
+   }
+
+   @Test
+   void shouldDeserializeMembersInAnyOrderAndSkipUnknownMembers() throws IOException {
+      Attraction attraction = objectMapper.readValue("{\"bbox\":[1,2,3,4],\"properties\":{\"rating\":{\"stars\":[1,2]},\"name\":\"Name\"}," +
+         "\"geometry\":{\"coordinates\":[1.5,2.5],\"type\":\"Point\"},\"id\":\"" + uuid + "\",\"type\":\"Feature\"}", Attraction.class);
+      assertThat(attraction.id).isEqualTo(uuid);
+      assertThat(attraction.name).isEqualTo("Name");
+      assertThat(attraction.description).isNull();
+      assertThat(attraction.location.getX()).isEqualTo(1.5);
+   }
+
+   @Test
+   void shouldDeserializeNullMembers() throws IOException {
+      Attraction attraction = objectMapper.readValue("{\"type\":\"Feature\",\"id\":null,\"geometry\":null,\"properties\":null}", Attraction.class);
+      assertThat(attraction.id).isNull();
+      assertThat(attraction.location).isNull();
+   }
+
+   @Test
+   void shouldDeserializeSerializedFeature() throws IOException {
+      AttractionWithMap attraction = new AttractionWithMap();
+      attraction.setId(42L);
+      attraction.setProperties(new HashMap<>());
+      attraction.getProperties().put("name", "Name");
+      attraction.setLocation(TestUtils.point(2.2945, 48.8591));
+      AttractionWithMap copy = objectMapper.readValue(objectMapper.writeValueAsString(attraction), AttractionWithMap.class);
+      assertThat(copy.getId()).isEqualTo(42L);
+      assertThat(copy.getProperties()).containsExactly(entry("name", "Name"));
+      assertThat(copy.getLocation().equalsExact(attraction.getLocation())).isTrue();
+   }
+
+   @Test
+   void shouldDeserializeFeatureCollection() throws IOException {
+      Attractions attractions = objectMapper.readValue(getClass().getResource("/examples/featurecollection/AttractionsByField.json"), Attractions.class);
+      assertThat(attractions.features).extracting(a -> a.name).containsExactly("Name 1", "Name 2");
+      assertThat(attractions.features.get(1).location).isNull();
+   }
+
+   @Test
+   void shouldDeserializeGeometryCollection() throws IOException {
+      Route route = objectMapper.readValue(getClass().getResource("/examples/geometrycollection/RouteByField.json"), Route.class);
+      assertThat(route.geometries).hasSize(2);
+      assertThat(route.geometries.get(1).getCoordinate().getX()).isEqualTo(122);
+      PointRoute pointRoute = objectMapper.readValue(getClass().getResource("/examples/geometrycollection/RouteByField.json"), PointRoute.class);
+      assertThat(pointRoute.points).hasSize(2);
+      assertThat(pointRoute.points[0].getX()).isEqualTo(23);
+   }
+
+   @Test
+   void shouldDeserializeByRegisteredDeserializer() throws IOException {
+      ObjectMapper mapper = new ObjectMapper().registerModule(new SimpleModule()
+         .addDeserializer(AttractionWithoutAnnotation.class, new GeoJsonDeserializer<>(AttractionWithoutAnnotation.class)));
+      AttractionWithoutAnnotation attraction = mapper.readValue("{\"type\":\"Feature\",\"properties\":{\"name\":\"Name\"}}", AttractionWithoutAnnotation.class);
+      assertThat(attraction.name).isEqualTo("Name");
+   }
+
+   @Test
+   void shouldFailForOtherType() {
+      MismatchedInputException exception = assertThrows(MismatchedInputException.class,
+         () -> objectMapper.readValue("{\"type\":\"FeatureCollection\",\"features\":[]}", Attraction.class));
+      assertThat(exception.getOriginalMessage()).isEqualTo("Type Feature expected instead of FeatureCollection.");
+   }
+
+   @Test
+   void shouldFailForOtherGeometryType() {
+      MismatchedInputException exception = assertThrows(MismatchedInputException.class,
+         () -> objectMapper.readValue("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4]]}}", Attraction.class));
+      assertThat(exception.getOriginalMessage()).isEqualTo("Geometry of type LineString is not assignable to org.locationtech.jts.geom.Point.");
+   }
+
+   @Test
+   void shouldFailWithoutConstructor() {
+      ObjectMapper mapper = new ObjectMapper().registerModule(new SimpleModule()
+         .addDeserializer(AttractionByField.class, new GeoJsonDeserializer<>(AttractionByField.class)));
+      JsonMappingException exception = assertThrows(JsonMappingException.class, () -> mapper.readValue("{\"type\":\"Feature\"}", AttractionByField.class));
+      assertThat(exception.getOriginalMessage()).isEqualTo("Constructor without arguments is not present: " + AttractionByField.class.getName());
+   }
+
+   @Test
+   void shouldFailWithoutSetter() {
+      JsonMappingException exception = assertThrows(JsonMappingException.class,
+         () -> objectMapper.readValue("{\"type\":\"Feature\",\"properties\":{\"name\":\"Name\"}}", AttractionWithoutSetter.class));
+      assertThat(exception.getOriginalMessage()).startsWith("Method has no setter: ");
+   }
+
+   @Test
+   void shouldDeserializeWkbGeometry() throws IOException, ParseException {
+      WkbPlace place = objectMapper.readValue("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4.5]]}}",
+         WkbPlace.class);
+      assertThat(new WKBReader().read(place.wkb)).hasToString("LINESTRING (1 2, 3 4.5)");
+      WkbBufferPlace bufferPlace = objectMapper.readValue("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2,3]}}",
+         WkbBufferPlace.class);
+      assertThat(new WKBReader().read(bufferPlace.wkb.array()).getCoordinate().getZ()).isEqualTo(3);
+      assertThat(objectMapper.readValue("{\"type\":\"Feature\",\"geometry\":null}", WkbPlace.class).wkb).isNull();
+
+      // round trip
+      String json = objectMapper.writeValueAsString(place);
+      assertThat(objectMapper.writeValueAsString(objectMapper.readValue(json, WkbPlace.class))).isEqualTo(json);
+   }
+
+   @Test
+   void shouldDeserializeRawGeometry() throws IOException {
+      String geometry = "{\"type\":\"Point\",\"name\":\"Zürich\",\"coordinates\":[8.5,47.4]}";
+      String json = "{\"type\":\"Feature\",\"geometry\":" + geometry + "}";
+      assertThat(objectMapper.readValue(json, RawPlace.class).geoJson).isEqualTo(geometry);
+      assertThat(objectMapper.readValue(json, RawBytesPlace.class).geoJson).isEqualTo(geometry.getBytes(UTF_8));
+      assertThat(objectMapper.readValue(json, RawValuePlace.class).geoJson).isEqualTo(new RawValue(geometry));
+      assertThat(objectMapper.readValue("{\"type\":\"Feature\",\"geometry\":null}", RawPlace.class).geoJson).isNull();
+
+      // round trip
+      String serialized = objectMapper.writeValueAsString(objectMapper.readValue(json, RawPlace.class));
+      assertThat(serialized).isEqualTo("{\"type\":\"Feature\",\"geometry\":" + geometry + ",\"properties\":null}");
+   }
+
+   @Test
+   void shouldFailForRawGeometryOfUnsupportedType() {
+      InvalidDefinitionException exception = assertThrows(InvalidDefinitionException.class,
+         () -> objectMapper.readValue("{\"type\":\"Feature\"}", RawNumberPlace.class));
+      assertThat(exception.getOriginalMessage()).isEqualTo("Pre-encoded GeoJSON can only be read into a String, byte[] or " +
+         "com.fasterxml.jackson.databind.util.RawValue: private java.lang.Integer " + RawNumberPlace.class.getName() + ".geoJson");
+   }
+
+   @Test
+   void shouldFailForInvalidAnnotations() {
+      ObjectMapper mapper = new ObjectMapper().registerModule(new SimpleModule()
+         .addDeserializer(String.class, new GeoJsonDeserializer<>(String.class)));
+      InvalidDefinitionException exception = assertThrows(InvalidDefinitionException.class, () -> mapper.readValue("\"text\"", String.class));
+      assertThat(exception.getOriginalMessage()).isEqualTo("Annotation @GeoJson is not present.");
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class Attraction {
+
+      @GeoJsonId private UUID id;
+      @GeoJsonProperty private String name;
+      @GeoJsonProperty private String description;
+      @GeoJsonGeometry private Point location;
+
+      private Attraction() {
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   public static class AttractionWithMap {
+
+      private long id;
+      private Map<String, Object> properties;
+      private Geometry location;
+
+      @GeoJsonId
+      public long getId() {
+         return id;
+      }
+
+      public void setId(long id) {
+         this.id = id;
+      }
+
+      @GeoJsonProperties
+      public Map<String, Object> getProperties() {
+         return properties;
+      }
+
+      public void setProperties(Map<String, Object> properties) {
+         this.properties = properties;
+      }
+
+      @GeoJsonGeometry
+      public Geometry getLocation() {
+         return location;
+      }
+
+      public void setLocation(Geometry location) {
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   static class AttractionWithoutAnnotation {
+
+      @GeoJsonProperty String name;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   public static class AttractionWithoutSetter {
+
+      @GeoJsonProperty
+      public String getName() {
+         return "Name";
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class Attractions {
+
+      @GeoJsonFeatures private List<Attraction> features = asList();
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class Route {
+
+      @GeoJsonGeometries private List<Geometry> geometries;
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class PointRoute {
+
+      @GeoJsonGeometries private Point[] points;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class WkbPlace {
+
+      @GeoJsonGeometry private byte[] wkb;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class WkbBufferPlace {
+
+      @GeoJsonGeometry private ByteBuffer wkb;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class RawPlace {
+
+      @GeoJsonGeometry(raw = true) private Object geoJson;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class RawBytesPlace {
+
+      @GeoJsonGeometry(raw = true) private byte[] geoJson;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class RawValuePlace {
+
+      @GeoJsonGeometry(raw = true) private RawValue geoJson;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class RawNumberPlace {
+
+      @GeoJsonGeometry(raw = true) private Integer geoJson;
+   }
+}
@@ -0,0 +1,133 @@
+package ch.cordsen.geojson.deserializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.document.FeatureDocument;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Point;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link GeoJsonFileReader}.
+ */
+class GeoJsonFileReaderTest {
+
+   private static ObjectMapper objectMapper;
+
+   @TempDir
+   Path directory;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldReadFeatureDocuments() throws IOException {
+      Path file = directory.resolve("attractions.json");
+      Files.copy(getClass().getResourceAsStream("/examples/featurecollection/AttractionsByField.json"), file);
+      try (GeoJsonFileReader reader = GeoJsonFileReader.open(file, objectMapper)) {
+         assertThat(reader.size()).isEqualTo(2);
+         FeatureDocument feature = reader.get(1);
+         assertThat(feature.getId()).isEqualTo("71c26c20-94ec-11e9-bc42-526af7764f64");
+         assertThat(feature.getGeometry()).isNull();
+         Map<String, Object> expectedProperties = new HashMap<>();
+         expectedProperties.put("name", "Name 2");
+         expectedProperties.put("description", "Lorem ipsum 2");
+         assertThat(feature.getProperties()).isEqualTo(expectedProperties);
+         assertThat(reader.get(0).getGeometry().getCoordinate().getX()).isEqualTo(23);
+      }
+   }
+
+   @Test
+   void shouldReadRangeOfAnnotatedClass() throws IOException {
+      Path file = write(100);
+      try (GeoJsonFileReader reader = GeoJsonFileReader.open(file, objectMapper)) {
+         assertThat(reader.size()).isEqualTo(100);
+         List<Attraction> page = reader.range(40, 45, Attraction.class);
+         assertThat(page).extracting(a -> a.name).containsExactly("Name 40", "Name 41", "Name 42", "Name 43", "Name 44");
+         assertThat(page.get(0).location.getY()).isEqualTo(40.5);
+         assertThat(reader.get(99, Attraction.class).id).isEqualTo(new UUID(0, 99));
+         assertThat(reader.range(100, 100)).isEmpty();
+      }
+   }
+
+   @Test
+   void shouldSaveAndReuseIndex() throws IOException {
+      Path file = write(10);
+      Path indexFile = directory.resolve("attractions.json.idx");
+      try (GeoJsonFileReader reader = GeoJsonFileReader.open(file, objectMapper)) {
+         assertThat(reader.size()).isEqualTo(10);
+      }
+      assertThat(indexFile).exists();
+      FileTime indexTime = Files.getLastModifiedTime(indexFile);
+      try (GeoJsonFileReader reader = GeoJsonFileReader.open(file, objectMapper)) {
+         assertThat(reader.get(9, Attraction.class).name).isEqualTo("Name 9");
+      }
+      assertThat(Files.getLastModifiedTime(indexFile)).isEqualTo(indexTime);
+
+      // a changed file is indexed again
+      write(20);
+      Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+      try (GeoJsonFileReader reader = GeoJsonFileReader.open(file, objectMapper)) {
+         assertThat(reader.size()).isEqualTo(20);
+      }
+   }
+
+   @Test
+   void shouldOpenWithoutSavingIndex() throws IOException {
+      Path file = write(3);
+      try (GeoJsonFileReader reader = GeoJsonFileReader.open(file, null, objectMapper)) {
+         assertThat(reader.size()).isEqualTo(3);
+      }
+      assertThat(directory.resolve("attractions.json.idx")).doesNotExist();
+   }
+
+   @Test
+   void shouldRejectRangeOutOfBounds() throws IOException {
+      try (GeoJsonFileReader reader = GeoJsonFileReader.open(write(3), objectMapper)) {
+         assertThrows(IndexOutOfBoundsException.class, () -> reader.get(3));
+         assertThrows(IndexOutOfBoundsException.class, () -> reader.range(2, 1));
+         assertThrows(IndexOutOfBoundsException.class, () -> reader.range(-1, 1));
+      }
+   }
+
+   private Path write(int count) throws IOException {
+      StringBuilder json = new StringBuilder("{\"type\":\"FeatureCollection\",\"features\":[");
+      for (int i = 0; i < count; i++) {
+         json.append(i > 0 ? ",\n" : "\n").append("{\"type\":\"Feature\",\"id\":\"").append(new UUID(0, i))
+            .append("\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[").append(i).append(".25,").append(i).append(".5]}")
+            .append(",\"properties\":{\"name\":\"Name ").append(i).append("\"}}");
+      }
+      json.append("]}");
+      return Files.write(directory.resolve("attractions.json"), json.toString().getBytes(UTF_8));
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonDeserialize(using = GeoJsonDeserializer.class)
+   static class Attraction {
+
+      @GeoJsonId private UUID id;
+      @GeoJsonProperty private String name;
+      @GeoJsonGeometry private Point location;
+   }
+}
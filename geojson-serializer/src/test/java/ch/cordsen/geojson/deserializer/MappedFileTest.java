@@ -0,0 +1,64 @@
+package ch.cordsen.geojson.deserializer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link MappedFile}.
+ */
+class MappedFileTest {
+
+   private static final String content = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+   @TempDir
+   Path directory;
+
+   @Test
+   void shouldMapInSegments() throws IOException {
+      try (MappedFile file = MappedFile.map(write(content), 4)) {
+         assertThat(file.size()).isEqualTo(36);
+         assertThat(file.segmentCount()).isEqualTo(3);
+         assertThat(file.segmentOf(16)).isEqualTo(1);
+         assertThat(file.segmentPosition(2)).isEqualTo(32);
+         assertThat(file.segment(2).limit()).isEqualTo(4);
+      }
+   }
+
+   @Test
+   void shouldReadAcrossSegments() throws IOException {
+      try (MappedFile file = MappedFile.map(write(content), 4)) {
+         byte[] buffer = new byte[22];
+         file.read(10, buffer, 2, 20);
+         assertThat(new String(buffer, 2, 20, UTF_8)).isEqualTo("abcdefghijklmnopqrst");
+      }
+   }
+
+   @Test
+   void shouldStreamRange() throws IOException {
+      try (MappedFile file = MappedFile.map(write(content), 4)) {
+         assertThat(IOUtils.toString(file.inputStream(5, file.size()), UTF_8)).isEqualTo(content.substring(5));
+         assertThat(IOUtils.toString(file.inputStream(5, 20), UTF_8)).isEqualTo(content.substring(5, 25));
+         assertThat(file.inputStream(36, 10).read()).isEqualTo(-1);
+      }
+   }
+
+   @Test
+   void shouldMapEmptyFile() throws IOException {
+      try (MappedFile file = MappedFile.map(write(""))) {
+         assertThat(file.size()).isZero();
+         assertThat(file.segmentCount()).isZero();
+      }
+   }
+
+   private Path write(String text) throws IOException {
+      return Files.write(directory.resolve("file.json"), text.getBytes(UTF_8));
+   }
+}
@@ -0,0 +1,73 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.testsupport.TestUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link DocumentBuilder}.
+ */
+class DocumentBuilderTest {
+
+   private static final Point location = TestUtils.point(23, 42);
+
+   @Test
+   void shouldBuildFeatureWithPropertiesInOrder() {
+      DocumentBuilder builder = new DocumentBuilder();
+      builder.beginFeature();
+      builder.id("id");
+      builder.geometry(location);
+      builder.beginProperties();
+      builder.property("name", "Name");
+      builder.property("description", "Lorem ipsum");
+      builder.endProperties();
+      builder.endFeature();
+
+      FeatureDocument document = (FeatureDocument) builder.build();
+      assertThat(document.getId()).isEqualTo("id");
+      Assertions.<Object>assertThat(document.getGeometry()).isEqualTo(location);
+      @SuppressWarnings("unchecked")
+      Map<String, Object> properties = (Map<String, Object>) document.getProperties();
+      assertThat(properties).containsExactly(entry("name", "Name"), entry("description", "Lorem ipsum"));
+   }
+
+   @Test
+   void shouldBuildFeatureCollection() {
+      DocumentBuilder builder = new DocumentBuilder();
+      builder.beginFeatureCollection();
+      builder.feature("first");
+      builder.feature("second");
+      builder.endFeatureCollection();
+
+      FeatureCollectionDocument document = (FeatureCollectionDocument) builder.build();
+      assertThat(document.getFeatures()).containsExactly("first", "second");
+   }
+
+   @Test
+   void shouldBuildGeometryCollection() {
+      DocumentBuilder builder = new DocumentBuilder();
+      builder.beginGeometryCollection();
+      builder.geometry(location);
+      builder.endGeometryCollection();
+
+      GeometryCollectionDocument document = (GeometryCollectionDocument) builder.build();
+      assertThat(document.getGeometries()).isEqualTo(asList((Geometry) location));
+   }
+
+   @Test
+   void shouldThrowExceptionWhenNotCompleted() {
+      DocumentBuilder builder = new DocumentBuilder();
+      builder.beginFeature();
+      IllegalStateException exception = assertThrows(IllegalStateException.class, builder::build);
+      assertThat(exception).hasMessage("No document has been completed.");
+   }
+}
@@ -0,0 +1,107 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.testsupport.TestUtils;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.io.WKBWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Unit tests for {@link Elements}.
+ */
+class ElementsTest {
+
+   private static final String DESCRIPTION = "Test.elements";
+
+   @Test
+   void shouldIterateArray() throws DocumentFactoryException, IOException {
+      assertThat(elementsOf(new Object[]{"a", null, "b"})).containsExactly("a", null, "b");
+   }
+
+   @Test
+   void shouldIterateIterable() throws DocumentFactoryException, IOException {
+      assertThat(elementsOf(asList("a", "b"))).containsExactly("a", "b");
+   }
+
+   @Test
+   void shouldIterateIterator() throws DocumentFactoryException, IOException {
+      assertThat(elementsOf(asList("a", "b").iterator())).containsExactly("a", "b");
+   }
+
+   @Test
+   void shouldIterateAndCloseStream() throws DocumentFactoryException, IOException {
+      AtomicBoolean closed = new AtomicBoolean();
+      assertThat(elementsOf(Stream.of("a", "b").onClose(() -> closed.set(true)))).containsExactly("a", "b");
+      assertThat(closed).isTrue();
+   }
+
+   @Test
+   void shouldIterateSpliterator() throws DocumentFactoryException, IOException {
+      assertThat(elementsOf(Arrays.spliterator(new String[]{"a", "b"}))).containsExactly("a", "b");
+   }
+
+   @Test
+   void shouldIterateNothingForNull() throws DocumentFactoryException, IOException {
+      assertThat(elementsOf(null)).isEmpty();
+   }
+
+   @Test
+   void shouldThrowExceptionForUnsupportedValue() {
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class, () -> elementsOf("a"));
+      assertThat(exception).hasMessage("Value of Test.elements is not an Array, Iterable, Iterator, Stream or Spliterator.");
+   }
+
+   @Test
+   void shouldCollectToList() throws DocumentFactoryException {
+      assertThat(Elements.toList(Stream.of("a", "b"), DESCRIPTION)).containsExactly("a", "b");
+   }
+
+   @Test
+   void shouldCastGeometry() throws DocumentFactoryException {
+      Point point = TestUtils.point(23, 42);
+      assertThat(Elements.toGeometry(point, DESCRIPTION)).isSameAs(point);
+   }
+
+   @Test
+   void shouldThrowExceptionForElementNotGeometry() {
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class, () -> Elements.toGeometry("a", DESCRIPTION));
+      assertThat(exception).hasMessage("Value of Test.elements contains an element not of type Geometry: a");
+   }
+
+   @Test
+   void shouldDecodeWkbGeometry() throws DocumentFactoryException {
+      Point point = TestUtils.point(23, 42);
+      assertThat(Elements.toGeometry(new WKBWriter().write(point), DESCRIPTION)).isEqualTo(point);
+   }
+
+   @Test
+   void shouldWriteWkbGeometryWithoutDecoding() throws DocumentFactoryException, IOException {
+      byte[] wkb = new WKBWriter().write(TestUtils.point(23, 42));
+      DocumentSink sink = mock(DocumentSink.class);
+      Elements.writeGeometry(wkb, DESCRIPTION, sink);
+      verify(sink).wkbGeometry(ByteBuffer.wrap(wkb));
+      verifyNoMoreInteractions(sink);
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class, () -> Elements.writeGeometry(null, DESCRIPTION, sink));
+      assertThat(exception).hasMessage("Value of Test.elements contains an element not of type Geometry: null");
+   }
+
+   private static List<Object> elementsOf(Object value) throws DocumentFactoryException, IOException {
+      List<Object> elements = new ArrayList<>();
+      Elements.forEach(value, DESCRIPTION, elements::add);
+      return elements;
+   }
+}
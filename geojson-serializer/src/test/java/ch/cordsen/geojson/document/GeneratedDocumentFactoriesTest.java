@@ -0,0 +1,31 @@
+package ch.cordsen.geojson.document;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link GeneratedDocumentFactories}.
+ */
+class GeneratedDocumentFactoriesTest {
+
+   @Test
+   void shouldNameFactoryOfTopLevelClass() {
+      assertThat(GeneratedDocumentFactories.nameOf("com.example.Attraction")).isEqualTo("com.example.Attraction_GeoJsonDocumentFactory");
+   }
+
+   @Test
+   void shouldNameFactoryOfNestedClass() {
+      assertThat(GeneratedDocumentFactories.nameOf("com.example.Outer$Inner")).isEqualTo("com.example.Outer_Inner_GeoJsonDocumentFactory");
+   }
+
+   @Test
+   void shouldNameFactoryOfClassInDefaultPackage() {
+      assertThat(GeneratedDocumentFactories.nameOf("Attraction")).isEqualTo("Attraction_GeoJsonDocumentFactory");
+   }
+
+   @Test
+   void shouldReturnNullWithoutGeneratedFactory() {
+      assertThat(GeneratedDocumentFactories.find(GeneratedDocumentFactoriesTest.class)).isNull();
+   }
+}
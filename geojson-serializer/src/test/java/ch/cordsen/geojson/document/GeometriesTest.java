@@ -0,0 +1,153 @@
+package ch.cordsen.geojson.document;
+
+import ch.cordsen.geojson.testsupport.TestUtils;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Unit tests for {@link Geometries}.
+ */
+class GeometriesTest {
+
+   private static final String DESCRIPTION = "Test.geometry";
+   private static final String POINT_JSON = "{\"type\":\"Point\",\"coordinates\":[23.0,42.0]}";
+
+   @Test
+   void shouldReturnGeometryAsIs() throws DocumentFactoryException {
+      Point point = TestUtils.point(23, 42);
+      assertThat(Geometries.toGeometry(point, DESCRIPTION)).isSameAs(point);
+      assertThat(Geometries.toGeometry(null, DESCRIPTION)).isNull();
+   }
+
+   @Test
+   void shouldDecodeWkb() throws DocumentFactoryException, ParseException {
+      Geometry polygon = new WKTReader().read("POLYGON ((0 0, 10 0, 10 10, 0 0))");
+      byte[] wkb = new WKBWriter().write(polygon);
+      assertThat(Geometries.toGeometry(wkb, DESCRIPTION)).isEqualTo(polygon);
+
+      // a buffer with a position and a limit, not modified
+      ByteBuffer buffer = ByteBuffer.allocate(wkb.length + 4);
+      buffer.position(2);
+      buffer.put(wkb);
+      buffer.position(2).limit(2 + wkb.length);
+      assertThat(Geometries.toGeometry(buffer, DESCRIPTION)).isEqualTo(polygon);
+      assertThat(buffer.position()).isEqualTo(2);
+   }
+
+   @Test
+   void shouldPushWkbIntoDocument() throws DocumentFactoryException, IOException {
+      Point point = TestUtils.point(23, 42);
+      DocumentBuilder builder = new DocumentBuilder();
+      builder.beginFeature();
+      Geometries.write(new WKBWriter().write(point), DESCRIPTION, builder);
+      builder.endFeature();
+      assertThat(((FeatureDocument) builder.build()).getGeometry()).isEqualTo(point);
+   }
+
+   @Test
+   void shouldThrowExceptionForUnsupportedType() {
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class,
+         () -> Geometries.write("POINT (1 2)", DESCRIPTION, new DocumentBuilder()));
+      assertThat(exception).hasMessage("Value of Test.geometry is not of expected type: org.locationtech.jts.geom.Geometry, byte[] or java.nio.ByteBuffer");
+      assertThat(Geometries.isGeometry(new int[0])).isFalse();
+   }
+
+   @Test
+   void shouldThrowExceptionForInvalidWkb() {
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class, () -> Geometries.toGeometry(new byte[] {1, 1}, DESCRIPTION));
+      assertThat(exception).hasMessageStartingWith("Value of Test.geometry is not valid WKB: ");
+   }
+
+   @Test
+   void shouldPushRawGeometryWithoutParsing() throws DocumentFactoryException, IOException {
+      DocumentSink sink = mock(DocumentSink.class);
+      byte[] bytes = POINT_JSON.getBytes(UTF_8);
+      Geometries.writeRaw(POINT_JSON, DESCRIPTION, true, sink);
+      Geometries.writeRaw(bytes, DESCRIPTION, true, sink);
+      Geometries.writeRaw(new RawValue(POINT_JSON), DESCRIPTION, true, sink);
+      Geometries.writeRaw(null, DESCRIPTION, true, sink);
+      verify(sink, times(2)).rawGeometry(POINT_JSON);
+      // the bytes are pushed as they are, not decoded
+      verify(sink).rawGeometry(same(bytes));
+      verify(sink).geometry(null);
+      verifyNoMoreInteractions(sink);
+   }
+
+   @Test
+   void shouldPushRawGeometryUncheckedWithoutValidation() throws DocumentFactoryException, IOException {
+      DocumentSink sink = mock(DocumentSink.class);
+      String truncated = POINT_JSON.substring(0, 30);
+      Geometries.writeRaw(truncated, DESCRIPTION, false, sink);
+      Geometries.writeRaw(truncated.getBytes(UTF_8), DESCRIPTION, false, sink);
+      verify(sink).rawGeometry(truncated);
+      verify(sink).rawGeometry(truncated.getBytes(UTF_8));
+   }
+
+   @Test
+   void shouldParseRawGeometry() throws DocumentFactoryException, IOException {
+      Point point = TestUtils.point(23, 42);
+      assertThat(Geometries.rawToGeometry(POINT_JSON, DESCRIPTION)).isEqualTo(point);
+      assertThat(Geometries.rawToGeometry(POINT_JSON.getBytes(UTF_8), DESCRIPTION)).isEqualTo(point);
+      assertThat(Geometries.rawToGeometry(null, DESCRIPTION)).isNull();
+
+      for (Object value : new Object[] {POINT_JSON, POINT_JSON.getBytes(UTF_8)}) {
+         DocumentBuilder builder = new DocumentBuilder();
+         builder.beginFeature();
+         Geometries.writeRaw(value, DESCRIPTION, true, builder);
+         builder.endFeature();
+         assertThat(((FeatureDocument) builder.build()).getGeometry()).isEqualTo(point);
+      }
+   }
+
+   @Test
+   void shouldCheckStructureOfRawGeometry() {
+      assertThat(Geometries.checkStructure(" {\"type\":\"Point\",\"note\":\"}]\\\"\",\"coordinates\":[1,2]}\n")).isNull();
+      assertThat(Geometries.checkStructure("")).isEqualTo("does not start with '{'");
+      assertThat(Geometries.checkStructure("[1,2]")).isEqualTo("does not start with '{'");
+      assertThat(Geometries.checkStructure(POINT_JSON.substring(0, 30))).isEqualTo("truncated after 30 characters");
+      assertThat(Geometries.checkStructure("{\"coordinates\":[1,2}]}")).isEqualTo("unexpected '}' at index 19");
+      assertThat(Geometries.checkStructure(POINT_JSON + ",{}")).isEqualTo("unexpected content after the object at index 42");
+   }
+
+   @Test
+   void shouldCheckStructureOfRawGeometryBytes() {
+      String json = "{\"type\":\"Point\",\"name\":\"Zürich ]}\",\"coordinates\":[8.5,47.4]}";
+      assertThat(Geometries.checkStructure(new Geometries.Utf8Chars(json.getBytes(UTF_8)))).isNull();
+      byte[] truncated = json.substring(0, 30).getBytes(UTF_8);
+      assertThat(Geometries.checkStructure(new Geometries.Utf8Chars(truncated))).isEqualTo("truncated after 31 bytes");
+      assertThat(Geometries.checkStructure(new Geometries.Utf8Chars((json + "]").getBytes(UTF_8))))
+         .isEqualTo("unexpected content after the object at index 61");
+   }
+
+   @Test
+   void shouldThrowExceptionForInvalidRawGeometry() {
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class,
+         () -> Geometries.writeRaw(POINT_JSON.substring(0, 30), DESCRIPTION, true, new DocumentBuilder()));
+      assertThat(exception).hasMessage("Value of Test.geometry is not a GeoJSON object: truncated after 30 characters");
+      exception = assertThrows(DocumentFactoryException.class,
+         () -> Geometries.writeRaw(POINT_JSON.substring(0, 30).getBytes(UTF_8), DESCRIPTION, true, new DocumentBuilder()));
+      assertThat(exception).hasMessage("Value of Test.geometry is not a GeoJSON object: truncated after 30 bytes");
+      exception = assertThrows(DocumentFactoryException.class, () -> Geometries.writeRaw(42, DESCRIPTION, false, new DocumentBuilder()));
+      assertThat(exception).hasMessage("Value of Test.geometry is not of expected type: java.lang.String, byte[] or " +
+         "com.fasterxml.jackson.databind.util.RawValue of text");
+      exception = assertThrows(DocumentFactoryException.class, () -> Geometries.rawToGeometry("{\"type\":\"Circle\"}", DESCRIPTION));
+      assertThat(exception).hasMessageStartingWith("Value of Test.geometry is not valid GeoJSON: ");
+   }
+}
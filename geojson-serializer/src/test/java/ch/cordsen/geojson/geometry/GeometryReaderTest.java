@@ -0,0 +1,116 @@
+package ch.cordsen.geojson.geometry;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link GeometryReader}.
+ */
+class GeometryReaderTest {
+
+   private static final JsonFactory jsonFactory = new JsonFactory();
+
+   @Test
+   void shouldReadPoint() throws IOException, ParseException {
+      assertRead("{\"type\":\"Point\",\"coordinates\":[23.5,42]}", "POINT (23.5 42)");
+      assertRead("{\"coordinates\":[1,2,3],\"type\":\"Point\"}", "POINT Z (1 2 3)");
+      assertRead("{\"type\":\"Point\",\"coordinates\":[]}", "POINT EMPTY");
+   }
+
+   @Test
+   void shouldReadLineStringAndMultiPoint() throws IOException, ParseException {
+      assertRead("{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4],[5,6]]}", "LINESTRING (1 2, 3 4, 5 6)");
+      assertRead("{\"type\":\"MultiPoint\",\"coordinates\":[[1,2],[3,4]]}", "MULTIPOINT ((1 2), (3 4))");
+      assertRead("{\"type\":\"LineString\",\"coordinates\":[[1,2,7,9],[3,4]]}", "LINESTRING (1 2, 3 4)");
+   }
+
+   @Test
+   void shouldReadPolygons() throws IOException, ParseException {
+      assertRead("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[10,0],[10,10],[0,0]],[[1,1],[2,1],[2,2],[1,1]]]}",
+         "POLYGON ((0 0, 10 0, 10 10, 0 0), (1 1, 2 1, 2 2, 1 1))");
+      assertRead("{\"type\":\"MultiPolygon\",\"coordinates\":[[[[0,0],[1,0],[1,1],[0,0]]],[[[5,5],[6,5],[6,6],[5,5]]]]}",
+         "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))");
+      assertRead("{\"type\":\"MultiLineString\",\"coordinates\":[[[1,2],[3,4]],[[5,6],[7,8]]]}", "MULTILINESTRING ((1 2, 3 4), (5 6, 7 8))");
+      assertRead("{\"type\":\"Polygon\",\"coordinates\":[]}", "POLYGON EMPTY");
+   }
+
+   @Test
+   void shouldReadGeometryCollectionAndSkipOtherMembers() throws IOException, ParseException {
+      assertRead("{\"bbox\":[1,2,3,4],\"type\":\"GeometryCollection\",\"geometries\":[{\"type\":\"Point\",\"coordinates\":[1,2]}," +
+         "{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4]],\"crs\":{\"type\":\"name\"}}]}", "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (1 2, 3 4))");
+   }
+
+   @Test
+   void shouldReadWithGeometryFactory() throws IOException {
+      GeometryReader reader = new GeometryReader(new GeometryFactory(PackedCoordinateSequenceFactory.DOUBLE_FACTORY));
+      try (JsonParser p = jsonFactory.createParser("{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4]]}")) {
+         p.nextToken();
+         Geometry geometry = reader.read(p);
+         assertThat(((org.locationtech.jts.geom.LineString) geometry).getCoordinateSequence()).isInstanceOf(PackedCoordinateSequence.Double.class);
+         assertThat(geometry.getCoordinates()[1].getY()).isEqualTo(4);
+      }
+   }
+
+   @Test
+   void shouldReadAltitude() throws IOException {
+      try (JsonParser p = jsonFactory.createParser("{\"type\":\"LineString\",\"coordinates\":[[1,2,7,9],[3,4]]}")) {
+         p.nextToken();
+         Geometry geometry = GeometryReader.INSTANCE.read(p);
+         assertThat(geometry.getCoordinates()[0].getZ()).isEqualTo(7);
+         assertThat(geometry.getCoordinates()[1].getZ()).isNaN();
+      }
+   }
+
+   @Test
+   void shouldReadNull() throws IOException {
+      try (JsonParser p = jsonFactory.createParser("null")) {
+         p.nextToken();
+         assertThat(GeometryReader.INSTANCE.read(p)).isNull();
+      }
+   }
+
+   @Test
+   void shouldRejectInvalidGeometries() {
+      assertInvalid("{\"coordinates\":[1,2]}", "Geometry without type.");
+      assertInvalid("{\"type\":\"Point\"}", "Point without coordinates.");
+      assertInvalid("{\"type\":\"Point\",\"coordinates\":[[1,2]]}", "Invalid coordinates of Point.");
+      assertInvalid("{\"type\":\"Polygon\",\"coordinates\":[[1,2],[3,4]]}", "Invalid coordinates of Polygon.");
+      assertInvalid("{\"type\":\"Point\",\"coordinates\":[1]}", "Position with less than two ordinates.");
+      assertInvalid("{\"type\":\"LineString\",\"coordinates\":[[1,2],[\"a\",4]]}", "Invalid position");
+      assertInvalid("{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[1,0],[1,1],[2,2]]]}", "Invalid linear ring");
+      assertInvalid("{\"type\":\"Circle\",\"coordinates\":[1,2]}", "Unsupported type of geometry: Circle");
+      assertInvalid("[1,2]", "Geometry is not an object");
+   }
+
+   private static void assertRead(String json, String expectedWkt) throws IOException, ParseException {
+      try (JsonParser p = jsonFactory.createParser(json)) {
+         p.nextToken();
+         Geometry geometry = GeometryReader.INSTANCE.read(p);
+         assertThat(geometry.equalsExact(new WKTReader().read(expectedWkt))).as(geometry.toText()).isTrue();
+         assertThat(p.nextToken()).isNull();
+      }
+   }
+
+   private static void assertInvalid(String json, String expectedMessage) {
+      MismatchedInputException exception = assertThrows(MismatchedInputException.class, () -> {
+         try (JsonParser p = jsonFactory.createParser(json)) {
+            p.nextToken();
+            GeometryReader.INSTANCE.read(p);
+         }
+      });
+      assertThat(exception.getOriginalMessage()).startsWith(expectedMessage);
+   }
+}
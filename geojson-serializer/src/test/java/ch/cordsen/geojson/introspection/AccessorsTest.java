@@ -0,0 +1,134 @@
+package ch.cordsen.geojson.introspection;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link Accessors}.
+ */
+class AccessorsTest {
+
+   @Test
+   void shouldReadPrivateField() throws Exception {
+      Field field = PublicBean.class.getDeclaredField("text");
+      assertThat(Accessors.of(field).get(new PublicBean("foo", 23))).isEqualTo("foo");
+   }
+
+   @Test
+   void shouldReadStaticField() throws Exception {
+      Field field = PublicBean.class.getDeclaredField("constant");
+      assertThat(Accessors.of(field).get(new PublicBean("foo", 23))).isEqualTo("bar");
+   }
+
+   @Test
+   void shouldInvokeGetterOfPublicClass() throws Exception {
+      Method method = PublicBean.class.getDeclaredMethod("getText");
+      assertThat(Accessors.of(method).get(new PublicBean("foo", 23))).isEqualTo("foo");
+   }
+
+   @Test
+   void shouldBoxPrimitiveReturnValue() throws Exception {
+      Method method = PublicBean.class.getDeclaredMethod("getNumber");
+      assertThat(Accessors.of(method).get(new PublicBean("foo", 23))).isEqualTo(23);
+   }
+
+   @Test
+   void shouldInvokeGetterOfPackagePrivateClass() throws Exception {
+      Method method = PackagePrivateBean.class.getDeclaredMethod("getText");
+      assertThat(Accessors.of(method).get(new PackagePrivateBean())).isEqualTo("baz");
+   }
+
+   @Test
+   void shouldPropagateExceptionOfGetter() throws Exception {
+      Method method = PublicBean.class.getDeclaredMethod("getFailure");
+      Accessor accessor = Accessors.of(method);
+      assertThrows(IllegalStateException.class, () -> accessor.get(new PublicBean("foo", 23)));
+   }
+
+   @Test
+   void shouldThrowExceptionForObjectOfOtherClass() throws Exception {
+      Method method = PublicBean.class.getDeclaredMethod("getText");
+      Accessor accessor = Accessors.of(method);
+      assertThrows(ClassCastException.class, () -> accessor.get("foo"));
+   }
+
+   @Test
+   void shouldWriteFinalField() throws Exception {
+      Field field = PublicBean.class.getDeclaredField("text");
+      PublicBean bean = new PublicBean("foo", 23);
+      Accessors.mutatorOf(field).set(bean, "qux");
+      assertThat(bean.getText()).isEqualTo("qux");
+   }
+
+   @Test
+   void shouldInvokeSetterWithPrimitiveArgument() throws Exception {
+      Method method = MutableBean.class.getDeclaredMethod("setNumber", int.class);
+      MutableBean bean = new MutableBean();
+      Accessors.mutatorOf(method).set(bean, 42);
+      assertThat(bean.number).isEqualTo(42);
+   }
+
+   @Test
+   void shouldInstantiateByPrivateConstructor() throws Exception {
+      assertThat(Accessors.instantiatorOf(MutableBean.class).call()).isInstanceOf(MutableBean.class);
+      assertThat(Accessors.instantiatorOf(PublicBean.class)).isNull();
+   }
+
+   /**
+    * Public test class, getters can be bound by the lambda metafactory.
+    */
+   public static class PublicBean {
+
+      private static final String constant = "bar";
+
+      private final String text;
+      private final int number;
+
+      public PublicBean(String text, int number) {
+         this.text = text;
+         this.number = number;
+      }
+
+      public String getText() {
+         return text;
+      }
+
+      public int getNumber() {
+         return number;
+      }
+
+      public String getFailure() {
+         throw new IllegalStateException("failure");
+      }
+   }
+
+   /**
+    * Package private test class, getters are bound to method handles.
+    */
+   static class PackagePrivateBean {
+
+      public String getText() {
+         return "baz";
+      }
+   }
+
+   /**
+    * Test class with a private constructor and a setter.
+    */
+   static class MutableBean {
+
+      private int number;
+
+      private MutableBean() {
+      }
+
+      public void setNumber(int number) {
+         this.number = number;
+      }
+   }
+}
@@ -31,6 +31,26 @@ class AnnotatedFieldTest {
       assertThat(exception).hasMessageStartingWith("Value from Field is not of expected type");
    }
 
+   @Test
+   void shouldSetFieldValue() throws NoSuchFieldException, DocumentFactoryException {
+      Field field = TestClass.class.getDeclaredField("text");
+      AnnotatedField annotatedField = new AnnotatedField("name", field, Collections.emptyList());
+      TestClass object = new TestClass("foo");
+
+      annotatedField.setValue(object, "bar");
+      assertThat(annotatedField.getValue(object, String.class)).isEqualTo("bar");
+      assertThat(annotatedField.getGenericType()).isEqualTo(String.class);
+   }
+
+   @Test
+   void shouldThrowExceptionWhenValueTypeIsIncompatible() throws NoSuchFieldException {
+      Field field = TestClass.class.getDeclaredField("text");
+      AnnotatedField annotatedField = new AnnotatedField("name", field, Collections.emptyList());
+
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class, () -> annotatedField.setValue(new TestClass("foo"), 23));
+      assertThat(exception).hasMessageStartingWith("Value to Field failed");
+   }
+
    /**
     * Test class to retrieve a {@link Field} instance from.
     */
@@ -29,6 +29,26 @@ class AnnotatedMethodTest {
       assertThat(exception).hasMessageStartingWith("Value from Method is not of expected type");
    }
 
+   @Test
+   void shouldSetValueBySetter() throws NoSuchMethodException, DocumentFactoryException {
+      Method method = AnnotatedMethodTest.TestClass.class.getDeclaredMethod("getText");
+      Method writeMethod = AnnotatedMethodTest.TestClass.class.getDeclaredMethod("setText", String.class);
+      AnnotatedMethod annotatedMethod = new AnnotatedMethod("name", method, writeMethod, Collections.emptyList());
+      AnnotatedMethodTest.TestClass object = new AnnotatedMethodTest.TestClass("foo");
+      assertThat(annotatedMethod.isWritable()).isTrue();
+      annotatedMethod.setValue(object, "bar");
+      assertThat(object.getText()).isEqualTo("bar");
+   }
+
+   @Test
+   void shouldThrowExceptionWithoutSetter() throws NoSuchMethodException {
+      Method method = AnnotatedMethodTest.TestClass.class.getDeclaredMethod("getText");
+      AnnotatedMethod annotatedMethod = new AnnotatedMethod("name", method, Collections.emptyList());
+      assertThat(annotatedMethod.isWritable()).isFalse();
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class, () -> annotatedMethod.setValue(new AnnotatedMethodTest.TestClass("foo"), "bar"));
+      assertThat(exception).hasMessageStartingWith("Method has no setter");
+   }
+
    /**
     * Test class to retrieve a {@link Method} instance from.
     */
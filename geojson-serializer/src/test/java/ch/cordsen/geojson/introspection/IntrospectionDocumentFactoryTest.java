@@ -1,21 +1,29 @@
 package ch.cordsen.geojson.introspection;
 
 import ch.cordsen.geojson.document.Document;
+import ch.cordsen.geojson.document.DocumentBuilder;
 import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.document.DocumentSink;
 import ch.cordsen.geojson.document.FeatureDocument;
 import ch.cordsen.geojson.testsupport.TestUtils;
 import ch.cordsen.geojson.testsupport.examples.feature.AttractionAltered;
 import ch.cordsen.geojson.testsupport.examples.feature.AttractionByField;
 import ch.cordsen.geojson.testsupport.examples.feature.AttractionByGetter;
+import ch.cordsen.geojson.testsupport.examples.featurecollection.AttractionsByField;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.locationtech.jts.geom.Point;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for {@link IntrospectionDocumentFactory}.
@@ -81,4 +89,48 @@ class IntrospectionDocumentFactoryTest {
       assertThat(featureDocument.getProperties()).isInstanceOf(Map.class);
       assertThat(featureDocument.getProperties()).isEqualTo(expectedProperties);
    }
+
+   @Test
+   void shouldStreamAttractionByField() throws DocumentFactoryException, IOException {
+      IntrospectionDocumentFactory introspectionDocumentFactory = new IntrospectionDocumentFactory();
+
+      AttractionByField attraction = new AttractionByField(uuid, "Name", "Lorem ipsum", location);
+      DocumentBuilder builder = new DocumentBuilder();
+      introspectionDocumentFactory.write(attraction, builder);
+      Document document = builder.build();
+      assertThat(document).isInstanceOf(FeatureDocument.class);
+
+      FeatureDocument featureDocument = (FeatureDocument) document;
+      FeatureDocument expectedDocument = (FeatureDocument) introspectionDocumentFactory.from(attraction);
+      assertThat(featureDocument.getId()).isEqualTo(expectedDocument.getId());
+      Assertions.<Object>assertThat(featureDocument.getGeometry()).isEqualTo(expectedDocument.getGeometry());
+      assertThat(featureDocument.getProperties()).isEqualTo(expectedDocument.getProperties());
+   }
+
+   @Test
+   void shouldStreamAttractions() throws DocumentFactoryException, IOException {
+      IntrospectionDocumentFactory introspectionDocumentFactory = new IntrospectionDocumentFactory();
+
+      AttractionByField attraction = new AttractionByField(uuid, "Name", "Lorem ipsum", location);
+      AttractionsByField attractions = new AttractionsByField();
+      attractions.add(attraction);
+      attractions.add(attraction);
+      DocumentSink sink = mock(DocumentSink.class);
+      when(sink.filterFeatures(any())).then(returnsFirstArg());
+      introspectionDocumentFactory.write(attractions, sink);
+
+      InOrder inOrder = inOrder(sink);
+      inOrder.verify(sink).beginFeatureCollection();
+      inOrder.verify(sink).filterFeatures(any());
+      inOrder.verify(sink, times(2)).feature(attraction);
+      inOrder.verify(sink).endFeatureCollection();
+      verifyNoMoreInteractions(sink);
+   }
+
+   @Test
+   void shouldThrowExceptionWhenStreamingNull() {
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class,
+         () -> new IntrospectionDocumentFactory().write(null, new DocumentBuilder()));
+      assertThat(exception).hasMessage("Object is null.");
+   }
 }
@@ -0,0 +1,94 @@
+package ch.cordsen.geojson.introspection;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonVersion;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import ch.cordsen.geojson.testsupport.examples.feature.AttractionAltered;
+import ch.cordsen.geojson.testsupport.examples.feature.AttractionMultipleGeoJsonId;
+import ch.cordsen.geojson.testsupport.examples.featurecollection.AttractionsByGetter;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link IntrospectionPlan}.
+ */
+class IntrospectionPlanTest {
+
+   @Test
+   void shouldReturnSamePlanForSameClass() throws DocumentFactoryException {
+      IntrospectionPlan plan = IntrospectionPlan.of(AttractionAltered.class);
+      assertThat(IntrospectionPlan.of(AttractionAltered.class)).isSameAs(plan);
+   }
+
+   @Test
+   void shouldResolvePropertyNames() throws DocumentFactoryException {
+      IntrospectionPlan plan = IntrospectionPlan.of(AttractionAltered.class);
+      assertThat(plan.getType()).isEqualTo(GeoJsonType.FEATURE);
+      assertThat(plan.getId()).isNotNull();
+      assertThat(plan.getVersion()).isNull();
+      assertThat(plan.getGeometry()).isNull();
+      assertThat(plan.getProperties()).isNull();
+      assertThat(plan.getPropertyList())
+         .extracting(IntrospectionPlan.Property::getName)
+         .containsExactlyInAnyOrder("name", "alteredDescription");
+   }
+
+   @Test
+   void shouldResolveVersion() throws DocumentFactoryException {
+      IntrospectionPlan plan = IntrospectionPlan.of(Versioned.class);
+      assertThat(plan.getId()).extracting(Annotated::getName).isEqualTo("id");
+      assertThat(plan.getVersion()).extracting(Annotated::getName).isEqualTo("version");
+      assertThat(plan.getPropertyList()).isEmpty();
+   }
+
+   @Test
+   void shouldResolveRawGeometries() throws DocumentFactoryException {
+      IntrospectionPlan plan = IntrospectionPlan.of(RawShapes.class);
+      assertThat(plan.getGeometryList()).extracting(Annotated::getName).containsExactly("geometry", "geoJson", "trusted");
+      assertThat(plan.getGeometryList()).extracting(plan::isRawGeometry).containsExactly(false, true, true);
+      assertThat(plan.getGeometryList()).extracting(plan::isValidatedGeometry).containsExactly(true, true, false);
+   }
+
+   @Test
+   void shouldResolveFeatureMembers() throws DocumentFactoryException {
+      IntrospectionPlan plan = IntrospectionPlan.of(AttractionsByGetter.class);
+      assertThat(plan.getType()).isEqualTo(GeoJsonType.FEATURE_COLLECTION);
+      assertThat(plan.getFeatures()).isNull();
+      assertThat(plan.getFeatureList()).extracting(Annotated::getName).containsExactly("mainAttractions");
+   }
+
+   @Test
+   void shouldThrowExceptionOnEveryCallWhenAnnotationsAreInvalid() {
+      DocumentFactoryException first = assertThrows(DocumentFactoryException.class, () -> IntrospectionPlan.of(AttractionMultipleGeoJsonId.class));
+      DocumentFactoryException second = assertThrows(DocumentFactoryException.class, () -> IntrospectionPlan.of(AttractionMultipleGeoJsonId.class));
+      assertThat(first).hasMessageStartingWith("Annotation @GeoJsonId is present multiple times");
+      assertThat(second).hasMessage(first.getMessage());
+      assertThat(second).isNotSameAs(first);
+   }
+
+   @Test
+   void shouldThrowExceptionWhenAnnotationIsMissing() {
+      DocumentFactoryException exception = assertThrows(DocumentFactoryException.class, () -> IntrospectionPlan.of(String.class));
+      assertThat(exception).hasMessage("Annotation @GeoJson is not present.");
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   static class Versioned {
+
+      @GeoJsonId private long id;
+      @GeoJsonVersion private int version;
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   static class RawShapes {
+
+      @GeoJsonGeometry private Object geometry;
+      @GeoJsonGeometry(raw = true) private String geoJson;
+      @GeoJsonGeometry(raw = true, validate = false) private byte[] trusted;
+   }
+}
@@ -0,0 +1,107 @@
+package ch.cordsen.geojson.metrics;
+
+import ch.cordsen.geojson.metrics.InMemoryMetricsRecorder.ClassMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link InMemoryMetricsRecorder} and {@link GeoJsonMetrics}.
+ */
+class InMemoryMetricsRecorderTest {
+
+   @Test
+   void shouldAccumulatePerClass() {
+      InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+      recorder.written(String.class, 1, 1, 5, 100);
+      recorder.written(String.class, 1, 0, 0, 300);
+      recorder.written(Integer.class, 10, 0, 0, 50);
+      recorder.bytesWritten(String.class, 42);
+      recorder.planCacheMiss(String.class, 1000);
+      recorder.planCacheHit(String.class);
+      recorder.planCacheHit(String.class);
+      recorder.documentCreated(String.class, 7);
+
+      ClassMetrics metrics = recorder.snapshot(String.class);
+      assertThat(metrics.getFeatures()).isEqualTo(2);
+      assertThat(metrics.getGeometries()).isEqualTo(1);
+      assertThat(metrics.getCoordinates()).isEqualTo(5);
+      assertThat(metrics.getBytes()).isEqualTo(42);
+      assertThat(metrics.getPlanCacheHits()).isEqualTo(2);
+      assertThat(metrics.getPlanCacheMisses()).isEqualTo(1);
+      assertThat(metrics.getPlanBuilds().getTotal(TimeUnit.NANOSECONDS)).isEqualTo(1000);
+      assertThat(metrics.getDocuments().getCount()).isEqualTo(1);
+      assertThat(metrics.getWrites().getCount()).isEqualTo(2);
+      assertThat(metrics.getWrites().getTotal(TimeUnit.NANOSECONDS)).isEqualTo(400);
+      assertThat(metrics.getWrites().getMax(TimeUnit.NANOSECONDS)).isEqualTo(300);
+      assertThat(metrics.getWrites().getMean(TimeUnit.NANOSECONDS)).isEqualTo(200);
+      assertThat(recorder.snapshot(Integer.class).getFeatures()).isEqualTo(10);
+   }
+
+   @Test
+   void shouldOrderSnapshotByClassName() {
+      InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+      recorder.bytesWritten(String.class, 1);
+      recorder.bytesWritten(Integer.class, 1);
+      recorder.bytesWritten(Long.class, 1);
+
+      Map<Class<?>, ClassMetrics> snapshot = recorder.snapshot();
+      assertThat(snapshot.keySet()).containsExactly(Integer.class, Long.class, String.class);
+   }
+
+   @Test
+   void shouldReturnZerosForUnknownClassAndAfterReset() {
+      InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+      recorder.written(String.class, 1, 1, 1, 1);
+      recorder.reset();
+
+      assertThat(recorder.snapshot()).isEmpty();
+      ClassMetrics metrics = recorder.snapshot(String.class);
+      assertThat(metrics.getFeatures()).isZero();
+      assertThat(metrics.getWrites().getMax(TimeUnit.NANOSECONDS)).isZero();
+      assertThat(metrics.getWrites().getMean(TimeUnit.MILLISECONDS)).isZero();
+   }
+
+   @Test
+   void shouldCountConcurrently() throws InterruptedException {
+      InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+         threads.add(new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+               recorder.written(String.class, 1, 1, 2, i);
+            }
+         }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+         thread.join();
+      }
+
+      ClassMetrics metrics = recorder.snapshot(String.class);
+      assertThat(metrics.getFeatures()).isEqualTo(40_000);
+      assertThat(metrics.getCoordinates()).isEqualTo(80_000);
+      assertThat(metrics.getWrites().getMax(TimeUnit.NANOSECONDS)).isEqualTo(9_999);
+   }
+
+   @Test
+   void shouldBeDisabledByDefault() {
+      assertThat(GeoJsonMetrics.recorder()).isSameAs(MetricsRecorder.NOOP);
+      assertThat(MetricsRecorder.NOOP.isEnabled()).isFalse();
+      assertThat(new InMemoryMetricsRecorder().isEnabled()).isTrue();
+
+      InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+      GeoJsonMetrics.setRecorder(recorder);
+      try {
+         assertThat(GeoJsonMetrics.recorder()).isSameAs(recorder);
+      } finally {
+         GeoJsonMetrics.setRecorder(null);
+      }
+      assertThat(GeoJsonMetrics.recorder()).isSameAs(MetricsRecorder.NOOP);
+   }
+}
@@ -0,0 +1,89 @@
+package ch.cordsen.geojson.serializer;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link Clipping}.
+ */
+class ClippingTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+   private static final Clipping clipping = Clipping.to(new Envelope(0, 10, 0, 10));
+
+   @Test
+   void shouldReturnGeometryWithinBox() throws ParseException {
+      Geometry geometry = wktReader.read("LINESTRING (1 1, 9 9)");
+      assertThat(clipping.clip(geometry)).isSameAs(geometry);
+      assertThat(clipping.intersects(geometry)).isTrue();
+   }
+
+   @Test
+   void shouldDropGeometryOutsideOfBox() throws ParseException {
+      Geometry geometry = wktReader.read("POLYGON ((20 20, 30 20, 30 30, 20 20))");
+      assertThat(clipping.clip(geometry)).isNull();
+      assertThat(clipping.intersects(geometry)).isFalse();
+      assertThat(clipping.clip(wktReader.read("POINT EMPTY"))).isNull();
+   }
+
+   @Test
+   void shouldDropGeometryOutsideOfBoxButInsideOfItsEnvelope() throws ParseException {
+      Geometry geometry = wktReader.read("LINESTRING (-5 5, 5 20)");
+      assertThat(clipping.intersects(geometry)).isFalse();
+      assertThat(clipping.clip(geometry)).isNull();
+   }
+
+   @Test
+   void shouldClipPolygon() throws ParseException {
+      Geometry clipped = clipping.clip(wktReader.read("POLYGON ((-5 -5, 5 -5, 5 5, -5 5, -5 -5))"));
+      assertThat(clipped.getGeometryType()).isEqualTo("Polygon");
+      assertThat(clipped.getArea()).isEqualTo(25);
+      assertThat(clipped.getEnvelopeInternal()).isEqualTo(new Envelope(0, 5, 0, 5));
+   }
+
+   @Test
+   void shouldKeepPartsOfOriginalDimension() throws ParseException {
+      // the intersection of the polygon touching the box is a line
+      assertThat(clipping.clip(wktReader.read("POLYGON ((10 0, 20 0, 20 10, 10 10, 10 0))"))).isNull();
+      Geometry clipped = clipping.clip(wktReader.read("LINESTRING (-5 5, 5 5, 5 15, 15 15, 15 5, 20 5)"));
+      assertThat(clipped.getGeometryType()).isEqualTo("LineString");
+      assertThat(clipped.getLength()).isEqualTo(10);
+   }
+
+   @Test
+   void shouldClipElementsOfGeometryCollection() throws ParseException {
+      Geometry clipped = clipping.clip(wktReader.read("GEOMETRYCOLLECTION (POINT (20 20), POINT (5 5), LINESTRING (5 5, 15 5))"));
+      assertThat(clipped).isEqualTo(wktReader.read("GEOMETRYCOLLECTION (POINT (5 5), LINESTRING (5 5, 10 5))"));
+   }
+
+   @Test
+   void shouldRepairInvalidPolygon() throws ParseException {
+      // a bow tie, self-intersecting at (0 5)
+      Geometry clipped = clipping.clip(wktReader.read("POLYGON ((-5 0, 5 10, 5 0, -5 10, -5 0))"));
+      assertThat(clipped).isNotNull();
+      assertThat(clipped.getEnvelopeInternal()).isEqualTo(new Envelope(0, 5, 0, 10));
+   }
+
+   @Test
+   void shouldClipToBuffer() throws ParseException {
+      Clipping buffered = clipping.withBuffer(2);
+      assertThat(buffered.getBuffer()).isEqualTo(2);
+      assertThat(buffered.getEnvelope()).isEqualTo(new Envelope(0, 10, 0, 10));
+      assertThat(buffered.getClipEnvelope()).isEqualTo(new Envelope(-2, 12, -2, 12));
+      assertThat(buffered.clip(wktReader.read("LINESTRING (-5 5, 5 5)")).getEnvelopeInternal()).isEqualTo(new Envelope(-2, 5, 5, 5));
+      assertThat(buffered).isEqualTo(Clipping.to(new Envelope(0, 10, 0, 10)).withBuffer(2)).isNotEqualTo(clipping);
+   }
+
+   @Test
+   void shouldRejectInvalidBuffer() {
+      IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> clipping.withBuffer(-1));
+      assertThat(exception).hasMessage("Buffer must be zero or positive: -1.0");
+      assertThrows(IllegalArgumentException.class, () -> clipping.withBuffer(Double.NaN));
+   }
+}
@@ -0,0 +1,81 @@
+package ch.cordsen.geojson.serializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link DecimalFormatter}.
+ */
+class DecimalFormatterTest {
+
+   @Test
+   void shouldFormatRoundedValues() {
+      assertThat(format(2.2945271234, 6)).isEqualTo("2.294527");
+      assertThat(format(48.8590925, 6)).isEqualTo("48.859093");
+      assertThat(format(-48.8590925, 6)).isEqualTo("-48.859093");
+      assertThat(format(0.05, 6)).isEqualTo("0.05");
+      assertThat(format(-0.5, 6)).isEqualTo("-0.5");
+      assertThat(format(1.0000004, 6)).isEqualTo("1.0");
+      assertThat(format(179.9999999, 6)).isEqualTo("180.0");
+   }
+
+   @Test
+   void shouldFormatWholeNumbersWithOneDecimalPlace() {
+      assertThat(format(2, 6)).isEqualTo("2.0");
+      assertThat(format(0, 6)).isEqualTo("0.0");
+      assertThat(format(2.6, 0)).isEqualTo("3.0");
+      assertThat(format(12345678, 3)).isEqualTo("12345678.0");
+   }
+
+   @Test
+   void shouldNotWriteNegativeZero() {
+      assertThat(format(-0.0000001, 6)).isEqualTo("0.0");
+      assertThat(format(-0.0, 6)).isEqualTo("0.0");
+   }
+
+   @Test
+   void shouldFormatMaximumPrecision() {
+      assertThat(format(0.123456789012345, 15)).isEqualTo("0.123456789012345");
+      assertThat(format(1e-15, 15)).isEqualTo("0.000000000000001");
+   }
+
+   @Test
+   void shouldFormatLikeBigDecimal() {
+      Random random = new Random(42);
+      for (int i = 0; i < 10_000; i++) {
+         double value = random.nextDouble() * 360 - 180;
+         int precision = random.nextInt(10);
+         String expected = BigDecimal.valueOf(DecimalFormatter.round(value, precision))
+            .setScale(precision, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
+         assertThat(new BigDecimal(format(value, precision))).as("%s with precision %d", value, precision)
+            .isEqualByComparingTo(expected);
+      }
+   }
+
+   @Test
+   void shouldSupportFiniteValuesInRange() {
+      assertThat(DecimalFormatter.canFormat(180, 13)).isTrue();
+      assertThat(DecimalFormatter.canFormat(180, 15)).isFalse();
+      assertThat(DecimalFormatter.canFormat(1e7, 6)).isTrue();
+      assertThat(DecimalFormatter.canFormat(1e10, 6)).isFalse();
+      assertThat(DecimalFormatter.canFormat(Double.NaN, 6)).isFalse();
+      assertThat(DecimalFormatter.canFormat(Double.POSITIVE_INFINITY, 0)).isFalse();
+   }
+
+   @Test
+   void shouldRound() {
+      assertThat(DecimalFormatter.round(2.2945275, 6)).isEqualTo(2.294528);
+      assertThat(DecimalFormatter.round(-2.5, 0)).isEqualTo(-3.0);
+      assertThat(DecimalFormatter.round(1e20, 6)).isEqualTo(1e20);
+   }
+
+   private static String format(double value, int precision) {
+      char[] buffer = new char[DecimalFormatter.MAX_LENGTH];
+      return new String(buffer, 0, DecimalFormatter.format(value, precision, buffer));
+   }
+}
@@ -0,0 +1,270 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.annotation.GeoJsonVersion;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the {@link FeatureFragmentCache} spliced into the output of the {@link GeoJsonSerializer}.
+ */
+class FeatureFragmentCacheTest {
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldSpliceCachedFeatures() throws IOException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFragmentCache(cache).applyTo(objectMapper.writer());
+      Places places = new Places(asList(new Place(1, 1, "a", TestUtils.point(1, 2)), new Place(2, 1, "b", TestUtils.point(3, 4))));
+
+      String expectedJson = objectMapper.writeValueAsString(places);
+      assertThat(writer.writeValueAsString(places)).isEqualTo(expectedJson);
+      assertThat(writer.writeValueAsString(places)).isEqualTo(expectedJson);
+      assertThat(cache.getMissCount()).isEqualTo(2);
+      assertThat(cache.getHitCount()).isEqualTo(2);
+      assertThat(cache.size()).isEqualTo(2);
+      assertThat(cache.getWeight()).isEqualTo(expectedJson.length() - "{'type':'FeatureCollection','features':[,]}".length());
+   }
+
+   @Test
+   void shouldSerializeAgainForNewVersion() throws IOException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFragmentCache(cache).applyTo(objectMapper.writer());
+
+      assertThat(writer.writeValueAsString(new Place(1, 1, "old", TestUtils.point(1, 2)))).contains("old");
+      assertThat(writer.writeValueAsString(new Place(1, 1, "new", TestUtils.point(1, 2)))).contains("old");
+      assertThat(writer.writeValueAsString(new Place(1, 2, "new", TestUtils.point(1, 2)))).contains("new");
+      assertThat(cache.getHitCount()).isEqualTo(1);
+      assertThat(cache.getMissCount()).isEqualTo(2);
+   }
+
+   @Test
+   void shouldSeparateOptionsAffectingTheOutput() throws IOException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000);
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withFragmentCache(cache);
+      Place place = new Place(1, 1, "a", TestUtils.point(1.23456, 2));
+
+      assertThat(options.applyTo(objectMapper.writer()).writeValueAsString(place)).contains("[1.23456,2.0]");
+      assertThat(options.withPrecision(2).applyTo(objectMapper.writer()).writeValueAsString(place)).contains("[1.23,2.0]");
+      assertThat(options.withBbox(true).applyTo(objectMapper.writer()).writeValueAsString(place)).contains("\"bbox\"");
+      assertThat(cache.size()).isEqualTo(3);
+      assertThat(cache.getHitCount()).isZero();
+   }
+
+   @Test
+   void shouldSeparateExactTolerances() throws IOException, ParseException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000);
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withFragmentCache(cache);
+      Place place = new Place(1, 1, "a", new WKTReader().read("LINESTRING (0 0, 5 2.5, 10 0)"));
+
+      assertThat(options.withTolerance(2).applyTo(objectMapper.writer()).writeValueAsString(place))
+         .contains("[[0.0,0.0],[5.0,2.5],[10.0,0.0]]");
+      // the same bucket, but another simplified geometry
+      assertThat(options.withTolerance(3).applyTo(objectMapper.writer()).writeValueAsString(place))
+         .contains("[[0.0,0.0],[10.0,0.0]]");
+      assertThat(cache.size()).isEqualTo(2);
+      assertThat(cache.getHitCount()).isZero();
+   }
+
+   @Test
+   void shouldSeparateSerializationFeaturesAndViews() throws IOException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000);
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withFragmentCache(cache);
+      Event event = new Event(1, 1, new Date(0), new Details("summary", "internal"));
+
+      assertThat(options.applyTo(objectMapper.writer()).writeValueAsString(event)).contains("\"at\":0", "internal");
+      assertThat(options.applyTo(objectMapper.writer().without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)).writeValueAsString(event))
+         .contains("\"at\":\"1970-01-01T");
+      assertThat(options.applyTo(objectMapper.writerWithView(Summary.class)).writeValueAsString(event))
+         .contains("summary").doesNotContain("internal");
+      assertThat(options.applyTo(objectMapper.writer()).writeValueAsString(event)).contains("\"at\":0", "internal");
+      assertThat(cache.size()).isEqualTo(3);
+      assertThat(cache.getHitCount()).isEqualTo(1);
+   }
+
+   @Test
+   void shouldExpandBoundsOfCollectionWithCachedFeatures() throws IOException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFragmentCache(cache).withBbox(true).applyTo(objectMapper.writer());
+      Places places = new Places(asList(new Place(1, 1, "a", TestUtils.point(1, 2)), new Place(2, 1, "b", TestUtils.point(3, 4))));
+
+      String json = writer.writeValueAsString(places);
+      assertThat(writer.writeValueAsString(places)).isEqualTo(json).endsWith("\"bbox\":[1.0,2.0,3.0,4.0]}");
+      assertThat(cache.getHitCount()).isEqualTo(2);
+   }
+
+   @Test
+   void shouldSpliceInParallel() throws IOException {
+      List<Place> features = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+         features.add(new Place(i, 1, "p" + i, TestUtils.point(i, i)));
+      }
+      Places places = new Places(features);
+      FeatureFragmentCache cache = new FeatureFragmentCache(100_000);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFragmentCache(cache).withParallel(true).withChunkSize(3)
+         .applyTo(objectMapper.writer());
+
+      String expectedJson = objectMapper.writeValueAsString(places);
+      assertThat(writer.writeValueAsString(places)).isEqualTo(expectedJson);
+      assertThat(writer.writeValueAsString(places)).isEqualTo(expectedJson);
+      assertThat(cache.getHitCount()).isEqualTo(20);
+   }
+
+   @Test
+   void shouldEvictLeastRecentlyUsedBeyondMaximumWeight() throws IOException {
+      int length = objectMapper.writeValueAsString(new Place(1, 1, "a", TestUtils.point(1, 2))).length();
+      FeatureFragmentCache cache = new FeatureFragmentCache(2L * length);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFragmentCache(cache).applyTo(objectMapper.writer());
+
+      writer.writeValueAsString(new Place(1, 1, "a", TestUtils.point(1, 2)));
+      writer.writeValueAsString(new Place(2, 1, "b", TestUtils.point(1, 2)));
+      writer.writeValueAsString(new Place(1, 1, "a", TestUtils.point(1, 2)));
+      writer.writeValueAsString(new Place(3, 1, "c", TestUtils.point(1, 2)));
+
+      assertThat(cache.size()).isEqualTo(2);
+      assertThat(cache.getWeight()).isEqualTo(2L * length);
+      assertThat(cache.getEvictionCount()).isEqualTo(1);
+      writer.writeValueAsString(new Place(1, 1, "a", TestUtils.point(1, 2)));
+      assertThat(cache.getHitCount()).isEqualTo(2);
+      cache.clear();
+      assertThat(cache.size()).isZero();
+      assertThat(cache.getWeight()).isZero();
+   }
+
+   @Test
+   void shouldUseKeyFunction() throws IOException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000, feature -> ((Unversioned) feature).name);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFragmentCache(cache).applyTo(objectMapper.writer());
+
+      writer.writeValueAsString(new Unversioned("a"));
+      writer.writeValueAsString(new Unversioned("a"));
+      assertThat(cache.getHitCount()).isEqualTo(1);
+   }
+
+   @Test
+   void shouldNotCacheFeaturesWithoutKey() throws IOException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFragmentCache(cache).applyTo(objectMapper.writer());
+
+      writer.writeValueAsString(new Unversioned("a"));
+      writer.writeValueAsString(new Place(1, null, "a", TestUtils.point(1, 2)));
+      assertThat(cache.size()).isZero();
+      assertThat(cache.getMissCount()).isZero();
+   }
+
+   @Test
+   void shouldNotSpliceIntoPrettyPrintedOutput() throws IOException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(10_000);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFragmentCache(cache).applyTo(objectMapper.writerWithDefaultPrettyPrinter());
+
+      writer.writeValueAsString(new Place(1, 1, "a", TestUtils.point(1, 2)));
+      assertThat(cache.size()).isZero();
+   }
+
+   @Test
+   void shouldRejectInvalidMaximumWeight() {
+      IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new FeatureFragmentCache(0));
+      assertThat(exception).hasMessage("Maximum weight must be positive: 0");
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonId private final int id;
+      @GeoJsonVersion private final Integer version;
+      @GeoJsonProperty private final String name;
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(int id, Integer version, String name, Geometry location) {
+         this.id = id;
+         this.version = version;
+         this.name = name;
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Event {
+
+      @GeoJsonId private final int id;
+      @GeoJsonVersion private final Integer version;
+      @GeoJsonProperty private final Date at;
+      @GeoJsonProperty private final Details details;
+
+      Event(int id, Integer version, Date at, Details details) {
+         this.id = id;
+         this.version = version;
+         this.at = at;
+         this.details = details;
+      }
+   }
+
+   static class Details {
+
+      @JsonView(Summary.class) public final String summary;
+      @JsonView(Internal.class) public final String internal;
+
+      Details(String summary, String internal) {
+         this.summary = summary;
+         this.internal = internal;
+      }
+   }
+
+   interface Summary {
+   }
+
+   interface Internal {
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Unversioned {
+
+      @GeoJsonProperty private final String name;
+
+      Unversioned(String name) {
+         this.name = name;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Places {
+
+      @GeoJsonFeatures private final List<Place> places;
+
+      Places(List<Place> places) {
+         this.places = places;
+      }
+   }
+}
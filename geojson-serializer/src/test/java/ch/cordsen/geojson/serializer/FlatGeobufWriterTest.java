@@ -0,0 +1,461 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperties;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link FlatGeobufWriter}, reading the output with a minimal <em>FlatBuffers</em> reader.
+ */
+class FlatGeobufWriterTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+
+   private static ObjectMapper objectMapper;
+
+   @TempDir
+   Path directory;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteHeaderIndexAndFeatures() throws IOException {
+      Places places = new Places();
+      for (int i = 0; i < 100; i++) {
+         places.places.add(new Place(i, "Name " + i, i % 2 == 0 ? i : null, TestUtils.point(i % 10, i / 10 * 2)));
+      }
+      Path file = directory.resolve("places.fgb");
+      new FlatGeobufWriter(objectMapper).withCrs(4326).withName("places").write(places, file);
+      FlatGeobuf fgb = new FlatGeobuf(Files.readAllBytes(file));
+
+      assertThat(fgb.header.longField(8)).isEqualTo(100);
+      assertThat(fgb.header.byteField(2, 0)).isEqualTo(1);
+      assertThat(fgb.header.byteField(3, 0)).isEqualTo(0);
+      assertThat(fgb.header.shortField(9, 16)).isEqualTo(16);
+      assertThat(fgb.header.string(0)).isEqualTo("places");
+      assertThat(fgb.header.doubles(1)).containsExactly(0, 0, 9, 18);
+      assertThat(fgb.header.table(10).intField(1)).isEqualTo(4326);
+      assertThat(fgb.header.table(10).string(0)).isEqualTo("EPSG");
+      assertThat(fgb.columnNames()).containsExactly("id", "name", "rank");
+      assertThat(fgb.columnTypes()).containsExactly(7, 11, 5);
+
+      // 100 leaves, 7 nodes and the root
+      assertThat(fgb.nodeCount).isEqualTo(108);
+      assertThat(fgb.nodeBounds(0)).containsExactly(0, 0, 9, 18);
+      Set<Long> ids = new HashSet<>();
+      for (int node = 8; node < 108; node++) {
+         FlatBufferTable feature = fgb.feature(fgb.nodeOffset(node));
+         double[] xy = feature.table(0).doubles(1);
+         assertThat(fgb.nodeBounds(node)).containsExactly(xy[0], xy[1], xy[0], xy[1]);
+         Map<String, Object> properties = fgb.properties(feature);
+         long id = (Long) properties.get("id");
+         ids.add(id);
+         assertThat(properties.get("name")).isEqualTo("Name " + id);
+         assertThat(properties.get("rank")).isEqualTo(id % 2 == 0 ? (int) id : null);
+         assertThat(xy).containsExactly(id % 10, id / 10 * 2);
+         // the leaf is covered by its parent
+         int parent = 1 + (node - 8) / 16;
+         assertThat(fgb.nodeOffset(parent)).isEqualTo(8 + (parent - 1) * 16);
+         double[] parentBounds = fgb.nodeBounds(parent);
+         assertThat(xy[0]).isBetween(parentBounds[0], parentBounds[2]);
+         assertThat(xy[1]).isBetween(parentBounds[1], parentBounds[3]);
+      }
+      assertThat(ids).hasSize(100);
+   }
+
+   @Test
+   void shouldWriteGeometryTypes() throws IOException, ParseException {
+      Places places = new Places();
+      places.places.add(new Place(1, "Polygon", null, wktReader.read("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 2 1, 2 2, 1 1))")));
+      places.places.add(new Place(2, "MultiLineString", null, wktReader.read("MULTILINESTRING((0 0, 1 1), (2 2, 3 3, 4 4))")));
+      places.places.add(new Place(3, "MultiPolygon", null, wktReader.read("MULTIPOLYGON(((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))")));
+      places.places.add(new Place(4, "GeometryCollection", null, wktReader.read("GEOMETRYCOLLECTION(POINT(7 8), LINESTRING(1 2, 3 4))")));
+      FlatGeobuf fgb = new FlatGeobuf(write(new FlatGeobufWriter(objectMapper).withIndexNodeSize(0), places));
+
+      assertThat(fgb.header.byteField(2, 0)).isEqualTo(0);
+      assertThat(fgb.header.shortField(9, 16)).isEqualTo(0);
+      assertThat(fgb.nodeCount).isEqualTo(0);
+      List<FlatBufferTable> features = fgb.features(4);
+
+      FlatBufferTable polygon = features.get(0).table(0);
+      assertThat(polygon.byteField(6, 0)).isEqualTo(3);
+      assertThat(polygon.ints(0)).containsExactly(5, 9);
+      assertThat(polygon.doubles(1)).hasSize(18).startsWith(0, 0, 10, 0).endsWith(1, 1);
+
+      FlatBufferTable multiLineString = features.get(1).table(0);
+      assertThat(multiLineString.byteField(6, 0)).isEqualTo(5);
+      assertThat(multiLineString.ints(0)).containsExactly(2, 5);
+
+      FlatBufferTable multiPolygon = features.get(2).table(0);
+      assertThat(multiPolygon.byteField(6, 0)).isEqualTo(6);
+      List<FlatBufferTable> polygons = multiPolygon.tables(7);
+      assertThat(polygons).hasSize(2);
+      assertThat(polygons.get(1).doubles(1)).containsExactly(5, 5, 6, 5, 6, 6, 5, 5);
+      assertThat(polygons.get(1).ints(0)).isNull();
+
+      List<FlatBufferTable> parts = features.get(3).table(0).tables(7);
+      assertThat(parts.get(0).byteField(6, 0)).isEqualTo(1);
+      assertThat(parts.get(0).doubles(1)).containsExactly(7, 8);
+      assertThat(parts.get(1).byteField(6, 0)).isEqualTo(2);
+   }
+
+   @Test
+   void shouldWriteZAndOmitIndexWithoutGeometry() throws IOException {
+      GeometryFactory geometryFactory = new GeometryFactory();
+      Places places = new Places();
+      places.places.add(new Place(1, "3D", null, geometryFactory.createPoint(new Coordinate(1, 2, 3))));
+      places.places.add(new Place(2, "2D", null, TestUtils.point(4, 5)));
+      places.places.add(new Place(3, "None", null, null));
+      FlatGeobuf fgb = new FlatGeobuf(write(new FlatGeobufWriter(objectMapper), places));
+
+      assertThat(fgb.header.byteField(3, 0)).isEqualTo(1);
+      assertThat(fgb.header.shortField(9, 16)).isEqualTo(0);
+      List<FlatBufferTable> features = fgb.features(3);
+      assertThat(features.get(0).table(0).doubles(2)).containsExactly(3);
+      assertThat(features.get(1).table(0).doubles(2)).containsExactly(Double.NaN);
+      assertThat(features.get(2).table(0)).isNull();
+   }
+
+   @Test
+   void shouldWritePropertiesOfMap() throws IOException {
+      Map<String, Object> properties = new LinkedHashMap<>();
+      properties.put("flag", true);
+      properties.put("tags", asList("a", "b"));
+      properties.put("small", (short) 7);
+      properties.put("created", new Date(0));
+      properties.put("data", new byte[]{1, 2});
+      FlatGeobuf fgb = new FlatGeobuf(write(new FlatGeobufWriter(objectMapper), new Tagged(null, properties)));
+
+      assertThat(fgb.columnNames()).containsExactly("flag", "tags", "small", "created", "data");
+      assertThat(fgb.columnTypes()).containsExactly(2, 12, 3, 13, 14);
+      assertThat(fgb.header.longField(8)).isEqualTo(1);
+      Map<String, Object> decoded = fgb.properties(fgb.features(1).get(0));
+      assertThat(decoded.get("flag")).isEqualTo(true);
+      assertThat(decoded.get("tags")).isEqualTo("[\"a\",\"b\"]");
+      assertThat(decoded.get("small")).isEqualTo((short) 7);
+      assertThat(decoded.get("created")).isEqualTo("1970-01-01T00:00:00Z");
+      assertThat((byte[]) decoded.get("data")).containsExactly(1, 2);
+   }
+
+   @Test
+   void shouldRejectMismatchedProperties() {
+      FlatGeobufWriter writer = new FlatGeobufWriter(objectMapper);
+      Map<String, Object> first = Collections.singletonMap("value", 1L);
+      Map<String, Object> second = Collections.singletonMap("value", "text");
+      TaggedCollection collection = new TaggedCollection(asList(new Tagged(1, first), new Tagged(2, second)));
+      IOException e = assertThrows(IOException.class, () -> write(writer, collection));
+      assertThat(e.getMessage()).isEqualTo("Property value of java.lang.String does not match the column type LONG.");
+
+      TaggedCollection outOfRange = new TaggedCollection(asList(new Tagged(1, Collections.singletonMap("value", 1)),
+         new Tagged(2, Collections.singletonMap("value", Long.MAX_VALUE))));
+      assertThrows(IOException.class, () -> write(writer, outOfRange));
+   }
+
+   @Test
+   void shouldRejectGeometryCollections() {
+      FlatGeobufWriter writer = new FlatGeobufWriter(objectMapper);
+      assertThrows(IllegalArgumentException.class, () -> write(writer, new Shapes()));
+      assertThrows(IllegalArgumentException.class, () -> write(writer, "no GeoJSON"));
+      assertThrows(IllegalArgumentException.class, () -> writer.withIndexNodeSize(1));
+   }
+
+   private static byte[] write(FlatGeobufWriter writer, Object object) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      writer.write(object, out);
+      return out.toByteArray();
+   }
+
+   /**
+    * The sections of a <em>FlatGeobuf</em> file.
+    */
+   private static final class FlatGeobuf {
+
+      final ByteBuffer bb;
+      final FlatBufferTable header;
+      final int nodeCount;
+      final int indexStart;
+      final int featuresStart;
+
+      FlatGeobuf(byte[] bytes) {
+         bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+         assertThat(Arrays.copyOf(bytes, 8)).containsExactly(0x66, 0x67, 0x62, 0x03, 0x66, 0x67, 0x62, 0x00);
+         header = FlatBufferTable.root(bb, 8);
+         indexStart = 12 + bb.getInt(8);
+         int nodeSize = header.shortField(9, 16);
+         int count = (int) header.longField(8);
+         nodeCount = nodeSize > 0 && count > 0 ? PackedRTree.levelBounds(count, nodeSize)[0][1] : 0;
+         featuresStart = indexStart + nodeCount * PackedRTree.NODE_SIZE;
+      }
+
+      List<String> columnNames() {
+         List<String> names = new ArrayList<>();
+         for (FlatBufferTable column : header.tables(7)) {
+            names.add(column.string(0));
+         }
+         return names;
+      }
+
+      List<Integer> columnTypes() {
+         List<Integer> types = new ArrayList<>();
+         for (FlatBufferTable column : header.tables(7)) {
+            types.add(column.byteField(1, 0));
+         }
+         return types;
+      }
+
+      double[] nodeBounds(int node) {
+         int position = indexStart + node * PackedRTree.NODE_SIZE;
+         return new double[]{bb.getDouble(position), bb.getDouble(position + 8), bb.getDouble(position + 16), bb.getDouble(position + 24)};
+      }
+
+      long nodeOffset(int node) {
+         return bb.getLong(indexStart + node * PackedRTree.NODE_SIZE + 32);
+      }
+
+      FlatBufferTable feature(long offset) {
+         return FlatBufferTable.root(bb, featuresStart + (int) offset);
+      }
+
+      List<FlatBufferTable> features(int count) {
+         List<FlatBufferTable> features = new ArrayList<>();
+         int position = featuresStart;
+         for (int i = 0; i < count; i++) {
+            features.add(FlatBufferTable.root(bb, position));
+            position += 4 + bb.getInt(position);
+         }
+         assertThat(position).isEqualTo(bb.limit());
+         return features;
+      }
+
+      Map<String, Object> properties(FlatBufferTable feature) {
+         List<String> names = columnNames();
+         List<Integer> types = columnTypes();
+         Map<String, Object> properties = new HashMap<>();
+         ByteBuffer values = feature.bytes(1);
+         while (values != null && values.hasRemaining()) {
+            int column = values.getShort() & 0xFFFF;
+            Object value;
+            switch (types.get(column)) {
+               case 2:
+                  value = values.get() != 0;
+                  break;
+               case 3:
+                  value = values.getShort();
+                  break;
+               case 5:
+                  value = values.getInt();
+                  break;
+               case 7:
+                  value = values.getLong();
+                  break;
+               case 14:
+                  value = new byte[values.getInt()];
+                  values.get((byte[]) value);
+                  break;
+               default:
+                  byte[] utf8 = new byte[values.getInt()];
+                  values.get(utf8);
+                  value = new String(utf8, UTF_8);
+            }
+            properties.put(names.get(column), value);
+         }
+         return properties;
+      }
+   }
+
+   /**
+    * A table of a size-prefixed <em>FlatBuffer</em>, verifying the alignment of its vectors.
+    */
+   private static final class FlatBufferTable {
+
+      final ByteBuffer bb;
+      final int base;
+      final int position;
+
+      FlatBufferTable(ByteBuffer bb, int base, int position) {
+         this.bb = bb;
+         this.base = base;
+         this.position = position;
+      }
+
+      static FlatBufferTable root(ByteBuffer bb, int base) {
+         return new FlatBufferTable(bb, base, base + 4 + bb.getInt(base + 4));
+      }
+
+      int field(int index) {
+         int vtable = position - bb.getInt(position);
+         int offset = 4 + index * 2;
+         return offset < bb.getShort(vtable) ? bb.getShort(vtable + offset) : 0;
+      }
+
+      int byteField(int index, int defaultValue) {
+         int field = field(index);
+         return field != 0 ? bb.get(position + field) : defaultValue;
+      }
+
+      int shortField(int index, int defaultValue) {
+         int field = field(index);
+         return field != 0 ? bb.getShort(position + field) & 0xFFFF : defaultValue;
+      }
+
+      int intField(int index) {
+         int field = field(index);
+         return field != 0 ? bb.getInt(position + field) : 0;
+      }
+
+      long longField(int index) {
+         int field = field(index);
+         if (field == 0) {
+            return 0;
+         }
+         assertThat((position + field - base) % 8).isZero();
+         return bb.getLong(position + field);
+      }
+
+      private int vector(int index, int alignment) {
+         int field = field(index);
+         if (field == 0) {
+            return -1;
+         }
+         int vector = position + field + bb.getInt(position + field);
+         assertThat((vector + 4 - base) % alignment).isZero();
+         return vector;
+      }
+
+      FlatBufferTable table(int index) {
+         int field = field(index);
+         return field != 0 ? new FlatBufferTable(bb, base, position + field + bb.getInt(position + field)) : null;
+      }
+
+      List<FlatBufferTable> tables(int index) {
+         int vector = vector(index, 4);
+         List<FlatBufferTable> tables = new ArrayList<>();
+         for (int i = 0; i < bb.getInt(vector); i++) {
+            int element = vector + 4 + i * 4;
+            tables.add(new FlatBufferTable(bb, base, element + bb.getInt(element)));
+         }
+         return tables;
+      }
+
+      String string(int index) {
+         ByteBuffer bytes = bytes(index);
+         byte[] utf8 = new byte[bytes.remaining()];
+         bytes.get(utf8);
+         return new String(utf8, UTF_8);
+      }
+
+      ByteBuffer bytes(int index) {
+         int vector = vector(index, 1);
+         if (vector < 0) {
+            return null;
+         }
+         ByteBuffer bytes = bb.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+         bytes.position(vector + 4).limit(vector + 4 + bb.getInt(vector));
+         return bytes.slice().order(ByteOrder.LITTLE_ENDIAN);
+      }
+
+      double[] doubles(int index) {
+         int vector = vector(index, 8);
+         if (vector < 0) {
+            return null;
+         }
+         double[] values = new double[bb.getInt(vector)];
+         for (int i = 0; i < values.length; i++) {
+            values[i] = bb.getDouble(vector + 4 + i * 8);
+         }
+         return values;
+      }
+
+      int[] ints(int index) {
+         int vector = vector(index, 4);
+         if (vector < 0) {
+            return null;
+         }
+         int[] values = new int[bb.getInt(vector)];
+         for (int i = 0; i < values.length; i++) {
+            values[i] = bb.getInt(vector + 4 + i * 4);
+         }
+         return values;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   static class Place {
+
+      @GeoJsonId private final long id;
+      @GeoJsonProperty private final String name;
+      @GeoJsonProperty private final Integer rank;
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(long id, String name, Integer rank, Geometry location) {
+         this.id = id;
+         this.name = name;
+         this.rank = rank;
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   static class Places {
+
+      @GeoJsonFeatures private final List<Place> places = new ArrayList<>();
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   static class Tagged {
+
+      @GeoJsonId private final Integer id;
+      @GeoJsonProperties private final Map<String, Object> properties;
+
+      Tagged(Integer id, Map<String, Object> properties) {
+         this.id = id;
+         this.properties = properties;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   static class TaggedCollection {
+
+      @GeoJsonFeatures private final List<Tagged> features;
+
+      TaggedCollection(List<Tagged> features) {
+         this.features = features;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   static class Shapes {
+
+      @GeoJsonGeometries private final List<Geometry> shapes = Collections.singletonList(TestUtils.point(1, 2));
+   }
+}
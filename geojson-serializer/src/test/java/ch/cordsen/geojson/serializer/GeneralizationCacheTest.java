@@ -0,0 +1,114 @@
+package ch.cordsen.geojson.serializer;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link GeneralizationCache}.
+ */
+class GeneralizationCacheTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+
+   @Test
+   void shouldReturnCachedGeometryOfSameBucket() throws ParseException {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      Geometry line = wktReader.read("LINESTRING (0 0, 1 0.1, 2 0, 3 0.1, 4 0)");
+
+      Geometry simplified = cache.simplify(String.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 0.5);
+      assertThat(simplified.getNumPoints()).isEqualTo(2);
+      assertThat(cache.simplify(String.class, 1, wktReader.read(line.toText()), Simplification.TOPOLOGY_PRESERVING, 0.7)).isSameAs(simplified);
+      assertThat(cache.size()).isEqualTo(1);
+   }
+
+   @Test
+   void shouldSeparateBucketsTypesAndSimplifications() throws ParseException {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      Geometry line = wktReader.read("LINESTRING (0 0, 1 0.1, 2 0, 3 0.1, 4 0)");
+
+      cache.simplify(String.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 0.5);
+      cache.simplify(String.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 0.05);
+      cache.simplify(Integer.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 0.5);
+      cache.simplify(String.class, 1, line, Simplification.VISVALINGAM_WHYATT, 0.5);
+      assertThat(cache.size()).isEqualTo(4);
+      assertThat(cache.simplify(String.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 0.05).getNumPoints()).isEqualTo(5);
+   }
+
+   @Test
+   void shouldSimplifyChangedGeometryAgain() throws ParseException {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      Geometry simplified = cache.simplify(String.class, 1, wktReader.read("LINESTRING (0 0, 1 0.1, 2 0)"), Simplification.TOPOLOGY_PRESERVING, 0.5);
+
+      Geometry changed = cache.simplify(String.class, 1, wktReader.read("LINESTRING (0 0, 1 0.1, 5 0)"), Simplification.TOPOLOGY_PRESERVING, 0.5);
+      assertThat(changed).isNotSameAs(simplified);
+      assertThat(changed.toText()).isEqualTo("LINESTRING (0 0, 5 0)");
+      assertThat(cache.size()).isEqualTo(1);
+   }
+
+   @Test
+   void shouldSimplifyGeometryOfSameFingerprintAgain() throws ParseException {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      // same number of points and envelope, but another type
+      cache.simplify(String.class, 7, wktReader.read("LINESTRING (0 0, 1 1)"), Simplification.TOPOLOGY_PRESERVING, 3);
+      assertThat(cache.simplify(String.class, 7, wktReader.read("MULTIPOINT ((0 0), (1 1))"), Simplification.TOPOLOGY_PRESERVING, 3))
+         .isInstanceOf(MultiPoint.class);
+      cache.simplify(String.class, 8, wktReader.read("POINT EMPTY"), Simplification.TOPOLOGY_PRESERVING, 3);
+      assertThat(cache.simplify(String.class, 8, wktReader.read("POLYGON EMPTY"), Simplification.TOPOLOGY_PRESERVING, 3))
+         .isInstanceOf(Polygon.class);
+      // an interior vertex moved within the envelope
+      cache.simplify(String.class, 9, wktReader.read("POLYGON ((0 0, 10 0, 10 10, 0 10, 5 5, 0 0))"), Simplification.TOPOLOGY_PRESERVING, 0.5);
+      assertThat(cache.simplify(String.class, 9, wktReader.read("POLYGON ((0 0, 10 0, 10 10, 0 10, 2 5, 0 0))"), Simplification.TOPOLOGY_PRESERVING, 0.5)
+         .toText()).isEqualTo("POLYGON ((0 0, 10 0, 10 10, 0 10, 2 5, 0 0))");
+   }
+
+   @Test
+   void shouldSimplifyWithExactToleranceWithoutId() throws ParseException {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      Geometry line = wktReader.read("LINESTRING (0 0, 5 2.5, 10 0)");
+      assertThat(cache.simplify(String.class, null, line, Simplification.TOPOLOGY_PRESERVING, 3).getNumPoints()).isEqualTo(2);
+      // the bucket of 3 is 2
+      assertThat(cache.simplify(String.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 3).getNumPoints()).isEqualTo(3);
+   }
+
+   @Test
+   void shouldNotCacheWithoutId() throws ParseException {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      cache.simplify(String.class, null, wktReader.read("LINESTRING (0 0, 1 0.1, 2 0)"), Simplification.TOPOLOGY_PRESERVING, 0.5);
+      assertThat(cache.size()).isZero();
+   }
+
+   @Test
+   void shouldEvictLeastRecentlyUsed() throws ParseException {
+      GeneralizationCache cache = new GeneralizationCache(2);
+      Geometry line = wktReader.read("LINESTRING (0 0, 1 0.1, 2 0)");
+      Geometry first = cache.simplify(String.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 0.5);
+      cache.simplify(String.class, 2, line, Simplification.TOPOLOGY_PRESERVING, 0.5);
+      assertThat(cache.simplify(String.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 0.5)).isSameAs(first);
+      cache.simplify(String.class, 3, line, Simplification.TOPOLOGY_PRESERVING, 0.5);
+
+      assertThat(cache.size()).isEqualTo(2);
+      assertThat(cache.simplify(String.class, 1, line, Simplification.TOPOLOGY_PRESERVING, 0.5)).isSameAs(first);
+      cache.clear();
+      assertThat(cache.size()).isZero();
+   }
+
+   @Test
+   void shouldRoundToleranceDownToBucket() {
+      assertThat(GeneralizationCache.bucket(1)).isEqualTo(1);
+      assertThat(GeneralizationCache.bucket(1.40625)).isEqualTo(1);
+      assertThat(GeneralizationCache.bucket(0.3)).isEqualTo(0.25);
+   }
+
+   @Test
+   void shouldRejectInvalidMaximumSize() {
+      IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new GeneralizationCache(0));
+      assertThat(exception).hasMessage("Maximum size must be positive: 0");
+   }
+}
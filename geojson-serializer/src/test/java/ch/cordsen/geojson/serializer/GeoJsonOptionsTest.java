@@ -0,0 +1,110 @@
+package ch.cordsen.geojson.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link GeoJsonOptions}.
+ */
+class GeoJsonOptionsTest {
+
+   @Test
+   void shouldHaveDefaults() {
+      assertThat(GeoJsonOptions.DEFAULT.isParallel()).isFalse();
+      assertThat(GeoJsonOptions.DEFAULT.getChunkSize()).isEqualTo(1024);
+      assertThat(GeoJsonOptions.DEFAULT.getExecutor()).isSameAs(ForkJoinPool.commonPool());
+      assertThat(GeoJsonOptions.DEFAULT.getPrecision()).isEqualTo(GeoJsonOptions.FULL_PRECISION);
+      assertThat(GeoJsonOptions.DEFAULT.isBbox()).isFalse();
+      assertThat(GeoJsonOptions.DEFAULT.getTolerance()).isZero();
+      assertThat(GeoJsonOptions.DEFAULT.getSimplification()).isEqualTo(Simplification.TOPOLOGY_PRESERVING);
+      assertThat(GeoJsonOptions.DEFAULT.getGeneralizationCache()).isNull();
+      assertThat(GeoJsonOptions.DEFAULT.getFragmentCache()).isNull();
+      assertThat(GeoJsonOptions.DEFAULT.getFilter()).isNull();
+      assertThat(GeoJsonOptions.DEFAULT.getClipping()).isNull();
+   }
+
+   @Test
+   void shouldReturnModifiedCopies() {
+      Executor executor = Runnable::run;
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withParallel(true).withChunkSize(10).withExecutor(executor).withPrecision(6).withBbox(true);
+      assertThat(options.isParallel()).isTrue();
+      assertThat(options.getChunkSize()).isEqualTo(10);
+      assertThat(options.getExecutor()).isSameAs(executor);
+      assertThat(options.getPrecision()).isEqualTo(6);
+      assertThat(options.isBbox()).isTrue();
+      assertThat(GeoJsonOptions.DEFAULT.isParallel()).isFalse();
+      SpatialFilter filter = SpatialFilter.intersecting(new Envelope(0, 1, 0, 1));
+      assertThat(options.withFilter(filter).getFilter()).isSameAs(filter);
+      assertThat(options.withFilter(filter).withFilter(null).getFilter()).isNull();
+      Clipping clipping = Clipping.to(new Envelope(0, 1, 0, 1)).withBuffer(0.1);
+      assertThat(options.withClipping(clipping).getClipping()).isSameAs(clipping);
+   }
+
+   @Test
+   void shouldRejectInvalidChunkSize() {
+      IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> GeoJsonOptions.DEFAULT.withChunkSize(0));
+      assertThat(exception).hasMessage("Chunk size must be positive: 0");
+   }
+
+   @Test
+   void shouldRejectInvalidPrecision() {
+      assertThat(GeoJsonOptions.DEFAULT.withPrecision(0).getPrecision()).isZero();
+      assertThat(GeoJsonOptions.DEFAULT.withPrecision(15).getPrecision()).isEqualTo(15);
+      IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> GeoJsonOptions.DEFAULT.withPrecision(-2));
+      assertThat(exception).hasMessage("Precision must be between -1 and 15: -2");
+      assertThrows(IllegalArgumentException.class, () -> GeoJsonOptions.DEFAULT.withPrecision(16));
+   }
+
+   @Test
+   void shouldReturnGeneralizationOptions() {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withTolerance(0.5).withSimplification(Simplification.VISVALINGAM_WHYATT)
+         .withGeneralizationCache(cache);
+      assertThat(options.getTolerance()).isEqualTo(0.5);
+      assertThat(options.getSimplification()).isEqualTo(Simplification.VISVALINGAM_WHYATT);
+      assertThat(options.getGeneralizationCache()).isSameAs(cache);
+      FeatureFragmentCache fragmentCache = new FeatureFragmentCache(100);
+      assertThat(options.withFragmentCache(fragmentCache).getFragmentCache()).isSameAs(fragmentCache);
+      assertThat(GeoJsonOptions.DEFAULT.withZoom(0).getTolerance()).isEqualTo(1.40625);
+      assertThat(GeoJsonOptions.DEFAULT.withZoom(10).getTolerance()).isEqualTo(1.40625 / 1024);
+   }
+
+   @Test
+   void shouldRejectInvalidGeneralization() {
+      IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> GeoJsonOptions.DEFAULT.withTolerance(-1));
+      assertThat(exception).hasMessage("Tolerance must be zero or positive: -1.0");
+      assertThrows(IllegalArgumentException.class, () -> GeoJsonOptions.DEFAULT.withTolerance(Double.NaN));
+      exception = assertThrows(IllegalArgumentException.class, () -> GeoJsonOptions.DEFAULT.withZoom(31));
+      assertThat(exception).hasMessage("Zoom must be between 0 and 30: 31");
+   }
+
+   @Test
+   void shouldApplyToObjectWriter() {
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withParallel(true);
+      ObjectWriter writer = options.applyTo(new ObjectMapper().writer());
+      assertThat(writer.getAttributes().getAttribute(GeoJsonOptions.class)).isSameAs(options);
+   }
+
+   @Test
+   void shouldApplyToObjectMapper() {
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withParallel(true);
+      ObjectMapper objectMapper = options.applyTo(new ObjectMapper());
+      assertThat(objectMapper.getSerializationConfig().getAttributes().getAttribute(GeoJsonOptions.class)).isSameAs(options);
+   }
+
+   @Test
+   void shouldReturnOptionsOfSerialization() {
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withParallel(true);
+      ObjectMapper objectMapper = new ObjectMapper();
+      assertThat(GeoJsonOptions.of(objectMapper.getSerializerProviderInstance())).isSameAs(GeoJsonOptions.DEFAULT);
+      assertThat(GeoJsonOptions.of(options.applyTo(objectMapper).getSerializerProviderInstance())).isSameAs(options);
+   }
+}
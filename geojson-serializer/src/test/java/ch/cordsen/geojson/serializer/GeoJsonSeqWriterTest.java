@@ -0,0 +1,133 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.testsupport.TestUtils;
+import ch.cordsen.geojson.testsupport.examples.feature.AttractionByField;
+import ch.cordsen.geojson.testsupport.examples.featurecollection.AttractionsByField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link GeoJsonSeqWriter}.
+ */
+class GeoJsonSeqWriterTest {
+
+   private static final AttractionByField attraction1 = new AttractionByField(
+      UUID.fromString("f551106e-3180-4aaa-957c-3f8457d3f942"), "Name 1", "Lorem ipsum 1", TestUtils.point(23, 42));
+   private static final AttractionByField attraction2 = new AttractionByField(
+      UUID.fromString("71c26c20-94ec-11e9-bc42-526af7764f64"), "Name 2", "Lorem ipsum 2", null);
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteRecordSeparatedSequence() throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(objectMapper.writer(), out)) {
+         assertThat(seqWriter.writeAll(asList(attraction1, attraction2))).isEqualTo(2);
+      }
+      assertThat(out.toString(UTF_8.name())).isEqualTo(
+         "\u001E" + objectMapper.writeValueAsString(attraction1) + "\n" +
+            "\u001E" + objectMapper.writeValueAsString(attraction2) + "\n");
+   }
+
+   @Test
+   void shouldWriteNewlineDelimitedSequenceWithoutIndentation() throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(objectMapper.writer(SerializationFeature.INDENT_OUTPUT), out,
+         GeoJsonSeqWriter.Delimiter.NEWLINE, 0)) {
+         seqWriter.write(attraction1);
+         seqWriter.write(attraction2);
+      }
+      assertThat(out.toString(UTF_8.name())).isEqualTo(
+         objectMapper.writeValueAsString(attraction1) + "\n" + objectMapper.writeValueAsString(attraction2) + "\n");
+   }
+
+   @Test
+   void shouldApplyOptionsOfWriter() throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(GeoJsonOptions.DEFAULT.withPrecision(0).applyTo(objectMapper.writer()), out)) {
+         seqWriter.write(new AttractionByField(null, null, null, TestUtils.point(2.4, 48.6)));
+      }
+      assertThat(out.toString(UTF_8.name())).contains("\"coordinates\":[2.0,49.0]");
+   }
+
+   @Test
+   void shouldFlushByThreshold() throws IOException {
+      FlushCountingOutputStream out = new FlushCountingOutputStream();
+      int featureSize = objectMapper.writeValueAsBytes(attraction1).length + 2;
+      try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(objectMapper.writer(), out, GeoJsonSeqWriter.Delimiter.RECORD_SEPARATOR, featureSize * 3)) {
+         for (int i = 0; i < 5; i++) {
+            seqWriter.write(attraction1);
+         }
+         assertThat(out.flushes).isEqualTo(1);
+         assertThat(out.size()).isEqualTo(featureSize * 3);
+         seqWriter.write(attraction1);
+         assertThat(out.flushes).isEqualTo(2);
+         assertThat(out.size()).isEqualTo(featureSize * 6);
+      }
+   }
+
+   @Test
+   void shouldFlushEveryFeatureWithThresholdZero() throws IOException {
+      FlushCountingOutputStream out = new FlushCountingOutputStream();
+      try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(objectMapper.writer(), out, GeoJsonSeqWriter.Delimiter.RECORD_SEPARATOR, 0)) {
+         seqWriter.write(attraction1);
+         assertThat(out.flushes).isEqualTo(1);
+         seqWriter.write(attraction2);
+         assertThat(out.flushes).isEqualTo(2);
+      }
+   }
+
+   @Test
+   void shouldWriteAllAndCloseStream() throws IOException {
+      AtomicBoolean closed = new AtomicBoolean();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(objectMapper.writer(), out)) {
+         assertThat(seqWriter.writeAll(Stream.of(attraction1, attraction2).onClose(() -> closed.set(true)))).isEqualTo(2);
+      }
+      assertThat(closed).isTrue();
+   }
+
+   @Test
+   void shouldRejectObjectsOtherThanFeatures() throws IOException {
+      try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(objectMapper.writer(), new ByteArrayOutputStream())) {
+         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> seqWriter.write(new AttractionsByField()));
+         assertThat(exception).hasMessage("Object is not annotated with @GeoJson(type = FEATURE): " + AttractionsByField.class);
+         List<Object> objects = asList(attraction1, "text");
+         assertThrows(IllegalArgumentException.class, () -> seqWriter.writeAll(objects));
+      }
+   }
+
+   @Test
+   void shouldRejectNegativeFlushThreshold() {
+      assertThrows(IllegalArgumentException.class, () -> new GeoJsonSeqWriter(objectMapper.writer(), new ByteArrayOutputStream(),
+         GeoJsonSeqWriter.Delimiter.NEWLINE, -1));
+   }
+
+   private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+
+      int flushes;
+
+      @Override public void flush() {
+         flushes++;
+      }
+   }
+}
@@ -0,0 +1,175 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the bbox member, see {@link GeoJson#bbox()} and {@link GeoJsonOptions#isBbox()}.
+ */
+class GeoJsonSerializerBboxTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteNoBboxByDefault() throws IOException, ParseException {
+      assertThat(objectMapper.writeValueAsString(new Place(wktReader.read("LINESTRING (1 2, 3 4)")))).doesNotContain("bbox");
+   }
+
+   @Test
+   void shouldWriteBboxOfFeatureByClass() throws IOException, ParseException {
+      assertThat(objectMapper.writeValueAsString(new PlaceWithBbox(wktReader.read("LINESTRING (3 -2, 1 4, 2 0)"))))
+         .isEqualTo("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[3.0,-2.0],[1.0,4.0],[2.0,0.0]]}," +
+            "\"bbox\":[1.0,-2.0,3.0,4.0],\"properties\":null}");
+   }
+
+   @Test
+   void shouldWriteBboxOfFeatureByOptions() throws IOException, ParseException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withBbox(true).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Place(wktReader.read("MULTIPOINT ((5 6), (-1 -2))"))))
+         .contains("\"bbox\":[-1.0,-2.0,5.0,6.0]");
+   }
+
+   @Test
+   void shouldWriteNoBboxWithoutGeometry() throws IOException, ParseException {
+      assertThat(objectMapper.writeValueAsString(new PlaceWithBbox(null))).doesNotContain("bbox");
+      assertThat(objectMapper.writeValueAsString(new PlaceWithBbox(wktReader.read("POINT EMPTY")))).doesNotContain("bbox");
+   }
+
+   @Test
+   void shouldWriteBboxWithZ() throws IOException, ParseException {
+      assertThat(objectMapper.writeValueAsString(new PlaceWithBbox(wktReader.read("LINESTRING Z (1 2 3, 4 5 -6)"))))
+         .contains("\"bbox\":[1.0,2.0,-6.0,4.0,5.0,3.0]");
+   }
+
+   @Test
+   void shouldRoundBboxToPrecision() throws IOException, ParseException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withBbox(true).withPrecision(1).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Place(wktReader.read("LINESTRING (1.04 2.06, 3.01 4.19)"))))
+         .contains("\"coordinates\":[[1.0,2.1],[3.0,4.2]]}", "\"bbox\":[1.0,2.1,3.0,4.2]");
+   }
+
+   @Test
+   void shouldWriteBboxOfFeatureCollectionAndItsFeatures() throws IOException, ParseException {
+      Places places = new Places(asList(
+         new Place(wktReader.read("POINT (1 2)")),
+         new Place(null),
+         new Place(wktReader.read("LINESTRING (-3 0, 0 7)"))));
+      assertThat(objectMapper.writeValueAsString(places)).isEqualTo("{\"type\":\"FeatureCollection\",\"features\":[" +
+         "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1.0,2.0]},\"bbox\":[1.0,2.0,1.0,2.0],\"properties\":null}," +
+         "{\"type\":\"Feature\",\"geometry\":null,\"properties\":null}," +
+         "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[-3.0,0.0],[0.0,7.0]]},\"bbox\":[-3.0,0.0,0.0,7.0],\"properties\":null}]," +
+         "\"bbox\":[-3.0,0.0,1.0,7.0]}");
+   }
+
+   @Test
+   void shouldNotPassBboxToNestedObjects() throws IOException, ParseException {
+      Geometry point = wktReader.read("POINT (1 2)");
+      Places places = new Places(asList(new PlaceWithNeighbour(point, new Place(wktReader.read("POINT (100 200)")))));
+      String json = objectMapper.writeValueAsString(places);
+      assertThat(json).endsWith("\"bbox\":[1.0,2.0,1.0,2.0]}");
+      assertThat(json.split("bbox", -1)).hasSize(3);
+   }
+
+   @Test
+   void shouldWriteSameBboxInParallel() throws IOException, ParseException {
+      List<Object> features = new ArrayList<>();
+      for (int i = 0; i < 25; i++) {
+         features.add(new Place(wktReader.read("POINT (" + i + " " + (-i) + ")")));
+      }
+      Places places = new Places(features);
+      String expectedJson = objectMapper.writeValueAsString(places);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withParallel(true).withChunkSize(4).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(places)).isEqualTo(expectedJson).endsWith("\"bbox\":[0.0,-24.0,24.0,0.0]}");
+   }
+
+   @Test
+   void shouldWriteBboxOfGeometryCollection() throws IOException, ParseException {
+      Shapes shapes = new Shapes(asList(wktReader.read("POINT (1 2)"), wktReader.read("POLYGON ((0 0, 4 0, 4 -3, 0 0))")));
+      assertThat(objectMapper.writeValueAsString(shapes)).isEqualTo("{\"type\":\"GeometryCollection\",\"geometries\":[" +
+         "{\"type\":\"Point\",\"coordinates\":[1.0,2.0]}," +
+         "{\"type\":\"Polygon\",\"coordinates\":[[[0.0,0.0],[4.0,0.0],[4.0,-3.0],[0.0,0.0]]]}]," +
+         "\"bbox\":[0.0,-3.0,4.0,2.0]}");
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(Geometry location) {
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE, bbox = true)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class PlaceWithBbox {
+
+      @GeoJsonGeometry private final Geometry location;
+
+      PlaceWithBbox(Geometry location) {
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class PlaceWithNeighbour {
+
+      @GeoJsonGeometry private final Geometry location;
+      @GeoJsonProperty private final Place neighbour;
+
+      PlaceWithNeighbour(Geometry location, Place neighbour) {
+         this.location = location;
+         this.neighbour = neighbour;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION, bbox = true)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Places {
+
+      @GeoJsonFeatures private final List<?> places;
+
+      Places(List<?> places) {
+         this.places = places;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION, bbox = true)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Shapes {
+
+      @GeoJsonGeometries private final List<Geometry> shapes;
+
+      Shapes(List<Geometry> shapes) {
+         this.shapes = shapes;
+      }
+   }
+}
@@ -0,0 +1,145 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for binary formats, written by a {@link com.fasterxml.jackson.dataformat.cbor.CBORGenerator} and read back
+ * to compare them with textual JSON.
+ */
+class GeoJsonSerializerBinaryFormatTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+
+   private static ObjectMapper objectMapper;
+   private static ObjectMapper cborMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+      cborMapper = new ObjectMapper(new CBORFactory());
+   }
+
+   @Test
+   void shouldWriteFeatureAsCbor() throws IOException, ParseException {
+      for (String wkt : new String[]{"POINT (1.5 2.5)", "POINT Z (1 2 3)", "POINT EMPTY", "LINESTRING (1 2, 3 4)",
+         "POLYGON ((0 0, 1 0, 1 1, 0 0), (0.2 0.1, 0.8 0.1, 0.8 0.7, 0.2 0.1))", "MULTIPOINT ((1 2), (3 4))",
+         "MULTILINESTRING ((1 2, 3 4), (5 6, 7 8))", "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((2 2, 3 2, 3 3, 2 2)))",
+         "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (1 2, 3 4))"}) {
+         Place place = new Place(7, "Name", wktReader.read(wkt));
+
+         assertThat(readCbor(cborMapper.writeValueAsBytes(place))).as(wkt).isEqualTo(objectMapper.valueToTree(place));
+      }
+   }
+
+   @Test
+   void shouldWriteFeatureCollectionAsCbor() throws IOException {
+      Places places = new Places();
+      for (int i = 0; i < 10; i++) {
+         places.places.add(new Place(i, "Name " + i, TestUtils.point(i, -i)));
+      }
+      JsonNode expected = objectMapper.valueToTree(places);
+
+      assertThat(readCbor(cborMapper.writeValueAsBytes(places))).isEqualTo(expected);
+      ObjectWriter parallelWriter = GeoJsonOptions.DEFAULT.withParallel(true).withChunkSize(2).applyTo(cborMapper.writer());
+      assertThat(readCbor(parallelWriter.writeValueAsBytes(places))).isEqualTo(expected);
+   }
+
+   @Test
+   void shouldWriteGeometryCollectionAsCbor() throws IOException, ParseException {
+      Shapes shapes = new Shapes(wktReader.read("POLYGON ((0 0, 1 0, 1 1, 0 0))"));
+
+      assertThat(readCbor(cborMapper.writeValueAsBytes(shapes))).isEqualTo(objectMapper.valueToTree(shapes));
+   }
+
+   @Test
+   void shouldRoundToPrecision() throws IOException {
+      Place place = new Place(1, null, TestUtils.point(2.2945271234, 48.8590925));
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withPrecision(2).applyTo(cborMapper.writer());
+
+      JsonNode coordinates = readCbor(writer.writeValueAsBytes(place)).at("/geometry/coordinates");
+      assertThat(coordinates.get(0).doubleValue()).isEqualTo(2.29);
+      assertThat(coordinates.get(1).doubleValue()).isEqualTo(48.86);
+   }
+
+   @Test
+   void shouldWritePackedPositions() throws IOException {
+      byte[] cbor = cborMapper.writeValueAsBytes(new Place(1, null, TestUtils.point(1.5, 2.5)));
+
+      // a definite-length array of two doubles instead of an indefinite-length array with a break marker
+      ByteBuffer position = ByteBuffer.allocate(19).put((byte) 0x82)
+         .put((byte) 0xFB).putDouble(1.5)
+         .put((byte) 0xFB).putDouble(2.5);
+      assertThat(indexOf(cbor, position.array())).isPositive();
+   }
+
+   private static JsonNode readCbor(byte[] cbor) throws IOException {
+      return cborMapper.readTree(cbor);
+   }
+
+   private static int indexOf(byte[] bytes, byte[] sequence) {
+      for (int i = 0; i <= bytes.length - sequence.length; i++) {
+         if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + sequence.length), sequence)) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonId private final int id;
+      @GeoJsonProperty private final String name;
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(int id, String name, Geometry location) {
+         this.id = id;
+         this.name = name;
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Places {
+
+      @GeoJsonFeatures private final List<Place> places = new ArrayList<>();
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Shapes {
+
+      @GeoJsonGeometries private final List<Geometry> shapes;
+
+      Shapes(Geometry shape) {
+         this.shapes = Collections.singletonList(shape);
+      }
+   }
+}
@@ -0,0 +1,163 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonVersion;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the clipping of geometries, see {@link GeoJsonOptions#getClipping()} and {@link Clipping}.
+ */
+class GeoJsonSerializerClippingTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+   private static final Clipping clipping = Clipping.to(new Envelope(0, 10, 0, 10));
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteGeometriesInFullWithoutClipping() throws IOException, ParseException {
+      assertThat(objectMapper.writeValueAsString(new Place(1, wktReader.read("LINESTRING (5 5, 20 5)"))))
+         .contains("[[5.0,5.0],[20.0,5.0]]");
+   }
+
+   @Test
+   void shouldClipGeometryOfFeature() throws IOException, ParseException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withClipping(clipping).withBbox(true).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Place(1, wktReader.read("LINESTRING (5 5, 20 5)"))))
+         .isEqualTo("{\"type\":\"Feature\",\"id\":1,\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[5.0,5.0],[10.0,5.0]]}," +
+            "\"bbox\":[5.0,5.0,10.0,5.0],\"properties\":null}");
+      assertThat(writer.writeValueAsString(new Place(2, wktReader.read("POINT (20 20)"))))
+         .isEqualTo("{\"type\":\"Feature\",\"id\":2,\"geometry\":null,\"properties\":null}");
+   }
+
+   @Test
+   void shouldClipToBuffer() throws IOException, ParseException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withClipping(clipping.withBuffer(1)).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Place(1, wktReader.read("LINESTRING (5 5, 20 5)"))))
+         .contains("[[5.0,5.0],[11.0,5.0]]");
+   }
+
+   @Test
+   void shouldDropFeaturesOutsideOfBox() throws IOException, ParseException {
+      Places places = new Places(asList(
+         new Place(1, wktReader.read("POINT (5 5)")),
+         new Place(2, wktReader.read("POINT (15 5)")),
+         new Place(3, null),
+         new Place(4, wktReader.read("LINESTRING (-5 5, 5 20)")),
+         new Place(5, wktReader.read("LINESTRING (-5 5, 15 5)"))));
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withClipping(clipping).applyTo(objectMapper.writer());
+      String expectedJson = "{\"type\":\"FeatureCollection\",\"features\":[" +
+         "{\"type\":\"Feature\",\"id\":1,\"geometry\":{\"type\":\"Point\",\"coordinates\":[5.0,5.0]},\"properties\":null}," +
+         "{\"type\":\"Feature\",\"id\":3,\"geometry\":null,\"properties\":null}," +
+         "{\"type\":\"Feature\",\"id\":5,\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0.0,5.0],[10.0,5.0]]},\"properties\":null}]}";
+      assertThat(writer.writeValueAsString(places)).isEqualTo(expectedJson);
+      ObjectWriter parallelWriter = GeoJsonOptions.DEFAULT.withClipping(clipping).withParallel(true).withChunkSize(2).applyTo(objectMapper.writer());
+      assertThat(parallelWriter.writeValueAsString(places)).isEqualTo(expectedJson);
+   }
+
+   @Test
+   void shouldQueryIndexedFeaturesByClipping() throws IOException, ParseException, DocumentFactoryException {
+      List<Place> places = asList(
+         new Place(1, wktReader.read("POINT (5 5)")),
+         new Place(2, wktReader.read("POINT (15 5)")),
+         new Place(3, wktReader.read("POINT (9 9)")));
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withClipping(clipping).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Places(IndexedFeatures.of(places)))).isEqualTo(writer.writeValueAsString(new Places(places)));
+      ObjectWriter filtered = GeoJsonOptions.DEFAULT.withClipping(clipping)
+         .withFilter(SpatialFilter.intersecting(new Envelope(8, 20, 0, 20))).applyTo(objectMapper.writer());
+      assertThat(filtered.writeValueAsString(new Places(IndexedFeatures.of(places)))).contains("\"id\":3").doesNotContain("\"id\":1", "\"id\":2");
+   }
+
+   @Test
+   void shouldClipElementsOfGeometryCollection() throws IOException, ParseException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withClipping(clipping).applyTo(objectMapper.writer());
+      Shapes shapes = new Shapes(asList(wktReader.read("POINT (20 20)"), wktReader.read("POINT (1 2)")));
+      assertThat(writer.writeValueAsString(shapes))
+         .isEqualTo("{\"type\":\"GeometryCollection\",\"geometries\":[{\"type\":\"Point\",\"coordinates\":[1.0,2.0]}]}");
+   }
+
+   @Test
+   void shouldCacheFragmentsPerClipping() throws IOException, ParseException {
+      FeatureFragmentCache cache = new FeatureFragmentCache(1_000_000);
+      VersionedPlace place = new VersionedPlace(wktReader.read("LINESTRING (5 5, 20 5)"));
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withFragmentCache(cache);
+      assertThat(options.applyTo(objectMapper.writer()).writeValueAsString(place)).contains("[20.0,5.0]");
+      assertThat(options.withClipping(clipping).applyTo(objectMapper.writer()).writeValueAsString(place)).contains("[10.0,5.0]");
+      assertThat(options.withClipping(Clipping.to(new Envelope(0, 10, 0, 10))).applyTo(objectMapper.writer()).writeValueAsString(place))
+         .contains("[10.0,5.0]");
+      assertThat(cache.getHitCount()).isEqualTo(1);
+      assertThat(cache.size()).isEqualTo(2);
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonId private final int id;
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(int id, Geometry location) {
+         this.id = id;
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class VersionedPlace {
+
+      @GeoJsonId private final int id = 1;
+      @GeoJsonVersion private final int version = 1;
+      @GeoJsonGeometry private final Geometry location;
+
+      VersionedPlace(Geometry location) {
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Places {
+
+      @GeoJsonFeatures private final Iterable<Place> places;
+
+      Places(Iterable<Place> places) {
+         this.places = places;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Shapes {
+
+      @GeoJsonGeometries private final List<Geometry> shapes;
+
+      Shapes(List<Geometry> shapes) {
+         this.shapes = shapes;
+      }
+   }
+}
@@ -16,6 +16,7 @@ import java.net.URISyntaxException;
 import java.util.UUID;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
 
 /**
@@ -23,6 +24,7 @@ import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
  *
  * @see AttractionsByField
  * @see AttractionsByGetter
+ * @see AttractionsByStream
  * @see AttractionsEmpty
  * @see AttractionsMissing
  * @see AttractionsNull
@@ -62,6 +64,18 @@ class GeoJsonSerializerFeatureCollectionTest {
       assertEquals(expectedJson, actualJson, true);
    }
 
+   @Test
+   void shouldSerializeAttractionsByStream() throws IOException, URISyntaxException, JSONException {
+      AttractionsByStream attractions = new AttractionsByStream();
+      attractions.add(new AttractionByField(uuid1, "Name 1", "Lorem ipsum 1", location));
+      attractions.add(new AttractionByField(uuid2, "Name 2", "Lorem ipsum 2", null));
+
+      String expectedJson = IOUtils.toString(getClass().getResource("/examples/featurecollection/AttractionsByField.json").toURI(), UTF_8);
+      String actualJson = objectMapper.writeValueAsString(attractions);
+      assertEquals(expectedJson, actualJson, true);
+      assertThat(attractions.isClosed()).isTrue();
+   }
+
    @Test
    void shouldSerializeEmpty() throws IOException, URISyntaxException, JSONException {
       AttractionsEmpty attractions = new AttractionsEmpty();
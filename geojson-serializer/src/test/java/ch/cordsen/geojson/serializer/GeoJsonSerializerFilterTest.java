@@ -0,0 +1,146 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.InMemoryMetricsRecorder;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the filter of features, see {@link GeoJsonOptions#getFilter()}, {@link SpatialFilter} and {@link IndexedFeatures}.
+ */
+class GeoJsonSerializerFilterTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+   private static final Envelope viewport = new Envelope(0, 10, 0, 10);
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteAllFeaturesWithoutFilter() throws IOException {
+      assertThat(ids(objectMapper.writer(), new Places(grid()))).hasSize(400);
+   }
+
+   @Test
+   void shouldWriteFeaturesIntersectingEnvelope() throws IOException, ParseException {
+      Places places = new Places(asList(
+         new Place(1, TestUtils.point(5, 5)),
+         new Place(2, TestUtils.point(15, 5)),
+         new Place(3, wktReader.read("LINESTRING (-5 5, 5 20)")),
+         new Place(4, wktReader.read("LINESTRING (-5 -5, 20 1)")),
+         new Place(5, null),
+         new Place(6, TestUtils.point(10, 10))));
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFilter(SpatialFilter.intersecting(viewport)).applyTo(objectMapper.writer());
+      assertThat(ids(writer, places)).containsExactly(1, 3, 4, 6);
+   }
+
+   @Test
+   void shouldWriteFeaturesIntersectingGeometry() throws IOException, ParseException {
+      Places places = new Places(asList(
+         new Place(1, TestUtils.point(1, 1)),
+         new Place(2, TestUtils.point(1, 9)),
+         new Place(3, wktReader.read("LINESTRING (9 0, 9 2)"))));
+      // a triangle below the diagonal, its envelope contains all features
+      SpatialFilter filter = SpatialFilter.intersecting(wktReader.read("POLYGON ((0 0, 10 0, 10 10, 0 0))"));
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFilter(filter).applyTo(objectMapper.writer());
+      assertThat(ids(writer, places)).containsExactly(1, 3);
+   }
+
+   @Test
+   void shouldQueryIndexedFeatures() throws IOException, DocumentFactoryException {
+      List<Place> grid = grid();
+      IndexedFeatures<Place> indexed = IndexedFeatures.of(grid);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFilter(SpatialFilter.intersecting(viewport)).applyTo(objectMapper.writer());
+
+      List<Integer> expectedIds = ids(writer, new Places(grid));
+      assertThat(expectedIds).hasSize(11 * 11);
+      assertThat(ids(writer, new Places(indexed))).isEqualTo(expectedIds);
+      assertThat(ids(objectMapper.writer(), new Places(indexed))).hasSize(400);
+   }
+
+   @Test
+   void shouldQueryIndexedFeaturesWithMetricsAndInParallel() throws IOException, DocumentFactoryException {
+      List<Place> grid = grid();
+      IndexedFeatures<Place> indexed = IndexedFeatures.of(grid);
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withFilter(SpatialFilter.intersecting(viewport));
+      String expectedJson = options.applyTo(objectMapper.writer()).writeValueAsString(new Places(grid));
+
+      assertThat(options.withParallel(true).withChunkSize(7).applyTo(objectMapper.writer()).writeValueAsString(new Places(indexed)))
+         .isEqualTo(expectedJson);
+      InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+      GeoJsonMetrics.setRecorder(recorder);
+      try {
+         assertThat(options.applyTo(objectMapper.writer()).writeValueAsString(new Places(indexed))).isEqualTo(expectedJson);
+      } finally {
+         GeoJsonMetrics.setRecorder(null);
+      }
+      assertThat(recorder.snapshot(Places.class).getFeatures()).isEqualTo(11 * 11);
+   }
+
+   private static List<Place> grid() {
+      List<Place> places = new ArrayList<>();
+      for (int y = -5; y < 15; y++) {
+         for (int x = -5; x < 15; x++) {
+            places.add(new Place(places.size(), TestUtils.point(x, y)));
+         }
+      }
+      return places;
+   }
+
+   private static List<Integer> ids(ObjectWriter writer, Places places) throws IOException {
+      List<Integer> ids = new ArrayList<>();
+      for (JsonNode feature : objectMapper.readTree(writer.writeValueAsString(places)).get("features")) {
+         ids.add(feature.get("id").asInt());
+      }
+      return ids;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonId private final int id;
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(int id, Geometry location) {
+         this.id = id;
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Places {
+
+      @GeoJsonFeatures private final Iterable<Place> places;
+
+      Places(Iterable<Place> places) {
+         this.places = places;
+      }
+   }
+}
@@ -0,0 +1,160 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the simplification of geometries at write time, see {@link GeoJsonOptions#getTolerance()}.
+ */
+class GeoJsonSerializerGeneralizationTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+   private static final String ZIGZAG = "LINESTRING (0 0, 1 0.1, 2 0, 3 0.1, 4 0)";
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteGeometryAsIsByDefault() throws IOException, ParseException {
+      assertThat(objectMapper.writeValueAsString(new Place(1, wktReader.read(ZIGZAG))))
+         .contains("[[0.0,0.0],[1.0,0.1],[2.0,0.0],[3.0,0.1],[4.0,0.0]]");
+   }
+
+   @Test
+   void shouldSimplifyWithTolerance() throws IOException, ParseException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withTolerance(0.5).withGeneralizationCache(new GeneralizationCache(10))
+         .applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Place(1, wktReader.read(ZIGZAG))))
+         .isEqualTo("{\"type\":\"Feature\",\"id\":1,\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0.0,0.0],[4.0,0.0]]},\"properties\":null}");
+   }
+
+   @Test
+   void shouldSimplifyWithExactToleranceWithoutCache() throws IOException, ParseException {
+      Place place = new Place(1, wktReader.read("LINESTRING (0 0, 5 2.5, 10 0)"));
+      assertThat(GeoJsonOptions.DEFAULT.withTolerance(3).applyTo(objectMapper.writer()).writeValueAsString(place))
+         .contains("\"coordinates\":[[0.0,0.0],[10.0,0.0]]");
+      // the cache simplifies with the bucket of 3, which is 2
+      assertThat(GeoJsonOptions.DEFAULT.withTolerance(3).withGeneralizationCache(new GeneralizationCache(10)).applyTo(objectMapper.writer())
+         .writeValueAsString(place)).contains("\"coordinates\":[[0.0,0.0],[5.0,2.5],[10.0,0.0]]");
+   }
+
+   @Test
+   void shouldNotServeCachedGeometryOfAnotherType() throws IOException, ParseException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withTolerance(3).withGeneralizationCache(new GeneralizationCache(10))
+         .applyTo(objectMapper.writer());
+      writer.writeValueAsString(new Place(7, wktReader.read("LINESTRING (0 0, 1 1)")));
+      assertThat(writer.writeValueAsString(new Place(7, wktReader.read("MULTIPOINT ((0 0), (1 1))"))))
+         .contains("{\"type\":\"MultiPoint\",\"coordinates\":[[0.0,0.0],[1.0,1.0]]}");
+   }
+
+   @Test
+   void shouldSimplifyWithVisvalingamWhyatt() throws IOException, ParseException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withTolerance(1).withSimplification(Simplification.VISVALINGAM_WHYATT)
+         .withGeneralizationCache(null).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Place(1, wktReader.read(ZIGZAG)))).contains("\"coordinates\":[[0.0,0.0],[4.0,0.0]]");
+   }
+
+   @Test
+   void shouldSimplifyForZoom() throws IOException, ParseException {
+      Geometry line = wktReader.read(ZIGZAG);
+      GeneralizationCache cache = new GeneralizationCache(10);
+      assertThat(GeoJsonOptions.DEFAULT.withZoom(2).withGeneralizationCache(cache).applyTo(objectMapper.writer())
+         .writeValueAsString(new Place(1, line))).contains("\"coordinates\":[[0.0,0.0],[4.0,0.0]]");
+      assertThat(GeoJsonOptions.DEFAULT.withZoom(8).withGeneralizationCache(cache).applyTo(objectMapper.writer())
+         .writeValueAsString(new Place(1, line))).contains("[[0.0,0.0],[1.0,0.1],[2.0,0.0],[3.0,0.1],[4.0,0.0]]");
+      assertThat(cache.size()).isEqualTo(2);
+   }
+
+   @Test
+   void shouldCacheSimplifiedGeometriesOfFeaturesWithId() throws IOException, ParseException {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withTolerance(0.5).withGeneralizationCache(cache).applyTo(objectMapper.writer());
+      Places places = new Places(asList(new Place(1, wktReader.read(ZIGZAG)), new Place(2, wktReader.read(ZIGZAG)),
+         new Place(null, wktReader.read(ZIGZAG))));
+
+      String json = writer.writeValueAsString(places);
+      assertThat(writer.writeValueAsString(places)).isEqualTo(json);
+      assertThat(json.split("\\[\\[0.0,0.0],\\[4.0,0.0]]", -1)).hasSize(4);
+      assertThat(cache.size()).isEqualTo(2);
+   }
+
+   @Test
+   void shouldSimplifyInParallel() throws IOException, ParseException {
+      List<Object> features = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+         features.add(new Place(i, wktReader.read(ZIGZAG)));
+      }
+      Places places = new Places(features);
+      GeoJsonOptions options = GeoJsonOptions.DEFAULT.withTolerance(0.5).withGeneralizationCache(new GeneralizationCache(100));
+      String expectedJson = options.applyTo(objectMapper.writer()).writeValueAsString(places);
+      assertThat(options.withParallel(true).withChunkSize(3).applyTo(objectMapper.writer()).writeValueAsString(places))
+         .isEqualTo(expectedJson).doesNotContain("0.1");
+   }
+
+   @Test
+   void shouldSimplifyGeometriesOfGeometryCollection() throws IOException, ParseException {
+      GeneralizationCache cache = new GeneralizationCache(10);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withTolerance(0.5).withGeneralizationCache(cache).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Shapes(singletonList(wktReader.read(ZIGZAG)))))
+         .contains("\"coordinates\":[[0.0,0.0],[4.0,0.0]]");
+      assertThat(cache.size()).isZero();
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonId private final Integer id;
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(Integer id, Geometry location) {
+         this.id = id;
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Places {
+
+      @GeoJsonFeatures private final List<?> places;
+
+      Places(List<?> places) {
+         this.places = places;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Shapes {
+
+      @GeoJsonGeometries private final List<Geometry> shapes;
+
+      Shapes(List<Geometry> shapes) {
+         this.shapes = shapes;
+      }
+   }
+}
@@ -20,6 +20,7 @@ import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
  *
  * @see RouteByField
  * @see RouteByGetter
+ * @see RouteByIterator
  * @see RouteEmpty
  * @see RouteMissing
  * @see RouteNull
@@ -56,6 +57,17 @@ class GeoJsonSerializerGeometryCollectionTest {
       assertEquals(expectedJson, actualJson, true);
    }
 
+   @Test
+   void shouldSerializeByIterator() throws IOException, URISyntaxException, JSONException {
+      RouteByIterator route = new RouteByIterator();
+      route.add(TestUtils.point(23, 42));
+      route.add(TestUtils.point(122, 0));
+
+      String expectedJson = IOUtils.toString(getClass().getResource("/examples/geometrycollection/RouteByField.json").toURI(), UTF_8);
+      String actualJson = objectMapper.writeValueAsString(route);
+      assertEquals(expectedJson, actualJson, true);
+   }
+
    @Test
    void shouldSerializeEmpty() throws IOException, URISyntaxException, JSONException {
       RouteEmpty route = new RouteEmpty();
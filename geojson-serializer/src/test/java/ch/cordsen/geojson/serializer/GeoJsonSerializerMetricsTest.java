@@ -0,0 +1,200 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.introspection.IntrospectionDocumentFactory;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.InMemoryMetricsRecorder;
+import ch.cordsen.geojson.metrics.InMemoryMetricsRecorder.ClassMetrics;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the metrics of the serialization, recorded by an {@link InMemoryMetricsRecorder}.
+ */
+class GeoJsonSerializerMetricsTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+
+   private static ObjectMapper objectMapper;
+
+   private InMemoryMetricsRecorder recorder;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @BeforeEach
+   void installRecorder() {
+      recorder = new InMemoryMetricsRecorder();
+      GeoJsonMetrics.setRecorder(recorder);
+   }
+
+   @AfterEach
+   void uninstallRecorder() {
+      GeoJsonMetrics.setRecorder(null);
+   }
+
+   @Test
+   void shouldRecordFeaturesGeometriesAndCoordinates() throws IOException, ParseException {
+      Places places = new Places(
+         new Place(1, wktReader.read("LINESTRING (0 0, 1 1, 2 2)")),
+         new Place(2, wktReader.read("POINT (1 1)")),
+         new Place(3, null));
+      objectMapper.writeValueAsString(places);
+
+      ClassMetrics collection = recorder.snapshot(Places.class);
+      assertThat(collection.getFeatures()).isEqualTo(3);
+      assertThat(collection.getGeometries()).isZero();
+      assertThat(collection.getWrites().getCount()).isEqualTo(1);
+      ClassMetrics features = recorder.snapshot(Place.class);
+      assertThat(features.getFeatures()).isEqualTo(3);
+      assertThat(features.getGeometries()).isEqualTo(2);
+      assertThat(features.getCoordinates()).isEqualTo(4);
+      assertThat(features.getWrites().getCount()).isEqualTo(3);
+   }
+
+   @Test
+   void shouldRecordGeometryCollection() throws IOException, ParseException {
+      objectMapper.writeValueAsString(new Shapes(asList(wktReader.read("POINT (1 2)"), wktReader.read("LINESTRING (1 2, 3 4)"))));
+
+      ClassMetrics metrics = recorder.snapshot(Shapes.class);
+      assertThat(metrics.getFeatures()).isZero();
+      assertThat(metrics.getGeometries()).isEqualTo(2);
+      assertThat(metrics.getCoordinates()).isEqualTo(3);
+   }
+
+   @Test
+   void shouldRecordWrittenFeaturesOnly() throws IOException {
+      Places places = new Places(
+         new Place(1, TestUtils.point(1, 1)),
+         new Place(2, TestUtils.point(2, 2)),
+         new Place(3, TestUtils.point(20, 20)),
+         new Place(4, TestUtils.point(30, 30)));
+      GeoJsonOptions.DEFAULT.withFilter(SpatialFilter.intersecting(new Envelope(0, 10, 0, 10))).applyTo(objectMapper.writer())
+         .writeValueAsString(places);
+      GeoJsonOptions.DEFAULT.withParallel(true).withChunkSize(1).withClipping(Clipping.to(new Envelope(0, 10, 0, 10)))
+         .applyTo(objectMapper.writer()).writeValueAsString(places);
+
+      assertThat(recorder.snapshot(Places.class).getFeatures()).isEqualTo(4);
+      assertThat(recorder.snapshot(Place.class).getFeatures()).isEqualTo(4);
+   }
+
+   @Test
+   void shouldRecordWrittenCoordinates() throws IOException, ParseException {
+      GeoJsonOptions.DEFAULT.withTolerance(0.5).applyTo(objectMapper.writer())
+         .writeValueAsString(new Place(1, wktReader.read("LINESTRING (0 0, 1 0.1, 2 0, 3 0.1, 4 0)")));
+      GeoJsonOptions.DEFAULT.withClipping(Clipping.to(new Envelope(0, 10, 0, 10))).applyTo(objectMapper.writer())
+         .writeValueAsString(new Shapes(asList(wktReader.read("LINESTRING (5 5, 20 5, 20 20)"), wktReader.read("POINT (30 30)"))));
+
+      assertThat(recorder.snapshot(Place.class).getCoordinates()).isEqualTo(2);
+      assertThat(recorder.snapshot(Shapes.class).getGeometries()).isEqualTo(1);
+      assertThat(recorder.snapshot(Shapes.class).getCoordinates()).isEqualTo(2);
+   }
+
+   @Test
+   void shouldRecordPlanCacheMissOnce() throws IOException {
+      objectMapper.writeValueAsString(new Unseen(1));
+      objectMapper.writeValueAsString(new Unseen(2));
+      objectMapper.writeValueAsString(new Unseen(3));
+
+      ClassMetrics metrics = recorder.snapshot(Unseen.class);
+      assertThat(metrics.getPlanCacheMisses()).isEqualTo(1);
+      assertThat(metrics.getPlanCacheHits()).isEqualTo(2);
+      assertThat(metrics.getPlanBuilds().getTotal(TimeUnit.NANOSECONDS)).isPositive();
+   }
+
+   @Test
+   void shouldRecordDocumentCreation() throws Exception {
+      new IntrospectionDocumentFactory().from(new Place(1, TestUtils.point(1, 2)));
+
+      assertThat(recorder.snapshot(Place.class).getDocuments().getCount()).isEqualTo(1);
+   }
+
+   @Test
+   void shouldRecordBytesOfSeqWriter() throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (GeoJsonSeqWriter seqWriter = new GeoJsonSeqWriter(objectMapper.writer(), out)) {
+         seqWriter.write(new Place(1, TestUtils.point(1, 2)));
+         seqWriter.write(new Place(2, TestUtils.point(3, 4)));
+      }
+
+      assertThat(recorder.snapshot(Place.class).getBytes()).isEqualTo(out.size());
+   }
+
+   @Test
+   void shouldRecordNothingWhenDisabled() throws IOException {
+      GeoJsonMetrics.setRecorder(null);
+      objectMapper.writeValueAsString(new Place(1, TestUtils.point(1, 2)));
+
+      assertThat(recorder.snapshot()).isEmpty();
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonId private final int id;
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(int id, Geometry location) {
+         this.id = id;
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Unseen {
+
+      @GeoJsonProperty private final int rank;
+
+      Unseen(int rank) {
+         this.rank = rank;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Places {
+
+      @GeoJsonFeatures private final List<Place> places;
+
+      Places(Place... places) {
+         this.places = asList(places);
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Shapes {
+
+      @GeoJsonGeometries private final List<Geometry> shapes;
+
+      Shapes(List<Geometry> shapes) {
+         this.shapes = shapes;
+      }
+   }
+}
@@ -0,0 +1,112 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import ch.cordsen.geojson.testsupport.examples.feature.AttractionByField;
+import ch.cordsen.geojson.testsupport.examples.featurecollection.AttractionsByField;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the parallel mode of <em>FeatureCollections</em>, see {@link GeoJsonOptions#isParallel()}.
+ */
+class GeoJsonSerializerParallelTest {
+
+   private static final GeoJsonOptions parallel = GeoJsonOptions.DEFAULT.withParallel(true).withChunkSize(3);
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteSameOutputAsSequential() throws IOException {
+      for (int size : new int[]{0, 1, 2, 3, 4, 6, 7, 100}) {
+         AttractionsByField attractions = attractions(size);
+         String expectedJson = objectMapper.writeValueAsString(attractions);
+         ObjectWriter writer = parallel.applyTo(objectMapper.writer());
+         assertThat(writer.writeValueAsString(attractions)).as("size %d", size).isEqualTo(expectedJson);
+         assertThat(writer.writeValueAsBytes(attractions)).as("size %d", size).isEqualTo(objectMapper.writeValueAsBytes(attractions));
+      }
+   }
+
+   @Test
+   void shouldWriteSameOutputWithSuppliedExecutor() throws IOException {
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+         AtomicInteger tasks = new AtomicInteger();
+         AttractionsByField attractions = attractions(1000);
+         ObjectWriter writer = parallel.withExecutor(task -> {
+            tasks.incrementAndGet();
+            executor.execute(task);
+         }).applyTo(objectMapper.writer());
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         writer.writeValue(out, attractions);
+         assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(attractions));
+         assertThat(tasks).hasValue(334);
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   @Test
+   void shouldApplyGeneratorFeaturesOfWriter() throws IOException {
+      AttractionsByField attractions = attractions(10);
+      ObjectWriter sequentialWriter = objectMapper.writer().with(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+      String expectedJson = sequentialWriter.writeValueAsString(attractions);
+      assertThat(expectedJson).contains("\\u00E9");
+      assertThat(parallel.applyTo(sequentialWriter).writeValueAsString(attractions)).isEqualTo(expectedJson);
+   }
+
+   @Test
+   void shouldFallBackToSequentialForPrettyPrinter() throws IOException {
+      AttractionsByField attractions = attractions(10);
+      String expectedJson = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(attractions);
+      assertThat(parallel.applyTo(objectMapper.writerWithDefaultPrettyPrinter()).writeValueAsString(attractions)).isEqualTo(expectedJson);
+   }
+
+   @Test
+   void shouldThrowExceptionOfChunk() {
+      UnserializableFeatures features = new UnserializableFeatures();
+      for (int i = 0; i < 10; i++) {
+         features.features.add(i == 7 ? new Object() : "feature " + i);
+      }
+      ObjectWriter writer = parallel.applyTo(objectMapper.writer());
+      assertThrows(JsonMappingException.class, () -> writer.writeValueAsString(features));
+   }
+
+   private static AttractionsByField attractions(int size) {
+      AttractionsByField attractions = new AttractionsByField();
+      for (int i = 0; i < size; i++) {
+         attractions.add(new AttractionByField(new UUID(0, i), "Name " + i, "Déscription " + i, i % 2 == 0 ? TestUtils.point(i, -i) : null));
+      }
+      return attractions;
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class UnserializableFeatures {
+
+      @GeoJsonFeatures final List<Object> features = new ArrayList<>();
+   }
+}
@@ -0,0 +1,129 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the precision of coordinates, see {@link GeoJson#precision()} and {@link GeoJsonOptions#getPrecision()}.
+ */
+class GeoJsonSerializerPrecisionTest {
+
+   private static final Point location = TestUtils.point(2.2945271234, 48.8590925);
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteFullPrecisionByDefault() throws IOException {
+      assertThat(objectMapper.writeValueAsString(new Place(location)))
+         .isEqualTo("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[2.2945271234,48.8590925]},\"properties\":null}");
+   }
+
+   @Test
+   void shouldRoundToPrecisionOfOptions() throws IOException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withPrecision(2).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Place(location)))
+         .isEqualTo("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[2.29,48.86]},\"properties\":null}");
+   }
+
+   @Test
+   void shouldRoundToPrecisionOfClass() throws IOException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withPrecision(2).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new PlaceWithPrecision(location)))
+         .isEqualTo("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[2.2945,48.8591]},\"properties\":null}");
+   }
+
+   @Test
+   void shouldInheritPrecisionOfCollection() throws IOException {
+      PlacesWithPrecision places = new PlacesWithPrecision(asList(new Place(location), new PlaceWithPrecision(location)));
+      assertThat(objectMapper.writeValueAsString(places)).isEqualTo("{\"type\":\"FeatureCollection\",\"features\":[" +
+         "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[2.3,48.9]},\"properties\":null}," +
+         "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[2.2945,48.8591]},\"properties\":null}]}");
+      assertThat(objectMapper.writeValueAsString(new Place(location))).contains("[2.2945271234,48.8590925]");
+   }
+
+   @Test
+   void shouldInheritPrecisionOfCollectionInParallel() throws IOException {
+      List<Object> features = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+         features.add(i % 3 == 0 ? new PlaceWithPrecision(location) : new Place(location));
+      }
+      PlacesWithPrecision places = new PlacesWithPrecision(features);
+      String expectedJson = objectMapper.writeValueAsString(places);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withParallel(true).withChunkSize(2).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(places)).isEqualTo(expectedJson).contains("[2.3,48.9]", "[2.2945,48.8591]");
+   }
+
+   @Test
+   void shouldRoundGeometriesOfGeometryCollection() throws IOException {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withPrecision(1).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new Shapes(asList(location, TestUtils.point(-0.04, 0.96)))))
+         .isEqualTo("{\"type\":\"GeometryCollection\",\"geometries\":[" +
+            "{\"type\":\"Point\",\"coordinates\":[2.3,48.9]},{\"type\":\"Point\",\"coordinates\":[0.0,1.0]}]}");
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonGeometry final Point location;
+
+      Place(Point location) {
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE, precision = 4)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class PlaceWithPrecision {
+
+      @GeoJsonGeometry final Point location;
+
+      PlaceWithPrecision(Point location) {
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION, precision = 1)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class PlacesWithPrecision {
+
+      @GeoJsonFeatures final List<Object> places;
+
+      PlacesWithPrecision(List<Object> places) {
+         this.places = places;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Shapes {
+
+      @GeoJsonGeometries final List<Geometry> geometries;
+
+      Shapes(List<Geometry> geometries) {
+         this.geometries = geometries;
+      }
+   }
+}
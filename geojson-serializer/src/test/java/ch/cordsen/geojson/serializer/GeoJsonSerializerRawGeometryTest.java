@@ -0,0 +1,216 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.document.Document;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.document.FeatureDocument;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.InMemoryMetricsRecorder;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for geometries already encoded as GeoJSON, see {@link GeoJsonGeometry#raw()}.
+ */
+class GeoJsonSerializerRawGeometryTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+   private static final String LINE = "{\"type\": \"LineString\", \"coordinates\": [[1, 2], [3, 4.5], [20, 4]]}";
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldWriteRawGeometryVerbatim() throws IOException {
+      String expectedJson = "{\"type\":\"Feature\",\"id\":1,\"geometry\":" + LINE + ",\"properties\":null}";
+      assertThat(objectMapper.writeValueAsString(new RawPlace(1, LINE))).isEqualTo(expectedJson);
+      assertThat(objectMapper.writeValueAsString(new RawPlace(1, LINE.getBytes(UTF_8)))).isEqualTo(expectedJson);
+      assertThat(objectMapper.writeValueAsString(new RawPlace(1, new RawValue(LINE)))).isEqualTo(expectedJson);
+      assertThat(objectMapper.writeValueAsString(new RawPlace(2, null)))
+         .isEqualTo("{\"type\":\"Feature\",\"id\":2,\"geometry\":null,\"properties\":null}");
+   }
+
+   @Test
+   void shouldWriteRawGeometryBytesVerbatim() throws IOException, ParseException {
+      String geoJson = "{\"type\":\"Point\",\"name\":\"Zürich\",\"coordinates\":[8.5,47.4]}";
+      String expectedJson = "{\"type\":\"Feature\",\"id\":1,\"geometry\":" + geoJson + ",\"properties\":null}";
+      assertThat(objectMapper.writeValueAsBytes(new RawPlace(1, geoJson.getBytes(UTF_8)))).isEqualTo(expectedJson.getBytes(UTF_8));
+      assertThat(objectMapper.writeValueAsString(new RawPlace(1, geoJson.getBytes(UTF_8)))).isEqualTo(expectedJson);
+      Geometry point = wktReader.read("POINT (1 2)");
+      assertThat(objectMapper.writeValueAsBytes(new RawByteShapes(geoJson.getBytes(UTF_8), point)))
+         .isEqualTo(objectMapper.writeValueAsBytes(new RawShapes(geoJson, point)));
+   }
+
+   @Test
+   void shouldWriteUnvalidatedRawGeometryUnchecked() throws IOException {
+      String truncated = LINE.substring(0, 50);
+      assertThat(objectMapper.writeValueAsString(new TrustedPlace(truncated.getBytes(UTF_8))))
+         .isEqualTo("{\"type\":\"Feature\",\"geometry\":" + truncated + ",\"properties\":null}");
+   }
+
+   @Test
+   void shouldWriteRawGeometriesOfCollections() throws IOException, ParseException {
+      assertThat(objectMapper.writeValueAsString(new RawPlaces(asList(new RawPlace(1, LINE), new RawPlace(2, "{}")))))
+         .isEqualTo("{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"id\":1,\"geometry\":" + LINE +
+            ",\"properties\":null},{\"type\":\"Feature\",\"id\":2,\"geometry\":{},\"properties\":null}]}");
+      assertThat(objectMapper.writeValueAsString(new RawShapes(LINE, wktReader.read("POINT (1 2)"))))
+         .isEqualTo("{\"type\":\"GeometryCollection\",\"geometries\":[" + LINE + ",{\"type\":\"Point\",\"coordinates\":[1.0,2.0]}]}");
+   }
+
+   @Test
+   void shouldParseRawGeometryForOptions() throws IOException, ParseException {
+      Geometry geometry = wktReader.read("LINESTRING (1 2, 3 4.5, 20 4)");
+      for (GeoJsonOptions options : asList(GeoJsonOptions.DEFAULT.withBbox(true), GeoJsonOptions.DEFAULT.withPrecision(0).withBbox(true),
+         GeoJsonOptions.DEFAULT.withClipping(Clipping.to(new Envelope(0, 10, 0, 10))),
+         GeoJsonOptions.DEFAULT.withTolerance(1).withGeneralizationCache(null))) {
+         ObjectWriter writer = options.applyTo(objectMapper.writer());
+         assertThat(writer.writeValueAsString(new RawPlace(1, LINE))).isEqualTo(writer.writeValueAsString(new Place(1, geometry)));
+      }
+   }
+
+   @Test
+   void shouldParseRawGeometryForBinaryFormats() throws IOException, ParseException {
+      ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+      assertThat(cborMapper.writeValueAsBytes(new RawPlace(1, LINE)))
+         .isEqualTo(cborMapper.writeValueAsBytes(new Place(1, wktReader.read("LINESTRING (1 2, 3 4.5, 20 4)"))));
+   }
+
+   @Test
+   void shouldParseRawGeometryForDocumentAndFilter() throws IOException, DocumentFactoryException {
+      Document document = DocumentFactories.of(RawPlace.class).from(new RawPlace(1, LINE));
+      assertThat(((FeatureDocument) document).getGeometry()).hasToString("LINESTRING (1 2, 3 4.5, 20 4)");
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withFilter(SpatialFilter.intersecting(new Envelope(15, 25, 0, 10)))
+         .applyTo(objectMapper.writer());
+      String json = writer.writeValueAsString(new RawPlaces(asList(new RawPlace(1, LINE),
+         new RawPlace(2, "{\"type\":\"Point\",\"coordinates\":[1,2]}"))));
+      assertThat(json).contains("\"id\":1").doesNotContain("\"id\":2");
+   }
+
+   @Test
+   void shouldCountRawGeometries() throws IOException {
+      InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+      GeoJsonMetrics.setRecorder(recorder);
+      try {
+         objectMapper.writeValueAsString(new RawPlace(1, LINE));
+      } finally {
+         GeoJsonMetrics.setRecorder(null);
+      }
+      assertThat(recorder.snapshot(RawPlace.class).getGeometries()).isEqualTo(1);
+      assertThat(recorder.snapshot(RawPlace.class).getCoordinates()).isZero();
+   }
+
+   @Test
+   void shouldThrowExceptionForTruncatedRawGeometry() {
+      JsonMappingException exception = assertThrows(JsonMappingException.class,
+         () -> objectMapper.writeValueAsString(new RawPlace(1, LINE.substring(0, 50))));
+      assertThat(exception).hasMessageContaining("is not a GeoJSON object: truncated after 50 characters");
+      exception = assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(new RawPlace(1, 42)));
+      assertThat(exception).hasMessageContaining("is not of expected type: java.lang.String");
+   }
+
+   @Test
+   void shouldThrowExceptionForInvalidRawGeometryWhenParsed() {
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withBbox(true).applyTo(objectMapper.writer());
+      JsonMappingException exception = assertThrows(JsonMappingException.class,
+         () -> writer.writeValueAsString(new RawPlace(1, "{\"type\":\"Circle\"}")));
+      assertThat(exception).hasMessageStartingWith("Invalid GeoJSON geometry: ");
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonId private final int id;
+      @GeoJsonGeometry private final Geometry geometry;
+
+      Place(int id, Geometry geometry) {
+         this.id = id;
+         this.geometry = geometry;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class RawPlace {
+
+      @GeoJsonId private final int id;
+      @GeoJsonGeometry(raw = true) private final Object geoJson;
+
+      RawPlace(int id, Object geoJson) {
+         this.id = id;
+         this.geoJson = geoJson;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class TrustedPlace {
+
+      @GeoJsonGeometry(raw = true, validate = false) private final byte[] geoJson;
+
+      TrustedPlace(byte[] geoJson) {
+         this.geoJson = geoJson;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class RawPlaces {
+
+      @GeoJsonFeatures private final Iterable<RawPlace> places;
+
+      RawPlaces(Iterable<RawPlace> places) {
+         this.places = places;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class RawShapes {
+
+      @GeoJsonGeometry(raw = true) private final String geoJson;
+      @GeoJsonGeometry private final Geometry geometry;
+
+      RawShapes(String geoJson, Geometry geometry) {
+         this.geoJson = geoJson;
+         this.geometry = geometry;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class RawByteShapes {
+
+      @GeoJsonGeometry(raw = true) private final byte[] geoJson;
+      @GeoJsonGeometry private final Geometry geometry;
+
+      RawByteShapes(byte[] geoJson, Geometry geometry) {
+         this.geoJson = geoJson;
+         this.geometry = geometry;
+      }
+   }
+}
@@ -0,0 +1,211 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.document.Document;
+import ch.cordsen.geojson.document.DocumentFactory;
+import ch.cordsen.geojson.document.FeatureDocument;
+import ch.cordsen.geojson.document.PerThread;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link GeoJsonSerializer}.
+ */
+class GeoJsonSerializerTest {
+
+   @Test
+   void shouldThrowExceptionWhenAnnotationIsMissing() {
+      JsonMappingException exception = assertThrows(JsonMappingException.class,
+         () -> new ObjectMapper().writeValueAsString(new ClassWithoutGeoJson()));
+      assertThat(exception).hasMessage("Annotation @GeoJson is not present.");
+   }
+
+   @Test
+   void shouldThrowExceptionWhenDocumentFactoryIsNotInstantiable() {
+      JsonMappingException exception = assertThrows(JsonMappingException.class,
+         () -> new ObjectMapper().writeValueAsString(new ClassWithInvalidDocumentFactory()));
+      assertThat(exception).hasMessage("Factory instantiation failed for class ch.cordsen.geojson.serializer.GeoJsonSerializerTest$NotInstantiableDocumentFactory");
+   }
+
+   @Test
+   void shouldThrowExceptionWhenDocument() {
+      JsonMappingException exception = assertThrows(JsonMappingException.class,
+         () -> new ObjectMapper().writeValueAsString(new ClassWithMockedDocumentFactory()));
+      assertThat(exception).hasMessageStartingWith("Unsupported implementation of Document:");
+   }
+
+   @Test
+   void shouldInstantiateDocumentFactoryOnce() {
+      ObjectMapper objectMapper = new ObjectMapper();
+      assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(new ClassWithCountingDocumentFactory()));
+      assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(new ClassWithCountingDocumentFactory()));
+      assertThat(CountingDocumentFactory.instances).hasValue(1);
+   }
+
+   @Test
+   void shouldInstantiatePerThreadDocumentFactoryPerThread() throws InterruptedException {
+      ObjectMapper objectMapper = new ObjectMapper();
+      assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(new ClassWithPerThreadDocumentFactory()));
+      assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(new ClassWithPerThreadDocumentFactory()));
+      // assertions in another thread are lost, thus its outcome is asserted after the join
+      AtomicReference<Throwable> thrown = new AtomicReference<>();
+      Thread thread = new Thread(() -> {
+         try {
+            objectMapper.writeValueAsString(new ClassWithPerThreadDocumentFactory());
+         } catch (Throwable e) {
+            thrown.set(e);
+         }
+      });
+      thread.start();
+      thread.join();
+      assertThat(thrown.get()).isInstanceOf(JsonMappingException.class);
+      assertThat(PerThreadDocumentFactory.instances).hasValue(2);
+   }
+
+   @Test
+   void shouldUseGeneratedDocumentFactory() throws JsonProcessingException {
+      String json = new ObjectMapper().writeValueAsString(new ClassWithGeneratedDocumentFactory());
+      assertThat(json).isEqualTo("{\"type\":\"Feature\",\"id\":\"generated\",\"geometry\":null,\"properties\":null}");
+   }
+
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class ClassWithoutGeoJson {
+
+      @GeoJsonId private UUID id;
+
+      public UUID getId() {
+         return id;
+      }
+
+      public void setId(UUID id) {
+         this.id = id;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE, factory = NotInstantiableDocumentFactory.class)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class ClassWithInvalidDocumentFactory {
+
+      @GeoJsonId private UUID id;
+
+      public UUID getId() {
+         return id;
+      }
+
+      public void setId(UUID id) {
+         this.id = id;
+      }
+   }
+
+   static class NotInstantiableDocumentFactory implements DocumentFactory {
+
+      public NotInstantiableDocumentFactory(String reflectionNotPossible) {
+      }
+
+      @Override public Document from(Object object) {
+         return null;
+      }
+   }
+
+
+   @GeoJson(type = GeoJsonType.FEATURE, factory = MockedDocumentFactory.class)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class ClassWithMockedDocumentFactory {
+
+      @GeoJsonId private UUID id;
+
+      public UUID getId() {
+         return id;
+      }
+
+      public void setId(UUID id) {
+         this.id = id;
+      }
+   }
+
+   static class MockedDocumentFactory implements DocumentFactory {
+
+      @Override public Document from(Object object) {
+         return mock(Document.class);
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE, factory = CountingDocumentFactory.class)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class ClassWithCountingDocumentFactory {
+   }
+
+   static class CountingDocumentFactory implements DocumentFactory {
+
+      static final AtomicInteger instances = new AtomicInteger();
+
+      public CountingDocumentFactory() {
+         instances.incrementAndGet();
+      }
+
+      @Override public Document from(Object object) {
+         return mock(Document.class);
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE, factory = PerThreadDocumentFactory.class)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class ClassWithPerThreadDocumentFactory {
+   }
+
+   @PerThread
+   static class PerThreadDocumentFactory implements DocumentFactory {
+
+      static final AtomicInteger instances = new AtomicInteger();
+
+      public PerThreadDocumentFactory() {
+         instances.incrementAndGet();
+      }
+
+      @Override public Document from(Object object) {
+         return mock(Document.class);
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class ClassWithGeneratedDocumentFactory {
+
+      @GeoJsonId private final String id = "introspected";
+   }
+}
+
+/**
+ * Stands in for the factory generated by the annotation processor, found by its name.
+ */
+class GeoJsonSerializerTest_ClassWithGeneratedDocumentFactory_GeoJsonDocumentFactory implements DocumentFactory {
+
+   @Override public Document from(Object object) {
+      return new FeatureDocument() {
+         @Override public Object getId() {
+            return "generated";
+         }
+
+         @Override public Geometry getGeometry() {
+            return null;
+         }
+
+         @Override public Object getProperties() {
+            return null;
+         }
+      };
+   }
+}
@@ -0,0 +1,204 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.metrics.GeoJsonMetrics;
+import ch.cordsen.geojson.metrics.InMemoryMetricsRecorder;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ByteOrderValues;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for geometries encoded as WKB, written without decoding them, see {@link GeometryWriter#writeWkb}.
+ */
+class GeoJsonSerializerWkbTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+   private static final List<String> wkts = asList(
+      "POINT (1.5 -2)",
+      "LINESTRING (1 2, 3 4)",
+      "LINESTRING Z (1 2 3, 4 5 6)",
+      "LINESTRING EMPTY",
+      "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 2 1, 2 2, 1 1))",
+      "POLYGON EMPTY",
+      "MULTIPOINT ((1 2), (3 4))",
+      "MULTILINESTRING ((1 2, 3 4), (5 6, 7 8))",
+      "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5), (5.2 5.1, 5.8 5.1, 5.8 5.7, 5.2 5.1)))",
+      "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (3 4, 5 6), GEOMETRYCOLLECTION (POINT (7 8)))");
+
+   private static ObjectMapper objectMapper;
+   private static ObjectMapper cborMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+      cborMapper = new ObjectMapper(new CBORFactory());
+   }
+
+   @Test
+   void shouldWriteWkbLikeGeometry() throws IOException, ParseException {
+      ObjectWriter rounded = GeoJsonOptions.DEFAULT.withPrecision(1).withBbox(true).applyTo(objectMapper.writer());
+      for (String wkt : wkts) {
+         Geometry geometry = wktReader.read(wkt);
+         String expectedJson = objectMapper.writeValueAsString(new Place(geometry));
+         for (byte[] wkb : encodings(geometry)) {
+            assertThat(objectMapper.writeValueAsString(new WkbPlace(wkb))).as(wkt).isEqualTo(expectedJson);
+            assertThat(rounded.writeValueAsString(new WkbPlace(wkb))).as(wkt).isEqualTo(rounded.writeValueAsString(new Place(geometry)));
+            assertThat(cborMapper.writeValueAsBytes(new WkbPlace(wkb))).as(wkt).isEqualTo(cborMapper.writeValueAsBytes(new Place(geometry)));
+         }
+      }
+   }
+
+   @Test
+   void shouldWriteIsoWkbWithZAndM() throws IOException {
+      // POINT ZM (1 2 3 4), big endian
+      ByteBuffer pointZM = ByteBuffer.allocate(37).put((byte) 0).putInt(3001).putDouble(1).putDouble(2).putDouble(3).putDouble(4);
+      assertThat(objectMapper.writeValueAsString(new WkbPlace(pointZM.array())))
+         .contains("{\"type\":\"Point\",\"coordinates\":[1.0,2.0,3.0]}");
+      // LINESTRING M (1 2 7, 3 4 8), little endian with the M flag of EWKB
+      ByteBuffer lineM = ByteBuffer.allocate(57).order(ByteOrder.LITTLE_ENDIAN).put((byte) 1).putInt(0x40000002).putInt(2)
+         .putDouble(1).putDouble(2).putDouble(7).putDouble(3).putDouble(4).putDouble(8);
+      assertThat(objectMapper.writeValueAsString(new WkbPlace(lineM.array())))
+         .contains("{\"type\":\"LineString\",\"coordinates\":[[1.0,2.0],[3.0,4.0]]}");
+   }
+
+   @Test
+   void shouldWriteEmptyPoint() throws IOException {
+      ByteBuffer empty = ByteBuffer.allocate(21).put((byte) 0).putInt(1).putDouble(Double.NaN).putDouble(Double.NaN);
+      assertThat(objectMapper.writeValueAsString(new WkbPlace(empty.array())))
+         .contains("{\"type\":\"Point\",\"coordinates\":[]}");
+   }
+
+   @Test
+   void shouldWriteByteBuffer() throws IOException, ParseException {
+      Geometry geometry = wktReader.read("LINESTRING (1 2, 3 4)");
+      byte[] wkb = new WKBWriter().write(geometry);
+      ByteBuffer buffer = ByteBuffer.allocate(wkb.length + 3);
+      buffer.position(3);
+      buffer.put(wkb).position(3);
+      BufferPlace place = new BufferPlace(buffer);
+      assertThat(objectMapper.writeValueAsString(place)).isEqualTo(objectMapper.writeValueAsString(new Place(geometry)));
+      // the buffer is not consumed
+      assertThat(objectMapper.writeValueAsString(place)).isEqualTo(objectMapper.writeValueAsString(new Place(geometry)));
+   }
+
+   @Test
+   void shouldWriteGeometryCollectionOfWkb() throws IOException, ParseException {
+      Geometry point = wktReader.read("POINT (1 2)");
+      Geometry line = wktReader.read("LINESTRING (3 4, 5 6)");
+      assertThat(objectMapper.writeValueAsString(new WkbShapes(asList(new WKBWriter().write(point), line))))
+         .isEqualTo("{\"type\":\"GeometryCollection\",\"geometries\":[{\"type\":\"Point\",\"coordinates\":[1.0,2.0]}," +
+            "{\"type\":\"LineString\",\"coordinates\":[[3.0,4.0],[5.0,6.0]]}]}");
+   }
+
+   @Test
+   void shouldDecodeWkbToSimplifyAndClip() throws IOException, ParseException {
+      Geometry geometry = wktReader.read("LINESTRING (0 0, 5 0.1, 20 0)");
+      byte[] wkb = new WKBWriter().write(geometry);
+      ObjectWriter writer = GeoJsonOptions.DEFAULT.withTolerance(1).withClipping(Clipping.to(new Envelope(0, 10, -1, 1)))
+         .withGeneralizationCache(null).applyTo(objectMapper.writer());
+      assertThat(writer.writeValueAsString(new WkbPlace(wkb)))
+         .isEqualTo(writer.writeValueAsString(new Place(geometry)))
+         .contains("\"coordinates\":[[0.0,0.0],[10.0,0.0]]");
+   }
+
+   @Test
+   void shouldCountCoordinatesOfWkb() throws IOException, ParseException {
+      Geometry geometry = wktReader.read(wkts.get(8));
+      InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+      GeoJsonMetrics.setRecorder(recorder);
+      try {
+         objectMapper.writeValueAsString(new WkbPlace(new WKBWriter().write(geometry)));
+      } finally {
+         GeoJsonMetrics.setRecorder(null);
+      }
+      assertThat(recorder.snapshot(WkbPlace.class).getGeometries()).isEqualTo(1);
+      assertThat(recorder.snapshot(WkbPlace.class).getCoordinates()).isEqualTo(geometry.getNumPoints());
+   }
+
+   @Test
+   void shouldThrowExceptionForInvalidWkb() {
+      JsonMappingException exception = assertThrows(JsonMappingException.class,
+         () -> objectMapper.writeValueAsString(new WkbPlace(new byte[] {0, 0, 0, 0, 2, 0, 0, 0, 9})));
+      assertThat(exception).hasMessageStartingWith("Invalid WKB geometry: Invalid number of positions: 9");
+      exception = assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(new WkbPlace(new byte[] {0, 0, 0, 0, 42})));
+      assertThat(exception).hasMessageStartingWith("Invalid WKB geometry: Unknown geometry type: 42");
+   }
+
+   /**
+    * The geometry as WKB and EWKB, in both byte orders, with a SRID and three dimensions.
+    */
+   private static List<byte[]> encodings(Geometry geometry) {
+      Geometry withSrid = geometry.copy();
+      withSrid.setSRID(4326);
+      int dimension = Double.isNaN(geometry.getCoordinate() != null ? geometry.getCoordinate().getZ() : Double.NaN) ? 2 : 3;
+      return asList(
+         new WKBWriter(dimension).write(geometry),
+         new WKBWriter(dimension, ByteOrderValues.LITTLE_ENDIAN).write(geometry),
+         new WKBWriter(dimension, ByteOrderValues.LITTLE_ENDIAN, true).write(withSrid));
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class Place {
+
+      @GeoJsonGeometry private final Geometry geometry;
+
+      Place(Geometry geometry) {
+         this.geometry = geometry;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class WkbPlace {
+
+      @GeoJsonGeometry private final byte[] wkb;
+
+      WkbPlace(byte[] wkb) {
+         this.wkb = wkb;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class BufferPlace {
+
+      @GeoJsonGeometry private final ByteBuffer wkb;
+
+      BufferPlace(ByteBuffer wkb) {
+         this.wkb = wkb;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   @JsonSerialize(using = GeoJsonSerializer.class)
+   static class WkbShapes {
+
+      @GeoJsonGeometries private final List<Object> shapes;
+
+      WkbShapes(List<Object> shapes) {
+         this.shapes = shapes;
+      }
+   }
+}
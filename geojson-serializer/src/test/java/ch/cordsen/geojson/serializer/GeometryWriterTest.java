@@ -0,0 +1,130 @@
+package ch.cordsen.geojson.serializer;
+
+import com.bedatadriven.jackson.datatype.jts.serialization.GeometrySerializer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link GeometryWriter}.
+ */
+class GeometryWriterTest {
+
+   private static final ObjectMapper objectMapper = new ObjectMapper();
+   private static final JsonFactory jsonFactory = objectMapper.getFactory();
+
+   private static final List<String> wkts = asList(
+      "POINT (2.294527 48.859092)",
+      "POINT Z (1 2 3)",
+      "LINESTRING (0 0, 1 1, 2 0.5)",
+      "LINEARRING (0 0, 1 0, 1 1, 0 0)",
+      "MULTIPOINT ((1 2), (3 4))",
+      "MULTILINESTRING ((0 0, 1 1), (2 2, 3 3, 4 4))",
+      "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING Z (0 0 1, 1 1 2), GEOMETRYCOLLECTION (POINT (3 4)))",
+      "LINESTRING EMPTY",
+      "GEOMETRYCOLLECTION EMPTY"
+   );
+
+   @Test
+   void shouldWriteSameOutputAsGeometrySerializer() throws IOException, ParseException {
+      WKTReader wktReader = new WKTReader();
+      for (String wkt : wkts) {
+         Geometry geometry = wktReader.read(wkt);
+         assertThat(write(geometry)).as(wkt).isEqualTo(writeWithGeometrySerializer(geometry));
+      }
+   }
+
+   /**
+    * The <code>GeometrySerializer</code> is compiled against an older JTS and fails on polygons.
+    */
+   @Test
+   void shouldWritePolygons() throws IOException, ParseException {
+      WKTReader wktReader = new WKTReader();
+      assertThat(write(wktReader.read("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 3 2, 3 3, 2 2))"))).isEqualTo(
+         "{\"type\":\"Polygon\",\"coordinates\":[[[0.0,0.0],[10.0,0.0],[10.0,10.0],[0.0,10.0],[0.0,0.0]],[[2.0,2.0],[3.0,2.0],[3.0,3.0],[2.0,2.0]]]}");
+      assertThat(write(wktReader.read("MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5 1, 6 5 1, 6 6 1, 5 5 1)))"))).isEqualTo(
+         "{\"type\":\"MultiPolygon\",\"coordinates\":[[[[0.0,0.0],[1.0,0.0],[1.0,1.0],[0.0,0.0]]],[[[5.0,5.0,1.0],[6.0,5.0,1.0],[6.0,6.0,1.0],[5.0,5.0,1.0]]]]}");
+      assertThat(write(wktReader.read("POLYGON EMPTY"))).isEqualTo("{\"type\":\"Polygon\",\"coordinates\":[[]]}");
+   }
+
+   @Test
+   void shouldWriteFromPackedCoordinateSequence() throws IOException {
+      GeometryFactory geometryFactory = new GeometryFactory(PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+      LineString lineString = geometryFactory.createLineString(new Coordinate[]{new Coordinate(1, 2), new Coordinate(3, 4, 5)});
+      assertThat(write(lineString)).isEqualTo(writeWithGeometrySerializer(lineString));
+   }
+
+   @Test
+   void shouldWriteEmptyPointWithEmptyCoordinates() throws IOException, ParseException {
+      assertThat(write(new WKTReader().read("POINT EMPTY"))).isEqualTo("{\"type\":\"Point\",\"coordinates\":[]}");
+   }
+
+   @Test
+   void shouldThrowExceptionForUnsupportedGeometry() {
+      Geometry geometry = mock(Geometry.class);
+      JsonMappingException exception = assertThrows(JsonMappingException.class, () -> write(geometry));
+      assertThat(exception).hasMessageStartingWith("Geometry type " + geometry.getClass().getName() + " cannot be serialized as GeoJSON.");
+   }
+
+   @Test
+   void shouldWriteRoundedCoordinates() throws IOException, ParseException {
+      Geometry geometry = new WKTReader().read("LINESTRING Z (2.2945271234 48.8590925 35.5, -0.00000001 1e10 0, 1 1e12 0)");
+      assertThat(write(geometry, GeometryWriter.of(6))).isEqualTo(
+         "{\"type\":\"LineString\",\"coordinates\":[[2.294527,48.859093,35.5],[0.0,1.0E10,0.0],[1.0,1.0E12,0.0]]}");
+      assertThat(write(geometry, GeometryWriter.of(0))).isEqualTo(
+         "{\"type\":\"LineString\",\"coordinates\":[[2.0,49.0,36.0],[0.0,10000000000.0,0.0],[1.0,1000000000000.0,0.0]]}");
+   }
+
+   @Test
+   void shouldWriteRoundedDoublesToOtherFormats() throws IOException, ParseException {
+      Geometry geometry = new WKTReader().read("POINT (2.2945271234 48.8590925)");
+      TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+      GeometryWriter.of(3).write(geometry, buffer);
+      JsonParser parser = buffer.asParser();
+      assertThat(parser.readValueAsTree().toString()).isEqualTo("{\"type\":\"Point\",\"coordinates\":[2.295,48.859]}");
+   }
+
+   @Test
+   void shouldShareWritersPerPrecision() {
+      assertThat(GeometryWriter.of(GeoJsonOptions.FULL_PRECISION)).isSameAs(GeometryWriter.INSTANCE);
+      assertThat(GeometryWriter.of(6)).isSameAs(GeometryWriter.of(6)).extracting(GeometryWriter::getPrecision).isEqualTo(6);
+      assertThrows(IllegalArgumentException.class, () -> GeometryWriter.of(16));
+   }
+
+   private static String write(Geometry geometry) throws IOException {
+      return write(geometry, GeometryWriter.INSTANCE);
+   }
+
+   private static String write(Geometry geometry, GeometryWriter geometryWriter) throws IOException {
+      StringWriter writer = new StringWriter();
+      try (JsonGenerator gen = jsonFactory.createGenerator(writer)) {
+         geometryWriter.write(geometry, gen);
+      }
+      return writer.toString();
+   }
+
+   private static String writeWithGeometrySerializer(Geometry geometry) throws IOException {
+      StringWriter writer = new StringWriter();
+      try (JsonGenerator gen = jsonFactory.createGenerator(writer)) {
+         new GeometrySerializer().serialize(geometry, gen, null);
+      }
+      return writer.toString();
+   }
+}
@@ -0,0 +1,67 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.document.DocumentFactoryException;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link IndexedFeatures}.
+ */
+class IndexedFeaturesTest {
+
+   @Test
+   void shouldQueryInOriginalOrder() throws DocumentFactoryException {
+      List<Place> places = asList(new Place(TestUtils.point(5, 5)), new Place(TestUtils.point(50, 50)), new Place(null),
+         new Place(TestUtils.point(1, 1)), new Place(TestUtils.point(9, 9)));
+      IndexedFeatures<Place> indexed = IndexedFeatures.of(places);
+
+      assertThat(indexed.size()).isEqualTo(5);
+      assertThat(indexed).containsExactlyElementsOf(places);
+      assertThat(indexed.query(new Envelope(0, 10, 0, 10))).containsExactly(places.get(0), places.get(3), places.get(4));
+      assertThat(indexed.query(new Envelope(100, 110, 0, 10))).isEmpty();
+   }
+
+   @Test
+   void shouldIndexByGeometryFunction() {
+      List<Point> points = asList(TestUtils.point(1, 1), TestUtils.point(20, 20));
+      IndexedFeatures<Point> indexed = IndexedFeatures.of(points, point -> point);
+      assertThat(indexed.query(new Envelope(0, 10, 0, 10))).containsExactly(points.get(0));
+   }
+
+   @Test
+   void shouldRejectObjectsNotAnnotatedAsFeature() {
+      IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> IndexedFeatures.of(singletonList("text")));
+      assertThat(exception).hasMessage("Element 0 is not a Feature: text");
+   }
+
+   @Test
+   void shouldTestGeometriesBySpatialFilter() {
+      SpatialFilter filter = SpatialFilter.intersecting(new Envelope(0, 10, 0, 10));
+      assertThat(filter.test(TestUtils.point(10, 10))).isTrue();
+      assertThat(filter.test(TestUtils.point(10.1, 10))).isFalse();
+      assertThat(filter.test(null)).isFalse();
+      assertThat(filter.getEnvelope()).isEqualTo(new Envelope(0, 10, 0, 10));
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   static class Place {
+
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(Geometry location) {
+         this.location = location;
+      }
+   }
+}
@@ -0,0 +1,320 @@
+package ch.cordsen.geojson.serializer;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.annotation.GeoJsonGeometry;
+import ch.cordsen.geojson.annotation.GeoJsonId;
+import ch.cordsen.geojson.annotation.GeoJsonProperty;
+import ch.cordsen.geojson.testsupport.TestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.io.IOException;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link MvtEncoder}, reading the tiles with a minimal <em>Protocol Buffers</em> reader.
+ */
+class MvtEncoderTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+
+   private static ObjectMapper objectMapper;
+
+   @BeforeAll
+   public static void setUp() {
+      objectMapper = new ObjectMapper();
+   }
+
+   @Test
+   void shouldEncodeLayerAndPoint() throws IOException {
+      byte[] tile = new MvtEncoder(objectMapper).encode(new Place(7L, "Null Island", null, TestUtils.point(0, 0)), "places", 0, 0, 0);
+      Message layer = Message.parse(tile).message(3);
+
+      assertThat(layer.varint(15)).isEqualTo(2);
+      assertThat(layer.string(1)).isEqualTo("places");
+      assertThat(layer.varint(5)).isEqualTo(4096);
+      assertThat(layer.strings(3)).containsExactly("name");
+      assertThat(layer.messages(2)).hasSize(1);
+      Message feature = layer.message(2);
+      assertThat(feature.varint(1)).isEqualTo(7);
+      assertThat(feature.varint(3)).isEqualTo(1);
+      assertThat(feature.packed(2)).containsExactly(0L, 0L);
+      assertThat(feature.packed(4)).containsExactly(9L, 4096L, 4096L);
+      assertThat(layer.message(4).string(1)).isEqualTo("Null Island");
+   }
+
+   @Test
+   void shouldDeduplicateKeysAndValues() throws IOException {
+      Places places = new Places(
+         new Place(1L, "A", 1, TestUtils.point(1, 1)),
+         new Place(2L, "A", 2, TestUtils.point(2, 2)),
+         new Place(3L, "B", -1, TestUtils.point(3, 3)));
+      Message layer = Message.parse(new MvtEncoder(objectMapper).encode(places, "places", 0, 0, 0)).message(3);
+
+      assertThat(layer.strings(3)).containsExactly("name", "rank");
+      List<Message> values = layer.messages(4);
+      assertThat(values).hasSize(5);
+      assertThat(values.get(0).string(1)).isEqualTo("A");
+      assertThat(values.get(1).varint(5)).isEqualTo(1);
+      assertThat(values.get(2).varint(5)).isEqualTo(2);
+      assertThat(values.get(3).string(1)).isEqualTo("B");
+      // zigzag encoded -1
+      assertThat(values.get(4).varint(6)).isEqualTo(1);
+      List<Message> features = layer.messages(2);
+      assertThat(features.get(0).packed(2)).containsExactly(0L, 0L, 1L, 1L);
+      assertThat(features.get(1).packed(2)).containsExactly(0L, 0L, 1L, 2L);
+      assertThat(features.get(2).packed(2)).containsExactly(0L, 3L, 1L, 4L);
+   }
+
+   @Test
+   void shouldEncodeMultiPointWithOneCommand() throws IOException, ParseException {
+      Place place = new Place(1L, null, null, wktReader.read("MULTIPOINT ((0 0), (90 0))"));
+      Message feature = Message.parse(new MvtEncoder(objectMapper).encode(place, "places", 0, 0, 0)).message(3).message(2);
+
+      assertThat(feature.packed(4)).containsExactly(17L, 4096L, 4096L, 2048L, 0L);
+   }
+
+   @Test
+   void shouldWindPolygonRings() throws IOException, ParseException {
+      // counter-clockwise exterior, clockwise hole in longitude and latitude
+      Place place = new Place(1L, null, null, wktReader.read(
+         "POLYGON ((-90 -45, 90 -45, 90 45, -90 45, -90 -45), (-45 -20, -45 20, 45 20, 45 -20, -45 -20))"));
+      Message feature = Message.parse(new MvtEncoder(objectMapper).encode(place, "places", 0, 0, 0)).message(3).message(2);
+
+      assertThat(feature.varint(3)).isEqualTo(3);
+      List<List<long[]>> rings = decodeGeometry(feature.packed(4));
+      assertThat(rings).hasSize(2);
+      assertThat(rings.get(0)).hasSize(4);
+      assertThat(area(rings.get(0))).isPositive();
+      assertThat(area(rings.get(1))).isNegative();
+   }
+
+   @Test
+   void shouldClipToBuffer() throws IOException, ParseException {
+      Place place = new Place(1L, null, null, wktReader.read("LINESTRING (-170 10, 170 10)"));
+      Message feature = Message.parse(new MvtEncoder(objectMapper).encode(place, "places", 2, 1, 1)).message(3).message(2);
+
+      assertThat(feature.varint(3)).isEqualTo(2);
+      List<List<long[]>> lines = decodeGeometry(feature.packed(4));
+      assertThat(lines).hasSize(1);
+      assertThat(lines.get(0)).hasSize(2);
+      assertThat(lines.get(0).get(0)[0]).isEqualTo(-64);
+      assertThat(lines.get(0).get(1)[0]).isEqualTo(4160);
+   }
+
+   @Test
+   void shouldSkipFeaturesOutsideTile() throws IOException {
+      Places places = new Places(
+         new Place(1L, "West", 1, TestUtils.point(-100, 10)),
+         new Place(2L, "East", 2, TestUtils.point(100, 10)),
+         new Place(3L, "Nowhere", 3, null));
+      Message layer = Message.parse(new MvtEncoder(objectMapper).encode(places, "places", 1, 0, 0)).message(3);
+
+      assertThat(layer.messages(2)).hasSize(1);
+      assertThat(layer.message(2).varint(1)).isEqualTo(1);
+      assertThat(layer.messages(4)).hasSize(2);
+      assertThat(layer.message(4).string(1)).isEqualTo("West");
+   }
+
+   @Test
+   void shouldEncodeOtherIdsAsProperty() throws IOException {
+      UUID id = UUID.randomUUID();
+      byte[] tile = new MvtEncoder(objectMapper).encodeAll(asList(new Place(id, "A", null, TestUtils.point(1, 1)),
+         new Place(-1L, "B", null, TestUtils.point(1, 1))), "places", 0, 0, 0);
+      Message layer = Message.parse(tile).message(3);
+
+      assertThat(layer.strings(3)).containsExactly("id", "name");
+      List<Message> features = layer.messages(2);
+      assertThat(features.get(0).fields).doesNotContainKey(1);
+      assertThat(layer.messages(4).get(0).string(1)).isEqualTo(id.toString());
+      assertThat(features.get(1).packed(2)).containsExactly(0L, 2L, 1L, 3L);
+   }
+
+   @Test
+   void shouldRejectInvalidArguments() {
+      MvtEncoder encoder = new MvtEncoder(objectMapper);
+      Place place = new Place(1L, null, null, TestUtils.point(0, 0));
+
+      assertThrows(IllegalArgumentException.class, () -> encoder.encode(place, "places", 1, 2, 0));
+      assertThrows(IllegalArgumentException.class, () -> encoder.encode(place, "places", 31, 0, 0));
+      assertThrows(IllegalArgumentException.class, () -> encoder.encode(new Shapes(), "shapes", 0, 0, 0));
+      assertThrows(IllegalArgumentException.class, () -> encoder.withExtent(0));
+      assertThrows(IllegalArgumentException.class, () -> encoder.withBuffer(-1));
+   }
+
+   @Test
+   void shouldUseExtent() throws IOException {
+      MvtEncoder encoder = new MvtEncoder(objectMapper).withExtent(512).withBuffer(0);
+      Message layer = Message.parse(encoder.encode(new Place(7L, null, null, TestUtils.point(0, 0)), "places", 0, 0, 0)).message(3);
+
+      assertThat(encoder.getExtent()).isEqualTo(512);
+      assertThat(encoder.getBuffer()).isZero();
+      assertThat(layer.varint(5)).isEqualTo(512);
+      assertThat(layer.message(2).packed(4)).containsExactly(9L, 512L, 512L);
+   }
+
+   /**
+    * Decodes the commands of a geometry to parts of absolute positions.
+    */
+   private static List<List<long[]>> decodeGeometry(List<Long> commands) {
+      List<List<long[]>> parts = new ArrayList<>();
+      long x = 0;
+      long y = 0;
+      int i = 0;
+      while (i < commands.size()) {
+         int id = (int) (commands.get(i) & 7);
+         int count = (int) (commands.get(i++) >>> 3);
+         if (id == 1) {
+            parts.add(new ArrayList<>());
+         }
+         if (id != 7) {
+            for (int n = 0; n < count; n++) {
+               x += zigzag(commands.get(i++));
+               y += zigzag(commands.get(i++));
+               parts.get(parts.size() - 1).add(new long[]{x, y});
+            }
+         }
+      }
+      return parts;
+   }
+
+   private static long zigzag(long value) {
+      return value >>> 1 ^ -(value & 1);
+   }
+
+   private static long area(List<long[]> ring) {
+      long area = 0;
+      for (int i = 0; i < ring.size(); i++) {
+         long[] a = ring.get(i);
+         long[] b = ring.get((i + 1) % ring.size());
+         area += a[0] * b[1] - b[0] * a[1];
+      }
+      return area;
+   }
+
+   private static final class Message {
+
+      private final Map<Integer, List<Object>> fields = new HashMap<>();
+
+      static Message parse(byte[] bytes) {
+         Message message = new Message();
+         int[] position = {0};
+         while (position[0] < bytes.length) {
+            long tag = varint(bytes, position);
+            Object value;
+            switch ((int) (tag & 7)) {
+               case 0:
+                  value = varint(bytes, position);
+                  break;
+               case 1:
+                  value = Arrays.copyOfRange(bytes, position[0], position[0] += 8);
+                  break;
+               case 2:
+                  int length = (int) varint(bytes, position);
+                  value = Arrays.copyOfRange(bytes, position[0], position[0] += length);
+                  break;
+               case 5:
+                  value = Arrays.copyOfRange(bytes, position[0], position[0] += 4);
+                  break;
+               default:
+                  throw new IllegalStateException("Wire type " + (tag & 7));
+            }
+            message.fields.computeIfAbsent((int) (tag >>> 3), k -> new ArrayList<>()).add(value);
+         }
+         return message;
+      }
+
+      long varint(int field) {
+         return (Long) fields.get(field).get(0);
+      }
+
+      String string(int field) {
+         return strings(field).get(0);
+      }
+
+      List<String> strings(int field) {
+         List<String> strings = new ArrayList<>();
+         for (Object value : fields.getOrDefault(field, Collections.emptyList())) {
+            strings.add(new String((byte[]) value, UTF_8));
+         }
+         return strings;
+      }
+
+      Message message(int field) {
+         return messages(field).get(0);
+      }
+
+      List<Message> messages(int field) {
+         List<Message> messages = new ArrayList<>();
+         for (Object value : fields.getOrDefault(field, Collections.emptyList())) {
+            messages.add(parse((byte[]) value));
+         }
+         return messages;
+      }
+
+      List<Long> packed(int field) {
+         byte[] bytes = (byte[]) fields.get(field).get(0);
+         List<Long> values = new ArrayList<>();
+         int[] position = {0};
+         while (position[0] < bytes.length) {
+            values.add(varint(bytes, position));
+         }
+         return values;
+      }
+
+      private static long varint(byte[] bytes, int[] position) {
+         long value = 0;
+         int shift = 0;
+         byte b;
+         do {
+            b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+         } while (b < 0);
+         return value;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE)
+   static class Place {
+
+      @GeoJsonId private final Object id;
+      @GeoJsonProperty private final String name;
+      @GeoJsonProperty private final Integer rank;
+      @GeoJsonGeometry private final Geometry location;
+
+      Place(Object id, String name, Integer rank, Geometry location) {
+         this.id = id;
+         this.name = name;
+         this.rank = rank;
+         this.location = location;
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+   static class Places {
+
+      @GeoJsonFeatures private final List<Place> places;
+
+      Places(Place... places) {
+         this.places = asList(places);
+      }
+   }
+
+   @GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+   static class Shapes {
+
+      @GeoJsonGeometries private final List<Geometry> shapes = Collections.singletonList(TestUtils.point(1, 2));
+   }
+}
@@ -0,0 +1,93 @@
+package ch.cordsen.geojson.serializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PackedRTree}.
+ */
+class PackedRTreeTest {
+
+   @Test
+   void shouldCalculateLevelBounds() {
+      assertThat(PackedRTree.levelBounds(1, 16)).isEqualTo(new int[][]{{1, 2}, {0, 1}});
+      assertThat(PackedRTree.levelBounds(16, 16)).isEqualTo(new int[][]{{1, 17}, {0, 1}});
+      assertThat(PackedRTree.levelBounds(17, 16)).isEqualTo(new int[][]{{3, 20}, {1, 3}, {0, 1}});
+      assertThat(PackedRTree.levelBounds(300, 16)).isEqualTo(new int[][]{{22, 322}, {3, 22}, {1, 3}, {0, 1}});
+   }
+
+   @Test
+   void shouldFollowHilbertCurve() {
+      // the cells of the first 4 x 4 block are the first 16 positions, each one next to its predecessor
+      int[][] cells = new int[16][];
+      for (int x = 0; x < 4; x++) {
+         for (int y = 0; y < 4; y++) {
+            int position = PackedRTree.hilbert(x, y);
+            assertThat(position).isBetween(0, 15);
+            assertThat(cells[position]).isNull();
+            cells[position] = new int[]{x, y};
+         }
+      }
+      for (int i = 1; i < cells.length; i++) {
+         assertThat(Math.abs(cells[i][0] - cells[i - 1][0]) + Math.abs(cells[i][1] - cells[i - 1][1])).isEqualTo(1);
+      }
+      assertThat(PackedRTree.hilbert(0, 0)).isZero();
+      assertThat(Integer.toUnsignedLong(PackedRTree.hilbert(0xFFFF, 0))).isEqualTo(0xFFFF_FFFFL);
+   }
+
+   @Test
+   void shouldSortByHilbertValue() {
+      double[] bounds = {10, 10, 10, 10, 0, 0, 1, 1, 0, 9, 1, 10, 9, 0, 10, 1};
+      int[] order = PackedRTree.hilbertSort(bounds, 4, new double[]{0, 0, 10, 10});
+      Set<Integer> items = new HashSet<>();
+      for (int item : order) {
+         items.add(item);
+      }
+      assertThat(items).containsExactlyInAnyOrder(0, 1, 2, 3);
+      // the curve starts at the origin and ends at the lower right corner
+      assertThat(order[0]).isEqualTo(1);
+      assertThat(order[3]).isEqualTo(3);
+   }
+
+   @Test
+   void shouldBuildNodes() throws IOException {
+      int count = 5;
+      double[] leafBounds = new double[count * 4];
+      long[] leafOffsets = new long[count];
+      for (int i = 0; i < count; i++) {
+         leafBounds[i * 4] = i;
+         leafBounds[i * 4 + 1] = -i;
+         leafBounds[i * 4 + 2] = i + 1;
+         leafBounds[i * 4 + 3] = -i + 1;
+         leafOffsets[i] = i * 100L;
+      }
+      PackedRTree tree = new PackedRTree(leafBounds, leafOffsets, count, 2);
+      // 5 leaves, 3, 2 and 1 nodes
+      assertThat(tree.nodeCount()).isEqualTo(11);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      tree.writeTo(out);
+      ByteBuffer nodes = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+      assertThat(nodes.limit()).isEqualTo(11 * PackedRTree.NODE_SIZE);
+      // the root covers all and references its first child
+      assertThat(node(nodes, 0)).containsExactly(0, -4, 5, 1, 1);
+      assertThat(node(nodes, 1)).containsExactly(0, -3, 4, 1, 3);
+      assertThat(node(nodes, 2)).containsExactly(4, -4, 5, -3, 5);
+      assertThat(node(nodes, 3)).containsExactly(0, -1, 2, 1, 6);
+      assertThat(node(nodes, 5)).containsExactly(4, -4, 5, -3, 10);
+      assertThat(node(nodes, 10)).containsExactly(4, -4, 5, -3, 400);
+   }
+
+   private static double[] node(ByteBuffer nodes, int node) {
+      int position = node * PackedRTree.NODE_SIZE;
+      return new double[]{nodes.getDouble(position), nodes.getDouble(position + 8), nodes.getDouble(position + 16),
+         nodes.getDouble(position + 24), nodes.getLong(position + 32)};
+   }
+}
@@ -0,0 +1,72 @@
+package ch.cordsen.geojson.serializer;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ByteOrderValues;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.WKTReader;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link Wkb}.
+ */
+class WkbTest {
+
+   private static final WKTReader wktReader = new WKTReader();
+
+   @Test
+   void shouldReadHeaderOfWkb() throws ParseException {
+      ByteBuffer wkb = ByteBuffer.wrap(new WKBWriter().write(wktReader.read("LINESTRING (1 2, 3 4)")));
+      int header = Wkb.readHeader(wkb);
+      assertThat(Wkb.type(header)).isEqualTo(Wkb.LINE_STRING);
+      assertThat(Wkb.hasZ(header)).isFalse();
+      assertThat(Wkb.dimension(header)).isEqualTo(2);
+      assertThat(wkb.getInt()).isEqualTo(2);
+   }
+
+   @Test
+   void shouldReadHeaderOfEwkbWithSrid() throws ParseException {
+      Geometry geometry = wktReader.read("POINT Z (1 2 3)");
+      geometry.setSRID(2056);
+      ByteBuffer wkb = ByteBuffer.wrap(new WKBWriter(3, ByteOrderValues.LITTLE_ENDIAN, true).write(geometry));
+      int header = Wkb.readHeader(wkb);
+      assertThat(Wkb.type(header)).isEqualTo(Wkb.POINT);
+      assertThat(Wkb.hasZ(header)).isTrue();
+      assertThat(Wkb.dimension(header)).isEqualTo(3);
+      assertThat(wkb.getDouble()).isEqualTo(1);
+   }
+
+   @Test
+   void shouldReadHeaderOfIsoWkb() {
+      // 2006 is MULTIPOLYGON M, 3007 is GEOMETRYCOLLECTION ZM
+      int header = Wkb.readHeader(ByteBuffer.wrap(new byte[] {0, 0, 0, 0x07, (byte) 0xd6}));
+      assertThat(Wkb.type(header)).isEqualTo(Wkb.MULTI_POLYGON);
+      assertThat(Wkb.hasZ(header)).isFalse();
+      assertThat(Wkb.dimension(header)).isEqualTo(3);
+      assertThat(Wkb.dimension(Wkb.readHeader(ByteBuffer.wrap(new byte[] {0, 0, 0, 0x0b, (byte) 0xbf})))).isEqualTo(4);
+   }
+
+   @Test
+   void shouldRejectInvalidHeader() {
+      IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> Wkb.readHeader(ByteBuffer.wrap(new byte[] {2})));
+      assertThat(exception).hasMessage("Unknown byte order: 2");
+      exception = assertThrows(IllegalArgumentException.class, () -> Wkb.readHeader(ByteBuffer.wrap(new byte[] {1, 8, 0, 0, 0})));
+      assertThat(exception).hasMessage("Unknown geometry type: 8");
+   }
+
+   @Test
+   void shouldCountPoints() throws ParseException {
+      for (String wkt : new String[] {"POINT (1 2)", "LINESTRING Z (1 2 3, 4 5 6)", "POLYGON ((0 0, 1 0, 1 1, 0 0), (0.2 0.1, 0.8 0.1, 0.8 0.7, 0.2 0.1))",
+         "GEOMETRYCOLLECTION (MULTIPOINT ((1 2), (3 4)), MULTILINESTRING ((1 2, 3 4)))"}) {
+         Geometry geometry = wktReader.read(wkt);
+         ByteBuffer wkb = ByteBuffer.wrap(new WKBWriter(3).write(geometry));
+         assertThat(Wkb.numPoints(wkb)).as(wkt).isEqualTo(geometry.getNumPoints());
+         assertThat(wkb.position()).isZero();
+      }
+   }
+}
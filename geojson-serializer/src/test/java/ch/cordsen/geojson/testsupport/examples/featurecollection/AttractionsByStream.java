@@ -0,0 +1,44 @@
+package ch.cordsen.geojson.testsupport.examples.featurecollection;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonFeatures;
+import ch.cordsen.geojson.serializer.GeoJsonSerializer;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import ch.cordsen.geojson.testsupport.examples.feature.AttractionByField;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Class with correct annotations.
+ * <p>This class demonstrates a <em>FeatureCollection</em> based on a getter returning a {@link Stream},
+ * like a cursor of a database query. The stream is closed after serialization.
+ */
+@GeoJson(type = GeoJsonType.FEATURE_COLLECTION)
+@JsonSerialize(using = GeoJsonSerializer.class)
+public class AttractionsByStream {
+
+   private final List<AttractionByField> attractions = new ArrayList<>();
+   private boolean closed;
+
+   public void add(AttractionByField attraction) {
+      this.attractions.add(attraction);
+   }
+
+   @GeoJsonFeatures
+   public Stream<AttractionByField> getAttractions() {
+      return attractions.stream().onClose(() -> closed = true);
+   }
+
+   public boolean isClosed() {
+      return closed;
+   }
+
+   @Override public String toString() {
+      return "AttractionsByStream{" +
+         "attractions=" + attractions +
+         '}';
+   }
+}
@@ -0,0 +1,38 @@
+package ch.cordsen.geojson.testsupport.examples.geometrycollection;
+
+import ch.cordsen.geojson.annotation.GeoJson;
+import ch.cordsen.geojson.annotation.GeoJsonGeometries;
+import ch.cordsen.geojson.serializer.GeoJsonSerializer;
+import ch.cordsen.geojson.serializer.GeoJsonType;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.locationtech.jts.geom.Geometry;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Class with correct annotations.
+ * <p>This class demonstrates a <em>GeometryCollection</em> based on a getter returning an {@link Iterator}.
+ */
+@GeoJson(type = GeoJsonType.GEOMETRY_COLLECTION)
+@JsonSerialize(using = GeoJsonSerializer.class)
+public class RouteByIterator {
+
+   private final List<Geometry> list = new ArrayList<>();
+
+   public void add(Geometry geometry) {
+      list.add(geometry);
+   }
+
+   @GeoJsonGeometries
+   public Iterator<Geometry> getGeometries() {
+      return list.iterator();
+   }
+
+   @Override public String toString() {
+      return "RouteByIterator{" +
+         "list=" + list +
+         '}';
+   }
+}